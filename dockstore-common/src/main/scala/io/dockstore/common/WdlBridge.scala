@@ -2,6 +2,8 @@ package io.dockstore.common
 
 
 import cats.syntax.validated._
+import com.google.common.cache.{Cache, CacheBuilder}
+import com.google.common.hash.Hashing
 import com.typesafe.config.ConfigFactory
 import common.Checked
 import common.validation.Checked._
@@ -29,9 +31,11 @@ import wom.expression.WomExpression
 import wom.graph._
 import wom.types.{WomCompositeType, WomOptionalType, WomType}
 
+import java.nio.charset.StandardCharsets
 import java.nio.file.{Files, Paths}
 import java.util
 import java.util.Optional
+import java.util.concurrent.TimeUnit
 import scala.collection.JavaConverters
 import scala.collection.JavaConverters._
 import scala.util.Try
@@ -62,9 +66,21 @@ class WdlBridge {
     * @param filePath absolute path to file
     */
   @throws(classOf[WdlParser.SyntaxError])
-  def validateWorkflow(filePath: String, sourceFilePath: String) = {
-    val bundle = getBundle(filePath, sourceFilePath)
+  def validateWorkflow(filePath: String, sourceFilePath: String): Unit = {
+    validateWorkflow(getBundle(filePath, sourceFilePath))
+  }
 
+  /**
+    * Validates the workflow given by its content, parsed in memory
+    * @param content content of the primary descriptor
+    * @param sourceFilePath the path of the primary descriptor, imports are resolved relative to it
+    */
+  @throws(classOf[WdlParser.SyntaxError])
+  def validateWorkflowFromContent(content: String, sourceFilePath: String): Unit = {
+    validateWorkflow(getBundleFromMemory(content, sourceFilePath))
+  }
+
+  private def validateWorkflow(bundle: WomBundle): Unit = {
     if (!bundle.primaryCallable.isDefined) {
       throw new WdlParser.SyntaxError("This file is missing a workflow declaration.")
     }
@@ -75,9 +91,23 @@ class WdlBridge {
     * @param filePath absolute path to file
     */
   @throws(classOf[WdlParser.SyntaxError])
-  def validateTool(filePath: String, sourceFilePath: String) = {
-    validateWorkflow(filePath, sourceFilePath)
-    val executableCallable = convertFilePathToExecutableCallable(filePath, sourceFilePath)
+  def validateTool(filePath: String, sourceFilePath: String): Unit = {
+    validateTool(getBundle(filePath, sourceFilePath))
+  }
+
+  /**
+    * Validates the tool given by its content, parsed in memory
+    * @param content content of the primary descriptor
+    * @param sourceFilePath the path of the primary descriptor, imports are resolved relative to it
+    */
+  @throws(classOf[WdlParser.SyntaxError])
+  def validateToolFromContent(content: String, sourceFilePath: String): Unit = {
+    validateTool(getBundleFromMemory(content, sourceFilePath))
+  }
+
+  private def validateTool(bundle: WomBundle): Unit = {
+    validateWorkflow(bundle)
+    val executableCallable = convertBundleToExecutableCallable(bundle)
     val numberOfTaskCalls = executableCallable.taskCallNodes.seq.size
 
     if (numberOfTaskCalls > 1) {
@@ -100,8 +130,23 @@ class WdlBridge {
     * @return list of metadata mappings
     */
   @throws(classOf[WdlParser.SyntaxError])
-  def getMetadata(filePath: String, sourceFilePath: String) = {
-    val bundle = getBundle(filePath, sourceFilePath)
+  def getMetadata(filePath: String, sourceFilePath: String): util.ArrayList[util.Map[String, String]] = {
+    getMetadata(getBundle(filePath, sourceFilePath))
+  }
+
+  /**
+    * Retrieves the metadata object for a given workflow content, parsed in memory
+    * @param content content of the primary descriptor
+    * @param sourceFilePath the path of the primary descriptor, imports are resolved relative to it
+    * @throws wdl.draft3.parser.WdlParser.SyntaxError
+    * @return list of metadata mappings
+    */
+  @throws(classOf[WdlParser.SyntaxError])
+  def getMetadataFromContent(content: String, sourceFilePath: String): util.ArrayList[util.Map[String, String]] = {
+    getMetadata(getBundleFromMemory(content, sourceFilePath))
+  }
+
+  private def getMetadata(bundle: WomBundle): util.ArrayList[util.Map[String, String]] = {
     val metadataList = new util.ArrayList[util.Map[String, String]]()
     bundle.allCallables.foreach(callable => {
       callable._2 match {
@@ -193,8 +238,21 @@ class WdlBridge {
     * @return map of call names to import path
     */
   def getImportMap(filePath: String, sourceFilePath: String): util.LinkedHashMap[String, String] = {
+    getImportMap(convertFilePathToExecutableCallable(filePath, sourceFilePath))
+  }
+
+  /**
+    * Create a mapping of import namespace to uri for the given content, parsed in memory
+    * @param content content of the primary descriptor
+    * @param sourceFilePath the path of the primary descriptor, imports are resolved relative to it
+    * @return map of call names to import path
+    */
+  def getImportMapFromContent(content: String, sourceFilePath: String): util.LinkedHashMap[String, String] = {
+    getImportMap(convertBundleToExecutableCallable(getBundleFromMemory(content, sourceFilePath)))
+  }
+
+  private def getImportMap(executableCallable: ExecutableCallable): util.LinkedHashMap[String, String] = {
     val importMap = new util.LinkedHashMap[String, String]()
-    val executableCallable = convertFilePathToExecutableCallable(filePath, sourceFilePath)
     executableCallable.taskCallNodes
       .foreach(call => {
         val callName = call.identifier.localName.value
@@ -210,8 +268,21 @@ class WdlBridge {
     * @return mapping of call to a list of dependencies
     */
   def getCallsToDependencies(filePath: String, sourceFilePath: String): util.LinkedHashMap[String, util.List[String]] = {
+    getCallsToDependencies(convertFilePathToExecutableCallable(filePath, sourceFilePath))
+  }
+
+  /**
+    * Create a mapping of calls to dependencies for the given content, parsed in memory
+    * @param content content of the primary descriptor
+    * @param sourceFilePath the path of the primary descriptor, imports are resolved relative to it
+    * @return mapping of call to a list of dependencies
+    */
+  def getCallsToDependenciesFromContent(content: String, sourceFilePath: String): util.LinkedHashMap[String, util.List[String]] = {
+    getCallsToDependencies(convertBundleToExecutableCallable(getBundleFromMemory(content, sourceFilePath)))
+  }
+
+  private def getCallsToDependencies(executableCallable: ExecutableCallable): util.LinkedHashMap[String, util.List[String]] = {
     val dependencyMap = new util.LinkedHashMap[String, util.List[String]]()
-    val executableCallable = convertFilePathToExecutableCallable(filePath, sourceFilePath)
 
     executableCallable.taskCallNodes
       .foreach(call => {
@@ -257,6 +328,17 @@ class WdlBridge {
     getCallsToDockerMap(executableCallable)
   }
 
+  /**
+    * Create a mapping of calls to docker images for the given content, parsed in memory
+    * @param content content of the primary descriptor
+    * @param sourceFilePath the path of the primary descriptor, imports are resolved relative to it
+    * @return mapping of call names to docker
+    */
+  @throws(classOf[WdlParser.SyntaxError])
+  def getCallsToDockerMapFromContent(content: String, sourceFilePath: String): util.LinkedHashMap[String, DockerParameter] = {
+    getCallsToDockerMap(convertBundleToExecutableCallable(getBundleFromMemory(content, sourceFilePath)))
+  }
+
 
   def getCallsToDockerMap(executableCallable: ExecutableCallable) = {
 
@@ -370,13 +452,38 @@ class WdlBridge {
     * @return WomBundle
     */
   def getBundleFromContent(content: String, filePath: String, sourceFilePath: String): WomBundle = {
-    val factory = getLanguageFactory(content)
     val filePathObj = DefaultPathBuilder.build(filePath).get
     // Resolve from mapping, local filesystem, or http import
     val mapResolver = MapResolver(sourceFilePath)
     mapResolver.setSecondaryFiles(secondaryWdlFiles)
     lazy val importResolvers: List[ImportResolver] =
       DirectoryResolver.localFilesystemResolvers(Some(filePathObj)) :+ HttpResolver(relativeTo = None) :+ mapResolver
+    parseBundle(content, importResolvers)
+  }
+
+  /**
+    * Get the WomBundle for a workflow without touching the local filesystem
+    * Imports are resolved from the secondary files or over http. A parsed bundle is shared with any later request
+    * for the same content, source file path and secondary files. Syntax errors are not kept, they may come from an
+    * http import that is briefly unavailable.
+    * @param content content of the primary descriptor
+    * @param sourceFilePath the path of the primary descriptor, imports are resolved relative to it
+    * @return WomBundle
+    */
+  @throws(classOf[WdlParser.SyntaxError])
+  def getBundleFromMemory(content: String, sourceFilePath: String): WomBundle = {
+    val key = WdlBridge.bundleKey(content, sourceFilePath, secondaryWdlFiles)
+    Option(WdlBridge.bundleCache.getIfPresent(key)).getOrElse {
+      val mapResolver = MapResolver(sourceFilePath)
+      mapResolver.setSecondaryFiles(secondaryWdlFiles)
+      val bundle = parseBundle(content, List(HttpResolver(relativeTo = None), mapResolver))
+      WdlBridge.bundleCache.put(key, bundle)
+      bundle
+    }
+  }
+
+  private def parseBundle(content: String, importResolvers: => List[ImportResolver]): WomBundle = {
+    val factory = getLanguageFactory(content)
     try {
       val bundle = factory.getWomBundle(content, workflowSourceOrigin = None,  "{}", importResolvers, List(factory))
       if (bundle.isRight) {
@@ -422,8 +529,16 @@ class WdlBridge {
     * @return Optional string containing the first line of code in the file
     */
   def getFirstCodeLine(descriptorFilePath: String): Optional[String] = {
+    getFirstCodeLineFromContent(readFile(descriptorFilePath))
+  }
+
+  /**
+    * Get the the first non comment line in the given content
+    * @param content content of the descriptor
+    * @return Optional string containing the first line of code in the content
+    */
+  def getFirstCodeLineFromContent(content: String): Optional[String] = {
     val commentIndicators = List("#")
-    val content = readFile(descriptorFilePath)
     val fileWithoutInitialWhitespace = content.linesIterator.toList.dropWhile { l =>
       l.forall(_.isWhitespace) || commentIndicators.exists(l.dropWhile(_.isWhitespace).startsWith(_))
     }
@@ -435,6 +550,36 @@ class WdlBridge {
 
 object WdlBridge {
   val logger = LoggerFactory.getLogger(WdlBridge.getClass)
+  private val BundleCacheSize = 200
+  private val BundleCacheExpiryHours = 1
+
+  /**
+    * Parsed bundles keyed by a hash of everything the parse depends on.
+    * Imports resolved over http are read again at most an hour after they were cached, however often the entry is used.
+    */
+  private val bundleCache: Cache[String, WomBundle] = CacheBuilder.newBuilder()
+    .maximumSize(BundleCacheSize)
+    .expireAfterWrite(BundleCacheExpiryHours, TimeUnit.HOURS)
+    .build[String, WomBundle]()
+
+  private[common] def bundleKey(content: String, sourceFilePath: String, secondaryFiles: util.Map[String, String]): String = {
+    val hasher = Hashing.sha256().newHasher()
+    // length prefixed, so that moving text between fields changes the key
+    def putString(value: String): Unit = {
+      if (value == null) {
+        hasher.putInt(-1)
+      } else {
+        hasher.putInt(value.length).putString(value, StandardCharsets.UTF_8)
+      }
+    }
+    putString(content)
+    putString(sourceFilePath)
+    secondaryFiles.asScala.toSeq.sortBy(_._1).foreach { case (path, fileContent) =>
+      putString(path)
+      putString(fileContent)
+    }
+    hasher.hash().toString
+  }
 }
 
 /**
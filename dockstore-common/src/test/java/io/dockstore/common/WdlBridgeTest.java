@@ -1,10 +1,13 @@
 package io.dockstore.common;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import io.dropwizard.testing.FixtureHelpers;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 import org.junit.Assert;
 import org.junit.Test;
@@ -45,6 +48,18 @@ public class WdlBridgeTest {
         return callsToDockerMap;
     }
 
+    @Test
+    public void testBundleFromMemoryIsReused() throws WdlParser.SyntaxError {
+        WdlBridge wdlBridge = new WdlBridge();
+        final WomBundle first = wdlBridge.getBundleFromMemory(DOCKER_IMAGES_WDL_10, "/dockerImages10.wdl");
+        assertSame("Unchanged content should not be parsed again", first, new WdlBridge().getBundleFromMemory(DOCKER_IMAGES_WDL_10, "/dockerImages10.wdl"));
+
+        HashMap<String, String> secondaryFiles = new HashMap<>();
+        secondaryFiles.put("/unused.wdl", "version 1.0");
+        wdlBridge.setSecondaryFiles(secondaryFiles);
+        assertNotSame("Secondary files are part of the key", first, wdlBridge.getBundleFromMemory(DOCKER_IMAGES_WDL_10, "/dockerImages10.wdl"));
+    }
+
     @Test
     public void testBooleanMetadata() throws WdlParser.SyntaxError {
         WdlBridge wdlBridge = new WdlBridge();
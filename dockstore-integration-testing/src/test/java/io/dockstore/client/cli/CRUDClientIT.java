@@ -327,6 +327,40 @@ public class CRUDClientIT extends BaseIT {
         assertEquals(absPathTest, absolutePath);
     }
 
+    @Test
+    public void testRevisionsOnlyStoreChangedContent() throws IOException {
+        HostedApi api = new HostedApi(getWebClient(ADMIN_USERNAME, testingPostgres));
+        Workflow hostedWorkflow = api.createHostedWorkflow("awesomeTool", null, CWL.getShortName(), null, null);
+        SourceFile file = new SourceFile();
+        file.setContent(FileUtils.readFileToString(new File(ResourceHelpers.resourceFilePath("1st-workflow.cwl")), StandardCharsets.UTF_8));
+        file.setType(SourceFile.TypeEnum.DOCKSTORE_CWL);
+        file.setPath("/Dockstore.cwl");
+        file.setAbsolutePath("/Dockstore.cwl");
+        SourceFile file2 = new SourceFile();
+        file2.setContent(FileUtils.readFileToString(new File(ResourceHelpers.resourceFilePath("arguments.cwl")), StandardCharsets.UTF_8));
+        file2.setType(SourceFile.TypeEnum.DOCKSTORE_CWL);
+        file2.setPath("/arguments.cwl");
+        file2.setAbsolutePath("/arguments.cwl");
+        api.editHostedWorkflow(hostedWorkflow.getId(), Lists.newArrayList(file, file2));
+        final long contentCount = testingPostgres.runSelectStatement("select count(*) from sourcefile_content", long.class);
+        final long fileCount = testingPostgres.runSelectStatement("select count(*) from sourcefile", long.class);
+
+        // change one file, the other is carried over
+        file2.setContent(file2.getContent() + System.lineSeparator() + "# changed in the second revision");
+        api.editHostedWorkflow(hostedWorkflow.getId(), Lists.newArrayList(file2));
+
+        assertEquals("only the changed file adds content", contentCount + 1,
+            (long)testingPostgres.runSelectStatement("select count(*) from sourcefile_content", long.class));
+        assertEquals("each revision still has its own file rows", fileCount + 2,
+            (long)testingPostgres.runSelectStatement("select count(*) from sourcefile", long.class));
+        final String unchangedContent = "select count(distinct sf.contentsha256) from sourcefile sf "
+            + "join version_sourcefile vs on vs.sourcefileid = sf.id "
+            + "join workflowversion wv on wv.id = vs.versionid "
+            + "where sf.path = '/Dockstore.cwl' and wv.parentid = " + hostedWorkflow.getId();
+        assertEquals("the unchanged file of both revisions points at the same content", 1L,
+            (long)testingPostgres.runSelectStatement(unchangedContent, long.class));
+    }
+
     @Test
     public void testDeletingFrozenVersion() throws IOException {
         HostedApi api = new HostedApi(getWebClient(ADMIN_USERNAME, testingPostgres));
@@ -688,12 +688,20 @@ public class GeneralWorkflowIT extends BaseIT {
         // cannot modify sourcefiles for a frozen version
         List<io.dockstore.webservice.core.SourceFile> sourceFiles = fileDAO.findSourceFilesByVersion(master.getId());
         assertFalse(sourceFiles.isEmpty());
+        final String fooSha256 = "encode(sha256(convert_to('foo', 'UTF8')), 'hex')";
+        testingPostgres.runUpdateStatement("insert into sourcefile_content (sha256, content) values (" + fooSha256 + ", 'foo') on conflict do nothing");
         sourceFiles.forEach(s -> {
             assertTrue(s.isFrozen());
-            testingPostgres.runUpdateStatement("update sourcefile set content = 'foo' where id = " + s.getId());
-            final String content = testingPostgres
-                .runSelectStatement("select content from sourcefile where id = " + s.getId(), String.class);
+            assertEquals(0, testingPostgres.runUpdateStatement("update sourcefile set contentsha256 = " + fooSha256 + " where id = " + s.getId()));
+            final String contentQuery = "select c.content from sourcefile sf join sourcefile_content c on c.sha256 = sf.contentsha256 where sf.id = " + s.getId();
+            final String content = testingPostgres.runSelectStatement(contentQuery, String.class);
             assertNotEquals("foo", content);
+
+            // the content is shared with every other file that has the same SHA-256, it can be neither changed nor deleted
+            final String contentSha256 = "(select contentsha256 from sourcefile where id = " + s.getId() + ")";
+            assertEquals(0, testingPostgres.runUpdateStatement("update sourcefile_content set content = 'foo' where sha256 = " + contentSha256));
+            assertEquals(0, testingPostgres.runUpdateStatement("delete from sourcefile_content where sha256 = " + contentSha256));
+            assertEquals(content, testingPostgres.runSelectStatement(contentQuery, String.class));
         });
 
         // try deleting a row join table
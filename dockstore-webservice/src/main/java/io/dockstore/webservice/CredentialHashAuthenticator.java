@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.dockstore.webservice;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.dockstore.webservice.core.User;
+import io.dropwizard.auth.AuthenticationException;
+import io.dropwizard.auth.Authenticator;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the results of another authenticator by a SHA-256 hash of the credentials, so that bearer tokens are never kept as cache keys.
+ *
+ * Users are cached according to the authentication cache policy. Credentials that the wrapped authenticator rejects are also cached,
+ * briefly, so that a client repeating an invalid or expired token does not reach the database and Google on every request. Credentials
+ * that could not be checked, e.g., because Google was unreachable, are not cached, and the failure is passed on, as it was by the
+ * CachingAuthenticator this replaces. Lookups and cache misses are recorded under the same metric names it used.
+ */
+public class CredentialHashAuthenticator implements Authenticator<String, User> {
+    private final Authenticator<String, User> authenticator;
+    private final Cache<HashCode, User> users;
+    private final Cache<HashCode, Boolean> rejected;
+    private final Meter cacheMisses;
+    private final Timer gets;
+    /**
+     * Incremented on every invalidation, so that an authentication that raced with, e.g., a ban does not cache the user it read before it
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    public CredentialHashAuthenticator(MetricRegistry metricRegistry, Authenticator<String, User> authenticator, CaffeineSpec cachePolicy,
+        CaffeineSpec rejectedCachePolicy) {
+        this.authenticator = authenticator;
+        this.cacheMisses = metricRegistry.meter(name(authenticator.getClass(), "cache-misses"));
+        this.gets = metricRegistry.timer(name(authenticator.getClass(), "gets"));
+        this.users = Caffeine.from(cachePolicy).build();
+        this.rejected = Caffeine.from(rejectedCachePolicy).build();
+    }
+
+    @Override
+    public Optional<User> authenticate(String credentials) throws AuthenticationException {
+        try (Timer.Context context = gets.time()) {
+            final HashCode key = hash(credentials);
+            final User cachedUser = users.getIfPresent(key);
+            if (cachedUser != null) {
+                return Optional.of(cachedUser);
+            }
+            if (rejected.getIfPresent(key) != null) {
+                return Optional.empty();
+            }
+            cacheMisses.mark();
+            final long authenticationGeneration = generation.get();
+            // a failure to check the credentials is thrown before anything is cached
+            final Optional<User> user = authenticator.authenticate(credentials);
+            if (generation.get() == authenticationGeneration) {
+                if (user.isPresent()) {
+                    users.put(key, user.get());
+                } else {
+                    rejected.put(key, Boolean.TRUE);
+                }
+            }
+            return user;
+        }
+    }
+
+    /**
+     * Forgets the result for some credentials, e.g., when a token is deleted or its user changes
+     * @param credentials
+     */
+    public void invalidate(String credentials) {
+        generation.incrementAndGet();
+        final HashCode key = hash(credentials);
+        users.invalidate(key);
+        rejected.invalidate(key);
+    }
+
+    /**
+     * Forgets a user for all credentials, including Google tokens, which are not stored. Rejected credentials are not tied to a user,
+     * e.g., a banned user's tokens, so they are all forgotten too.
+     * @param userId
+     */
+    public void invalidateUser(long userId) {
+        generation.incrementAndGet();
+        users.asMap().values().removeIf(user -> user.getId() == userId);
+        rejected.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        users.invalidateAll();
+        rejected.invalidateAll();
+    }
+
+    private static HashCode hash(String credentials) {
+        return Hashing.sha256().hashString(credentials, StandardCharsets.UTF_8);
+    }
+}
@@ -130,6 +130,12 @@ public class DockstoreWebserviceConfiguration extends Configuration {
     @NotNull
     private CaffeineSpec authenticationCachePolicy;
 
+    /**
+     * How long credentials that failed to authenticate are remembered
+     */
+    @NotNull
+    private CaffeineSpec rejectedAuthenticationCachePolicy = CaffeineSpec.parse("maximumSize=10000, expireAfterWrite=30s");
+
     private String languagePluginLocation;
 
     private String sqsURL;
@@ -142,6 +148,12 @@ public class DockstoreWebserviceConfiguration extends Configuration {
 
     private String dashboard = "dashboard.dockstore.org";
 
+    /**
+     * TRS tool listings with a page size at least this large are streamed rather than built in memory. Streamed pages are not cached.
+     * When not set, nothing is streamed.
+     */
+    private Integer streamingPageSizeThreshold = null;
+
     @Valid
     @NotNull
     private UIConfig uiConfig;
@@ -314,6 +326,14 @@ public class DockstoreWebserviceConfiguration extends Configuration {
         this.authenticationCachePolicy = authenticationCachePolicy;
     }
 
+    public CaffeineSpec getRejectedAuthenticationCachePolicy() {
+        return rejectedAuthenticationCachePolicy;
+    }
+
+    public void setRejectedAuthenticationCachePolicy(CaffeineSpec rejectedAuthenticationCachePolicy) {
+        this.rejectedAuthenticationCachePolicy = rejectedAuthenticationCachePolicy;
+    }
+
     public String getGitlabClientID() {
         return gitlabClientID;
     }
@@ -512,6 +532,15 @@ public class DockstoreWebserviceConfiguration extends Configuration {
         this.dashboard = dashboard;
     }
 
+    @JsonProperty
+    public Integer getStreamingPageSizeThreshold() {
+        return streamingPageSizeThreshold;
+    }
+
+    public void setStreamingPageSizeThreshold(Integer streamingPageSizeThreshold) {
+        this.streamingPageSizeThreshold = streamingPageSizeThreshold;
+    }
+
     @JsonProperty
     public LimitConfig getLimitConfig() {
         return limitConfig;
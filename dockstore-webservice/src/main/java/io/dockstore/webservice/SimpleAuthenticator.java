@@ -22,8 +22,10 @@ import io.dockstore.webservice.core.User;
 import io.dockstore.webservice.helpers.GoogleHelper;
 import io.dockstore.webservice.jdbi.TokenDAO;
 import io.dockstore.webservice.jdbi.UserDAO;
+import io.dropwizard.auth.AuthenticationException;
 import io.dropwizard.auth.Authenticator;
 import io.dropwizard.hibernate.UnitOfWork;
+import java.io.IOException;
 import java.util.Optional;
 import org.hibernate.Hibernate;
 import org.slf4j.Logger;
@@ -51,10 +53,11 @@ public class SimpleAuthenticator implements Authenticator<String, User> {
      *
      * @param credentials
      * @return an optional user
+     * @throws AuthenticationException if Google could not be asked about the credentials
      */
     @UnitOfWork
     @Override
-    public Optional<User> authenticate(String credentials) {
+    public Optional<User> authenticate(String credentials) throws AuthenticationException {
         LOG.debug("SimpleAuthenticator called with {}", credentials);
         final Token token = dao.findByContent(credentials);
         if (token != null) { // It's a valid Dockstore token
@@ -85,8 +88,12 @@ public class SimpleAuthenticator implements Authenticator<String, User> {
         Hibernate.initialize(user.getUserProfiles());
     }
 
-    Optional<Userinfoplus> userinfoPlusFromToken(String credentials) {
-        return GoogleHelper.userinfoplusFromToken(credentials);
+    Optional<Userinfoplus> userinfoPlusFromToken(String credentials) throws AuthenticationException {
+        try {
+            return GoogleHelper.verifiedUserinfoplusFromToken(credentials);
+        } catch (IOException e) {
+            throw new AuthenticationException("Could not verify the token with Google", e);
+        }
     }
 
     User createUser(Userinfoplus userinfoPlus) {
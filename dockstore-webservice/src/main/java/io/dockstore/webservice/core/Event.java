@@ -13,6 +13,7 @@ import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
@@ -30,16 +31,19 @@ import org.hibernate.annotations.UpdateTimestamp;
  */
 @ApiModel(value = "Event", description = "This describes events that occur on the Dockstore site.")
 @Entity
-@Table(name = "event")
+@Table(name = "event", indexes = { @Index(name = "event_organization_id_index", columnList = "organizationId, id"),
+        @Index(name = "event_tool_id_index", columnList = "toolId, id"),
+        @Index(name = "event_workflow_id_index", columnList = "workflowId, id") })
 @SuppressWarnings({"checkstyle:magicnumber", "checkstyle:hiddenfield"})
 @NamedQueries({
-        @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllByEntryIds", query = "SELECT e FROM Event e where (e.tool.id in :entryIDs) OR (e.workflow.id in :entryIDs) ORDER by id desc"),
+        @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllByToolIds", query = "SELECT e FROM Event e WHERE e.tool.id in :entryIDs AND e.id < :beforeId ORDER BY e.id DESC"),
+        @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllByWorkflowIds", query = "SELECT e FROM Event e WHERE e.workflow.id in :entryIDs AND e.id < :beforeId ORDER BY e.id DESC"),
         @NamedQuery(name = "io.dockstore.webservice.core.Event.deleteByEntryId", query = "DELETE Event e where e.tool.id = :entryId OR e.workflow.id = :entryId"),
         @NamedQuery(name = "io.dockstore.webservice.core.Event.deleteByOrganizationId", query = "DELETE Event e WHERE e.organization.id = :organizationId"),
         @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllByUserId", query = "SELECT e FROM Event e where e.user.id = :userId"),
         @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllByEntryId", query = "SELECT e FROM Event e where e.workflow.id = :entryId OR e.tool.id = :entryId"),
-        @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllForOrganization", query = "SELECT eve FROM Event eve WHERE eve.organization.id = :organizationId ORDER BY id DESC"),
-        @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllByOrganizationIds", query = "SELECT e FROM Event e WHERE e.organization.id in :organizationIDs ORDER BY id DESC"),
+        @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllForOrganization", query = "SELECT eve FROM Event eve WHERE eve.organization.id = :organizationId AND eve.id < :beforeId ORDER BY eve.id DESC"),
+        @NamedQuery(name = "io.dockstore.webservice.core.Event.findAllByOrganizationIds", query = "SELECT e FROM Event e WHERE e.organization.id in :organizationIDs AND e.id < :beforeId ORDER BY e.id DESC"),
         @NamedQuery(name = "io.dockstore.webservice.core.Event.countAllForOrganization", query = "SELECT COUNT(*) FROM Event eve WHERE eve.organization.id = :organizationId")
 })
 public class Event {
@@ -29,7 +29,7 @@ import org.hibernate.annotations.UpdateTimestamp;
  */
 @ApiModel("LambdaEvent")
 @Entity
-@Table(name = "LambdaEvent", indexes = { @Index(name = "organization_index", columnList = "organization"),
+@Table(name = "LambdaEvent", indexes = { @Index(name = "lambdaevent_organization_id_index", columnList = "organization, id"),
         @Index(name = "user_index", columnList = "userid") })
 @NamedQueries({
         @NamedQuery(name = "io.dockstore.webservice.core.LambdaEvent.findByRepository", query = "SELECT lambdaEvent FROM LambdaEvent lambdaEvent WHERE lambdaEvent.repository = :repository"),
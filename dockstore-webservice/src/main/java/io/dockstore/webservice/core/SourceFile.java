@@ -19,11 +19,13 @@ package io.dockstore.webservice.core;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.hash.Hashing;
 import io.dockstore.common.DescriptorLanguage;
 import io.dockstore.webservice.helpers.ZipSourceFileHelper;
 import io.swagger.annotations.ApiModel;
 import io.swagger.annotations.ApiModelProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -49,10 +51,12 @@ import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import javax.validation.constraints.NotNull;
 import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -87,10 +91,23 @@ public class SourceFile implements Comparable<SourceFile> {
     @Schema(description = "Enumerates the type of file", required = true)
     private DescriptorLanguage.FileType type;
 
-    @Column(columnDefinition = "TEXT")
+    /**
+     * Stored once per distinct content in sourcefile_content, keyed by its SHA-256, so that the many versions of a file that do not
+     * change it share one copy. Only the key is written with the file, SourceFileContentListener stores content the table lacks.
+     */
+    @Formula("(SELECT c.content FROM sourcefile_content c WHERE c.sha256 = contentsha256)")
     @ApiModelProperty(value = "Cache for the contents of the target file", position = 2)
     private String content;
 
+    @Column(name = "contentsha256", columnDefinition = "varchar(64)")
+    @JsonIgnore
+    private String contentSha256;
+
+    // false until content set here is known to be in sourcefile_content, content loaded from the database is
+    @Transient
+    @JsonIgnore
+    private boolean contentStored = true;
+
     @Column(nullable = false, columnDefinition = "TEXT")
     @ApiModelProperty(value = "Path to sourcefile relative to its parent", required = true, position = 3)
     @Schema(description = "Path to sourcefile relative to its parent", required = true)
@@ -157,6 +174,30 @@ public class SourceFile implements Comparable<SourceFile> {
 
     public void setContent(String content) {
         this.content = content;
+        this.contentSha256 = content == null ? null : Hashing.sha256().hashString(content, StandardCharsets.UTF_8).toString();
+        this.contentStored = content == null;
+    }
+
+    /**
+     * Sets the content of another file without hashing it again, and without storing it again if the other file's is stored
+     */
+    public void copyContentFrom(SourceFile sourceFile) {
+        this.content = sourceFile.content;
+        this.contentSha256 = sourceFile.contentSha256;
+        this.contentStored = sourceFile.contentStored;
+    }
+
+    @JsonIgnore
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    boolean isContentStored() {
+        return contentStored;
+    }
+
+    void setContentStored(boolean contentStored) {
+        this.contentStored = contentStored;
     }
 
     public String getPath() {
@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.event.spi.PreUpdateEvent;
+import org.hibernate.event.spi.PreUpdateEventListener;
+
+/**
+ * Stores the content of a source file in sourcefile_content right before the file row that points at it is written. The key is
+ * computed in Java, and content the table already has is not sent again, so a revision only transfers the files it changes.
+ * sourcefile_content only allows selects and inserts, stored content is never changed.
+ */
+public class SourceFileContentListener implements PreInsertEventListener, PreUpdateEventListener {
+
+    static final String FIND_CONTENT = "SELECT 1 FROM sourcefile_content WHERE sha256 = ?";
+    static final String INSERT_CONTENT = "INSERT INTO sourcefile_content (sha256, content) VALUES (?, ?) ON CONFLICT DO NOTHING";
+
+    public static void register(SessionFactory sessionFactory) {
+        final SourceFileContentListener listener = new SourceFileContentListener();
+        final EventListenerRegistry registry = sessionFactory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.PRE_INSERT, listener);
+        registry.appendListeners(EventType.PRE_UPDATE, listener);
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        storeContent(event.getSession(), event.getEntity());
+        return false;
+    }
+
+    @Override
+    public boolean onPreUpdate(PreUpdateEvent event) {
+        storeContent(event.getSession(), event.getEntity());
+        return false;
+    }
+
+    private static void storeContent(EventSource session, Object entity) {
+        if (!(entity instanceof SourceFile)) {
+            return;
+        }
+        final SourceFile sourceFile = (SourceFile)entity;
+        if (sourceFile.isContentStored() || sourceFile.getContentSha256() == null) {
+            return;
+        }
+        // runs on the connection of the flush, without flushing again
+        session.doWork(connection -> storeContent(connection, sourceFile.getContentSha256(), sourceFile.getContent()));
+        sourceFile.setContentStored(true);
+    }
+
+    static void storeContent(Connection connection, String sha256, String content) throws SQLException {
+        try (PreparedStatement find = connection.prepareStatement(FIND_CONTENT)) {
+            find.setString(1, sha256);
+            try (ResultSet resultSet = find.executeQuery()) {
+                if (resultSet.next()) {
+                    return;
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_CONTENT)) {
+            insert.setString(1, sha256);
+            insert.setString(2, content);
+            insert.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2021 OICR
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.dockstore.webservice.core.database;
+
+import io.dockstore.webservice.core.Collection;
+import io.dockstore.webservice.core.Organization;
+
+/**
+ * This class is only used to get data from the database in a more type-safe way.
+ * One row per collection of an approved organization, or one row with no collection if the organization has none.
+ */
+public class OrganizationCollectionPath {
+    private final Organization organization = new Organization();
+    private final Collection collection;
+
+    public OrganizationCollectionPath(String organizationName, String collectionName) {
+        this.organization.setName(organizationName);
+        if (collectionName == null) {
+            this.collection = null;
+        } else {
+            this.collection = new Collection();
+            this.collection.setName(collectionName);
+        }
+    }
+
+    public Organization getOrganization() {
+        return organization;
+    }
+
+    /**
+     * @return the collection, null if the organization has no collections
+     */
+    public Collection getCollection() {
+        return collection;
+    }
+}
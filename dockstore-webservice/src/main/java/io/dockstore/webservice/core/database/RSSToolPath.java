@@ -25,17 +25,28 @@ import java.util.Date;
  */
 public class RSSToolPath {
     private final Tool tool = new Tool();
+    private final Date dbUpdateDate;
 
-    public RSSToolPath(String registry, String namespace, String name, String entryName, Date lastUpdated, String description) {
+    public RSSToolPath(long id, String registry, String namespace, String name, String entryName, Date lastUpdated, String description,
+            Date dbUpdateDate) {
+        this.tool.setId(id);
         this.tool.setRegistry(registry);
         this.tool.setNamespace(namespace);
         this.tool.setName(name);
         this.tool.setToolname(entryName);
         this.tool.setLastUpdated(lastUpdated);
         this.tool.setDescription(description);
+        this.dbUpdateDate = dbUpdateDate;
     }
 
     public Tool getTool() {
         return tool;
     }
+
+    /**
+     * @return when the entry last changed in the database, which picks the entries shown in the RSS feed
+     */
+    public Date getDbUpdateDate() {
+        return dbUpdateDate;
+    }
 }
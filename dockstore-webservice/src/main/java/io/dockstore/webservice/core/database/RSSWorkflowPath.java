@@ -26,17 +26,28 @@ import java.util.Date;
  */
 public class RSSWorkflowPath {
     private final BioWorkflow bioWorkflow = new BioWorkflow();
+    private final Date dbUpdateDate;
 
-    public RSSWorkflowPath(SourceControl sourceControl, String organization, String repository, String entryName, Date lastUpdated, String description) {
+    public RSSWorkflowPath(long id, SourceControl sourceControl, String organization, String repository, String entryName, Date lastUpdated,
+            String description, Date dbUpdateDate) {
+        this.bioWorkflow.setId(id);
         this.bioWorkflow.setSourceControl(sourceControl);
         this.bioWorkflow.setOrganization(organization);
         this.bioWorkflow.setRepository(repository);
         this.bioWorkflow.setWorkflowName(entryName);
         this.bioWorkflow.setLastUpdated(lastUpdated);
         this.bioWorkflow.setDescription(description);
+        this.dbUpdateDate = dbUpdateDate;
     }
 
     public BioWorkflow getBioWorkflow() {
         return bioWorkflow;
     }
+
+    /**
+     * @return when the entry last changed in the database, which picks the entries shown in the RSS feed
+     */
+    public Date getDbUpdateDate() {
+        return dbUpdateDate;
+    }
 }
@@ -25,7 +25,8 @@ import io.dockstore.webservice.core.Tool;
 public class ToolPath {
     private final Tool tool = new Tool();
 
-    public ToolPath(String registry, String namespace, String name, String toolname) {
+    public ToolPath(long id, String registry, String namespace, String name, String toolname) {
+        this.tool.setId(id);
         this.tool.setRegistry(registry);
         this.tool.setNamespace(namespace);
         this.tool.setName(name);
@@ -26,7 +26,8 @@ import io.dockstore.webservice.core.BioWorkflow;
 public class WorkflowPath {
     private final BioWorkflow bioWorkflow = new BioWorkflow();
 
-    public WorkflowPath(SourceControl sourceControl, String organization, String repository, String workflowName) {
+    public WorkflowPath(long id, SourceControl sourceControl, String organization, String repository, String workflowName) {
+        this.bioWorkflow.setId(id);
         this.bioWorkflow.setSourceControl(sourceControl);
         this.bioWorkflow.setOrganization(organization);
         this.bioWorkflow.setRepository(repository);
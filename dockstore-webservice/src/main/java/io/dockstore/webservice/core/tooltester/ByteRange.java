@@ -0,0 +1,109 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.core.tooltester;
+
+import io.dockstore.webservice.CustomWebApplicationException;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.http.HttpStatus;
+
+/**
+ * An inclusive range of bytes within a file of known length, as in an HTTP Range header
+ */
+public final class ByteRange {
+    private static final Pattern SINGLE_RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private final long first;
+    private final long last;
+    private final long length;
+
+    private ByteRange(long first, long last, long length) {
+        this.first = first;
+        this.last = last;
+        this.length = length;
+    }
+
+    /**
+     * Parses a Range header with a single byte range, such as bytes=0-1023, bytes=1024- or bytes=-1024.
+     *
+     * @param header the Range header, may be null
+     * @param length the length of the file
+     * @return the range, or nothing if the header is absent, malformed or asks for several ranges, in which case the whole file is sent
+     * @throws CustomWebApplicationException with status 416 if no byte of the range is in the file
+     */
+    public static Optional<ByteRange> fromHeader(String header, long length) {
+        if (header == null) {
+            return Optional.empty();
+        }
+        Matcher matcher = SINGLE_RANGE.matcher(header.trim());
+        if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(2).isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            if (matcher.group(1).isEmpty()) {
+                return Optional.of(tail(Long.parseLong(matcher.group(2)), length));
+            }
+            long first = Long.parseLong(matcher.group(1));
+            long last = matcher.group(2).isEmpty() ? length - 1 : Long.parseLong(matcher.group(2));
+            if (last < first) {
+                return Optional.empty();
+            }
+            if (first >= length) {
+                throw notSatisfiable(length);
+            }
+            return Optional.of(new ByteRange(first, Math.min(last, length - 1), length));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @param bytes how many bytes at the end of the file, all of them if the file is shorter
+     * @param length the length of the file
+     * @return the last bytes of the file
+     * @throws CustomWebApplicationException with status 416 if the file or the tail is empty
+     */
+    public static ByteRange tail(long bytes, long length) {
+        if (bytes <= 0 || length == 0) {
+            throw notSatisfiable(length);
+        }
+        return new ByteRange(Math.max(0, length - bytes), length - 1, length);
+    }
+
+    public long getFirst() {
+        return first;
+    }
+
+    public long getLast() {
+        return last;
+    }
+
+    public long size() {
+        return last - first + 1;
+    }
+
+    /**
+     * @return the value of the Content-Range header of a response with this range
+     */
+    public String toContentRange() {
+        return "bytes " + first + "-" + last + "/" + length;
+    }
+
+    private static CustomWebApplicationException notSatisfiable(long length) {
+        return new CustomWebApplicationException("Range not satisfiable, the log has " + length + " bytes", HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+}
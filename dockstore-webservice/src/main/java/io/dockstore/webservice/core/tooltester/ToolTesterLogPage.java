@@ -0,0 +1,42 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.core.tooltester;
+
+import java.util.List;
+
+/**
+ * One page of ToolTester logs, and the S3 continuation token of the next page
+ */
+public class ToolTesterLogPage {
+    private final List<ToolTesterLog> logs;
+    private final String nextContinuationToken;
+
+    public ToolTesterLogPage(List<ToolTesterLog> logs, String nextContinuationToken) {
+        this.logs = logs;
+        this.nextContinuationToken = nextContinuationToken;
+    }
+
+    public List<ToolTesterLog> getLogs() {
+        return logs;
+    }
+
+    /**
+     * @return the token of the next page, or null if this is the last page
+     */
+    public String getNextContinuationToken() {
+        return nextContinuationToken;
+    }
+}
@@ -20,12 +20,16 @@ package io.dockstore.webservice.core.tooltester;
 
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
-import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
-import java.io.IOException;
-import java.io.InputStream;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -33,8 +37,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
-import org.apache.commons.io.IOUtils;
 
 /**
  * @author gluu
@@ -44,12 +53,31 @@ public class ToolTesterS3Client {
     private static final int MAX_TOOL_ID_STRING_SEGMENTS = 5;
     private static final int TOOL_ID_REPOSITORY_INDEX = 3;
     private static final int TOOL_ID_TOOLNAME_INDEX = 4;
+    /**
+     * The most keys S3 returns in one listing
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int METADATA_THREADS = 16;
+    private static final int CACHE_SIZE = 1000;
+    private static final long CACHE_EXPIRY_SECONDS = 60;
+    /**
+     * Shared by all clients, so that concurrent searches do not send more than METADATA_THREADS requests at once
+     */
+    private static final ExecutorService METADATA_EXECUTOR = Executors
+        .newFixedThreadPool(METADATA_THREADS, new ThreadFactoryBuilder().setNameFormat("tooltester-metadata-%d").setDaemon(true).build());
     private String bucketName;
     private AmazonS3 s3;
+    // logs are only ever added, so a search that misses the newest run for a minute is fine
+    private final Cache<String, ToolTesterLogPage> logPages = CacheBuilder.newBuilder().maximumSize(CACHE_SIZE)
+        .expireAfterWrite(CACHE_EXPIRY_SECONDS, TimeUnit.SECONDS).build();
 
     public ToolTesterS3Client(String bucketName) {
+        this(bucketName, AmazonS3ClientBuilder.standard().build());
+    }
+
+    ToolTesterS3Client(String bucketName, AmazonS3 s3) {
         this.bucketName = bucketName;
-        this.s3 = AmazonS3ClientBuilder.standard().build();
+        this.s3 = s3;
     }
 
     /**
@@ -112,39 +140,102 @@ public class ToolTesterS3Client {
         }
     }
 
-    public String getToolTesterLog(String toolId, String versionName, String testFilePath, String runner, String filename)
-            throws IOException {
+    /**
+     * @return the length of a log in bytes
+     * @throws UnsupportedEncodingException Could not encode the key of the log
+     */
+    public long getToolTesterLogLength(String toolId, String versionName, String testFilePath, String runner, String filename)
+            throws UnsupportedEncodingException {
         String key = generateKey(toolId, versionName, testFilePath, runner, filename);
-        S3Object s3Object = s3.getObject(bucketName, key);
-        InputStream objectContent = s3Object.getObjectContent();
-        return IOUtils.toString(objectContent, StandardCharsets.UTF_8);
+        return s3.getObjectMetadata(bucketName, key).getContentLength();
+    }
 
+    /**
+     * Opens a log, or part of it, so that it can be streamed without holding it in memory. The caller must close the object.
+     *
+     * @param range the bytes to read with a ranged GET, or null for the whole log
+     * @return the log
+     * @throws UnsupportedEncodingException Could not encode the key of the log
+     */
+    public S3Object getToolTesterLog(String toolId, String versionName, String testFilePath, String runner, String filename, ByteRange range)
+            throws UnsupportedEncodingException {
+        String key = generateKey(toolId, versionName, testFilePath, runner, filename);
+        GetObjectRequest request = new GetObjectRequest(bucketName, key);
+        if (range != null) {
+            request.setRange(range.getFirst(), range.getLast());
+        }
+        return s3.getObject(request);
     }
 
+    /**
+     * Gets all the logs of a tool version
+     *
+     * @param toolId          The GA4GH Tool ID
+     * @param toolVersionName The GA4GH ToolVersion name
+     * @return the logs
+     * @throws UnsupportedEncodingException Could not encode the tool ID or version name
+     */
     public List<ToolTesterLog> getToolTesterLogs(String toolId, String toolVersionName) throws UnsupportedEncodingException {
+        List<ToolTesterLog> logs = new ArrayList<>();
+        String continuationToken = null;
+        do {
+            ToolTesterLogPage page = getToolTesterLogs(toolId, toolVersionName, MAX_PAGE_SIZE, continuationToken);
+            logs.addAll(page.getLogs());
+            continuationToken = page.getNextContinuationToken();
+        } while (continuationToken != null);
+        return logs;
+    }
+
+    /**
+     * Gets a page of the logs of a tool version. Pages are cached for a minute.
+     *
+     * @param toolId            The GA4GH Tool ID
+     * @param toolVersionName   The GA4GH ToolVersion name
+     * @param limit             The most logs to return, up to MAX_PAGE_SIZE
+     * @param continuationToken The token of the previous page, or null for the first page
+     * @return the logs, and the token of the next page if there is one
+     * @throws UnsupportedEncodingException Could not encode the tool ID or version name
+     */
+    public ToolTesterLogPage getToolTesterLogs(String toolId, String toolVersionName, int limit, String continuationToken)
+            throws UnsupportedEncodingException {
         String key = convertToolIdToPartialKey(toolId) + "/" + URLEncoder.encode(toolVersionName, StandardCharsets.UTF_8.name());
-        ObjectListing listing = s3.listObjects(bucketName, key);
-        List<S3ObjectSummary> summaries = listing.getObjectSummaries();
-        while (listing.isTruncated()) {
-            listing = s3.listNextBatchOfObjects(listing);
-            summaries.addAll(listing.getObjectSummaries());
+        ListObjectsV2Request request = new ListObjectsV2Request().withBucketName(bucketName).withPrefix(key)
+                .withMaxKeys(Math.min(limit, MAX_PAGE_SIZE)).withContinuationToken(continuationToken);
+        String cacheKey = String.join("\n", toolId, toolVersionName, String.valueOf(request.getMaxKeys()), String.valueOf(continuationToken));
+        try {
+            return logPages.get(cacheKey, () -> {
+                ListObjectsV2Result listing = s3.listObjectsV2(request);
+                List<ToolTesterLog> logs = convertObjectSummariesToTooltesterLogs(listing.getObjectSummaries());
+                return new ToolTesterLogPage(logs, listing.isTruncated() ? listing.getNextContinuationToken() : null);
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException)e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
         }
-        return convertObjectListingToTooltesterLogs(listing);
     }
 
-    private List<ToolTesterLog> convertObjectListingToTooltesterLogs(ObjectListing firstListing) {
-        ObjectListing listing = firstListing;
-        List<S3ObjectSummary> summaries = listing.getObjectSummaries();
-        while (listing.isTruncated()) {
-            listing = s3.listNextBatchOfObjects(listing);
-            summaries.addAll(listing.getObjectSummaries());
-        }
-        return summaries.stream().map(summary -> {
+    /**
+     * Reads the metadata of each log concurrently
+     */
+    private List<ToolTesterLog> convertObjectSummariesToTooltesterLogs(List<S3ObjectSummary> summaries) {
+        List<CompletableFuture<ToolTesterLog>> futures = summaries.stream().map(summary -> CompletableFuture.supplyAsync(() -> {
             ObjectMetadata objectMetadata = s3.getObjectMetadata(bucketName, summary.getKey());
             Map<String, String> userMetadata = objectMetadata.getUserMetadata();
             String filename = getFilenameFromSummary(summary);
             return convertUserMetadataToToolTesterLog(userMetadata, filename);
-        }).collect(Collectors.toList());
+        }, METADATA_EXECUTOR)).collect(Collectors.toList());
+        try {
+            return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException) {
+                // e.g. an AmazonS3Exception
+                throw (RuntimeException)e.getCause();
+            }
+            throw e;
+        }
     }
 
     private String getFilenameFromSummary(S3ObjectSummary summary) {
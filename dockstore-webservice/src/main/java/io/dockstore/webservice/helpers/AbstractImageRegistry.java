@@ -18,6 +18,8 @@ package io.dockstore.webservice.helpers;
 
 import static io.dockstore.webservice.helpers.SourceCodeRepoFactory.parseGitUrl;
 
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import io.dockstore.common.DescriptorLanguage;
@@ -54,6 +56,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -62,10 +65,16 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import javax.validation.constraints.NotNull;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.HttpStatus;
+import org.hibernate.Hibernate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -80,6 +89,13 @@ public abstract class AbstractImageRegistry {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractImageRegistry.class);
     private static final String GITLAB_URL = "https://gitlab.com/api/v4/";
     private static final String SHA_TYPE_FOR_SOURCEFILES = "SHA-1";
+    private static final int MAX_REFRESH_THREADS = 8;
+    /**
+     * Fetches registry tags and git files for the tools of a refresh, shared by all refreshes to bound the load on registries and
+     * source control providers
+     */
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newFixedThreadPool(MAX_REFRESH_THREADS,
+        new ThreadFactoryBuilder().setNameFormat("tool-refresh-%d").setDaemon(true).build());
 
 
     /**
@@ -184,15 +200,8 @@ public abstract class AbstractImageRegistry {
         List<Tool> newDBTools = updateTools(apiTools, notManualTools, user, toolDAO);
 
         // Get tags and update for each tool
-        for (Tool tool : newDBTools) {
-            logToolRefresh(dashboardPrefix, tool);
-
-            List<Tag> toolTags = getTags(tool);
-            final SourceCodeRepoInterface sourceCodeRepo = SourceCodeRepoFactory
-                .createSourceCodeRepo(tool.getGitUrl(), bitbucketToken == null ? null : bitbucketToken.getContent(),
-                    gitlabToken == null ? null : gitlabToken.getContent(), githubToken);
-            updateTags(toolTags, tool, sourceCodeRepo, tagDAO, fileDAO, toolDAO, fileFormatDAO, eventDAO, user);
-        }
+        refreshToolTags(newDBTools, githubToken, bitbucketToken, gitlabToken, tagDAO, fileDAO, toolDAO, fileFormatDAO, eventDAO, user,
+            dashboardPrefix);
 
         return newDBTools;
     }
@@ -230,15 +239,8 @@ public abstract class AbstractImageRegistry {
         List<Tool> newDBTools = updateTools(apiTools, notManualTools, user, toolDAO);
 
         // Get tags and update for each tool
-        for (Tool tool : newDBTools) {
-            logToolRefresh(dashboardPrefix, tool);
-
-            List<Tag> toolTags = getTags(tool);
-            final SourceCodeRepoInterface sourceCodeRepo = SourceCodeRepoFactory
-                .createSourceCodeRepo(tool.getGitUrl(), bitbucketToken == null ? null : bitbucketToken.getContent(),
-                    gitlabToken == null ? null : gitlabToken.getContent(), githubToken);
-            updateTags(toolTags, tool, sourceCodeRepo, tagDAO, fileDAO, toolDAO, fileFormatDAO, eventDAO, user);
-        }
+        refreshToolTags(newDBTools, githubToken, bitbucketToken, gitlabToken, tagDAO, fileDAO, toolDAO, fileFormatDAO, eventDAO, user,
+            dashboardPrefix);
     }
 
     /**
@@ -332,6 +334,123 @@ public abstract class AbstractImageRegistry {
         return updatedTool;
     }
 
+    /**
+     * Refreshes the tags of several tools. Tags are fetched from the registry, and files read from the source code repositories and
+     * validated, for up to {@link #MAX_REFRESH_THREADS} tools at a time, while all database changes are made on the calling thread, in
+     * its Hibernate session. Those concurrent steps change nothing in the session, so a tool whose tags or files cannot be fetched or
+     * checked is skipped and reported, and the other tools are still refreshed. A tool skipped while its files are read keeps the files
+     * it had. The database steps only run on input checked beforehand, so a failure in them leaves partial changes in the session and
+     * fails the whole refresh, rolling back its transaction.
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    private void refreshToolTags(final List<Tool> tools, final Token githubToken, final Token bitbucketToken, final Token gitlabToken,
+            final TagDAO tagDAO, final FileDAO fileDAO, final ToolDAO toolDAO, final FileFormatDAO fileFormatDAO, final EventDAO eventDAO,
+            final User user, final String dashboardPrefix) {
+        final String bitbucketTokenContent = bitbucketToken == null ? null : bitbucketToken.getContent();
+        final String gitlabTokenContent = gitlabToken == null ? null : gitlabToken.getContent();
+        final List<ToolRefresh> refreshes = new ArrayList<>();
+        for (Tool tool : tools) {
+            logToolRefresh(dashboardPrefix, tool);
+            refreshes.add(new ToolRefresh(tool, tool.getGitUrl()));
+        }
+
+        runConcurrently(refreshes, refresh -> {
+            refresh.registryTags = getTags(refresh.tool);
+            checkRegistryTags(refresh.tool, refresh.registryTags);
+            refresh.sourceCodeRepo = SourceCodeRepoFactory.createSourceCodeRepo(refresh.gitUrl, bitbucketTokenContent, gitlabTokenContent, githubToken);
+        });
+
+        runSequentially(refreshes, refresh -> {
+            refresh.tagsUpdated = reconcileTags(refresh.registryTags, refresh.tool, tagDAO, eventDAO, user);
+            if (refresh.tagsUpdated && refresh.sourceCodeRepo != null) {
+                // Files are read off this thread, so load the collections it will look at while the session is at hand
+                Hibernate.initialize(refresh.tool.getWorkflowVersions());
+                refresh.tool.getWorkflowVersions().forEach(tag -> Hibernate.initialize(tag.getSourceFiles()));
+            }
+        }, dashboardPrefix);
+
+        runConcurrently(refreshes.stream().filter(refresh -> refresh.tagsUpdated && refresh.sourceCodeRepo != null).collect(Collectors.toList()),
+            refresh -> {
+                refresh.tagFiles = loadTagFiles(refresh.tool, refresh.sourceCodeRepo);
+                refresh.tagValidations = validateTagFiles(refresh.tool, refresh.tagFiles);
+            });
+
+        runSequentially(refreshes.stream().filter(refresh -> refresh.tagsUpdated).collect(Collectors.toList()),
+            refresh -> saveTags(refresh.tool, refresh.tagFiles, refresh.tagValidations, refresh.sourceCodeRepo, tagDAO, fileDAO, toolDAO,
+                fileFormatDAO), dashboardPrefix);
+        reportToolRefreshes(refreshes, dashboardPrefix);
+    }
+
+    /**
+     * Runs a step of the refresh of each tool that has not failed on {@link #REFRESH_EXECUTOR} and waits for all of them. The step
+     * must not use the Hibernate session. A tool whose step fails keeps the failure and is skipped by the later steps.
+     */
+    static void runConcurrently(final List<ToolRefresh> refreshes, final Consumer<ToolRefresh> step) {
+        final List<Callable<Void>> tasks = refreshes.stream().filter(refresh -> refresh.failure == null).map(refresh -> (Callable<Void>)() -> {
+            try {
+                refresh.time(() -> step.accept(refresh));
+            } catch (RuntimeException ex) {
+                refresh.failure = ex;
+            }
+            return null;
+        }).collect(Collectors.toList());
+        try {
+            REFRESH_EXECUTOR.invokeAll(tasks);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CustomWebApplicationException("Interrupted while refreshing tools", HttpStatus.SC_SERVICE_UNAVAILABLE);
+        }
+    }
+
+    /**
+     * Runs a database step of the refresh of each tool that has not failed on the calling thread. A failure leaves the partial
+     * changes of its tool in the session, so it stops the step and fails the whole refresh.
+     */
+    static void runSequentially(final List<ToolRefresh> refreshes, final Consumer<ToolRefresh> step, final String dashboardPrefix) {
+        for (ToolRefresh refresh : refreshes) {
+            if (refresh.failure != null) {
+                continue;
+            }
+            try {
+                refresh.time(() -> step.accept(refresh));
+            } catch (RuntimeException ex) {
+                refresh.failure = ex;
+                logToolRefreshes(refreshes, dashboardPrefix);
+                throw refreshFailure(ex);
+            }
+        }
+    }
+
+    /**
+     * Logs the time spent on each tool and its failure, if any. The refreshes of the tools that did not fail are kept, so this only
+     * fails, with the first failure, if every tool failed.
+     */
+    static void reportToolRefreshes(final List<ToolRefresh> refreshes, final String dashboardPrefix) {
+        logToolRefreshes(refreshes, dashboardPrefix);
+        final List<ToolRefresh> failed = refreshes.stream().filter(refresh -> refresh.failure != null).collect(Collectors.toList());
+        if (!failed.isEmpty() && failed.size() == refreshes.size()) {
+            throw refreshFailure(failed.get(0).failure);
+        }
+        LOG.info(String.format("%s: Refreshed tags of %d of %d tools", dashboardPrefix, refreshes.size() - failed.size(), refreshes.size()));
+    }
+
+    private static void logToolRefreshes(final List<ToolRefresh> refreshes, final String dashboardPrefix) {
+        for (ToolRefresh refresh : refreshes) {
+            final long millis = TimeUnit.NANOSECONDS.toMillis(refresh.nanos);
+            if (refresh.failure == null) {
+                LOG.info(String.format("%s: Refreshed tags of tool %s in %d ms", dashboardPrefix, refresh.tool.getToolPath(), millis));
+            } else {
+                LOG.error(String.format("%s: Could not refresh tags of tool %s after %d ms", dashboardPrefix, refresh.tool.getToolPath(), millis),
+                    refresh.failure);
+            }
+        }
+    }
+
+    private static CustomWebApplicationException refreshFailure(final RuntimeException failure) {
+        return failure instanceof CustomWebApplicationException ? (CustomWebApplicationException)failure
+            : new CustomWebApplicationException("Could not refresh tools: " + failure.getMessage(), HttpStatus.SC_INTERNAL_SERVER_ERROR);
+    }
+
     public static String getGitRepositoryFromGitUrl(String gitUrl) {
         Map<String, String> repoUrlMap = parseGitUrl(gitUrl);
         if (repoUrlMap == null) {
@@ -415,20 +534,16 @@ public abstract class AbstractImageRegistry {
         return getDockerHubToolAsOptionalString(repo);
     }
 
+    /**
+     * Reads the tags of a Docker Hub repository to refresh a tool, so they are always checked with Docker Hub
+     */
     public static Optional<String> getDockerHubToolAsOptionalString(String repo) {
         final String repoUrl = DOCKERHUB_URL + "repositories/" + repo + "/tags";
-        Optional<String> response;
-        try {
-            URL url = new URL(repoUrl);
-            response = Optional.of(IOUtils.toString(url, StandardCharsets.UTF_8));
-            if (response.isPresent()) {
-                return response;
-            }
-
-        } catch (IOException ex) {
+        Optional<String> response = RegistryMetadataClient.getInstance().get(repoUrl, null, true);
+        if (response.isEmpty()) {
             LOG.info("Unable to get DockerHub response for " + repo);
         }
-        return Optional.empty();
+        return response;
     }
 
 
@@ -445,6 +560,44 @@ public abstract class AbstractImageRegistry {
     @SuppressWarnings("checkstyle:ParameterNumber")
     private void updateTags(List<Tag> newTags, @NotNull Tool tool, SourceCodeRepoInterface sourceCodeRepoInterface, final TagDAO tagDAO,
         final FileDAO fileDAO, final ToolDAO toolDAO, final FileFormatDAO fileFormatDAO, final EventDAO eventDAO, final User user) {
+        checkRegistryTags(tool, newTags);
+        if (!reconcileTags(newTags, tool, tagDAO, eventDAO, user)) {
+            return;
+        }
+        final Map<Tag, List<SourceFile>> tagFiles = sourceCodeRepoInterface == null ? Collections.emptyMap() : loadTagFiles(tool, sourceCodeRepoInterface);
+        saveTags(tool, tagFiles, validateTagFiles(tool, tagFiles), sourceCodeRepoInterface, tagDAO, fileDAO, toolDAO, fileFormatDAO);
+    }
+
+    /**
+     * Checks the tags fetched from the registry for a tool before any of them are saved, as {@link #reconcileTags} matches them by name
+     *
+     * @param tool
+     * @param registryTags
+     */
+    static void checkRegistryTags(Tool tool, List<Tag> registryTags) {
+        if (registryTags == null) {
+            return;
+        }
+        final Set<String> names = new HashSet<>();
+        for (Tag tag : registryTags) {
+            if (Strings.isNullOrEmpty(tag.getName()) || !names.add(tag.getName())) {
+                throw new CustomWebApplicationException(String.format("The registry returned an invalid or duplicate tag '%s' for tool %s", tag.getName(),
+                    tool.getToolPath()), HttpStatus.SC_BAD_REQUEST);
+            }
+        }
+    }
+
+    /**
+     * Adds and deletes the tags of a tool to match the tags in the registry
+     *
+     * @param newTags
+     * @param tool
+     * @param tagDAO
+     * @param eventDAO
+     * @param user
+     * @return false if the tags could not be updated because the registry returned none
+     */
+    private boolean reconcileTags(List<Tag> newTags, @NotNull Tool tool, final TagDAO tagDAO, final EventDAO eventDAO, final User user) {
         // Get all existing tags
         List<Tag> existingTags = new ArrayList<>(tool.getWorkflowVersions());
         if (tool.getMode() != ToolMode.MANUAL_IMAGE_PATH || (tool.getRegistry().equals(Registry.QUAY_IO.getDockerPath()) && existingTags.isEmpty())) {
@@ -452,7 +605,7 @@ public abstract class AbstractImageRegistry {
             if (newTags == null) {
                 LOG.info(tool.getToolPath() + " : Tags for tool {} did not get updated because new tags were not found",
                         tool.getPath());
-                return;
+                return false;
             }
 
             List<Tag> toDelete = new ArrayList<>(0);
@@ -550,7 +703,64 @@ public abstract class AbstractImageRegistry {
         if (tool.getRegistry().equals(Registry.DOCKER_HUB.getDockerPath()) || tool.getRegistry().equals(Registry.GITLAB.getDockerPath())) {
             updateNonQuayImageInformation(newTags, tool, existingTags);
         }
+        return true;
+    }
+
+    /**
+     * Reads the files of each tag of a tool from its source code repository. Only reads the tool and its tags, so it can run
+     * off the request thread once their collections are loaded.
+     *
+     * @param tool
+     * @param sourceCodeRepo
+     * @return the files of each tag
+     */
+    private Map<Tag, List<SourceFile>> loadTagFiles(@NotNull Tool tool, SourceCodeRepoInterface sourceCodeRepo) {
+        // Tags are keyed by identity, as loading files changes fields of the tags
+        final Map<Tag, List<SourceFile>> tagFiles = new IdentityHashMap<>();
+        for (Tag tag : tool.getWorkflowVersions()) {
+            LOG.info(sourceCodeRepo.gitUsername + " : Updating files for tag {}", tag.getName());
+            tagFiles.put(tag, loadFiles(sourceCodeRepo, tool, tag));
+        }
+        return tagFiles;
+    }
 
+    /**
+     * Validates the files loaded for each tag of a tool. Only reads the tool and the files, so it can run off the request thread, and
+     * a tool whose files cannot be validated fails before any of them are saved.
+     *
+     * @param tool
+     * @param tagFiles files of each tag, from {@link #loadTagFiles(Tool, SourceCodeRepoInterface)}
+     * @return the validations of each tag
+     */
+    private Map<Tag, List<Validation>> validateTagFiles(@NotNull Tool tool, Map<Tag, List<SourceFile>> tagFiles) {
+        final Map<Tag, List<Validation>> tagValidations = new IdentityHashMap<>();
+        tagFiles.forEach((tag, files) -> {
+            // The same files the tag will have once they are saved
+            final SortedSet<SourceFile> sourceFiles = new TreeSet<>(files);
+            final List<Validation> validations = new ArrayList<>();
+            validations.add(validateTagDockerfile(sourceFiles, tool.isPrivateAccess()));
+            validations.addAll(validateTagDescriptorType(sourceFiles, DescriptorLanguage.FileType.DOCKSTORE_CWL, tag.getCwlPath()));
+            validations.addAll(validateTagDescriptorType(sourceFiles, DescriptorLanguage.FileType.DOCKSTORE_WDL, tag.getWdlPath()));
+            tagValidations.put(tag, validations);
+        });
+        return tagValidations;
+    }
+
+    /**
+     * Saves the files loaded for each tag of a tool and their validations, and updates the tool's metadata
+     *
+     * @param tool
+     * @param tagFiles files of each tag, from {@link #loadTagFiles(Tool, SourceCodeRepoInterface)}
+     * @param tagValidations validations of each tag, from {@link #validateTagFiles(Tool, Map)}
+     * @param sourceCodeRepoInterface
+     * @param tagDAO
+     * @param fileDAO
+     * @param toolDAO
+     * @param fileFormatDAO
+     */
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    private void saveTags(@NotNull Tool tool, Map<Tag, List<SourceFile>> tagFiles, Map<Tag, List<Validation>> tagValidations,
+        SourceCodeRepoInterface sourceCodeRepoInterface, final TagDAO tagDAO, final FileDAO fileDAO, final ToolDAO toolDAO, final FileFormatDAO fileFormatDAO) {
         // Now grab default/main tag to grab general information (defaults to github/bitbucket "main branch")
         if (sourceCodeRepoInterface != null) {
             // Grab files for each version/tag and check if valid
@@ -558,8 +768,8 @@ public abstract class AbstractImageRegistry {
             for (Tag tag : tags) {
                 // check to see whether the commit id has changed
 
-                //TODO: calls validation eventually, may simplify if we take into account metadata parsing below
-                updateFiles(tool, tag, fileDAO, sourceCodeRepoInterface, sourceCodeRepoInterface.gitUsername);
+                //TODO: may simplify validation if we take into account metadata parsing below
+                updateFiles(tag, tagFiles.getOrDefault(tag, new ArrayList<>()), tagValidations.getOrDefault(tag, Collections.emptyList()), fileDAO);
                 // Grab and parse files to get tool information
                 // Add for new descriptor types
             }
@@ -679,13 +889,8 @@ public abstract class AbstractImageRegistry {
         return Collections.emptyList();
     }
 
-    private void updateFiles(Tool tool, Tag tag, final FileDAO fileDAO, SourceCodeRepoInterface sourceCodeRepo, String username) {
-        // For each tag, will download files to db and determine if the tag is valid
-        LOG.info(username + " : Updating files for tag {}", tag.getName());
-
-        // Get all of the required sourcefiles for the given tag
-        List<SourceFile> newFiles = loadFiles(sourceCodeRepo, tool, tag);
-
+    private void updateFiles(Tag tag, List<SourceFile> newFiles, List<Validation> validations, final FileDAO fileDAO) {
+        // For each tag, will save the files loaded from git to db and determine if the tag is valid
         Set<SourceFile> oldFilesTempSet = new HashSet<>(tag.getSourceFiles());
 
         // copy content over to existing files
@@ -729,9 +934,7 @@ public abstract class AbstractImageRegistry {
         }
 
         // Update the tag with validation information
-        tag = validateTagDockerfile(tag, tool.isPrivateAccess());
-        tag = validateTagDescriptorType(tag, DescriptorLanguage.FileType.DOCKSTORE_CWL, tag.getCwlPath());
-        tag = validateTagDescriptorType(tag, DescriptorLanguage.FileType.DOCKSTORE_WDL, tag.getWdlPath());
+        validations.forEach(tag::addOrUpdateValidation);
 
         boolean isValidVersion = isValidVersion(tag);
         tag.setValid(isValidVersion);
@@ -773,13 +976,13 @@ public abstract class AbstractImageRegistry {
     }
 
     /**
-     * Adds a version validation for a tag and its Dockerfile
-     * @param tag Tag to validate
+     * Validates the Dockerfile of a tag
+     * @param sourceFiles Files of the tag to validate
      * @param isPrivateAccess Is the tool private access
-     * @return Tag with updated version validation for Dockerfile
+     * @return Version validation for Dockerfile
      */
-    private Tag validateTagDockerfile(Tag tag, boolean isPrivateAccess) {
-        Optional<SourceFile> dockerfile = tag.getSourceFiles().stream().filter(sourceFile -> Objects.equals(sourceFile.getType(), DescriptorLanguage.FileType.DOCKERFILE)).findFirst();
+    private Validation validateTagDockerfile(SortedSet<SourceFile> sourceFiles, boolean isPrivateAccess) {
+        Optional<SourceFile> dockerfile = sourceFiles.stream().filter(sourceFile -> Objects.equals(sourceFile.getType(), DescriptorLanguage.FileType.DOCKERFILE)).findFirst();
         VersionTypeValidation validDockerfile;
         // Private tools don't require a dockerfile
         if (dockerfile.isPresent() || isPrivateAccess) {
@@ -789,23 +992,21 @@ public abstract class AbstractImageRegistry {
             validationMessage.put("/Dockerfile", "Missing a Dockerfile.");
             validDockerfile = new VersionTypeValidation(false, validationMessage);
         }
-        Validation dockerfileValidation = new Validation(DescriptorLanguage.FileType.DOCKERFILE, validDockerfile);
-        tag.addOrUpdateValidation(dockerfileValidation);
-        return tag;
+        return new Validation(DescriptorLanguage.FileType.DOCKERFILE, validDockerfile);
     }
 
     /**
      * Validates the given tag files of the given filetype
-     * @param tag Tag to validate
+     * @param sourceFiles Files of the tag to validate
      * @param fileType Descriptor type to validate
      * @param primaryDescriptorPath Path to the primary descriptor
-     * @return Validated tag
+     * @return Version validations for the descriptor and its test parameter files
      */
-    private Tag validateTagDescriptorType(Tag tag, DescriptorLanguage.FileType fileType, String primaryDescriptorPath) {
+    private List<Validation> validateTagDescriptorType(SortedSet<SourceFile> sourceFiles, DescriptorLanguage.FileType fileType, String primaryDescriptorPath) {
+        List<Validation> validations = new ArrayList<>();
         VersionTypeValidation isValidDescriptor = LanguageHandlerFactory.getInterface(fileType)
-                .validateToolSet(tag.getSourceFiles(), primaryDescriptorPath);
-        Validation descriptorValidation = new Validation(fileType, isValidDescriptor);
-        tag.addOrUpdateValidation(descriptorValidation);
+                .validateToolSet(sourceFiles, primaryDescriptorPath);
+        validations.add(new Validation(fileType, isValidDescriptor));
 
         DescriptorLanguage.FileType testParamType = null;
         switch (fileType) {
@@ -823,12 +1024,11 @@ public abstract class AbstractImageRegistry {
         }
 
         if (testParamType != null) {
-            VersionTypeValidation isValidTestParameter = LanguageHandlerFactory.getInterface(fileType).validateTestParameterSet(tag.getSourceFiles());
-            Validation testParameterValidation = new Validation(testParamType, isValidTestParameter);
-            tag.addOrUpdateValidation(testParameterValidation);
+            VersionTypeValidation isValidTestParameter = LanguageHandlerFactory.getInterface(fileType).validateTestParameterSet(sourceFiles);
+            validations.add(new Validation(testParamType, isValidTestParameter));
         }
 
-        return tag;
+        return validations;
     }
 
     /**
@@ -985,4 +1185,33 @@ public abstract class AbstractImageRegistry {
 
         return dbToolList;
     }
+
+    /**
+     * The state of the refresh of one tool, passed between the concurrent and database steps of {@link #refreshToolTags}
+     */
+    static final class ToolRefresh {
+        final Tool tool;
+        final String gitUrl;
+        List<Tag> registryTags;
+        SourceCodeRepoInterface sourceCodeRepo;
+        boolean tagsUpdated;
+        Map<Tag, List<SourceFile>> tagFiles = Collections.emptyMap();
+        Map<Tag, List<Validation>> tagValidations = Collections.emptyMap();
+        RuntimeException failure;
+        long nanos;
+
+        ToolRefresh(Tool tool, String gitUrl) {
+            this.tool = tool;
+            this.gitUrl = gitUrl;
+        }
+
+        void time(Runnable step) {
+            final long start = System.nanoTime();
+            try {
+                step.run();
+            } finally {
+                nanos += System.nanoTime() - start;
+            }
+        }
+    }
 }
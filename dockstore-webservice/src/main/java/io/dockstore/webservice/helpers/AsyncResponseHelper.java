@@ -0,0 +1,57 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+/**
+ * Resumes suspended requests without writing the response on the thread that completed its future.
+ *
+ * AsyncResponse.resume writes the response on the calling thread, and that write blocks for as long as the client takes to read it.
+ * Futures are usually completed by client I/O threads, e.g., Elasticsearch's, so the response is handed back to the servlet container's
+ * thread pool instead, where a slow client holds up a container thread just like a synchronous request would.
+ */
+public final class AsyncResponseHelper {
+
+    private AsyncResponseHelper() {
+    }
+
+    /**
+     * @param request       the suspended request
+     * @param asyncResponse the suspended response
+     * @param response      the response to resume with once complete; a failure is resumed as the exception that caused it
+     */
+    public static void resume(HttpServletRequest request, AsyncResponse asyncResponse, CompletableFuture<Response> response) {
+        response.whenComplete((result, failure) -> {
+            final Runnable resume = () -> {
+                if (failure == null) {
+                    asyncResponse.resume(result);
+                } else {
+                    asyncResponse.resume(failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure);
+                }
+            };
+            if (request != null && request.isAsyncStarted()) {
+                request.getAsyncContext().start(resume);
+            } else {
+                resume.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import static io.dockstore.webservice.helpers.statelisteners.ElasticListener.TOOLS_INDEX;
+import static io.dockstore.webservice.helpers.statelisteners.ElasticListener.WORKFLOWS_INDEX;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dockstore.webservice.core.Entry;
+import io.dockstore.webservice.helpers.statelisteners.ElasticListener;
+import io.dockstore.webservice.jdbi.BioWorkflowDAO;
+import io.dockstore.webservice.jdbi.EntryDAO;
+import io.dockstore.webservice.jdbi.ToolDAO;
+import io.dropwizard.jackson.Jackson;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequest;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
+import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rebuilds the tools and workflows indices while search keeps serving from the current ones.
+ *
+ * The tools and workflows names are aliases. A reindex creates a fresh index for each, named after the alias and a
+ * timestamp, and walks the published entries in id-ordered chunks. Worker threads load, convert and index one chunk
+ * each with their own read-only session. Once everything is indexed both aliases are moved to the new indices in a
+ * single atomic request and the old indices are deleted. Entries that changed while the reindex ran are then sent
+ * again through the ElasticListener, and entries that were indexed but deleted before the swap, whose deletion went to the
+ * old indices, are deleted from the new ones. If anything fails before the swap, the new indices are dropped and search is
+ * unaffected. At most THREADS * 2 chunks are held in memory at once.
+ */
+public class ElasticSearchReindexer {
+    private static final int CHUNK_SIZE = 100;
+    private static final int THREADS = 4;
+    private static final int BULK_ACTIONS = 500;
+    private static final long TIMEOUT_MINUTES = 30;
+    private static final Logger LOG = LoggerFactory.getLogger(ElasticSearchReindexer.class);
+    private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
+
+    private final SessionFactory sessionFactory;
+    private final RestHighLevelClient client;
+    private final ToolDAO toolDAO;
+    private final BioWorkflowDAO bioWorkflowDAO;
+
+    public ElasticSearchReindexer(SessionFactory sessionFactory, RestHighLevelClient client) {
+        this.sessionFactory = sessionFactory;
+        this.client = client;
+        this.toolDAO = new ToolDAO(sessionFactory);
+        this.bioWorkflowDAO = new BioWorkflowDAO(sessionFactory);
+    }
+
+    /**
+     * Must be called with a session bound, e.g. from a unit of work
+     * @return the number of entries indexed
+     */
+    public int reindex() throws IOException, InterruptedException {
+        final Timestamp start = new Timestamp(System.currentTimeMillis());
+        final Map<String, String> newIndices = new LinkedHashMap<>();
+        newIndices.put(TOOLS_INDEX, TOOLS_INDEX + "_" + start.getTime());
+        newIndices.put(WORKFLOWS_INDEX, WORKFLOWS_INDEX + "_" + start.getTime());
+        final Map<String, Set<Long>> indexedIds = new LinkedHashMap<>();
+        newIndices.values().forEach(index -> indexedIds.put(index, ConcurrentHashMap.newKeySet()));
+        final int count;
+        try {
+            createIndex(newIndices.get(TOOLS_INDEX), "queries/mapping_tool.json");
+            createIndex(newIndices.get(WORKFLOWS_INDEX), "queries/mapping_workflow.json");
+            count = indexAll(newIndices.get(TOOLS_INDEX), newIndices.get(WORKFLOWS_INDEX), indexedIds);
+            swapAliases(newIndices);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            newIndices.values().forEach(this::deleteIndex);
+            throw e;
+        }
+        // searches cached before the swap read the old indices
+        SearchResultCache.getInstance().invalidateAll();
+        deleteMissing(toolDAO, newIndices.get(TOOLS_INDEX), indexedIds.get(newIndices.get(TOOLS_INDEX)));
+        deleteMissing(bioWorkflowDAO, newIndices.get(WORKFLOWS_INDEX), indexedIds.get(newIndices.get(WORKFLOWS_INDEX)));
+        reindexUpdatedSince(start);
+        LOG.info("Reindexed {} entries into {}", count, newIndices.values());
+        return count;
+    }
+
+    private void createIndex(String index, String mappingResource) throws IOException {
+        final String mapping = Resources.toString(Resources.getResource(mappingResource), StandardCharsets.UTF_8);
+        client.indices().create(new CreateIndexRequest(index).source(mapping, XContentType.JSON), RequestOptions.DEFAULT);
+    }
+
+    /**
+     * @param indexedIds new index to the ids of the entries indexed there, filled in as they are indexed
+     */
+    private int indexAll(String toolsIndex, String workflowsIndex, Map<String, Set<Long>> indexedIds) throws IOException, InterruptedException {
+        final AtomicInteger count = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final BulkProcessor bulkProcessor = BulkProcessor.builder((request, bulkListener) -> client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
+            new BulkProcessor.Listener() {
+                @Override
+                public void beforeBulk(long executionId, BulkRequest request) {
+                    LOG.debug("Executing reindex bulk [{}] with {} requests", executionId, request.numberOfActions());
+                }
+
+                @Override
+                public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                    if (response.hasFailures()) {
+                        failure.compareAndSet(null, new IOException(response.buildFailureMessage()));
+                    }
+                }
+
+                @Override
+                public void afterBulk(long executionId, BulkRequest request, Throwable bulkFailure) {
+                    failure.compareAndSet(null, bulkFailure);
+                }
+            })
+            .setBulkActions(BULK_ACTIONS)
+            .setConcurrentRequests(THREADS)
+            .setBackoffPolicy(BackoffPolicy.exponentialBackoff(TimeValue.timeValueMillis(500), 5))
+            .build();
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS, new ThreadFactoryBuilder().setNameFormat("reindex-%d").build());
+        final Semaphore chunksInMemory = new Semaphore(THREADS * 2);
+        try {
+            submitChunks(toolDAO, toolsIndex, indexedIds.get(toolsIndex), executor, chunksInMemory, bulkProcessor, count, failure);
+            submitChunks(bioWorkflowDAO, workflowsIndex, indexedIds.get(workflowsIndex), executor, chunksInMemory, bulkProcessor, count, failure);
+        } finally {
+            executor.shutdown();
+            if (!executor.awaitTermination(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                executor.shutdownNow();
+                failure.compareAndSet(null, new IOException("Timed out converting entries"));
+            }
+            if (!bulkProcessor.awaitClose(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                failure.compareAndSet(null, new IOException("Timed out indexing entries"));
+            }
+        }
+        if (failure.get() != null) {
+            throw new IOException("Could not reindex", failure.get());
+        }
+        client.indices().refresh(new RefreshRequest(toolsIndex, workflowsIndex), RequestOptions.DEFAULT);
+        return count.get();
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    private <T extends Entry> void submitChunks(EntryDAO<T> dao, String index, Set<Long> indexedIds, ExecutorService executor,
+        Semaphore chunksInMemory, BulkProcessor bulkProcessor, AtomicInteger count, AtomicReference<Throwable> failure) throws InterruptedException {
+        long lastId = 0;
+        List<Long> ids = dao.findPublishedIdsAfter(lastId, CHUNK_SIZE);
+        while (!ids.isEmpty() && failure.get() == null) {
+            final List<Long> chunk = ids;
+            chunksInMemory.acquire();
+            executor.execute(() -> {
+                try {
+                    count.addAndGet(indexChunk(dao, chunk, index, indexedIds, bulkProcessor));
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    chunksInMemory.release();
+                }
+            });
+            lastId = chunk.get(chunk.size() - 1);
+            ids = dao.findPublishedIdsAfter(lastId, CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Runs on a worker thread, with a session of its own so that DAOs and lazy loading work there
+     */
+    private <T extends Entry> int indexChunk(EntryDAO<T> dao, List<Long> ids, String index, Set<Long> indexedIds, BulkProcessor bulkProcessor)
+        throws IOException {
+        try (Session session = sessionFactory.openSession()) {
+            session.setDefaultReadOnly(true);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            ManagedSessionContext.bind(session);
+            final Transaction transaction = session.beginTransaction();
+            try {
+                final List<Entry> entries = ElasticListener.filterCheckerWorkflows(new ArrayList<>(dao.findByIds(ids)));
+                for (Entry entry : entries) {
+                    final String json = MAPPER.writeValueAsString(ElasticListener.dockstoreEntryToElasticSearchObject(entry));
+                    bulkProcessor.add(new IndexRequest(index).id(String.valueOf(entry.getId())).source(json, XContentType.JSON));
+                    indexedIds.add(entry.getId());
+                }
+                return entries.size();
+            } finally {
+                transaction.rollback();
+            }
+        } finally {
+            ManagedSessionContext.unbind(sessionFactory);
+        }
+    }
+
+    /**
+     * Points each alias at its new index and removes it from the old ones in one request
+     * @param newIndices alias to new index
+     */
+    private void swapAliases(Map<String, String> newIndices) throws IOException {
+        final IndicesAliasesRequest request = new IndicesAliasesRequest();
+        final List<String> oldIndices = new ArrayList<>();
+        for (Map.Entry<String, String> aliasAndIndex : newIndices.entrySet()) {
+            final String alias = aliasAndIndex.getKey();
+            final Set<String> current = client.indices().getAlias(new GetAliasesRequest(alias), RequestOptions.DEFAULT).getAliases().keySet();
+            if (current.isEmpty() && client.indices().exists(new GetIndexRequest(alias), RequestOptions.DEFAULT)) {
+                // an index created before aliases were used, or by a write before the first reindex, holds the alias name
+                request.addAliasAction(IndicesAliasesRequest.AliasActions.removeIndex().index(alias));
+            }
+            for (String index : current) {
+                request.addAliasAction(IndicesAliasesRequest.AliasActions.remove().index(index).alias(alias));
+                oldIndices.add(index);
+            }
+            request.addAliasAction(IndicesAliasesRequest.AliasActions.add().index(aliasAndIndex.getValue()).alias(alias));
+        }
+        client.indices().updateAliases(request, RequestOptions.DEFAULT);
+        oldIndices.forEach(this::deleteIndex);
+    }
+
+    /**
+     * Entries deleted after they were indexed, but before the swap, were only deleted from the old index. Deleting those that no
+     * longer exist once the alias points at the new index leaves none behind; entries deleted since are deleted there by the
+     * ElasticListener.
+     * @param indexedIds ids of the entries indexed into the new index
+     */
+    private <T extends Entry> void deleteMissing(EntryDAO<T> dao, String index, Set<Long> indexedIds) throws IOException {
+        final List<Long> ids = new ArrayList<>(indexedIds);
+        final BulkRequest deletes = new BulkRequest();
+        for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+            final List<Long> chunk = ids.subList(i, Math.min(ids.size(), i + CHUNK_SIZE));
+            final Set<Long> existing = new HashSet<>(dao.findExistingIds(chunk));
+            chunk.stream().filter(id -> !existing.contains(id)).forEach(id -> deletes.add(new DeleteRequest(index, String.valueOf(id))));
+        }
+        if (deletes.numberOfActions() > 0) {
+            final BulkResponse response = client.bulk(deletes, RequestOptions.DEFAULT);
+            if (response.hasFailures()) {
+                LOG.error("Could not delete entries removed during the reindex from {}: {}", index, response.buildFailureMessage());
+            }
+            LOG.info("Deleted {} entries removed during the reindex from {}", deletes.numberOfActions(), index);
+        }
+    }
+
+    /**
+     * Entries converted before they changed are stale in the new indices, send them again now that the aliases point there
+     */
+    private void reindexUpdatedSince(Timestamp since) {
+        final ElasticListener elasticListener = PublicStateManager.getInstance().getElasticListener();
+        for (EntryDAO<? extends Entry> dao : List.of(toolDAO, bioWorkflowDAO)) {
+            final List<Long> ids = dao.findIdsUpdatedSince(since);
+            for (int i = 0; i < ids.size(); i += CHUNK_SIZE) {
+                dao.findByIds(ids.subList(i, Math.min(ids.size(), i + CHUNK_SIZE)))
+                    .forEach(entry -> elasticListener.handleIndexUpdate(entry, entry.getIsPublished() ? StateManagerMode.UPDATE : StateManagerMode.DELETE));
+            }
+        }
+    }
+
+    private void deleteIndex(String index) {
+        try {
+            client.indices().delete(new DeleteIndexRequest(index), RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            LOG.warn("Could not delete elastic search index " + index, e);
+        }
+    }
+}
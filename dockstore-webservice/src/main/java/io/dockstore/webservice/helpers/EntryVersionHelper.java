@@ -16,7 +16,6 @@
 
 package io.dockstore.webservice.helpers;
 
-import com.google.api.client.util.Charsets;
 import com.google.common.collect.Lists;
 import io.dockstore.common.DescriptorLanguage;
 import io.dockstore.webservice.CustomWebApplicationException;
@@ -39,11 +38,15 @@ import io.dockstore.webservice.resources.AuthenticatedResourceInterface;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -54,6 +57,12 @@ import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.http.HttpStatus;
@@ -352,12 +361,16 @@ public interface EntryVersionHelper<T extends Entry<T, U>, U extends Version, W
     default void writeStreamAsZip(Set<SourceFile> sourceFiles, OutputStream outputStream, Path workingDirectory) {
 
         try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
-            List<String> paths = new ArrayList<>();
+            Set<String> paths = new HashSet<>();
+            // Encodes content straight into the zip stream; closing it would close the zip stream, so it is only flushed
+            Writer writer = new OutputStreamWriter(zipOutputStream, StandardCharsets.UTF_8);
 
-            // If this sourceFile content is null, do not write it.  Empty is acceptable though.
-            sourceFiles.removeIf(sourceFile -> sourceFile.getContent() == null);
             // Write each sourcefile
             for (SourceFile sourceFile : sourceFiles) {
+                // If this sourceFile content is null, do not write it.  Empty is acceptable though.
+                if (sourceFile.getContent() == null) {
+                    continue;
+                }
                 Path resolve = workingDirectory.resolve(sourceFile.getAbsolutePath());
                 File file = resolve.toFile();
                 String stripStart = removeWorkingDirectory(file.getPath(), file.getName());
@@ -367,20 +380,56 @@ public interface EntryVersionHelper<T extends Entry<T, U>, U extends Version, W
                 Path filePath = Paths.get(stripStart).normalize();
                 if (filePath.getNameCount() > 1) {
                     String parentPath = filePath.getParent().toString() + "/";
-                    if (!paths.contains(parentPath)) {
+                    if (paths.add(parentPath)) {
                         zipOutputStream.putNextEntry(new ZipEntry(parentPath));
                         zipOutputStream.closeEntry();
-                        paths.add(parentPath);
                     }
                 }
                 zipOutputStream.putNextEntry(secondaryZipEntry);
-                zipOutputStream.write(sourceFile.getContent().getBytes(Charsets.UTF_8));
+                writer.write(sourceFile.getContent());
+                writer.flush();
             }
         } catch (IOException ex) {
             throw new CustomWebApplicationException("Could not create ZIP file", HttpStatus.SC_INTERNAL_SERVER_ERROR);
         }
     }
 
+    /**
+     * Responds with the ZIP file of a version. The ZIP files of frozen versions are cached on disk and can be revalidated with their ETag.
+     * @param version the version
+     * @param sourceFiles the files of the version
+     * @param workingDirectory the working directory of the version
+     * @param fileName the name to download the ZIP file as
+     * @param request the request, for its If-None-Match header
+     * @return the response
+     */
+    default Response getZipResponse(Version version, Set<SourceFile> sourceFiles, Path workingDirectory, String fileName, Request request) {
+        final String contentDisposition = "attachment; filename=\"" + fileName + "\"";
+        if (version.isFrozen()) {
+            final String key = FrozenVersionZipCache.key(version.getId(), sourceFiles);
+            final EntityTag entityTag = new EntityTag(key);
+            final Response.ResponseBuilder notModified = request.evaluatePreconditions(entityTag);
+            if (notModified != null) {
+                return notModified.build();
+            }
+            // Streams from the file opened here, which a concurrent eviction cannot take away once Content-Length is set
+            final Optional<FrozenVersionZipCache.CachedZip> zip = FrozenVersionZipCache.getInstance()
+                .get(key, output -> writeStreamAsZip(sourceFiles, output, workingDirectory));
+            if (zip.isPresent()) {
+                final Response.ResponseBuilder ok = Response.ok().tag(entityTag).header(HttpHeaders.CONTENT_LENGTH, zip.get().getSize())
+                    .header("Content-Disposition", contentDisposition);
+                if (HttpMethod.HEAD.equals(request.getMethod())) {
+                    // the entity of a HEAD response is never written, so nothing else would close the file
+                    zip.get().close();
+                    return ok.build();
+                }
+                return ok.entity((StreamingOutput)output -> zip.get().transferTo(output)).build();
+            }
+        }
+        return Response.ok().entity((StreamingOutput)output -> writeStreamAsZip(sourceFiles, output, workingDirectory))
+            .header("Content-Disposition", contentDisposition).build();
+    }
+
     static String generateZipFileName(String path, String versionName) {
         final String pathName = path.replaceAll("/", "-");
         return pathName + '-' + versionName + ".zip";
@@ -0,0 +1,224 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import io.dockstore.webservice.core.SourceFile;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the ZIP files of frozen versions on local disk, since the files of a frozen version cannot change.
+ *
+ * A ZIP file is named after a key made of the version ID and the paths and checksums of its files, which also serves as its ETag.
+ * Once the directory holds more than {@link #MAX_FILES} ZIP files, the least recently served ones are deleted. ZIP files are handed
+ * out already open, so a download that is under way keeps reading a ZIP file deleted after it started.
+ */
+public final class FrozenVersionZipCache {
+    static final int MAX_FILES = 1000;
+    private static final Logger LOG = LoggerFactory.getLogger(FrozenVersionZipCache.class);
+    private static final String ZIP_SUFFIX = ".zip";
+    private static final FrozenVersionZipCache INSTANCE = new FrozenVersionZipCache(
+        Paths.get(System.getProperty("java.io.tmpdir"), "dockstore-frozen-zips"));
+
+    private final Path directory;
+
+    FrozenVersionZipCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public static FrozenVersionZipCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param versionId the ID of a frozen version
+     * @param sourceFiles the files of the version
+     * @return a key that changes whenever the ZIP file of the version would
+     */
+    public static String key(long versionId, Collection<SourceFile> sourceFiles) {
+        final List<SourceFile> zippedFiles = new ArrayList<>();
+        sourceFiles.stream().filter(sourceFile -> sourceFile.getContent() != null).forEach(zippedFiles::add);
+        zippedFiles.sort(Comparator.comparing(SourceFile::getAbsolutePath, Comparator.nullsFirst(Comparator.naturalOrder())));
+        final Hasher hasher = Hashing.sha256().newHasher();
+        for (SourceFile sourceFile : zippedFiles) {
+            hasher.putString(Objects.toString(sourceFile.getAbsolutePath()), StandardCharsets.UTF_8).putByte((byte)0);
+            // Files without checksums are hashed by their content instead
+            if (sourceFile.getChecksums() == null || sourceFile.getChecksums().isEmpty()) {
+                hasher.putString(sourceFile.getContent(), StandardCharsets.UTF_8);
+            } else {
+                hasher.putString(sourceFile.getChecksums().toString(), StandardCharsets.UTF_8);
+            }
+            hasher.putByte((byte)0);
+        }
+        return versionId + "-" + hasher.hash();
+    }
+
+    /**
+     * Opens the ZIP file for a key, writing it first if it is not cached
+     * @param key from {@link #key(long, Collection)}
+     * @param zipWriter writes the ZIP file to a stream
+     * @return the cached ZIP file, open for reading, or nothing if it could not be cached
+     */
+    public Optional<CachedZip> get(String key, Consumer<OutputStream> zipWriter) {
+        final Path zip = directory.resolve(key + ZIP_SUFFIX);
+        try {
+            final Optional<FileChannel> cached = open(zip);
+            if (cached.isPresent()) {
+                return Optional.of(new CachedZip(cached.get()));
+            }
+            Files.createDirectories(directory);
+            // Writes to a temporary file first so that concurrent downloads never serve a partial ZIP file
+            final Path partial = Files.createTempFile(directory, key, ".partial");
+            final FileChannel channel;
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(partial)) {
+                    zipWriter.accept(outputStream);
+                }
+                // Opened before it is moved into place, where it can be evicted
+                channel = FileChannel.open(partial, StandardOpenOption.READ);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(partial);
+                throw e;
+            }
+            final CachedZip cachedZip = new CachedZip(channel);
+            try {
+                Files.move(partial, zip, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                // Still served from the open file, just not cached
+                LOG.error("Could not cache the ZIP file " + zip, e);
+                Files.deleteIfExists(partial);
+                return Optional.of(cachedZip);
+            }
+            evictLeastRecentlyServed();
+            return Optional.of(cachedZip);
+        } catch (IOException e) {
+            LOG.error("Could not cache the ZIP file " + zip, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return the ZIP file, open for reading, if it is cached
+     */
+    private static Optional<FileChannel> open(Path zip) throws IOException {
+        final FileChannel channel;
+        try {
+            channel = FileChannel.open(zip, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        }
+        try {
+            // Marks the file as recently served
+            Files.setLastModifiedTime(zip, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // e.g., evicted since it was opened, which does not stop it from being read
+            LOG.debug("Could not mark the ZIP file " + zip + " as served", e);
+        }
+        return Optional.of(channel);
+    }
+
+    private void evictLeastRecentlyServed() {
+        final List<Path> zips = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + ZIP_SUFFIX)) {
+            stream.forEach(zips::add);
+        } catch (IOException e) {
+            LOG.warn("Could not list the ZIP files to evict", e);
+            return;
+        }
+        if (zips.size() <= MAX_FILES) {
+            return;
+        }
+        zips.sort(Comparator.comparingLong(path -> path.toFile().lastModified()));
+        for (Path zip : zips.subList(0, zips.size() - MAX_FILES)) {
+            try {
+                Files.deleteIfExists(zip);
+            } catch (IOException e) {
+                LOG.warn("Could not evict the ZIP file " + zip, e);
+            }
+        }
+    }
+
+    /**
+     * A ZIP file from the cache, open for reading. Deleting the file, e.g., by eviction, does not stop it from being read.
+     */
+    public static final class CachedZip {
+        private final FileChannel channel;
+        private final long size;
+
+        CachedZip(FileChannel channel) throws IOException {
+            this.channel = channel;
+            try {
+                this.size = channel.size();
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * Copies the ZIP file to a stream, letting the file system do the copy where it can, and closes it
+         * @param outputStream
+         * @throws IOException
+         */
+        public void transferTo(OutputStream outputStream) throws IOException {
+            try (channel) {
+                final WritableByteChannel target = Channels.newChannel(outputStream);
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        }
+
+        /**
+         * Closes the ZIP file without reading it
+         */
+        public void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.warn("Could not close a cached ZIP file", e);
+            }
+        }
+    }
+}
@@ -59,6 +59,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -66,6 +67,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -106,6 +108,14 @@ public class GitHubSourceCodeRepo extends SourceCodeRepoInterface {
     private static final Logger LOG = LoggerFactory.getLogger(GitHubSourceCodeRepo.class);
     private final GitHub github;
     private String githubTokenUsername;
+    /**
+     * Files of the references that a release listed with the Git trees API, by repository and reference name
+     */
+    private final Map<String, GitHubTreeFiles> treeFiles = new ConcurrentHashMap<>();
+    /**
+     * References of a release, by repository and git reference, so that each workflow of the release does not look them up again
+     */
+    private final Map<String, Triple<String, Date, String>> releaseRefs = new ConcurrentHashMap<>();
 
     /**
      *  @param githubTokenUsername the username for githubTokenContent
@@ -172,6 +182,15 @@ public class GitHubSourceCodeRepo extends SourceCodeRepoInterface {
         try {
             startRateLimit = getGhRateLimitQuietly();
 
+            GitHubTreeFiles files = treeFiles.get(repo.getFullName() + ":" + reference);
+            if (files != null && files.canRead(fileName)) {
+                try {
+                    return files.read(fileName);
+                } catch (IOException e) {
+                    LOG.warn(gitUsername + ": could not read blob of " + fileName + " from repository " + repo.getFullName() + ":" + reference + ", reading it from its directory", e);
+                }
+            }
+
             // may need to pass owner from git url, as this may differ from the git username
             List<String> folders = Arrays.asList(fileName.split("/"));
             List<String> start = new ArrayList<>();
@@ -1115,6 +1134,59 @@ public class GitHubSourceCodeRepo extends SourceCodeRepoInterface {
      */
     public WorkflowVersion createVersionForWorkflow(String repository, String gitReference, Workflow workflow, SourceFile dockstoreYml) throws IOException {
         GHRepository ghRepository = getRepository(repository);
+        Triple<String, Date, String> ref = getReleaseRef(ghRepository, gitReference);
+
+        Map<String, WorkflowVersion> existingDefaults = new HashMap<>();
+
+        // Create version with sourcefiles and validate
+        return setupWorkflowVersionsHelper(workflow, ref, Optional.of(workflow), existingDefaults, ghRepository, dockstoreYml, Optional.empty());
+    }
+
+    /**
+     * Lists the files of a release with the Git trees API and fetches the given files, and files they likely import, concurrently.
+     * Reads of the release, such as those of createVersionForWorkflow, are then served from memory where possible.
+     * The fetch is throttled by the remaining GitHub rate limit and is skipped if the tree cannot be listed.
+     * @param repository Repository path (ex. dockstore/dockstore-ui2)
+     * @param gitReference Branch/tag reference from GitHub (ex. refs/tags/1.0)
+     * @param paths Paths of the files in .dockstore.yml
+     */
+    public void prefetchReleaseFiles(String repository, String gitReference, Collection<String> paths) {
+        GHRepository ghRepository = getRepository(repository);
+        Triple<String, Date, String> ref;
+        Optional<GitHubTreeFiles> files;
+        try {
+            ref = getReleaseRef(ghRepository, gitReference);
+            if (ref.getRight() == null) {
+                return;
+            }
+            files = GitHubTreeFiles.list(ghRepository, ref.getRight(), () -> {
+                GHRateLimit rateLimit = getGhRateLimitQuietly();
+                return rateLimit == null ? -1 : rateLimit.getRemaining();
+            });
+        } catch (IOException e) {
+            LOG.warn(gitUsername + ": could not list the files of " + repository + ":" + gitReference + ", reading them one at a time", e);
+            return;
+        }
+        String treeKey = ghRepository.getFullName() + ":" + ref.getLeft();
+        files.ifPresent(treeFilesOfRelease -> {
+            treeFiles.put(treeKey, treeFilesOfRelease);
+            treeFilesOfRelease.prefetch(paths);
+        });
+    }
+
+    /**
+     * Retrieve the reference of a release, once per release
+     * @param ghRepository GitHub repository object
+     * @param gitReference Branch/tag reference from GitHub (ex. refs/tags/1.0)
+     * @return Triple containing reference name, branch date, and SHA
+     * @throws IOException
+     */
+    private Triple<String, Date, String> getReleaseRef(GHRepository ghRepository, String gitReference) throws IOException {
+        String key = ghRepository.getFullName() + ":" + gitReference;
+        Triple<String, Date, String> cachedRef = releaseRefs.get(key);
+        if (cachedRef != null) {
+            return cachedRef;
+        }
 
         // Match the github reference (ex. refs/heads/feature/foobar or refs/tags/1.0)
         Pattern pattern = Pattern.compile("^refs/(tags|heads)/([a-zA-Z0-9]+([./_-]?[a-zA-Z0-9]+)*)$");
@@ -1133,11 +1205,8 @@ public class GitHubSourceCodeRepo extends SourceCodeRepoInterface {
             throw new CustomWebApplicationException("Cannot retrieve the workflow reference from GitHub, ensure that " + gitReference + " is a valid branch/tag.",
                     LAMBDA_FAILURE);
         }
-
-        Map<String, WorkflowVersion> existingDefaults = new HashMap<>();
-
-        // Create version with sourcefiles and validate
-        return setupWorkflowVersionsHelper(workflow, ref, Optional.of(workflow), existingDefaults, ghRepository, dockstoreYml, Optional.empty());
+        releaseRefs.put(key, ref);
+        return ref;
     }
 
     /**
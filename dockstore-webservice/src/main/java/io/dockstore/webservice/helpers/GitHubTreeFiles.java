@@ -0,0 +1,230 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GHTree;
+import org.kohsuke.github.GHTreeEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The files of one commit of a GitHub repository, listed with a single call to the Git trees API.
+ *
+ * Reading a file then takes one request for its blob instead of listing branches, tags and its directory, and a file that is
+ * not in the tree is known to be missing without asking GitHub. Blob contents are kept by blob sha, so a path shared by several
+ * workflows of a release, or two paths with identical content, are fetched once.
+ *
+ * Paths that go through a symbolic link are left to the caller, who already knows how to follow them.
+ */
+class GitHubTreeFiles {
+    static final int MAX_THREADS = 8;
+    static final int MAX_PREFETCH = 200;
+    /**
+     * Requests left alone for the rest of the release, which still reads files that were not prefetched
+     */
+    static final int RATE_LIMIT_RESERVE = 200;
+    /**
+     * Each thread is given this many remaining requests, so parallelism drops as the rate limit runs low
+     */
+    static final int REQUESTS_PER_THREAD = 250;
+    private static final Logger LOG = LoggerFactory.getLogger(GitHubTreeFiles.class);
+    private static final String SYMLINK_MODE = "120000";
+    private static final String BLOB_TYPE = "blob";
+    private static final Set<String> IMPORT_EXTENSIONS = Set.of("cwl", "wdl", "nf");
+    private static final long PREFETCH_TIMEOUT_SECONDS = 60;
+
+    private final Map<String, String> blobShas;
+    private final Set<String> symlinks;
+    private final BlobReader blobReader;
+    private final IntSupplier remainingRateLimit;
+    private final Map<String, String> contents = new ConcurrentHashMap<>();
+
+    /**
+     * @param blobShas blob sha of each regular file by path
+     * @param symlinks paths of symbolic links
+     * @param blobReader reads the content of a blob
+     * @param remainingRateLimit requests left in the GitHub rate limit, negative if unknown
+     */
+    GitHubTreeFiles(Map<String, String> blobShas, Set<String> symlinks, BlobReader blobReader, IntSupplier remainingRateLimit) {
+        this.blobShas = blobShas;
+        this.symlinks = symlinks;
+        this.blobReader = blobReader;
+        this.remainingRateLimit = remainingRateLimit;
+    }
+
+    /**
+     * Lists the files of a commit
+     * @param repository GitHub repository object
+     * @param sha commit sha
+     * @param remainingRateLimit requests left in the GitHub rate limit, negative if unknown
+     * @return the files, or nothing if the tree is too large for GitHub to list in one response
+     * @throws IOException
+     */
+    static Optional<GitHubTreeFiles> list(GHRepository repository, String sha, IntSupplier remainingRateLimit) throws IOException {
+        GHTree tree = repository.getTreeRecursive(sha, 1);
+        if (tree.isTruncated()) {
+            LOG.info("The tree of " + repository.getFullName() + " at " + sha + " is too large to list, reading files one at a time");
+            return Optional.empty();
+        }
+        Map<String, String> blobShas = new HashMap<>();
+        Set<String> symlinks = new HashSet<>();
+        for (GHTreeEntry entry : tree.getTree()) {
+            if (SYMLINK_MODE.equals(entry.getMode())) {
+                symlinks.add(entry.getPath());
+            } else if (BLOB_TYPE.equals(entry.getType())) {
+                blobShas.put(entry.getPath(), entry.getSha());
+            }
+        }
+        return Optional.of(new GitHubTreeFiles(blobShas, symlinks, blobSha -> readBlob(repository, blobSha), remainingRateLimit));
+    }
+
+    /**
+     * @param path path of a file, with or without a leading slash
+     * @return false if reading the path means following a symbolic link
+     */
+    boolean canRead(String path) {
+        String stripped = StringUtils.stripStart(path, "/");
+        int slash = -1;
+        do {
+            slash = stripped.indexOf('/', slash + 1);
+            String prefix = slash < 0 ? stripped : stripped.substring(0, slash);
+            String segment = prefix.substring(prefix.lastIndexOf('/') + 1);
+            if (symlinks.contains(prefix) || ".".equals(segment) || "..".equals(segment)) {
+                return false;
+            }
+        } while (slash >= 0);
+        return true;
+    }
+
+    /**
+     * @param path path of a file that {@link #canRead(String)}
+     * @return the content of the file, or null if there is no regular file at that path, e.g. a directory or a submodule
+     * @throws IOException
+     */
+    String read(String path) throws IOException {
+        String blobSha = blobShas.get(StringUtils.stripStart(path, "/"));
+        if (blobSha == null) {
+            return null;
+        }
+        String content = contents.get(blobSha);
+        if (content == null) {
+            content = blobReader.read(blobSha);
+            contents.put(blobSha, content);
+        }
+        return content;
+    }
+
+    /**
+     * Fetches files concurrently, along with files in or below their directories that share a descriptor extension, since those are
+     * likely to be imported. Nothing is fetched when the remaining rate limit is unknown or below the reserve, and fetching stops
+     * when it falls below it. Files that were not fetched are read one at a time later.
+     * @param paths paths of files that will be read
+     * @return the number of blobs fetched
+     */
+    int prefetch(Collection<String> paths) {
+        int remaining = remainingRateLimit.getAsInt();
+        int budget = Math.min(MAX_PREFETCH, remaining - RATE_LIMIT_RESERVE);
+        if (budget <= 0) {
+            LOG.info("Not prefetching files with " + remaining + " GitHub requests left");
+            return 0;
+        }
+        Set<String> blobsToFetch = new LinkedHashSet<>();
+        paths.stream().filter(this::canRead).map(path -> blobShas.get(StringUtils.stripStart(path, "/"))).filter(Objects::nonNull)
+            .forEach(blobsToFetch::add);
+        for (String path : paths) {
+            addLikelyImports(path, blobsToFetch);
+        }
+        blobsToFetch.removeAll(contents.keySet());
+        if (blobsToFetch.isEmpty()) {
+            return 0;
+        }
+
+        int threads = Math.min(MAX_THREADS, (remaining - RATE_LIMIT_RESERVE) / REQUESTS_PER_THREAD + 1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("github-prefetch-%d").setDaemon(true).build());
+        Set<String> fetched = ConcurrentHashMap.newKeySet();
+        try {
+            blobsToFetch.stream().limit(budget).forEach(blobSha -> executor.execute(() -> {
+                if (remainingRateLimit.getAsInt() < RATE_LIMIT_RESERVE) {
+                    return;
+                }
+                try {
+                    contents.put(blobSha, blobReader.read(blobSha));
+                    fetched.add(blobSha);
+                } catch (IOException | RuntimeException e) {
+                    LOG.warn("Could not prefetch blob " + blobSha + ", it will be read when needed", e);
+                }
+            }));
+            executor.shutdown();
+            if (!executor.awaitTermination(PREFETCH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOG.warn("Could not prefetch files in time, the rest will be read when needed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        LOG.info("Prefetched " + fetched.size() + " files with " + threads + " threads");
+        return fetched.size();
+    }
+
+    private void addLikelyImports(String path, Set<String> blobsToFetch) {
+        String stripped = StringUtils.stripStart(path, "/");
+        String extension = FilenameUtils.getExtension(stripped).toLowerCase();
+        if (!IMPORT_EXTENSIONS.contains(extension)) {
+            return;
+        }
+        String directory = FilenameUtils.getPath(stripped);
+        blobShas.entrySet().stream()
+            .filter(entry -> entry.getKey().startsWith(directory) && extension.equals(FilenameUtils.getExtension(entry.getKey()).toLowerCase()))
+            .map(Map.Entry::getValue)
+            .forEach(blobsToFetch::add);
+    }
+
+    private static String readBlob(GHRepository repository, String blobSha) throws IOException {
+        try (InputStream inputStream = repository.readBlob(blobSha)) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Reads the content of a blob by its sha
+     */
+    @FunctionalInterface
+    interface BlobReader {
+        String read(String blobSha) throws IOException;
+    }
+}
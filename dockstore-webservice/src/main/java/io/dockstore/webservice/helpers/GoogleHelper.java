@@ -6,6 +6,7 @@ import com.google.api.client.auth.oauth2.ClientParametersAuthentication;
 import com.google.api.client.auth.oauth2.TokenResponse;
 import com.google.api.client.googleapis.auth.oauth2.GoogleCredential;
 import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.services.oauth2.Oauth2;
 import com.google.api.services.oauth2.model.Tokeninfo;
 import com.google.api.services.oauth2.model.Userinfoplus;
@@ -32,6 +33,7 @@ public final class GoogleHelper {
     private static final String GOOGLE_AUTHORIZATION_SERVICE_ENCODED_URL = "https://accounts.google.com/o/oauth2/v2/auth";
     private static final String GOOGLE_ENCODED_URL = "https://www.googleapis.com/oauth2/v4/token";
     private static final Logger LOG = LoggerFactory.getLogger(GoogleHelper.class);
+    private static final int TOO_MANY_REQUESTS = 429;
 
     private static DockstoreWebserviceConfiguration config;
 
@@ -119,13 +121,31 @@ public final class GoogleHelper {
     }
 
     public static Optional<Userinfoplus> userinfoplusFromToken(String token)  {
-        if (isValidToken(token)) {
+        try {
+            return verifiedUserinfoplusFromToken(token);
+        } catch (IOException ex) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Same as userinfoplusFromToken, but tells a token that Google rejected apart from Google being unavailable
+     * @param token The Google access token
+     * @return the user info, empty if Google rejected the token
+     * @throws IOException if Google could not be reached or failed to answer
+     */
+    public static Optional<Userinfoplus> verifiedUserinfoplusFromToken(String token) throws IOException {
+        if (verifiedTokenInfoFromToken(token).map(GoogleHelper::isValidAudience).orElse(false)) {
             GoogleCredential credential = new GoogleCredential().setAccessToken(token);
-            Oauth2 oauth2;
             try {
-                oauth2 = new Oauth2.Builder(TokenResource.HTTP_TRANSPORT, TokenResource.JSON_FACTORY, credential).setApplicationName("").build();
+                Oauth2 oauth2 = new Oauth2.Builder(TokenResource.HTTP_TRANSPORT, TokenResource.JSON_FACTORY, credential).setApplicationName("").build();
                 return Optional.ofNullable(oauth2.userinfo().get().execute());
-            } catch (Exception ex) {
+            } catch (HttpResponseException ex) {
+                if (isRejection(ex)) {
+                    return Optional.empty();
+                }
+                throw ex;
+            } catch (RuntimeException ex) {
                 return Optional.empty();
             }
         }
@@ -147,21 +167,39 @@ public final class GoogleHelper {
     }
 
     private static Optional<Tokeninfo> tokenInfoFromToken(String googleToken) {
+        try {
+            return verifiedTokenInfoFromToken(googleToken);
+        } catch (IOException e) {
+            LOG.info(MessageFormat.format("Error getting token info: {0}", e.getMessage()));
+            LOG.debug("Error getting token info", e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<Tokeninfo> verifiedTokenInfoFromToken(String googleToken) throws IOException {
         GoogleCredential cred = new GoogleCredential().setAccessToken(googleToken);
         try {
             Oauth2 oauth2 = new Oauth2.Builder(TokenResource.HTTP_TRANSPORT, TokenResource.JSON_FACTORY, cred).setApplicationName("").build();
             Tokeninfo tokenInfo = oauth2.tokeninfo().setAccessToken(googleToken).execute();
             return Optional.ofNullable(tokenInfo);
-        } catch (RuntimeException | IOException e) {
+        } catch (RuntimeException | HttpResponseException e) {
             // If token is invalid, Google client throws exception. See https://github.com/google/google-api-java-client/issues/970
+            if (e instanceof HttpResponseException && !isRejection((HttpResponseException)e)) {
+                throw (HttpResponseException)e;
+            }
             LOG.info(MessageFormat.format("Error getting token info: {0}", e.getMessage()));
             LOG.debug("Error getting token info", e);
             return Optional.empty();
         }
     }
 
-    private static boolean isValidToken(String googleToken) {
-        return tokenInfoFromToken(googleToken).map(GoogleHelper::isValidAudience).orElse(false);
+    /**
+     * @param e an error response from Google
+     * @return true if Google answered that the token is not valid, false if the request may succeed when retried
+     */
+    static boolean isRejection(HttpResponseException e) {
+        final int statusCode = e.getStatusCode();
+        return statusCode >= HttpStatus.SC_BAD_REQUEST && statusCode < HttpStatus.SC_INTERNAL_SERVER_ERROR && statusCode != TOO_MANY_REQUESTS;
     }
 
     /**
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.dropwizard.jackson.Jackson;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.ws.rs.core.StreamingOutput;
+import org.hibernate.FlushMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.context.internal.ManagedSessionContext;
+
+/**
+ * Writes large listings as a JSON array without building the whole list in memory first.
+ *
+ * The response body is written after the resource method's unit of work has finished, so the entries are read with a
+ * separate read-only session that is bound for the duration of the write. DAOs called from the sources and the converter
+ * therefore see that session through currentSession(). Entries are pulled from a forward-only cursor, converted, written
+ * and evicted one at a time, and the session is cleared every CHUNK_SIZE entries, so memory is bounded by the chunk size
+ * rather than the page size.
+ */
+public final class JsonStreamingHelper {
+
+    public static final int CHUNK_SIZE = 100;
+    private static ObjectMapper objectMapper = Jackson.newObjectMapper();
+
+    private JsonStreamingHelper() {
+    }
+
+    /**
+     * Use the same mapper as Jersey so that streamed and non-streamed responses look the same
+     * @param mapper the application's object mapper
+     */
+    public static void setObjectMapper(ObjectMapper mapper) {
+        JsonStreamingHelper.objectMapper = mapper;
+    }
+
+    /**
+     * @param threshold the configured streamingPageSizeThreshold, null if streaming is off
+     * @param pageSize  the size of the page requested
+     * @return true if a listing of this size should be streamed
+     */
+    public static boolean shouldStream(Integer threshold, int pageSize) {
+        return threshold != null && pageSize >= threshold;
+    }
+
+    /**
+     * @param sessionFactory session factory to open the streaming session from
+     * @param sources        cursors to read from in order, called once the streaming session is bound
+     * @param converter      converts each entity into the object to serialize, entities converted to null are skipped
+     * @param <T>            the type of entity returned by the cursors
+     * @return a response entity that writes one JSON array containing every converted entity
+     */
+    public static <T> StreamingOutput streamJsonArray(SessionFactory sessionFactory, List<Supplier<ScrollableResults>> sources,
+        Function<T, Object> converter) {
+        return output -> {
+            final Session previousSession = ManagedSessionContext.hasBind(sessionFactory) ? ManagedSessionContext.unbind(sessionFactory) : null;
+            try (Session session = sessionFactory.openSession()) {
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+                ManagedSessionContext.bind(session);
+                final Transaction transaction = session.beginTransaction();
+                // Jersey owns the output stream, only flush it when done
+                try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+                    generator.writeStartArray();
+                    int count = 0;
+                    for (Supplier<ScrollableResults> source : sources) {
+                        final ScrollableResults results = source.get();
+                        try {
+                            while (results.next()) {
+                                final T entity = (T)results.get(0);
+                                final Object converted = converter.apply(entity);
+                                if (converted != null) {
+                                    generator.writeObject(converted);
+                                }
+                                if (session.contains(entity)) {
+                                    session.evict(entity);
+                                }
+                                count++;
+                                if (count % CHUNK_SIZE == 0) {
+                                    generator.flush();
+                                    session.clear();
+                                }
+                            }
+                        } finally {
+                            results.close();
+                        }
+                    }
+                    generator.writeEndArray();
+                } finally {
+                    // nothing is ever written, this only releases the connection
+                    transaction.rollback();
+                }
+            } finally {
+                ManagedSessionContext.unbind(sessionFactory);
+                if (previousSession != null) {
+                    ManagedSessionContext.bind(previousSession);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import io.dockstore.webservice.CustomWebApplicationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.http.HttpStatus;
+
+/**
+ * Opaque cursors for feeds ordered by descending ID. A cursor holds the ID of the last row of a page, and the next page is the rows
+ * with smaller IDs, so that a page costs the same however deep it is and rows inserted meanwhile do not shift later pages.
+ */
+public final class PaginationCursor {
+    public static final String NEXT_CURSOR_HEADER = "X-next-cursor";
+    public static final String CURSOR_DESCRIPTION = "Cursor from the " + NEXT_CURSOR_HEADER + " header of the previous page. Takes precedence over offset.";
+    private static final String PREFIX = "id:";
+
+    private PaginationCursor() {
+    }
+
+    /**
+     * @param cursor a cursor from {@link #encode(long)}, may be null
+     * @return the ID that rows of the page are before, Long.MAX_VALUE for the first page
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return Long.MAX_VALUE;
+        }
+        try {
+            final String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(PREFIX)) {
+                return Long.parseLong(decoded.substring(PREFIX.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException is an IllegalArgumentException too
+        }
+        throw new CustomWebApplicationException("Invalid cursor", HttpStatus.SC_BAD_REQUEST);
+    }
+
+    public static String encode(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((PREFIX + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sets the cursor of the page after <code>page</code>, if <code>page</code> is full
+     * @param response
+     * @param page a page of rows ordered by descending ID
+     * @param limit the size of a full page
+     * @param getId gets the ID of a row
+     */
+    public static <T> void addNextCursorHeader(HttpServletResponse response, List<T> page, int limit, ToLongFunction<T> getId) {
+        if (!page.isEmpty() && page.size() >= limit) {
+            response.addHeader(NEXT_CURSOR_HEADER, encode(getId.applyAsLong(page.get(page.size() - 1))));
+            response.addHeader("Access-Control-Expose-Headers", NEXT_CURSOR_HEADER);
+        }
+    }
+}
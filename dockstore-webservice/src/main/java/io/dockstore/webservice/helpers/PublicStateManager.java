@@ -50,6 +50,10 @@ public final class PublicStateManager {
         return rssListener;
     }
 
+    public ElasticListener getElasticListener() {
+        return elasticListener;
+    }
+
     public static PublicStateManager getInstance() {
         return SINGLETON;
     }
@@ -161,20 +161,17 @@ public class QuayImageRegistry extends AbstractImageRegistry {
     }
 
     /**
-     * Return information from Quay that describes a tool.
+     * Return information from Quay that describes a tool. Always checked with Quay, as it is read to refresh or register the tool.
      * @param tool a tool from Dockstore
      * @return corresponding QuayRepo information from quay.io
      */
     public Optional<QuayRepo> getToolFromQuay(final Tool tool) {
         final String repo = tool.getNamespace() + '/' + tool.getName();
-
-        try {
-            final QuayRepo quayRepo = repositoryApi.getRepo(repo, false);
-            return Optional.of(quayRepo);
-        } catch (ApiException e) {
-            LOG.error(quayToken.getUsername() + " could not read from " + repo, e);
+        final Optional<QuayRepo> quayRepo = RegistryMetadataClient.getInstance().getQuayRepo(repo, quayToken.getContent(), true);
+        if (quayRepo.isEmpty()) {
+            LOG.error(quayToken.getUsername() + " could not read from " + repo);
         }
-        return Optional.empty();
+        return quayRepo;
     }
 
     private void insertQuayLastModifiedIntoLastBuilt(QuayTag quayTag, Tag tag) {
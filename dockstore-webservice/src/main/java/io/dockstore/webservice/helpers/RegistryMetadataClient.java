@@ -0,0 +1,254 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import io.swagger.quay.client.JSON;
+import io.swagger.quay.client.model.QuayRepo;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads repository and tag listings from Quay.io and Docker Hub, keeping a bounded cache of the responses.
+ *
+ * For lookups, a cached response is used as is for {@link #FRESH_SECONDS}, then revalidated with If-None-Match or If-Modified-Since,
+ * so an unchanged listing costs a 304 instead of a full download. Refreshes always revalidate, so that they see a tag pushed a moment ago. When a registry says its rate limit is used up, either with a 429 or
+ * with a remaining count of zero, it is not called again until the limit resets; cached responses, even stale ones, are used meanwhile.
+ */
+public final class RegistryMetadataClient {
+    public static final String QUAY_URL = "https://quay.io/api/v1/";
+    static final long FRESH_SECONDS = 60;
+    static final long DEFAULT_BACKOFF_SECONDS = 60;
+    static final int TOO_MANY_REQUESTS = 429;
+    private static final Logger LOG = LoggerFactory.getLogger(RegistryMetadataClient.class);
+    private static final int MAX_RESPONSES = 5000;
+    private static final long MAX_RESPONSE_AGE_HOURS = 6;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] REMAINING_HEADERS = {"X-RateLimit-Remaining", "RateLimit-Remaining"};
+    private static final String[] RESET_HEADERS = {"X-RateLimit-Reset", "RateLimit-Reset"};
+    /**
+     * Reset headers below this are a number of seconds to wait, above it a time in epoch seconds
+     */
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L;
+    private static final Pattern LEADING_NUMBER = Pattern.compile("^\\s*(\\d+)");
+    /**
+     * Readers are immutable and thread-safe, and building the Quay.io client's mapper is not cheap, so it is done once
+     */
+    private static final ObjectReader QUAY_REPO_READER = new JSON().getContext(QuayRepo.class).readerFor(QuayRepo.class);
+    private static final RegistryMetadataClient INSTANCE = new RegistryMetadataClient(
+        HttpClient.newBuilder().connectTimeout(TIMEOUT).followRedirects(HttpClient.Redirect.NORMAL).build(), Clock.systemUTC());
+
+    private final HttpClient httpClient;
+    private final Clock clock;
+    private final Cache<String, CachedResponse> responses = CacheBuilder.newBuilder().maximumSize(MAX_RESPONSES)
+        .expireAfterWrite(MAX_RESPONSE_AGE_HOURS, TimeUnit.HOURS).build();
+    /**
+     * Time until which a registry should not be called, by host
+     */
+    private final Map<String, Instant> rateLimitedUntil = new ConcurrentHashMap<>();
+
+    RegistryMetadataClient(HttpClient httpClient, Clock clock) {
+        this.httpClient = httpClient;
+        this.clock = clock;
+    }
+
+    public static RegistryMetadataClient getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Reads a public resource
+     * @param url the URL of a registry API resource
+     * @return the body of the response, or nothing if the registry could not be read and nothing is cached
+     */
+    public Optional<String> get(String url) {
+        return get(url, null);
+    }
+
+    /**
+     * Reads a resource. Responses to different credentials are cached apart.
+     * @param url the URL of a registry API resource
+     * @param authorization the Authorization header, may be null
+     * @return the body of the response, or nothing if the registry could not be read and nothing is cached
+     */
+    public Optional<String> get(String url, String authorization) {
+        return get(url, authorization, false);
+    }
+
+    /**
+     * Reads a resource. Responses to different credentials are cached apart.
+     * @param url the URL of a registry API resource
+     * @param authorization the Authorization header, may be null
+     * @param revalidate whether to check a cached response with the registry even if it is fresh, e.g., for a refresh
+     * @return the body of the response, or nothing if the registry could not be read and nothing is cached
+     */
+    public Optional<String> get(String url, String authorization, boolean revalidate) {
+        final URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            LOG.error("Invalid registry URL " + url, e);
+            return Optional.empty();
+        }
+        final String key = authorization == null ? url : url + " " + Hashing.sha256().hashString(authorization, StandardCharsets.UTF_8);
+        final CachedResponse cached = responses.getIfPresent(key);
+        final Instant now = clock.instant();
+        if (cached != null && !revalidate && now.isBefore(cached.validated.plusSeconds(FRESH_SECONDS))) {
+            return Optional.of(cached.body);
+        }
+        final Instant limitedUntil = rateLimitedUntil.get(uri.getHost());
+        if (limitedUntil != null && now.isBefore(limitedUntil)) {
+            LOG.warn("Not calling " + uri.getHost() + " until its rate limit resets at " + limitedUntil);
+            return cached == null ? Optional.empty() : Optional.of(cached.body);
+        }
+
+        final HttpRequest.Builder request = HttpRequest.newBuilder(uri).timeout(TIMEOUT).GET();
+        if (authorization != null) {
+            request.header(HttpHeaders.AUTHORIZATION, authorization);
+        }
+        if (cached != null && cached.etag != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, cached.etag);
+        } else if (cached != null && cached.lastModified != null) {
+            request.header(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified);
+        }
+        final HttpResponse<String> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            LOG.error("Unable to get a response from " + url, e);
+            return cached == null ? Optional.empty() : Optional.of(cached.body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+
+        recordRateLimit(uri.getHost(), response, now);
+        final int status = response.statusCode();
+        if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+            responses.put(key, new CachedResponse(cached.body, cached.etag, cached.lastModified, now));
+            return Optional.of(cached.body);
+        }
+        if (status >= HttpStatus.SC_OK && status < HttpStatus.SC_MULTIPLE_CHOICES) {
+            responses.put(key, new CachedResponse(response.body(), response.headers().firstValue(HttpHeaders.ETAG).orElse(null),
+                response.headers().firstValue(HttpHeaders.LAST_MODIFIED).orElse(null), now));
+            return Optional.of(response.body());
+        }
+        if (status == TOO_MANY_REQUESTS) {
+            LOG.warn(uri.getHost() + " is rate limiting requests for " + url);
+            return cached == null ? Optional.empty() : Optional.of(cached.body);
+        }
+        LOG.error("Unable to get " + url + ", status " + status);
+        responses.invalidate(key);
+        return Optional.empty();
+    }
+
+    /**
+     * Reads a repository, including its tags, from Quay.io
+     * @param repository the namespace and name of the repository
+     * @param quayToken a Quay.io token to read private repositories with, may be null
+     * @return the repository, or nothing if it could not be read
+     */
+    public Optional<QuayRepo> getQuayRepo(String repository, String quayToken) {
+        return getQuayRepo(repository, quayToken, false);
+    }
+
+    /**
+     * Reads a repository, including its tags, from Quay.io
+     * @param repository the namespace and name of the repository
+     * @param quayToken a Quay.io token to read private repositories with, may be null
+     * @param revalidate whether to check a cached response with Quay.io even if it is fresh, e.g., for a refresh
+     * @return the repository, or nothing if it could not be read
+     */
+    public Optional<QuayRepo> getQuayRepo(String repository, String quayToken, boolean revalidate) {
+        return get(QUAY_URL + "repository/" + repository + "?includeStats=false", quayToken == null ? null : "Bearer " + quayToken, revalidate)
+            .flatMap(body -> {
+                try {
+                    return Optional.of(QUAY_REPO_READER.readValue(body));
+                } catch (IOException e) {
+                    LOG.error("Could not parse Quay.io repository " + repository, e);
+                    return Optional.empty();
+                }
+            });
+    }
+
+    private void recordRateLimit(String host, HttpResponse<String> response, Instant now) {
+        final boolean limited = response.statusCode() == TOO_MANY_REQUESTS
+            || firstNumber(response, REMAINING_HEADERS).map(remaining -> remaining == 0).orElse(false);
+        if (!limited) {
+            rateLimitedUntil.remove(host);
+            return;
+        }
+        Instant until = response.headers().firstValue(HttpHeaders.RETRY_AFTER).flatMap(RegistryMetadataClient::leadingNumber)
+            .map(now::plusSeconds)
+            .orElseGet(() -> firstNumber(response, RESET_HEADERS)
+                .map(reset -> reset > EPOCH_SECONDS_THRESHOLD ? Instant.ofEpochSecond(reset) : now.plusSeconds(reset))
+                .orElse(now.plusSeconds(DEFAULT_BACKOFF_SECONDS)));
+        rateLimitedUntil.put(host, until);
+    }
+
+    private static Optional<Long> firstNumber(HttpResponse<String> response, String[] headers) {
+        for (String header : headers) {
+            Optional<Long> value = response.headers().firstValue(header).flatMap(RegistryMetadataClient::leadingNumber);
+            if (value.isPresent()) {
+                return value;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param value a header value such as 100 or 100;w=21600
+     * @return the number it starts with
+     */
+    private static Optional<Long> leadingNumber(String value) {
+        Matcher matcher = LEADING_NUMBER.matcher(value);
+        return matcher.find() ? Optional.of(Long.parseLong(matcher.group(1))) : Optional.empty();
+    }
+
+    private static final class CachedResponse {
+        private final String body;
+        private final String etag;
+        private final String lastModified;
+        private final Instant validated;
+
+        CachedResponse(String body, String etag, String lastModified, Instant validated) {
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.validated = validated;
+        }
+    }
+}
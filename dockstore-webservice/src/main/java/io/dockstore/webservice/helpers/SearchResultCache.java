@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the responses of Elasticsearch searches for a few seconds. The UI sends several near-identical searches per keystroke,
+ * and facet and autocomplete searches repeat across users.
+ *
+ * Searches are keyed by their body, with JSON object keys sorted so that the same search always has the same key, and by their
+ * parameters. Identical searches that arrive while one is running wait for it instead of searching again. The cache is cleared
+ * whenever entries are written to the index.
+ */
+public final class SearchResultCache {
+    static final long EXPIRY_SECONDS = 30;
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+    private static final ObjectMapper CANONICAL_MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private static final SearchResultCache INSTANCE = new SearchResultCache();
+
+    private final Cache<HashCode, byte[]> results = CacheBuilder.newBuilder().maximumWeight(MAX_BYTES)
+        .weigher((HashCode key, byte[] result) -> result.length).expireAfterWrite(EXPIRY_SECONDS, TimeUnit.SECONDS).build();
+    /**
+     * Incremented on every invalidation, so that a search that raced with a write to the index is not kept
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<HashCode, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    SearchResultCache() {
+    }
+
+    public static SearchResultCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param query the body of a search, may be null
+     * @param parameters the parameters of the search
+     * @return a key that is the same for searches that only differ in the order of their JSON object keys or parameters
+     */
+    public static HashCode key(String query, Map<String, String> parameters) {
+        String canonicalQuery = Objects.toString(query, "");
+        if (query != null) {
+            try {
+                canonicalQuery = CANONICAL_MAPPER.writeValueAsString(CANONICAL_MAPPER.readValue(query, Object.class));
+            } catch (IOException e) {
+                // Elasticsearch rejects the search itself, the body is cached as is
+            }
+        }
+        return Hashing.sha256().newHasher().putString(canonicalQuery, StandardCharsets.UTF_8).putByte((byte)0)
+            .putString(new TreeMap<>(parameters).toString(), StandardCharsets.UTF_8).hash();
+    }
+
+    /**
+     * Gets the response of a search, searching if it is not cached and no identical search is running
+     * @param key from {@link #key(String, Map)}
+     * @param search starts the search
+     * @return the body of the response, completed exceptionally if the search fails, failures are not cached
+     */
+    public CompletableFuture<byte[]> get(HashCode key, Supplier<CompletableFuture<byte[]>> search) {
+        final byte[] cached = results.getIfPresent(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        final CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, result);
+        if (running != null) {
+            return running;
+        }
+        final long searchGeneration = generation.get();
+        CompletableFuture<byte[]> started;
+        try {
+            started = search.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((response, failure) -> {
+            // The search may have read the index from before a write, it is served to the searches waiting on it but not kept
+            if (failure == null && generation.get() == searchGeneration) {
+                results.put(key, response);
+            }
+            inFlight.remove(key, result);
+            if (failure == null) {
+                result.complete(response);
+            } else {
+                result.completeExceptionally(failure);
+            }
+        });
+        return result;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        results.invalidateAll();
+        // searches started after a write do not wait on ones started before it
+        inFlight.clear();
+    }
+}
@@ -1,23 +1,21 @@
 package io.dockstore.webservice.helpers;
 
 import com.google.common.io.ByteStreams;
-import com.google.common.io.Files;
+import com.google.common.io.CountingInputStream;
 import io.dockstore.common.DescriptorLanguage;
 import io.dockstore.common.yaml.DockstoreYaml10;
 import io.dockstore.common.yaml.DockstoreYamlHelper;
 import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.core.SourceFile;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
-import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
+import java.util.zip.ZipInputStream;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,15 +24,15 @@ import org.slf4j.LoggerFactory;
  * Converts the contents of a zip file into a <code>SourceFiles</code> object, ensuring that
  * no zip exploits (e.g., zip bomb, path traversal) can execute.
  *
- * It writes out the input stream to a local file. Unfortunately we can't get the compressed
- * sizes from the request body without saving it to a file first:
- * https://stackoverflow.com/questions/36045421/java-zipentry-getsize-returns-1
+ * The zip is read in a single pass as it arrives, without saving it to disk first, and reading stops
+ * as soon as a limit is exceeded. Because only the local headers are read, uncompressed (STORED) entries
+ * followed by a data descriptor are rejected, since their length is not known until after their content.
  *
  * For protection,
  * <ol>
- *     <li>Only write up to ZIP_SIZE_LIMIT of bytes to disk.</li>
- *     <li>Look at the the compressed sizes and also only allow up to ZIP_SIZE_LIMIT of bytes</li>
- *     <li>Also ensure that there are no more than ZIP_ENTRIES_LIMIT number of entries, e.g., so</li>
+ *     <li>Only read up to ZIP_SIZE_LIMIT of bytes from the request body.</li>
+ *     <li>Only inflate up to ZIP_SIZE_LIMIT of bytes, counting every entry as it is read</li>
+ *     <li>Also ensure that there are no more than ZIP_ENTRIES_LIMIT number of entries</li>
  * </ol>
  *
  */
@@ -69,80 +67,94 @@ public final class ZipSourceFileHelper {
      * @throws CustomWebApplicationException there is no valid .dockstore.yml in the zip
      */
     public static SourceFiles sourceFilesFromInputStream(InputStream payload, DescriptorLanguage.FileType fileType) {
-        File tempDir = null;
+        // ByteStreams.limit limits the amount of bytes that can be read from the input stream. No matter how large the input
+        // stream, only a max ZIP_SIZE_LIMIT + 1 bytes will be read.
+        final CountingInputStream countingStream = new CountingInputStream(ByteStreams.limit(payload, ZIP_SIZE_LIMIT + 1));
+        final Map<String, String> contents;
         try {
-            tempDir = Files.createTempDir();
-            File tempZip = new File(tempDir, "workflow.zip");
-            // ByteStreams.limit limits the amount of bytes that can be read from the input stream. No matter how large the input
-            // stream, only a max ZIP_SIZE_LIMIT + 1 bytes will be read, and only a max of ZIP_SIZE_LIMIT + 1 bytes will be written to disk.
-            try (InputStream limitStream = ByteStreams.limit(payload, ZIP_SIZE_LIMIT + 1)) {
-                FileUtils.copyToFile(limitStream, tempZip);
-                if (tempZip.length() > ZIP_SIZE_LIMIT) {
-                    throw new CustomWebApplicationException("Request body is too large", HttpStatus.SC_REQUEST_TOO_LONG);
-                }
-            }
-            try (ZipFile zipFile = new ZipFile(tempZip)) {
-                validateZip(zipFile, ZIP_ENTRIES_LIMIT, ZIP_SIZE_LIMIT);
-                return sourceFilesFromZip(zipFile, fileType);
-            }
-        } catch (Exception e) {
+            contents = readZipEntries(countingStream, ZIP_ENTRIES_LIMIT, ZIP_SIZE_LIMIT);
+        } catch (IOException | IllegalArgumentException e) {
+            // A body cut off at the limit usually fails as a truncated zip; entry names that are not valid UTF-8 fail as IllegalArgumentException
+            checkRequestSize(countingStream);
+            LOG.error("Error reading zip", e);
             throw new CustomWebApplicationException("Error reading request", HttpStatus.SC_BAD_REQUEST);
-        } finally {
-            try {
-                if (tempDir != null) {
-                    FileUtils.deleteDirectory(tempDir);
-                }
-            } catch (IOException e) {
-                LOG.error("Error deleting temp zip", e);
-            }
         }
-
+        checkRequestSize(countingStream);
+        return sourceFilesFromZip(contents, fileType);
     }
 
-    protected static void validateZip(ZipFile zipFile, int maxEntries, long maxSize) {
-        if (zipFile.stream().limit(maxEntries + 1).count() > maxEntries) {
-            throw new CustomWebApplicationException("Too many entries in the zip", HttpStatus.SC_BAD_REQUEST);
+    private static void checkRequestSize(CountingInputStream countingStream) {
+        if (countingStream.getCount() > ZIP_SIZE_LIMIT) {
+            throw new CustomWebApplicationException("Request body is too large", HttpStatus.SC_REQUEST_TOO_LONG);
         }
-        final Optional<Long> uncompressedSize = zipFile.stream().map(z -> z.getSize()).reduce(Long::sum);
-        uncompressedSize.ifPresent(s -> {
-            if (s > maxSize) {
-                throw new CustomWebApplicationException("Zip contents too large", HttpStatus.SC_BAD_REQUEST);
+    }
+
+    /**
+     * Reads the files in a zip in a single pass, failing as soon as the zip has too many entries or too much content.
+     *
+     * @param zip a zipped stream; it is read to its end and closed
+     * @param maxEntries the maximum number of entries, including directories
+     * @param maxSize the maximum total uncompressed size of the entries
+     * @return the content of each file by its name, in the order of the zip
+     * @throws IOException if the stream is not a valid zip
+     * @throws IllegalArgumentException if the name of an entry cannot be decoded
+     */
+    protected static Map<String, String> readZipEntries(InputStream zip, int maxEntries, long maxSize) throws IOException {
+        final Map<String, String> contents = new LinkedHashMap<>();
+        int entries = 0;
+        long size = 0;
+        try (ZipInputStream zipInputStream = new ZipInputStream(zip)) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                if (++entries > maxEntries) {
+                    throw new CustomWebApplicationException("Too many entries in the zip", HttpStatus.SC_BAD_REQUEST);
+                }
+                // Inflates at most one byte more than the remaining allowance, which is enough to know the zip is too large
+                final byte[] content = ByteStreams.toByteArray(ByteStreams.limit(zipInputStream, maxSize - size + 1));
+                size += content.length;
+                if (size > maxSize) {
+                    throw new CustomWebApplicationException("Zip contents too large", HttpStatus.SC_BAD_REQUEST);
+                }
+                if (!zipEntry.isDirectory()) {
+                    contents.put(zipEntry.getName(), new String(content, StandardCharsets.UTF_8));
+                }
             }
-        });
+            // The central directory follows the entries; read it too so the whole request body is accounted for
+            ByteStreams.exhaust(zip);
+        }
+        return contents;
     }
 
     /**
-     * Converts the values in a zip into a SourceFiles object
+     * Converts the files of a zip into a SourceFiles object
      *
-     * @param zipFile
+     * @param contents the content of each file in the zip by its name
      * @param workflowFileType
      * @return
      */
-    protected static SourceFiles sourceFilesFromZip(ZipFile zipFile, DescriptorLanguage.FileType workflowFileType) {
-        DockstoreYaml10 dockstoreYml = readAndPrevalidateDockstoreYml(zipFile);
+    protected static SourceFiles sourceFilesFromZip(Map<String, String> contents, DescriptorLanguage.FileType workflowFileType) {
+        DockstoreYaml10 dockstoreYml = readAndPrevalidateDockstoreYml(contents);
         final String primaryDescriptor = dockstoreYml.primaryDescriptor;
         List<String> testParameterFiles = dockstoreYml.testParameterFiles;
         if (primaryDescriptor != null) {
             checkWorkflowType(workflowFileType, primaryDescriptor);
-            zipFile.stream()
-                    .filter(zipEntry -> primaryDescriptor.equals(zipEntry.getName()))
-                    .findFirst()
-                    .orElseThrow(() -> new CustomWebApplicationException("Primary descriptor missing: " + primaryDescriptor, HttpStatus.SC_BAD_REQUEST));
-            final List<SourceFile> sourceFiles = zipFile
+            if (!contents.containsKey(primaryDescriptor)) {
+                throw new CustomWebApplicationException("Primary descriptor missing: " + primaryDescriptor, HttpStatus.SC_BAD_REQUEST);
+            }
+            final List<SourceFile> sourceFiles = contents.entrySet()
                     .stream()
-                    .filter(zipEntry -> !zipEntry.isDirectory())
                     .map(zipEntry -> {
                         SourceFile sourceFile = new SourceFile();
-                        if (testParameterFiles != null && testParameterFiles.contains(zipEntry.getName())) {
+                        if (testParameterFiles != null && testParameterFiles.contains(zipEntry.getKey())) {
                             sourceFile.setType(paramFileType(workflowFileType));
-                        } else if (".dockstore.yml".equals(zipEntry.getName())) {
+                        } else if (".dockstore.yml".equals(zipEntry.getKey())) {
                             sourceFile.setType(DescriptorLanguage.FileType.DOCKSTORE_YML);
                         } else {
                             sourceFile.setType(workflowFileType);
                         }
-                        sourceFile.setPath(zipEntry.getName());
-                        sourceFile.setAbsolutePath(addLeadingSlashIfNecessary(zipEntry.getName()));
-                        sourceFile.setContent(getContent(zipFile, zipEntry));
+                        sourceFile.setPath(zipEntry.getKey());
+                        sourceFile.setAbsolutePath(addLeadingSlashIfNecessary(zipEntry.getKey()));
+                        sourceFile.setContent(zipEntry.getValue());
                         return sourceFile;
                     }).collect(Collectors.toList());
             return new SourceFiles(
@@ -198,30 +210,17 @@ public final class ZipSourceFileHelper {
         }
     }
 
-    private static String getContent(ZipFile zipFile, ZipEntry zipEntry) {
-        try (InputStream inputStream = zipFile.getInputStream(zipEntry)) {
-            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            LOG.error("Error reading zip entry " + zipEntry.getName(), e);
-            return null;
-        }
-    }
-
-    private static DockstoreYaml10 readAndPrevalidateDockstoreYml(final ZipFile zipFile) {
-        ZipEntry dockstoreYml = zipFile.stream().filter(zipEntry -> ".dockstore.yml".equals(zipEntry.getName())).findFirst()
-                .orElseThrow(() -> new CustomWebApplicationException("Missing .dockstore.yml", HttpStatus.SC_BAD_REQUEST));
-        try {
-            return readAndPrevalidateDockstoreYml(zipFile.getInputStream(dockstoreYml));
-        } catch (IOException e) {
-            LOG.error("Error reading .dockstore.yml", e);
-            throw new CustomWebApplicationException("Invalid syntax in .dockstore.yml", HttpStatus.SC_BAD_REQUEST);
+    private static DockstoreYaml10 readAndPrevalidateDockstoreYml(final Map<String, String> contents) {
+        final String dockstoreYml = contents.get(".dockstore.yml");
+        if (dockstoreYml == null) {
+            throw new CustomWebApplicationException("Missing .dockstore.yml", HttpStatus.SC_BAD_REQUEST);
         }
+        return readAndPrevalidateDockstoreYml(dockstoreYml);
     }
 
     // Should move this out of here when other components use dockstore.yml
-    protected static DockstoreYaml10 readAndPrevalidateDockstoreYml(final InputStream inputStream) {
+    protected static DockstoreYaml10 readAndPrevalidateDockstoreYml(final String content) {
         try {
-            final String content = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
             return DockstoreYamlHelper.readDockstoreYaml10(content);
 
         } catch (Exception ex) {
@@ -0,0 +1,297 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queues Elasticsearch writes so that web requests do not wait on Elasticsearch.
+ *
+ * Pending writes are keyed by index and document id, so a later write to an entry replaces one that has not been sent yet.
+ * A single worker thread drains the queue into one long-lived BulkProcessor that flushes by action count, request size and
+ * time. Only one bulk request is in flight at a time; while it is, the worker blocks and new writes coalesce in the queue.
+ * When the queue is full, callers wait up to OFFER_TIMEOUT_SECONDS before the write is dropped.
+ * The BulkProcessor does not retry by itself, as its retries resend only the rejected items, so item ids would no longer be positions
+ * in the request the listener sees. Failed bulk requests and rejected or failed items are re-queued instead, unless a newer write for
+ * the same document has been queued since, and the worker backs off before sending more.
+ * Each write gets a sequence number when it is queued, so that a retry never overwrites a newer write that was sent before it.
+ */
+class ElasticIndexQueue {
+    static final int CAPACITY = 10_000;
+    static final int OFFER_TIMEOUT_SECONDS = 5;
+    static final int MAX_RETRIES = 5;
+    private static final Logger LOGGER = LoggerFactory.getLogger(ElasticIndexQueue.class);
+    private static final int BULK_ACTIONS = 500;
+    private static final ByteSizeValue BULK_SIZE = new ByteSizeValue(5, ByteSizeUnit.MB);
+    private static final TimeValue FLUSH_INTERVAL = TimeValue.timeValueSeconds(1);
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final long MAX_BACKOFF_MILLIS = 60_000;
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    // guarded by this
+    private final Map<String, DocWriteRequest<?>> pending = new LinkedHashMap<>();
+    private final Map<String, Integer> retries = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * The sequence number of the newest write queued for each document that has not completed yet
+     */
+    private final Map<String, Long> latestSequences = new ConcurrentHashMap<>();
+    /**
+     * The sequence number of each write that has not completed yet, by identity
+     */
+    private final Map<DocWriteRequest<?>, Long> sequences = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final BulkProcessor bulkProcessor;
+    private final Thread worker = new Thread(this::drain, "elasticsearch-index-queue");
+    private volatile boolean closed = false;
+
+    private final Runnable afterWrite;
+
+    /**
+     * @param consumer sends a bulk request, e.g. RestHighLevelClient.bulkAsync
+     */
+    ElasticIndexQueue(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer) {
+        this(consumer, () -> { });
+    }
+
+    /**
+     * Bulk requests wait until their writes are visible to searches before they complete, so that afterWrite runs once searches
+     * see the writes, not at the next refresh of the index after it.
+     * @param consumer sends a bulk request, e.g. RestHighLevelClient.bulkAsync
+     * @param afterWrite runs after each bulk request that wrote to the index, once its writes are searchable
+     */
+    ElasticIndexQueue(BiConsumer<BulkRequest, ActionListener<BulkResponse>> consumer, Runnable afterWrite) {
+        this.afterWrite = afterWrite;
+        // set on each request sent, as the BulkProcessor builds new requests for retries
+        final BiConsumer<BulkRequest, ActionListener<BulkResponse>> waitingConsumer = (request, listener) ->
+            consumer.accept(request.setRefreshPolicy(WriteRequest.RefreshPolicy.WAIT_UNTIL), listener);
+        this.bulkProcessor = BulkProcessor.builder(waitingConsumer, new Listener())
+            .setBulkActions(BULK_ACTIONS)
+            .setBulkSize(BULK_SIZE)
+            .setFlushInterval(FLUSH_INTERVAL)
+            .setConcurrentRequests(1)
+            // afterBulk matches items to requests by position, which only holds for requests the BulkProcessor has not retried
+            .setBackoffPolicy(BackoffPolicy.noBackoff())
+            .build();
+        worker.setDaemon(true);
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    /**
+     * Queues a write, replacing any write to the same document that has not been sent yet
+     * @param request the index, update or delete request
+     * @return false if the queue stayed full and the write was dropped
+     */
+    synchronized boolean enqueue(DocWriteRequest<?> request) {
+        final String key = key(request);
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(OFFER_TIMEOUT_SECONDS);
+        while (!pending.containsKey(key) && pending.size() >= CAPACITY && !closed) {
+            final long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remaining <= 0) {
+                LOGGER.error("Elasticsearch index queue is full, dropped {} of {}", request.opType(), key);
+                return false;
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (closed) {
+            LOGGER.error("Elasticsearch index queue is closed, dropped {} of {}", request.opType(), key);
+            return false;
+        }
+        retries.remove(key);
+        final long requestSequence = sequence.incrementAndGet();
+        sequences.put(request, requestSequence);
+        latestSequences.put(key, requestSequence);
+        final DocWriteRequest<?> replaced = pending.put(key, request);
+        if (replaced != null) {
+            sequences.remove(replaced);
+        }
+        notifyAll();
+        return true;
+    }
+
+    synchronized int size() {
+        return pending.size();
+    }
+
+    /**
+     * Sends everything still queued and waits for it to complete
+     */
+    void close() throws InterruptedException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        if (worker.isAlive()) {
+            worker.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } else {
+            // never started, send what is queued from here
+            drain();
+        }
+        if (!bulkProcessor.awaitClose(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            LOGGER.error("Could not send queued writes to Elasticsearch in time");
+        }
+        if (size() > 0) {
+            LOGGER.error("{} writes to Elasticsearch failed during shutdown and were not retried", size());
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            final List<DocWriteRequest<?>> batch;
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+                notifyAll();
+            }
+            backOff();
+            // blocks while a bulk request is in flight, which is what lets later writes coalesce
+            batch.forEach(bulkProcessor::add);
+        }
+    }
+
+    private void backOff() {
+        final int failures = consecutiveFailures.get();
+        if (failures == 0 || closed) {
+            return;
+        }
+        final long delay = Math.min(MAX_BACKOFF_MILLIS, INITIAL_BACKOFF_MILLIS << Math.min(failures - 1, 20));
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void retry(DocWriteRequest<?> request) {
+        final String key = key(request);
+        synchronized (this) {
+            final Long requestSequence = sequences.get(request);
+            if (requestSequence == null || !requestSequence.equals(latestSequences.get(key))) {
+                // a newer write for the same document was queued since, whether or not it has been sent, and wins
+                sequences.remove(request);
+                return;
+            }
+            final int attempt = retries.merge(key, 1, Integer::sum);
+            if (attempt > MAX_RETRIES) {
+                LOGGER.error("Giving up on {} of {} after {} retries", request.opType(), key, MAX_RETRIES);
+                complete(request);
+                return;
+            }
+            pending.put(key, request);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Forgets a write that succeeded or will not be retried
+     */
+    private void complete(DocWriteRequest<?> request) {
+        final String key = key(request);
+        final Long requestSequence = sequences.remove(request);
+        if (requestSequence != null && latestSequences.remove(key, requestSequence)) {
+            retries.remove(key);
+        }
+    }
+
+    private static String key(DocWriteRequest<?> request) {
+        return request.index() + "/" + request.id();
+    }
+
+    private class Listener implements BulkProcessor.Listener {
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            LOGGER.debug("Executing bulk [{}] with {} requests", executionId, request.numberOfActions());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            boolean retried = false;
+            for (BulkItemResponse item : response.getItems()) {
+                final DocWriteRequest<?> itemRequest = request.requests().get(item.getItemId());
+                if (!item.isFailed()) {
+                    complete(itemRequest);
+                } else if (item.status() == RestStatus.TOO_MANY_REQUESTS || item.status().getStatus() >= RestStatus.INTERNAL_SERVER_ERROR.getStatus()) {
+                    retried = true;
+                    retry(itemRequest);
+                } else {
+                    LOGGER.error("Could not {} {} in elastic search: {}", itemRequest.opType(), key(itemRequest), item.getFailureMessage());
+                    complete(itemRequest);
+                }
+            }
+            // back off before resending rejected items, as the BulkProcessor no longer does
+            if (retried) {
+                consecutiveFailures.incrementAndGet();
+            } else {
+                consecutiveFailures.set(0);
+            }
+            if (Arrays.stream(response.getItems()).anyMatch(item -> !item.isFailed())) {
+                afterWrite.run();
+            }
+            LOGGER.debug("Bulk [{}] completed in {} milliseconds", executionId, response.getTook().getMillis());
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            LOGGER.error("Failed to execute bulk [" + executionId + "], retrying", failure);
+            consecutiveFailures.incrementAndGet();
+            request.requests().forEach(ElasticIndexQueue.this::retry);
+        }
+    }
+}
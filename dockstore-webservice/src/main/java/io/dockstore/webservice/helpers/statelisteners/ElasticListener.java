@@ -31,8 +31,10 @@ import io.dockstore.webservice.core.User;
 import io.dockstore.webservice.core.Version;
 import io.dockstore.webservice.core.Workflow;
 import io.dockstore.webservice.helpers.ElasticSearchHelper;
+import io.dockstore.webservice.helpers.SearchResultCache;
 import io.dockstore.webservice.helpers.StateManagerMode;
 import io.dropwizard.jackson.Jackson;
+import io.dropwizard.lifecycle.Managed;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
@@ -40,14 +42,10 @@ import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
-import org.elasticsearch.action.DocWriteResponse;
-import org.elasticsearch.action.bulk.BulkProcessor;
-import org.elasticsearch.action.bulk.BulkRequest;
-import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.update.UpdateRequest;
@@ -61,7 +59,7 @@ import org.slf4j.LoggerFactory;
 /**
  * Formerly the ElasticManager, this listens for changes that might affect elastic search
  */
-public class ElasticListener implements StateListenerInterface {
+public class ElasticListener implements StateListenerInterface, Managed {
     public static DockstoreWebserviceConfiguration config;
     public static final String TOOLS_INDEX = "tools";
     public static final String WORKFLOWS_INDEX = "workflows";
@@ -70,6 +68,7 @@ public class ElasticListener implements StateListenerInterface {
     private static final ObjectMapper MAPPER = Jackson.newObjectMapper();
     private static final String MAPPER_ERROR = "Could not convert Dockstore entry to Elasticsearch object";
     private DockstoreWebserviceConfiguration.ElasticSearchConfig elasticSearchConfig;
+    private ElasticIndexQueue indexQueue;
 
     @Override
     public void setConfig(DockstoreWebserviceConfiguration config) {
@@ -103,9 +102,8 @@ public class ElasticListener implements StateListenerInterface {
             return;
         }
         try {
-            RestHighLevelClient client = ElasticSearchHelper.restHighLevelClient();
             String entryType = entry instanceof Tool ? TOOLS_INDEX : WORKFLOWS_INDEX;
-            DocWriteResponse post;
+            DocWriteRequest<?> request;
             switch (command) {
             case PUBLISH:
             case UPDATE:
@@ -115,26 +113,54 @@ public class ElasticListener implements StateListenerInterface {
                 // updateRequest.upsert(json, XContentType.JSON);
                 updateRequest.doc(json, XContentType.JSON);
                 updateRequest.docAsUpsert(true);
-                post = client.update(updateRequest, RequestOptions.DEFAULT);
+                request = updateRequest;
                 break;
             case DELETE:
-                DeleteRequest deleteRequest = new DeleteRequest(entryType, String.valueOf(entry.getId()));
-                post  = client.delete(deleteRequest, RequestOptions.DEFAULT);
+                request = new DeleteRequest(entryType, String.valueOf(entry.getId()));
                 break;
             default:
                 throw new RuntimeException("Unknown index command: " + command);
             }
-            int statusCode = post.status().getStatus();
-            if (statusCode == HttpStatus.SC_OK || statusCode == HttpStatus.SC_CREATED) {
-                LOGGER.info("Successful " + command + ".");
-            } else {
-                LOGGER.error("Could not submit index to elastic search " + post.status());
+            // the document is built here while the entry is still attached, only the write to Elasticsearch is deferred
+            if (getIndexQueue().enqueue(request)) {
+                LOGGER.info("Queued " + command + ".");
             }
         } catch (Exception e) {
             LOGGER.error("Could not submit index to elastic search. " + e.getMessage());
         }
     }
 
+    private synchronized ElasticIndexQueue getIndexQueue() {
+        if (indexQueue == null) {
+            // the client only exists once ElasticSearchHelper has started
+            RestHighLevelClient client = ElasticSearchHelper.restHighLevelClient();
+            indexQueue = new ElasticIndexQueue((request, bulkListener) -> client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
+                SearchResultCache.getInstance()::invalidateAll);
+            indexQueue.start();
+        }
+        return indexQueue;
+    }
+
+    @Override
+    public void start() {
+        // the index queue is started on first use
+    }
+
+    /**
+     * Sends any queued writes before the Elasticsearch client is closed
+     */
+    @Override
+    public void stop() throws Exception {
+        ElasticIndexQueue queue;
+        synchronized (this) {
+            queue = indexQueue;
+            indexQueue = null;
+        }
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
     /**
      * Check if the entry is valid to perform the elastic operation
      *
@@ -161,6 +187,9 @@ public class ElasticListener implements StateListenerInterface {
         return false;
     }
 
+    /**
+     * Queues an index request for each entry. A full reindex goes through ElasticSearchReindexer instead.
+     */
     @Override
     public void bulkUpsert(List<Entry> entries) {
         entries.forEach(this::eagerLoadEntry);
@@ -169,79 +198,22 @@ public class ElasticListener implements StateListenerInterface {
         if (entries.isEmpty()) {
             return;
         }
-        // sort entries into workflows and tools
-        List<Entry> workflowsEntryList = entries.stream().filter(entry -> (entry instanceof BioWorkflow)).collect(Collectors.toList());
-        List<Entry> toolsEntryList = entries.stream().filter(entry -> (entry instanceof Tool)).collect(Collectors.toList());
-        if (!workflowsEntryList.isEmpty()) {
-            postBulkUpdate(WORKFLOWS_INDEX, workflowsEntryList);
-        }
-        if (!toolsEntryList.isEmpty()) {
-            postBulkUpdate(TOOLS_INDEX, toolsEntryList);
+        if (StringUtils.isEmpty(elasticSearchConfig.getHostname())) {
+            LOGGER.error("No elastic search host found.");
+            return;
         }
-    }
-
-    private void postBulkUpdate(String index, List<Entry> entries) {
-        BulkProcessor.Listener listener = new BulkProcessor.Listener() {
-            @Override
-            public void beforeBulk(long executionId, BulkRequest request) {
-                int numberOfActions = request.numberOfActions();
-                LOGGER.info("Executing bulk [{}] with {} requests",
-                        executionId, numberOfActions);
-            }
-
-            @Override
-            public void afterBulk(long executionId, BulkRequest request,
-                    BulkResponse response) {
-                if (response.hasFailures()) {
-                    LOGGER.error("Bulk [{}] executed with failures", executionId);
-                } else {
-                    LOGGER.info("Bulk [{}] completed in {} milliseconds",
-                            executionId, response.getTook().getMillis());
-                }
+        for (Entry entry : entries) {
+            if (!(entry instanceof BioWorkflow || entry instanceof Tool)) {
+                continue;
             }
-
-            @Override
-            public void afterBulk(long executionId, BulkRequest request,
-                    Throwable failure) {
-                LOGGER.error("Failed to execute bulk", failure);
-            }
-        };
-
-        try {
-            RestHighLevelClient client = ElasticSearchHelper.restHighLevelClient();
-            BulkProcessor.Builder builder = BulkProcessor.builder(
-                (request, bulkListener) ->
-                        client.bulkAsync(request, RequestOptions.DEFAULT, bulkListener),
-                listener);
-            // Set size of actions with `builder.setBulkSize()`, defaults to 5 MB
-            BulkProcessor bulkProcessor = builder.build();
-            entries.forEach(entry -> {
-                try {
-                    String s = MAPPER.writeValueAsString(dockstoreEntryToElasticSearchObject(entry));
-                    bulkProcessor.add(new IndexRequest(index).id(String.valueOf(entry.getId())).source(s, XContentType.JSON));
-
-                } catch (IOException e) {
-                    LOGGER.error(MAPPER_ERROR, e);
-                    throw new CustomWebApplicationException(MAPPER_ERROR, HttpStatus.SC_INTERNAL_SERVER_ERROR);
-                }
-            });
+            String index = entry instanceof Tool ? TOOLS_INDEX : WORKFLOWS_INDEX;
             try {
-                // When doing a bulk index, this is the max amount of time the bulk listener should wait before considering the
-                // bulk request as failed. 1 minute appears to be more than enough time to index all the current Dockstore entries.
-                // However, 5 minutes is used instead (just in case)
-                final long bulkProcessorWaitTimeInMinutes = 5L;
-                boolean terminated = bulkProcessor.awaitClose(bulkProcessorWaitTimeInMinutes, TimeUnit.MINUTES);
-                if (!terminated) {
-                    LOGGER.error("Could not submit " + index + " index to elastic search in time");
-                    throw new CustomWebApplicationException("Could not submit " + index + " index to elastic search in time", HttpStatus.SC_INTERNAL_SERVER_ERROR);
-                }
-            } catch (InterruptedException e) {
-                LOGGER.error("Could not submit " + index + " index to elastic search. " + e.getMessage(), e);
-                throw new CustomWebApplicationException("Could not submit " + index + " index to elastic search", HttpStatus.SC_INTERNAL_SERVER_ERROR);
+                String s = MAPPER.writeValueAsString(dockstoreEntryToElasticSearchObject(entry));
+                getIndexQueue().enqueue(new IndexRequest(index).id(String.valueOf(entry.getId())).source(s, XContentType.JSON));
+            } catch (IOException e) {
+                LOGGER.error(MAPPER_ERROR, e);
+                throw new CustomWebApplicationException(MAPPER_ERROR, HttpStatus.SC_INTERNAL_SERVER_ERROR);
             }
-        } catch (Exception e) {
-            LOGGER.error("Could not submit " + index + " index to elastic search. " + e.getMessage(), e);
-            throw new CustomWebApplicationException("Could not submit " + index + " index to elastic search", HttpStatus.SC_INTERNAL_SERVER_ERROR);
         }
     }
 
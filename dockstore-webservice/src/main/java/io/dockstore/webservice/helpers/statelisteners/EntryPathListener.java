@@ -0,0 +1,158 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.dockstore.webservice.core.Entry;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+
+/**
+ * Caches the class and ID of the entry at a path or alias, so that finding an entry by its path costs one load by primary key
+ * instead of a query on the path columns followed by a load.
+ *
+ * An entry loaded from the cache is checked against the path it was looked up by. An entry that was renamed or deleted, possibly
+ * through another webservice instance, is looked up again instead of being returned. Aliases are never removed from an entry, so
+ * only deleted entries need to be looked up again for them. Entries are also dropped when they are published, unpublished,
+ * updated or deleted.
+ */
+public final class EntryPathListener implements StateListenerInterface {
+
+    private static final long MAXIMUM_SIZE = 10_000;
+    private static final EntryPathListener INSTANCE = new EntryPathListener();
+
+    private final Cache<String, CachedEntry> entries = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE).build();
+    /**
+     * Incremented on every invalidation, so that a lookup that raced with, e.g., a rename does not cache what it read before it
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    EntryPathListener() {
+    }
+
+    public static EntryPathListener getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param splitPath a path split by Entry.splitPath
+     * @return the path in the form returned by Entry.getEntryPath, or null if the path is not valid
+     */
+    public static String normalizePath(String[] splitPath) {
+        if (splitPath == null) {
+            return null;
+        }
+        return String.join("/", splitPath[0], splitPath[1], splitPath[2]) + (splitPath[3] == null ? "" : "/" + splitPath[3]);
+    }
+
+    /**
+     * Finds the entry at a path
+     * @param type the class of the entry, or Entry for any entry
+     * @param path a path from {@link #normalizePath(String[])}
+     * @param accept whether an entry at the path is a result, e.g. whether it is published
+     * @param session loads cached entries
+     * @param lookup finds the entry when it is not cached
+     * @return the entry, or null
+     */
+    public <T extends Entry> T findByPath(Class<T> type, String path, Predicate<T> accept, Session session, Supplier<T> lookup) {
+        return find(type, "path:" + path, entry -> path.equals(entry.getEntryPath()) && accept.test(entry), session, lookup);
+    }
+
+    /**
+     * Finds the entry with an alias
+     * @param type the class of the entry, or Entry for any entry
+     * @param alias
+     * @param session loads cached entries
+     * @param lookup finds the entry when it is not cached
+     * @return the entry, or null
+     */
+    public <T extends Entry> T findByAlias(Class<T> type, String alias, Session session, Supplier<T> lookup) {
+        return find(type, "alias:" + alias, entry -> true, session, lookup);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Entry> T find(Class<T> type, String key, Predicate<T> matches, Session session, Supplier<T> lookup) {
+        final String typedKey = type.getSimpleName() + ':' + key;
+        final CachedEntry cached = entries.getIfPresent(typedKey);
+        if (cached != null) {
+            final Object entry = session.get(cached.type, cached.id);
+            if (type.isInstance(entry) && matches.test(type.cast(entry))) {
+                return type.cast(entry);
+            }
+            entries.invalidate(typedKey);
+        }
+        final long lookupGeneration = generation.get();
+        final T entry = lookup.get();
+        if (entry != null && generation.get() == lookupGeneration) {
+            entries.put(typedKey, new CachedEntry((Class<? extends Entry>)Hibernate.getClass(entry), entry.getId()));
+        }
+        return entry;
+    }
+
+    @Override
+    public void handleIndexUpdate(Entry entry, StateManagerMode command) {
+        invalidate(List.of(entry));
+    }
+
+    @Override
+    public void bulkUpsert(List<Entry> upsertedEntries) {
+        invalidate(upsertedEntries);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void invalidate(List<Entry> changedEntries) {
+        generation.incrementAndGet();
+        final Set<CachedEntry> changed = changedEntries.stream()
+            .map(entry -> new CachedEntry((Class<? extends Entry>)Hibernate.getClass(entry), entry.getId())).collect(Collectors.toSet());
+        entries.asMap().values().removeIf(changed::contains);
+    }
+
+    private static final class CachedEntry {
+        private final Class<? extends Entry> type;
+        private final long id;
+
+        private CachedEntry(Class<? extends Entry> type, long id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final CachedEntry that = (CachedEntry)o;
+            return id == that.id && type == that.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+    }
+}
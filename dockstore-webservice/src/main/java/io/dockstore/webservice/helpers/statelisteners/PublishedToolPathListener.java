@@ -0,0 +1,96 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.dockstore.webservice.core.Entry;
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import io.dockstore.webservice.jdbi.ToolDAO;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches whether Docker image paths, such as quay.io/namespace/name, are paths of published tools, which decides whether tool
+ * tables and DAGs link an image to Dockstore or to its registry. A path is dropped when a tool with that path is published,
+ * unpublished or updated. Entries also expire after a few minutes, for tools published through another webservice instance.
+ */
+public final class PublishedToolPathListener implements StateListenerInterface {
+
+    private static final long MAXIMUM_SIZE = 10_000;
+    private static final long EXPIRY_MINUTES = 5;
+    private static final PublishedToolPathListener INSTANCE = new PublishedToolPathListener();
+
+    private final Cache<String, Boolean> published = CacheBuilder.newBuilder().maximumSize(MAXIMUM_SIZE)
+        .expireAfterWrite(EXPIRY_MINUTES, TimeUnit.MINUTES).build();
+    /**
+     * Incremented on every invalidation, so that a lookup that raced with a publish does not cache what it read before it
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    PublishedToolPathListener() {
+    }
+
+    public static PublishedToolPathListener getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param paths Docker image paths
+     * @param toolDAO
+     * @return the paths among <code>paths</code> that are paths of published tools, looking up all uncached ones in one query
+     */
+    public Set<String> findPublishedPaths(Collection<String> paths, ToolDAO toolDAO) {
+        final Set<String> publishedPaths = new HashSet<>();
+        final Set<String> uncachedPaths = new HashSet<>();
+        for (String path : paths) {
+            final Boolean isPublished = published.getIfPresent(path);
+            if (isPublished == null) {
+                uncachedPaths.add(path);
+            } else if (isPublished) {
+                publishedPaths.add(path);
+            }
+        }
+        if (!uncachedPaths.isEmpty()) {
+            final long lookupGeneration = generation.get();
+            final Set<String> found = toolDAO.findPublishedPaths(uncachedPaths);
+            if (generation.get() == lookupGeneration) {
+                uncachedPaths.forEach(path -> published.put(path, found.contains(path)));
+            }
+            publishedPaths.addAll(found);
+        }
+        return publishedPaths;
+    }
+
+    @Override
+    public void handleIndexUpdate(Entry entry, StateManagerMode command) {
+        if (entry instanceof Tool) {
+            generation.incrementAndGet();
+            published.invalidate(((Tool)entry).getPath());
+        }
+    }
+
+    @Override
+    public void bulkUpsert(List<Entry> entries) {
+        generation.incrementAndGet();
+        published.invalidateAll();
+    }
+}
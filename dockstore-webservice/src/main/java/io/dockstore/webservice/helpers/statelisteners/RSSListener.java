@@ -15,39 +15,120 @@
  */
 package io.dockstore.webservice.helpers.statelisteners;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import io.dockstore.webservice.CustomWebApplicationException;
+import io.dockstore.webservice.core.BioWorkflow;
 import io.dockstore.webservice.core.Entry;
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.MetadataResourceHelper;
 import io.dockstore.webservice.helpers.StateManagerMode;
+import io.dockstore.webservice.resources.MetadataResource;
+import io.dockstore.webservice.resources.rss.RSSEntry;
+import io.dockstore.webservice.resources.rss.RSSFeed;
+import io.dockstore.webservice.resources.rss.RSSHeader;
+import io.dockstore.webservice.resources.rss.RSSWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLStreamException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Future home of code for managing the RSS feed
+ * Maintains the RSS feed as a bounded ring of pre-rendered items. The ring is loaded from the most recently updated entries
+ * on first use, after which a changed entry is re-rendered and moved to the newest end, pushing the least recently updated
+ * item out. The feed lists the held items by their last update in the source repository, oldest first, so only the feed
+ * header, a sort of the held items and their concatenation are redone per change.
  */
 public class RSSListener implements StateListenerInterface {
 
-    public static final String RSS_KEY = "rss";
     private static final Logger LOGGER = LoggerFactory.getLogger(RSSListener.class);
-    private Cache<String, String> cache = CacheBuilder.newBuilder().build();
+    private static final int DESCRIPTION_LIMIT = 200;
+
+    // entry id to rendered item, least recently updated in the database first
+    private final Map<Long, RenderedItem> items;
+    private boolean loaded = false;
+    private String feed = null;
+
+    public RSSListener() {
+        this(MetadataResource.RSS_ENTRY_LIMIT);
+    }
+
+    RSSListener(int itemLimit) {
+        this.items = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, RenderedItem> eldest) {
+                return size() > itemLimit;
+            }
+        };
+    }
 
     /**
-     * Custom getter
-     * @return
+     * Returns the feed, loading the items first if they are not loaded yet
+     * @param entryLoader   loads the published entries most recently updated in the database, least recently updated first
+     * @param headerFactory creates the channel header
+     * @return the RSS feed
      */
-    public Cache<String, String> getCache() {
-        return cache;
+    public synchronized String getFeed(Supplier<List<Entry<?, ?>>> entryLoader, Supplier<RSSHeader> headerFactory) {
+        if (!loaded) {
+            items.clear();
+            for (Entry<?, ?> entry : entryLoader.get()) {
+                renderItem(entry).ifPresent(item -> items.put(entry.getId(), new RenderedItem(entry.getLastUpdated(), item)));
+            }
+            loaded = true;
+            feed = null;
+        }
+        if (feed == null) {
+            try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
+                final List<String> renderedItems = items.values().stream().sorted(Comparator.comparing((RenderedItem item) -> item.lastUpdated, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .map(item -> item.xml).collect(Collectors.toList());
+                RSSWriter.write(headerFactory.get(), renderedItems, byteArrayOutputStream);
+                feed = byteArrayOutputStream.toString(StandardCharsets.UTF_8.name());
+            } catch (XMLStreamException | IOException e) {
+                LOGGER.error("Could not write RSS feed", e);
+                throw new CustomWebApplicationException("Could not write RSS feed.", HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            }
+        }
+        return feed;
     }
 
     @Override
-    public void handleIndexUpdate(Entry entry, StateManagerMode command) {
-        //TODO ideally, we could should update the rss for the one new entry
-        invalidateCache();
+    public synchronized void handleIndexUpdate(Entry entry, StateManagerMode command) {
+        if (!loaded) {
+            // nothing to update, the next request loads everything
+            return;
+        }
+        if (command == StateManagerMode.DELETE || !entry.getIsPublished()) {
+            if (items.remove(entry.getId()) != null) {
+                // an older entry that is not held here moves back into the feed, reload on the next request
+                loaded = false;
+                feed = null;
+            }
+            return;
+        }
+        final Optional<String> item = renderItem(entry);
+        if (item.isPresent()) {
+            // re-insert so that the entry moves to the newest end
+            items.remove(entry.getId());
+            items.put(entry.getId(), new RenderedItem(entry.getLastUpdated(), item.get()));
+            feed = null;
+        }
     }
 
-    public void invalidateCache() {
-        this.cache.invalidateAll();
+    public synchronized void invalidateCache() {
+        items.clear();
+        loaded = false;
+        feed = null;
     }
 
     @Override
@@ -55,4 +136,52 @@ public class RSSListener implements StateListenerInterface {
         //TODO ideally, the listener should know how to generate a whole new rss, probably not worth it right now
         invalidateCache();
     }
+
+    /**
+     * Only tools and bioworkflows appear in the RSS feed
+     */
+    static Optional<RSSEntry> createRSSEntry(Entry<?, ?> dbEntry) {
+        RSSEntry entry = new RSSEntry();
+        if (dbEntry instanceof BioWorkflow) {
+            BioWorkflow workflow = (BioWorkflow)dbEntry;
+            entry.setTitle(workflow.getWorkflowPath());
+            String workflowURL = MetadataResourceHelper.createWorkflowURL(workflow);
+            entry.setGuid(workflowURL);
+            entry.setLink(workflowURL);
+        } else if (dbEntry instanceof Tool) {
+            Tool tool = (Tool)dbEntry;
+            entry.setTitle(tool.getPath());
+            String toolURL = MetadataResourceHelper.createToolURL(tool);
+            entry.setGuid(toolURL);
+            entry.setLink(toolURL);
+        } else {
+            return Optional.empty();
+        }
+        entry.setDescription(StringUtils.truncate(StringUtils.defaultString(dbEntry.getDescription()), DESCRIPTION_LIMIT));
+        Calendar instance = Calendar.getInstance();
+        instance.setTime(dbEntry.getLastUpdated());
+        entry.setPubDate(RSSFeed.formatDate(instance));
+        return Optional.of(entry);
+    }
+
+    private static Optional<String> renderItem(Entry<?, ?> dbEntry) {
+        return createRSSEntry(dbEntry).map(entry -> {
+            try {
+                return RSSWriter.renderItem(entry);
+            } catch (XMLStreamException e) {
+                LOGGER.error("Could not write RSS item for entry " + dbEntry.getId(), e);
+                throw new CustomWebApplicationException("Could not write RSS feed.", HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    private static final class RenderedItem {
+        private final Date lastUpdated;
+        private final String xml;
+
+        private RenderedItem(Date lastUpdated, String xml) {
+            this.lastUpdated = lastUpdated;
+            this.xml = xml;
+        }
+    }
 }
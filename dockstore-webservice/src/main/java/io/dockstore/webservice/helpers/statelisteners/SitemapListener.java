@@ -15,43 +15,90 @@
  */
 package io.dockstore.webservice.helpers.statelisteners;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
+import io.dockstore.webservice.core.BioWorkflow;
 import io.dockstore.webservice.core.Entry;
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.MetadataResourceHelper;
 import io.dockstore.webservice.helpers.StateManagerMode;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Future home of code for managing the sitemap
+ * Maintains the sitemap as a sorted index of URLs. The index is loaded from the database on first use, after which
+ * entry URLs are added, moved or removed one entry at a time as entries change.
+ * Organization and collection URLs are reloaded as a group when an organization or collection changes.
  */
 public class SitemapListener implements StateListenerInterface {
-    // The cache only has one key, arbitrarily choosing it to be this
-    public static final String SITEMAP_KEY = "sitemap";
     private static final Logger LOGGER = LoggerFactory.getLogger(SitemapListener.class);
-    private Cache<String, SortedSet<String>> cache = CacheBuilder.newBuilder().build();
+
+    private final SortedSet<String> urls = new ConcurrentSkipListSet<>();
+    private final Map<Long, String> entryUrls = new ConcurrentHashMap<>();
+    private final Set<String> organizationUrls = new HashSet<>();
+    private boolean entriesLoaded = false;
+    private boolean organizationsLoaded = false;
 
     /**
-     * Custom getter
-     * @return
+     * Returns the sitemap, loading whichever parts are not loaded yet
+     * @param entryLoader        loads the URL of every published entry keyed by entry id
+     * @param organizationLoader loads the URL of every approved organization and its collections
+     * @return a read-only view of the sitemap
      */
-    public Cache<String, SortedSet<String>> getCache() {
-        return cache;
+    public synchronized SortedSet<String> getSitemap(Supplier<Map<Long, String>> entryLoader, Supplier<Set<String>> organizationLoader) {
+        if (!entriesLoaded) {
+            final Map<Long, String> loadedEntryUrls = entryLoader.get();
+            entryUrls.putAll(loadedEntryUrls);
+            urls.addAll(loadedEntryUrls.values());
+            entriesLoaded = true;
+        }
+        if (!organizationsLoaded) {
+            final Set<String> loadedOrganizationUrls = organizationLoader.get();
+            organizationUrls.addAll(loadedOrganizationUrls);
+            urls.addAll(loadedOrganizationUrls);
+            organizationsLoaded = true;
+        }
+        return Collections.unmodifiableSortedSet(urls);
     }
 
     @Override
-    public void handleIndexUpdate(Entry entry, StateManagerMode command) {
-        //TODO ideally, we could should update the sitemap for the one new entry
-        if (command == StateManagerMode.UPDATE) {
+    public synchronized void handleIndexUpdate(Entry entry, StateManagerMode command) {
+        if (!entriesLoaded) {
+            // nothing to update, the next request loads everything
             return;
         }
-        invalidateCache();
+        final Optional<String> newUrl = command == StateManagerMode.DELETE || !entry.getIsPublished() ? Optional.empty() : createEntryURL(entry);
+        final String oldUrl = newUrl.map(url -> entryUrls.put(entry.getId(), url)).orElseGet(() -> entryUrls.remove(entry.getId()));
+        if (oldUrl != null && !newUrl.equals(Optional.of(oldUrl))) {
+            urls.remove(oldUrl);
+        }
+        newUrl.ifPresent(urls::add);
+        LOGGER.debug("Updated sitemap for entry {}", entry.getId());
+    }
+
+    /**
+     * Call when an organization is approved or renamed, or a collection is added or renamed
+     */
+    public synchronized void invalidateOrganizationsAndCollections() {
+        urls.removeAll(organizationUrls);
+        organizationUrls.clear();
+        organizationsLoaded = false;
     }
 
-    public void invalidateCache() {
-        this.cache.invalidateAll();
+    public synchronized void invalidateCache() {
+        urls.clear();
+        entryUrls.clear();
+        organizationUrls.clear();
+        entriesLoaded = false;
+        organizationsLoaded = false;
     }
 
     @Override
@@ -59,4 +106,16 @@ public class SitemapListener implements StateListenerInterface {
         //TODO ideally, the listener should know how to generate a whole new sitemap, probably not worth it right now
         invalidateCache();
     }
+
+    /**
+     * Only tools and bioworkflows appear in the sitemap
+     */
+    public static Optional<String> createEntryURL(Entry<?, ?> entry) {
+        if (entry instanceof Tool) {
+            return Optional.of(MetadataResourceHelper.createToolURL((Tool)entry));
+        } else if (entry instanceof BioWorkflow) {
+            return Optional.of(MetadataResourceHelper.createWorkflowURL((BioWorkflow)entry));
+        }
+        return Optional.empty();
+    }
 }
@@ -21,26 +21,27 @@ import io.dockstore.webservice.core.Entry;
 import io.dockstore.webservice.helpers.StateManagerMode;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import javax.ws.rs.core.Response;
 
 /**
- * Future home of code for managing cached TRS entries
+ * Caches TRS /tools responses. Each cached page remembers which entries it was built from so that
+ * an update to one entry only evicts the pages that could have changed.
  */
 public class TRSListener implements StateListenerInterface {
 
-    // TODO: implementor should tune this https://github.com/google/guava/wiki/CachesExplained
-    // arbitrarily picked 20
-    private static final int MAXIMUM_SIZE = 20;
-    private Cache<Integer, Response.ResponseBuilder> trsResponses = CacheBuilder.newBuilder()
-        // TODO: implementor should try to weight larger responses (like getting all tools without limits)
-        .maximumSize(MAXIMUM_SIZE)
-        // TODO: should refactor to use CacheLoader properly with a LoadingCache
+    /**
+     * Cache weight is roughly the number of TRS tool versions held across all cached pages
+     */
+    private static final long MAXIMUM_WEIGHT = 100_000;
+    private final Cache<List<Object>, CachedPage> trsResponses = CacheBuilder.newBuilder()
+        .maximumWeight(MAXIMUM_WEIGHT)
+        .weigher((List<Object> key, CachedPage page) -> page.getWeight())
         .build();
 
     @Override
     public void handleIndexUpdate(Entry entry, StateManagerMode command) {
-        //TODO: this should update TRS for the one new entry rather than wipe everything out
-        trsResponses.invalidateAll();
+        trsResponses.asMap().values().removeIf(page -> page.isAffectedBy(entry.getId(), command));
     }
 
     @Override
@@ -48,12 +49,61 @@ public class TRSListener implements StateListenerInterface {
         trsResponses.invalidateAll();
     }
 
-    public Optional<Response.ResponseBuilder> getTrsResponse(Integer hashcode) {
-        final Response.ResponseBuilder cachedResponse = trsResponses.getIfPresent(hashcode);
-        return Optional.ofNullable(cachedResponse);
+    /**
+     * @param query the normalized query parameters, compared in full rather than by hash
+     * @return the cached response for this query, if any
+     */
+    public Optional<Response.ResponseBuilder> getTrsResponse(List<Object> query) {
+        final CachedPage cachedPage = trsResponses.getIfPresent(query);
+        return Optional.ofNullable(cachedPage).map(CachedPage::getResponse);
+    }
+
+    public void loadTRSResponse(List<Object> query, CachedPage page) {
+        trsResponses.put(query, page);
     }
 
-    public void loadTRSResponse(Integer hashcode, Response.ResponseBuilder r) {
-        trsResponses.put(hashcode, r);
+    /**
+     * A cached TRS response along with the ids of the entries it contains
+     */
+    public static class CachedPage {
+        private final Response.ResponseBuilder response;
+        private final Set<Long> entryIds;
+        private final boolean listing;
+        private final boolean filtered;
+        private final int weight;
+
+        /**
+         * @param response the response to replay
+         * @param entryIds ids of the entries that appear in this page
+         * @param listing  true if the page comes from a listing that new or changed entries could join, false if it is a lookup of a specific id
+         * @param filtered true if membership of the listing depends on entry attributes that may change on update (e.g. description, author)
+         * @param weight   relative size of the page
+         */
+        public CachedPage(Response.ResponseBuilder response, Set<Long> entryIds, boolean listing, boolean filtered, int weight) {
+            this.response = response;
+            this.entryIds = entryIds;
+            this.listing = listing;
+            this.filtered = filtered;
+            this.weight = Math.max(1, weight);
+        }
+
+        public Response.ResponseBuilder getResponse() {
+            return response;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Pages containing the entry are always stale. Listings also shift when an entry is published or removed,
+         * and filtered listings may pick up an updated entry that did not match before.
+         */
+        boolean isAffectedBy(long entryId, StateManagerMode command) {
+            if (entryIds.contains(entryId)) {
+                return true;
+            }
+            return listing && (command != StateManagerMode.UPDATE || filtered);
+        }
     }
 }
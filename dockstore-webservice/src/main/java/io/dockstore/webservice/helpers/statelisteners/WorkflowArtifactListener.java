@@ -0,0 +1,284 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.dockstore.webservice.core.Entry;
+import io.dockstore.webservice.core.SourceFile;
+import io.dockstore.webservice.core.Workflow;
+import io.dockstore.webservice.core.WorkflowVersion;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import io.dockstore.webservice.jdbi.ToolDAO;
+import io.dockstore.webservice.jdbi.WorkflowDAO;
+import io.dockstore.webservice.jdbi.WorkflowVersionDAO;
+import io.dockstore.webservice.languages.LanguageHandlerFactory;
+import io.dockstore.webservice.languages.LanguageHandlerInterface;
+import io.dropwizard.lifecycle.Managed;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.hibernate.FlushMode;
+import org.hibernate.Hibernate;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Renders the DAG and tool table json of workflow versions in the background, so that the first visitor after a refresh
+ * does not wait on descriptor parsing and registry lookups.
+ *
+ * When a workflow changes, its loaded versions that lack either json are queued once the change has committed. Versions
+ * that were not loaded by the change were not touched by it. A single worker renders each version with a session of its
+ * own and stores the result, unless the version was updated in the meantime, in which case that update queues it again.
+ * A version is queued at most once at a time. Frozen versions cannot be updated, so json for frozen versions that
+ * predate storing it at snapshot time is kept in memory instead.
+ */
+public class WorkflowArtifactListener implements StateListenerInterface, Managed {
+    private static final Logger LOG = LoggerFactory.getLogger(WorkflowArtifactListener.class);
+    private static final int FROZEN_CACHE_SIZE = 1000;
+    private static final long STOP_TIMEOUT_SECONDS = 30;
+
+    private final SessionFactory sessionFactory;
+    private final WorkflowDAO workflowDAO;
+    private final WorkflowVersionDAO workflowVersionDAO;
+    private final ToolDAO toolDAO;
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final Cache<Long, Artifacts> frozenArtifacts = CacheBuilder.newBuilder().maximumSize(FROZEN_CACHE_SIZE).build();
+    private final ExecutorService executor = Executors
+        .newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("workflow-artifacts-%d").setDaemon(true).build());
+
+    public WorkflowArtifactListener(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+        this.workflowDAO = new WorkflowDAO(sessionFactory);
+        this.workflowVersionDAO = new WorkflowVersionDAO(sessionFactory);
+        this.toolDAO = new ToolDAO(sessionFactory);
+    }
+
+    @Override
+    public void handleIndexUpdate(Entry entry, StateManagerMode command) {
+        if (!(entry instanceof Workflow) || command == StateManagerMode.DELETE) {
+            return;
+        }
+        final Workflow workflow = (Workflow)entry;
+        if (!Hibernate.isInitialized(workflow.getWorkflowVersions())) {
+            return;
+        }
+        final List<WorkflowVersion> versions = workflow.getWorkflowVersions().stream().filter(this::needsArtifacts).collect(Collectors.toList());
+        if (!versions.isEmpty()) {
+            // new versions only have ids once the change is flushed
+            afterCommit(() -> versions.forEach(version -> enqueue(workflow.getId(), version.getId())));
+        }
+    }
+
+    @Override
+    public void bulkUpsert(List<Entry> entries) {
+        // versions are queued as they change
+    }
+
+    /**
+     * @return the DAG json of a frozen version that could not be stored
+     */
+    public Optional<String> getFrozenDagJson(long workflowVersionId) {
+        return Optional.ofNullable(frozenArtifacts.getIfPresent(workflowVersionId)).map(artifacts -> artifacts.dagJson);
+    }
+
+    /**
+     * @return the tool table json of a frozen version that could not be stored
+     */
+    public Optional<String> getFrozenToolTableJson(long workflowVersionId) {
+        return Optional.ofNullable(frozenArtifacts.getIfPresent(workflowVersionId)).map(artifacts -> artifacts.toolTableJson);
+    }
+
+    /**
+     * Keeps the DAG json of a frozen version that was rendered for a request
+     */
+    public void putFrozenDagJson(long workflowVersionId, String dagJson) {
+        frozenArtifacts.asMap().merge(workflowVersionId, new Artifacts(dagJson, null), (old, rendered) -> new Artifacts(dagJson, old.toolTableJson));
+    }
+
+    /**
+     * Keeps the tool table json of a frozen version that was rendered for a request
+     */
+    public void putFrozenToolTableJson(long workflowVersionId, String toolTableJson) {
+        frozenArtifacts.asMap().merge(workflowVersionId, new Artifacts(null, toolTableJson), (old, rendered) -> new Artifacts(old.dagJson, toolTableJson));
+    }
+
+    @Override
+    public void start() {
+        // the worker thread starts with the first job
+    }
+
+    @Override
+    public void stop() throws InterruptedException {
+        executor.shutdownNow();
+        if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            LOG.warn("Could not stop rendering workflow DAGs and tool tables in time");
+        }
+    }
+
+    /**
+     * The tool table json gained a "specifier" key later on, so stored json without it is rendered again.
+     * An empty array has nothing to add it to.
+     */
+    public static boolean hasCurrentToolTableJson(WorkflowVersion workflowVersion) {
+        final String toolTableJson = workflowVersion.getToolTableJson();
+        return toolTableJson != null && (toolTableJson.contains("\"specifier\"") || "[]".equals(toolTableJson));
+    }
+
+    public static String renderDagJson(Workflow workflow, WorkflowVersion workflowVersion, ToolDAO toolDAO) {
+        final SourceFile mainDescriptor = getMainDescriptorFile(workflowVersion);
+        if (mainDescriptor == null) {
+            return null;
+        }
+        final LanguageHandlerInterface lInterface = LanguageHandlerFactory.getInterface(workflow.getFileType());
+        return lInterface.getCleanDAG(workflowVersion.getWorkflowPath(), mainDescriptor.getContent(), getSecondaryFiles(workflowVersion),
+            LanguageHandlerInterface.Type.DAG, toolDAO);
+    }
+
+    public static Optional<String> renderToolTableJson(Workflow workflow, WorkflowVersion workflowVersion, ToolDAO toolDAO) {
+        final SourceFile mainDescriptor = getMainDescriptorFile(workflowVersion);
+        if (mainDescriptor == null) {
+            return Optional.empty();
+        }
+        final LanguageHandlerInterface lInterface = LanguageHandlerFactory.getInterface(workflow.getFileType());
+        return lInterface.getContent(workflowVersion.getWorkflowPath(), mainDescriptor.getContent(), getSecondaryFiles(workflowVersion),
+            LanguageHandlerInterface.Type.TOOLS, toolDAO);
+    }
+
+    /**
+     * @return the main descriptor of a version, or null if it has none
+     */
+    public static SourceFile getMainDescriptorFile(WorkflowVersion workflowVersion) {
+        return workflowVersion.getSourceFiles().stream().filter(sf -> sf.getPath().equals(workflowVersion.getWorkflowPath())).findFirst().orElse(null);
+    }
+
+    /**
+     * @return every file of a version other than its main descriptor
+     */
+    public static Set<SourceFile> getSecondaryFiles(WorkflowVersion workflowVersion) {
+        return workflowVersion.getSourceFiles().stream().filter(sf -> !sf.getPath().equals(workflowVersion.getWorkflowPath())).collect(Collectors.toSet());
+    }
+
+    private boolean needsArtifacts(WorkflowVersion workflowVersion) {
+        if (workflowVersion.getDagJson() != null && hasCurrentToolTableJson(workflowVersion)) {
+            return false;
+        }
+        return !workflowVersion.isFrozen() || frozenArtifacts.getIfPresent(workflowVersion.getId()) == null;
+    }
+
+    /**
+     * Runs after the current unit of work commits, or right away outside of one
+     */
+    private void afterCommit(Runnable runnable) {
+        final Session session;
+        try {
+            session = sessionFactory.getCurrentSession();
+        } catch (HibernateException e) {
+            runnable.run();
+            return;
+        }
+        if (!session.getTransaction().isActive()) {
+            runnable.run();
+            return;
+        }
+        final AfterTransactionCompletionProcess process = (success, completedSession) -> {
+            if (success) {
+                runnable.run();
+            }
+        };
+        session.unwrap(SessionImplementor.class).getActionQueue().registerProcess(process);
+    }
+
+    /**
+     * Queues a version to be rendered, unless it already is
+     */
+    public void enqueue(long workflowId, long workflowVersionId) {
+        if (workflowVersionId == 0 || !queued.add(workflowVersionId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                // a change from here on queues the version again
+                queued.remove(workflowVersionId);
+                render(workflowId, workflowVersionId);
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(workflowVersionId);
+            LOG.warn("Not rendering DAG and tool table of workflow version {} during shutdown", workflowVersionId);
+        }
+    }
+
+    private void render(long workflowId, long workflowVersionId) {
+        try (Session session = sessionFactory.openSession()) {
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+            ManagedSessionContext.bind(session);
+            final Transaction transaction = session.beginTransaction();
+            boolean committed = false;
+            try {
+                final Workflow workflow = workflowDAO.findById(workflowId);
+                final WorkflowVersion workflowVersion = workflowVersionDAO.findById(workflowVersionId);
+                if (workflow == null || workflowVersion == null || !needsArtifacts(workflowVersion)) {
+                    return;
+                }
+                final Timestamp dbUpdateDate = workflowVersion.getDbUpdateDate();
+                final String dagJson = workflowVersion.getDagJson() != null ? workflowVersion.getDagJson() : renderDagJson(workflow, workflowVersion, toolDAO);
+                final String toolTableJson = hasCurrentToolTableJson(workflowVersion) ? workflowVersion.getToolTableJson()
+                    : renderToolTableJson(workflow, workflowVersion, toolDAO).orElse(null);
+                if (workflowVersion.isFrozen()) {
+                    frozenArtifacts.put(workflowVersionId, new Artifacts(dagJson, toolTableJson));
+                } else if (workflowVersionDAO.updateDagAndToolTableJson(workflowVersionId, dbUpdateDate, dagJson, toolTableJson) > 0) {
+                    transaction.commit();
+                    committed = true;
+                } else {
+                    LOG.debug("Workflow version {} changed while rendering its DAG and tool table", workflowVersionId);
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Could not render DAG and tool table of workflow version " + workflowVersionId, e);
+            } finally {
+                if (!committed && transaction.getStatus().canRollback()) {
+                    transaction.rollback();
+                }
+            }
+        } finally {
+            ManagedSessionContext.unbind(sessionFactory);
+        }
+    }
+
+    private static final class Artifacts {
+        private final String dagJson;
+        private final String toolTableJson;
+
+        private Artifacts(String dagJson, String toolTableJson) {
+            this.dagJson = dagJson;
+            this.toolTableJson = toolTableJson;
+        }
+    }
+}
@@ -26,14 +26,17 @@ import io.dockstore.webservice.core.Tool;
 import io.dockstore.webservice.core.Version;
 import io.dockstore.webservice.core.Workflow;
 import io.dockstore.webservice.core.database.EntryLite;
+import io.dockstore.webservice.helpers.statelisteners.EntryPathListener;
 import java.lang.reflect.ParameterizedType;
 import java.math.BigInteger;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.stream.Collectors;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -74,6 +77,16 @@ public abstract class EntryDAO<T extends Entry> extends AbstractDockstoreDAO<T>
     }
 
     public MutablePair<String, Entry> findEntryByPath(String path, boolean isPublished) {
+        final String normalizedPath = EntryPathListener.normalizePath(Tool.splitPath(path));
+        if (normalizedPath == null) {
+            return null;
+        }
+        final Entry entry = EntryPathListener.getInstance().findByPath(Entry.class, normalizedPath, found -> !isPublished || found.getIsPublished(),
+            currentSession(), () -> findEntryByPathUncached(path, isPublished));
+        return entry == null ? null : new MutablePair<>(entry instanceof Tool ? "tool" : "workflow", entry);
+    }
+
+    private Entry findEntryByPathUncached(String path, boolean isPublished) {
         String queryString = "Entry.";
         if (isPublished) {
             queryString += "getPublishedEntryByPath";
@@ -110,18 +123,18 @@ public abstract class EntryDAO<T extends Entry> extends AbstractDockstoreDAO<T>
         }
 
         List<Object[]> pair = list(query);
-        MutablePair<String, Entry> results = null;
+        Entry result = null;
         if (pair.size() > 0) {
             String type = (String)(pair.get(0))[0];
             BigInteger id = (BigInteger)(pair.get(0))[1];
             Long longId = id.longValue();
             if ("workflow".equals(type)) {
-                results = new MutablePair<>("workflow", this.currentSession().get(Workflow.class, Objects.requireNonNull(longId)));
+                result = this.currentSession().get(Workflow.class, Objects.requireNonNull(longId));
             } else {
-                results = new MutablePair<>("tool", this.currentSession().get(Tool.class, Objects.requireNonNull(longId)));
+                result = this.currentSession().get(Tool.class, Objects.requireNonNull(longId));
             }
         }
-        return results;
+        return result;
     }
 
     public long create(T entry) {
@@ -139,7 +152,8 @@ public abstract class EntryDAO<T extends Entry> extends AbstractDockstoreDAO<T>
     }
 
     public Entry<? extends Entry, ? extends Version> getGenericEntryByAlias(String alias) {
-        return uniqueResult(this.currentSession().getNamedQuery("Entry.getGenericEntryByAlias").setParameter("alias", alias));
+        return EntryPathListener.getInstance().findByAlias(Entry.class, alias, currentSession(),
+            () -> uniqueResult(this.currentSession().getNamedQuery("Entry.getGenericEntryByAlias").setParameter("alias", alias)));
     }
 
     public List<CollectionOrganization> findCollectionsByEntryId(long entryId) {
@@ -217,6 +231,53 @@ public abstract class EntryDAO<T extends Entry> extends AbstractDockstoreDAO<T>
         return list(this.currentSession().getNamedQuery("io.dockstore.webservice.core." + typeOfT.getSimpleName() + ".findAllPublished"));
     }
 
+    /**
+     * Walks published entries in id order, one chunk at a time
+     * @param lastId     the last id of the previous chunk, 0 for the first chunk
+     * @param maxResults the chunk size
+     * @return ids of the next chunk of published entries
+     */
+    public List<Long> findPublishedIdsAfter(long lastId, int maxResults) {
+        CriteriaBuilder cb = currentSession().getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> entry = query.from(typeOfT);
+        query.select(entry.get("id")).where(cb.isTrue(entry.get("isPublished")), cb.gt(entry.get("id"), lastId)).orderBy(cb.asc(entry.get("id")));
+        return currentSession().createQuery(query).setMaxResults(maxResults).getResultList();
+    }
+
+    /**
+     * @param since the earliest update to include
+     * @return ids of entries updated since the given time, whether or not they are published
+     */
+    public List<Long> findIdsUpdatedSince(Timestamp since) {
+        CriteriaBuilder cb = currentSession().getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> entry = query.from(typeOfT);
+        query.select(entry.get("id")).where(cb.greaterThanOrEqualTo(entry.get("dbUpdateDate"), since)).orderBy(cb.asc(entry.get("id")));
+        return currentSession().createQuery(query).getResultList();
+    }
+
+    /**
+     * @param ids ids of entries, some of which may have been deleted
+     * @return those of the ids that still have an entry
+     */
+    public List<Long> findExistingIds(List<Long> ids) {
+        CriteriaBuilder cb = currentSession().getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> entry = query.from(typeOfT);
+        query.select(entry.get("id")).where(entry.get("id").in(ids));
+        return currentSession().createQuery(query).getResultList();
+    }
+
+    /**
+     * Loads a chunk of entries in one query
+     * @param ids ids of the entries
+     * @return the entries that exist, in the order of the ids
+     */
+    public List<T> findByIds(List<Long> ids) {
+        return currentSession().byMultipleIds(typeOfT).multiLoad(ids).stream().filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
     public long countAllHosted(long userid) {
         return ((BigInteger)namedQuery("Entry.hostedWorkflowCount").setParameter("userid", userid).getSingleResult()).longValueExact();
     }
@@ -250,6 +311,15 @@ public abstract class EntryDAO<T extends Entry> extends AbstractDockstoreDAO<T>
         return Arrays.asList(this.currentSession().getNamedQuery("Entry.findWorkflowsDescriptorTypes").setParameter("entryId", entryId).getSingleResult().toString());
     }
 
+    Predicate andLike(CriteriaBuilder cb, Predicate existingPredicate, Path<String> column, Optional<String> value) {
+        return value.map(val -> cb.and(existingPredicate, cb.like(column, wildcardLike(val))))
+                .orElse(existingPredicate);
+    }
+
+    String wildcardLike(String value) {
+        return '%' + value + '%';
+    }
+
     private void processQuery(String filter, String sortCol, String sortOrder, CriteriaBuilder cb, CriteriaQuery query, Root<T> entry) {
         List<Predicate> predicates = new ArrayList<>();
         if (!Strings.isNullOrEmpty(filter)) {
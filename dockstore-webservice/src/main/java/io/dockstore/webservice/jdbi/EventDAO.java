@@ -8,13 +8,12 @@ import io.dockstore.webservice.core.Version;
 import io.dropwizard.hibernate.AbstractDAO;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import javax.persistence.TypedQuery;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
@@ -39,9 +38,10 @@ public class EventDAO extends AbstractDAO<Event> {
         return persist(event).getId();
     }
 
-    public List<Event> findEventsForOrganization(long organizationId, Integer offset, Integer limit) {
+    public List<Event> findEventsForOrganization(long organizationId, long beforeId, Integer offset, Integer limit) {
         Query<Event> query = namedTypedQuery("io.dockstore.webservice.core.Event.findAllForOrganization")
                 .setParameter("organizationId", organizationId)
+                .setParameter("beforeId", beforeId)
                 .setFirstResult(offset)
                 .setMaxResults(limit);
         return list(query);
@@ -53,51 +53,63 @@ public class EventDAO extends AbstractDAO<Event> {
         return ((Long)query.getSingleResult()).longValue();
     }
 
-    public List<Event> findEventsByEntryIDs(Set<Long> entryIds, Integer offset, int limit) {
+    public List<Event> findEventsByEntryIDs(Set<Long> entryIds, long beforeId, Integer offset, int limit) {
         int newLimit = Math.min(MAX_LIMIT, limit);
         if (entryIds.isEmpty()) {
             return Collections.emptyList();
         }
-        Query<Event> query = namedTypedQuery("io.dockstore.webservice.core.Event.findAllByEntryIds");
-        query.setParameterList("entryIDs", entryIds).setFirstResult(offset).setMaxResults(newLimit);
-        return list(query);
+        int primitiveOffset = MoreObjects.firstNonNull(offset, 0);
+        return mergePages(primitiveOffset, newLimit, List.of(
+                findPage("findAllByToolIds", "entryIDs", entryIds, beforeId, primitiveOffset + newLimit),
+                findPage("findAllByWorkflowIds", "entryIDs", entryIds, beforeId, primitiveOffset + newLimit)));
     }
 
-    public List<Event> findAllByOrganizationIds(Set<Long> organizationIds, Integer offset, int limit) {
+    public List<Event> findAllByOrganizationIds(Set<Long> organizationIds, long beforeId, Integer offset, int limit) {
         int newLimit = Math.min(MAX_LIMIT, limit);
         if (organizationIds.isEmpty()) {
             return Collections.emptyList();
         }
         Query<Event> query = namedTypedQuery("io.dockstore.webservice.core.Event.findAllByOrganizationIds");
-        query.setParameterList("organizationIDs", organizationIds).setFirstResult(offset).setMaxResults(newLimit);
+        query.setParameterList("organizationIDs", organizationIds).setParameter("beforeId", beforeId).setFirstResult(offset).setMaxResults(newLimit);
         return list(query);
     }
 
-    public List<Event> findAllByOrganizationIdsOrEntryIds(Set<Long> organizationIds, Set<Long> entryIds, Integer offset, int limit) {
+    /**
+     * Finds the events of some organizations, tools or workflows. Runs one query per kind of ID, each of which can use its own index,
+     * instead of one query with an OR of the three, which cannot.
+     */
+    public List<Event> findAllByOrganizationIdsOrEntryIds(Set<Long> organizationIds, Set<Long> entryIds, long beforeId, Integer offset, int limit) {
         int newLimit = Math.min(MAX_LIMIT, limit);
-
-        CriteriaBuilder cb = currentSession().getCriteriaBuilder();
-        CriteriaQuery<Event> query = criteriaQuery();
-        Root<Event> event = query.from(Event.class);
-
         if (organizationIds.isEmpty() && entryIds.isEmpty()) {
             return Collections.emptyList();
         }
-        List<Predicate> list = new ArrayList<>();
+        int primitiveOffset = MoreObjects.firstNonNull(offset, 0);
+        List<List<Event>> pages = new ArrayList<>();
         if (!organizationIds.isEmpty()) {
-            list.add(event.get("organization").in(organizationIds));
+            pages.add(findPage("findAllByOrganizationIds", "organizationIDs", organizationIds, beforeId, primitiveOffset + newLimit));
         }
         if (!entryIds.isEmpty()) {
-            list.add(event.get("tool").in(entryIds));
-            list.add(event.get("workflow").in(entryIds));
+            pages.add(findPage("findAllByToolIds", "entryIDs", entryIds, beforeId, primitiveOffset + newLimit));
+            pages.add(findPage("findAllByWorkflowIds", "entryIDs", entryIds, beforeId, primitiveOffset + newLimit));
         }
-        query.where(cb.or(list.toArray(new Predicate[0])));
-        query.orderBy(cb.desc(event.get("id")));
-        query.select(event);
+        return mergePages(primitiveOffset, newLimit, pages);
+    }
 
-        int primitiveOffset = MoreObjects.firstNonNull(offset, 0);
-        TypedQuery<Event> typedQuery = currentSession().createQuery(query).setFirstResult(primitiveOffset).setMaxResults(newLimit);
-        return typedQuery.getResultList();
+    private List<Event> findPage(String queryName, String idsParameter, Set<Long> ids, long beforeId, int maxResults) {
+        Query<Event> query = namedTypedQuery("io.dockstore.webservice.core.Event." + queryName);
+        query.setParameterList(idsParameter, ids).setParameter("beforeId", beforeId).setMaxResults(maxResults);
+        return list(query);
+    }
+
+    /**
+     * Merges pages of events ordered by descending ID into one page, as if they came from one query
+     */
+    static List<Event> mergePages(int offset, int limit, List<List<Event>> pages) {
+        final Map<Long, Event> merged = new TreeMap<>(Comparator.reverseOrder());
+        for (List<Event> page : pages) {
+            page.forEach(event -> merged.putIfAbsent(event.getId(), event));
+        }
+        return merged.values().stream().skip(offset).limit(limit).collect(Collectors.toList());
     }
 
     public void delete(Event event) {
@@ -73,13 +73,14 @@ public class LambdaEventDAO extends AbstractDAO<LambdaEvent> {
         return typedQuery.getResultList();
     }
 
-    public List<LambdaEvent> findByOrganization(String organization, String offset, Integer limit) {
+    public List<LambdaEvent> findByOrganization(String organization, long beforeId, String offset, Integer limit) {
         CriteriaBuilder cb = currentSession().getCriteriaBuilder();
         CriteriaQuery<LambdaEvent> query = criteriaQuery();
         Root<LambdaEvent> event = query.from(LambdaEvent.class);
 
         List<Predicate> predicates = new ArrayList<>();
         predicates.add(cb.equal(event.get("organization"), organization));
+        predicates.add(cb.lessThan(event.get("id"), beforeId));
         query.orderBy(cb.desc(event.get("id")));
         query.where(predicates.toArray(new Predicate[]{}));
 
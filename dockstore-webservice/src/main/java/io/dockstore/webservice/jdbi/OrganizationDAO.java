@@ -1,6 +1,7 @@
 package io.dockstore.webservice.jdbi;
 
 import io.dockstore.webservice.core.Organization;
+import io.dockstore.webservice.core.database.OrganizationCollectionPath;
 import io.dropwizard.hibernate.AbstractDAO;
 import java.util.List;
 import org.hibernate.Session;
@@ -37,6 +38,13 @@ public class OrganizationDAO extends AbstractDAO<Organization> {
         return list(namedTypedQuery("io.dockstore.webservice.core.Organization.findAllApproved"));
     }
 
+    /**
+     * @return the names of approved organizations joined with the names of their collections, in one query
+     */
+    public List<OrganizationCollectionPath> findAllApprovedPaths() {
+        return list(this.currentSession().getNamedQuery("io.dockstore.webservice.core.Organization.findAllApprovedPaths"));
+    }
+
     public List<Organization> findAllPending() {
         return list(namedTypedQuery("io.dockstore.webservice.core.Organization.findAllPending"));
     }
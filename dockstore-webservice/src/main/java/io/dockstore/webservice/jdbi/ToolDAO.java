@@ -22,7 +22,22 @@ import io.dockstore.webservice.core.Tool;
 import io.dockstore.webservice.core.database.RSSToolPath;
 import io.dockstore.webservice.core.database.ToolPath;
 import io.dockstore.webservice.helpers.JsonLdRetriever;
+import io.dockstore.webservice.helpers.JsonStreamingHelper;
+import io.dockstore.webservice.helpers.statelisteners.EntryPathListener;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 
@@ -50,6 +65,31 @@ public class ToolDAO extends EntryDAO<Tool> {
         return list(this.currentSession().getNamedQuery("io.dockstore.webservice.core.Tool.findAllPublishedPathsOrderByDbupdatedate").setMaxResults(RSS_ENTRY_LIMIT));
     }
 
+    /**
+     * Finds which of the given paths (ignoring tool names) belong to published tools, with a single query
+     *
+     * @param paths paths such as quay.io/namespace/name
+     * @return the paths among <code>paths</code> that at least one published tool has
+     */
+    public Set<String> findPublishedPaths(Collection<String> paths) {
+        final Set<String> namespaces = new HashSet<>();
+        final Set<String> names = new HashSet<>();
+        for (String path : paths) {
+            String[] splitPath = Tool.splitPath(path);
+            if (splitPath != null) {
+                namespaces.add(splitPath[orgIndex]);
+                names.add(splitPath[repoIndex]);
+            }
+        }
+        if (names.isEmpty()) {
+            return Collections.emptySet();
+        }
+        final List<ToolPath> toolPaths = list(this.currentSession().getNamedQuery("io.dockstore.webservice.core.Tool.findPublishedPathsByNamespacesAndNames")
+            .setParameterList("namespaces", namespaces).setParameterList("names", names));
+        return toolPaths.stream().map(ToolPath::getTool).map(Tool::getPath)
+            .filter(paths::contains).collect(Collectors.toSet());
+    }
+
     /**
      * Finds all tools with the given path (ignores tool name)
      * When findPublished is true, will only look at published tools
@@ -98,6 +138,15 @@ public class ToolDAO extends EntryDAO<Tool> {
      * @return Tool matching the path
      */
     public Tool findByPath(String path, boolean findPublished) {
+        final String normalizedPath = EntryPathListener.normalizePath(Tool.splitPath(path));
+        if (normalizedPath == null) {
+            return null;
+        }
+        return EntryPathListener.getInstance().findByPath(Tool.class, normalizedPath, tool -> !findPublished || tool.getIsPublished(), currentSession(),
+            () -> findByPathUncached(path, findPublished));
+    }
+
+    private Tool findByPathUncached(String path, boolean findPublished) {
         String[] splitPath = Tool.splitPath(path);
 
         // Not a valid path
@@ -143,6 +192,70 @@ public class ToolDAO extends EntryDAO<Tool> {
         return uniqueResult(query);
     }
 
+    /**
+     * Returns one page of published tools matching the TRS /tools filters, ordered like findAllPublished
+     */
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    public List<Tool> filterTrsToolsGet(String descriptorType, String registry, String organization, String name, String toolname,
+            String description, String author, int firstResult, int maxResults) {
+        return trsToolsGetQuery(descriptorType, registry, organization, name, toolname, description, author, firstResult, maxResults).getResultList();
+    }
+
+    /**
+     * Same as filterTrsToolsGet, but returns a forward-only cursor for streaming
+     */
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    public ScrollableResults scrollTrsToolsGet(String descriptorType, String registry, String organization, String name, String toolname,
+            String description, String author, int firstResult, int maxResults) {
+        return trsToolsGetQuery(descriptorType, registry, organization, name, toolname, description, author, firstResult, maxResults)
+            .setFetchSize(JsonStreamingHelper.CHUNK_SIZE).scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    private Query<Tool> trsToolsGetQuery(String descriptorType, String registry, String organization, String name, String toolname,
+            String description, String author, int firstResult, int maxResults) {
+        final CriteriaBuilder cb = currentSession().getCriteriaBuilder();
+        final CriteriaQuery<Tool> q = cb.createQuery(Tool.class);
+        final Root<Tool> entryRoot = q.from(Tool.class);
+
+        q.where(trsToolsGetPredicate(cb, entryRoot, descriptorType, registry, organization, name, toolname, description, author));
+        q.orderBy(cb.desc(cb.size(entryRoot.<Collection>get("starredUsers"))), cb.asc(entryRoot.get("id")));
+        Query<Tool> query = currentSession().createQuery(q);
+        query.setFirstResult(firstResult).setMaxResults(maxResults);
+        return query;
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    public long countTrsToolsGet(String descriptorType, String registry, String organization, String name, String toolname,
+            String description, String author) {
+        final CriteriaBuilder cb = currentSession().getCriteriaBuilder();
+        final CriteriaQuery<Long> q = cb.createQuery(Long.class);
+        final Root<Tool> entryRoot = q.from(Tool.class);
+
+        q.select(cb.count(entryRoot));
+        q.where(trsToolsGetPredicate(cb, entryRoot, descriptorType, registry, organization, name, toolname, description, author));
+        return currentSession().createQuery(q).getSingleResult();
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    private Predicate trsToolsGetPredicate(CriteriaBuilder cb, Root<Tool> entryRoot, String descriptorType, String registry, String organization,
+            String name, String toolname, String description, String author) {
+        Predicate predicate = cb.isTrue(entryRoot.get("isPublished"));
+        predicate = andLike(cb, predicate, entryRoot.get("registry"), Optional.ofNullable(registry));
+        predicate = andLike(cb, predicate, entryRoot.get("namespace"), Optional.ofNullable(organization));
+        predicate = andLike(cb, predicate, entryRoot.get("name"), Optional.ofNullable(name));
+        predicate = andLike(cb, predicate, entryRoot.get("toolname"), Optional.ofNullable(toolname));
+        predicate = andLike(cb, predicate, entryRoot.get("description"), Optional.ofNullable(description));
+        predicate = andLike(cb, predicate, entryRoot.get("author"), Optional.ofNullable(author));
+
+        if (descriptorType != null) {
+            // descriptor types are stored comma separated, match one whole element of the list
+            final Expression<String> descriptorTypes = cb.concat(cb.concat(",", entryRoot.<String>get("descriptorType")), ",");
+            predicate = cb.and(predicate, cb.like(descriptorTypes, wildcardLike("," + descriptorType + ",")));
+        }
+        return predicate;
+    }
+
     public List<Tool> findPublishedByNamespace(String namespace) {
         return list(namedTypedQuery("io.dockstore.webservice.core.Tool.findPublishedByNamespace").setParameter("namespace", namespace));
     }
@@ -22,19 +22,21 @@ import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.core.SourceControlConverter;
 import io.dockstore.webservice.core.User;
 import io.dockstore.webservice.core.Workflow;
+import io.dockstore.webservice.helpers.JsonStreamingHelper;
+import io.dockstore.webservice.helpers.statelisteners.EntryPathListener;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import javax.persistence.NoResultException;
-import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import org.apache.http.HttpStatus;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
@@ -164,6 +166,16 @@ public class WorkflowDAO extends EntryDAO<Workflow> {
      * @return
      */
     public <T extends Workflow> Optional<T> findByPath(String path, boolean findPublished, Class<T> clazz) {
+        final String normalizedPath = EntryPathListener.normalizePath(Workflow.splitPath(path));
+        if (normalizedPath == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(EntryPathListener.getInstance().findByPath(clazz, normalizedPath,
+            workflow -> workflow.getClass().equals(clazz) && (!findPublished || workflow.getIsPublished()), currentSession(),
+            () -> findByPathUncached(path, findPublished, clazz).orElse(null)));
+    }
+
+    private <T extends Workflow> Optional<T> findByPathUncached(String path, boolean findPublished, Class<T> clazz) {
         final List<Workflow> workflows = findByPath(path, findPublished);
         final List<T> filteredWorkflows  = workflows.stream()
                 .filter(workflow -> workflow.getClass().equals(clazz))
@@ -176,15 +188,58 @@ public class WorkflowDAO extends EntryDAO<Workflow> {
         return filteredWorkflows.size() == 1 ? Optional.of(filteredWorkflows.get(0)) : Optional.empty();
     }
 
+    /**
+     * Returns one page of published workflows matching the TRS /tools filters, ordered by id
+     */
     @SuppressWarnings({"checkstyle:ParameterNumber"})
     public List<Workflow> filterTrsToolsGet(DescriptorLanguage descriptorLanguage, String registry, String organization, String name, String toolname,
-            String description, String author, Boolean checker) {
+            String description, String author, Boolean checker, int firstResult, int maxResults) {
 
-        final SourceControlConverter converter = new SourceControlConverter();
+        return trsToolsGetQuery(descriptorLanguage, registry, organization, name, toolname, description, author, checker, firstResult, maxResults)
+            .getResultList();
+    }
+
+    /**
+     * Same as filterTrsToolsGet, but returns a forward-only cursor for streaming
+     */
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    public ScrollableResults scrollTrsToolsGet(DescriptorLanguage descriptorLanguage, String registry, String organization, String name, String toolname,
+            String description, String author, Boolean checker, int firstResult, int maxResults) {
+        return trsToolsGetQuery(descriptorLanguage, registry, organization, name, toolname, description, author, checker, firstResult, maxResults)
+            .setFetchSize(JsonStreamingHelper.CHUNK_SIZE).scroll(ScrollMode.FORWARD_ONLY);
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    private Query<Workflow> trsToolsGetQuery(DescriptorLanguage descriptorLanguage, String registry, String organization, String name, String toolname,
+            String description, String author, Boolean checker, int firstResult, int maxResults) {
         final CriteriaBuilder cb = currentSession().getCriteriaBuilder();
         final CriteriaQuery<Workflow> q = cb.createQuery(Workflow.class);
         final Root<Workflow> entryRoot = q.from(Workflow.class);
 
+        q.where(trsToolsGetPredicate(cb, entryRoot, descriptorLanguage, registry, organization, name, toolname, description, author, checker));
+        q.orderBy(cb.asc(entryRoot.get("id")));
+        Query<Workflow> query = currentSession().createQuery(q);
+        query.setFirstResult(firstResult).setMaxResults(maxResults);
+        return query;
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    public long countTrsToolsGet(DescriptorLanguage descriptorLanguage, String registry, String organization, String name, String toolname,
+            String description, String author, Boolean checker) {
+        final CriteriaBuilder cb = currentSession().getCriteriaBuilder();
+        final CriteriaQuery<Long> q = cb.createQuery(Long.class);
+        final Root<Workflow> entryRoot = q.from(Workflow.class);
+
+        q.select(cb.count(entryRoot));
+        q.where(trsToolsGetPredicate(cb, entryRoot, descriptorLanguage, registry, organization, name, toolname, description, author, checker));
+        return currentSession().createQuery(q).getSingleResult();
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    private Predicate trsToolsGetPredicate(CriteriaBuilder cb, Root<Workflow> entryRoot, DescriptorLanguage descriptorLanguage, String registry,
+            String organization, String name, String toolname, String description, String author, Boolean checker) {
+        final SourceControlConverter converter = new SourceControlConverter();
+
         Predicate predicate = cb.isTrue(entryRoot.get("isPublished"));
         predicate = andLike(cb, predicate, entryRoot.get("organization"), Optional.ofNullable(organization));
         predicate = andLike(cb, predicate, entryRoot.get("repository"), Optional.ofNullable(name));
@@ -202,21 +257,7 @@ public class WorkflowDAO extends EntryDAO<Workflow> {
         if (checker != null) {
             predicate = cb.and(predicate, cb.isTrue(entryRoot.get("isChecker")));
         }
-
-        q.where(predicate);
-        TypedQuery<Workflow> query = currentSession().createQuery(q);
-
-        List<Workflow> workflows = query.getResultList();
-        return workflows;
-    }
-
-    private Predicate andLike(CriteriaBuilder cb, Predicate existingPredicate, Path<String> column, Optional<String> value) {
-        return value.map(val -> cb.and(existingPredicate, cb.like(column, wildcardLike(val))))
-                .orElse(existingPredicate);
-    }
-
-    private String wildcardLike(String value) {
-        return '%' + value + '%';
+        return predicate;
     }
 
     public List<Workflow> findByPaths(List<String> paths, boolean findPublished) {
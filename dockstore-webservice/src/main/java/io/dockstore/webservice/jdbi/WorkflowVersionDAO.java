@@ -17,6 +17,7 @@
 package io.dockstore.webservice.jdbi;
 
 import io.dockstore.webservice.core.WorkflowVersion;
+import java.sql.Timestamp;
 import java.util.List;
 import org.hibernate.SessionFactory;
 import org.hibernate.query.Query;
@@ -48,4 +49,17 @@ public class WorkflowVersionDAO extends VersionDAO<WorkflowVersion> {
         query.setParameter("name", name);
         return uniqueResult(query);
     }
+
+    /**
+     * Stores the DAG and tool table json, unless the version was updated since dbUpdateDate or is frozen
+     * @return the number of versions updated
+     */
+    public int updateDagAndToolTableJson(long id, Timestamp dbUpdateDate, String dagJson, String toolTableJson) {
+        Query query = namedQuery("io.dockstore.webservice.core.WorkflowVersion.updateDagAndToolTableJson");
+        query.setParameter("id", id);
+        query.setParameter("dbUpdateDate", dbUpdateDate);
+        query.setParameter("dagJson", dagJson);
+        query.setParameter("toolTableJson", toolTableJson);
+        return query.executeUpdate();
+    }
 }
@@ -1,10 +1,23 @@
 package io.dockstore.webservice.languages;
 
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.dockstore.common.DescriptorLanguage;
+import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.core.SourceFile;
 import io.dockstore.webservice.core.Version;
 import io.dockstore.webservice.helpers.SourceCodeRepoInterface;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +27,12 @@ import org.slf4j.LoggerFactory;
  */
 public abstract class AbstractLanguageHandler {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractLanguageHandler.class);
+    private static final int MAX_IMPORT_THREADS = 8;
+    /**
+     * Reads imported files from Git, shared by all refreshes to bound the load on Git hosts
+     */
+    private static final ExecutorService IMPORT_EXECUTOR = Executors.newFixedThreadPool(MAX_IMPORT_THREADS,
+        new ThreadFactoryBuilder().setNameFormat("import-read-%d").setDaemon(true).build());
 
     /**
      *
@@ -45,4 +64,34 @@ public abstract class AbstractLanguageHandler {
         sourceFile.setAbsolutePath(absoluteImportPath);
         imports.put(absoluteImportPath, sourceFile);
     }
+
+    /**
+     * Grabs several import files from Git at the same time, see {@link #handleImport}
+     * @param repositoryId              identifies the git repository that we wish to use, normally something like 'organization/repo_name`
+     * @param version                   version of the files to get
+     * @param importPaths               import path from the descriptor, by absolute path of the import in git repository
+     * @param sourceCodeRepoInterface   used too retrieve imports
+     * @return mapping of filenames to the imports that could be read, in the order of <code>importPaths</code>
+     */
+    protected Map<String, SourceFile> handleImports(String repositoryId, Version version, Map<String, String> importPaths, SourceCodeRepoInterface sourceCodeRepoInterface) {
+        final Map<String, SourceFile> imports = new ConcurrentHashMap<>();
+        final List<Callable<Void>> reads = importPaths.entrySet().stream().map(importPath -> (Callable<Void>)() -> {
+            handleImport(repositoryId, version, imports, importPath.getValue(), sourceCodeRepoInterface, importPath.getKey());
+            return null;
+        }).collect(Collectors.toList());
+        try {
+            for (Future<Void> read : IMPORT_EXECUTOR.invokeAll(reads)) {
+                read.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CustomWebApplicationException("Interrupted while reading imports", HttpStatus.SC_SERVICE_UNAVAILABLE);
+        } catch (ExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new IllegalStateException(e.getCause());
+        }
+        final Map<String, SourceFile> orderedImports = new LinkedHashMap<>();
+        importPaths.keySet().stream().filter(imports::containsKey).forEach(path -> orderedImports.put(path, imports.get(path)));
+        return orderedImports;
+    }
 }
@@ -45,6 +45,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -184,26 +185,47 @@ public class CWLHandler extends AbstractLanguageHandler implements LanguageHandl
         }
     }
 
+    /**
+     * Resolves the imports of a descriptor a level of the import graph at a time. All files imported by one level are read from Git
+     * together, and each file is read and parsed once however many files import it, which also stops at import cycles.
+     */
     @Override
     public Map<String, SourceFile> processImports(String repositoryId, String content, Version version,
         SourceCodeRepoInterface sourceCodeRepoInterface, String workingDirectoryForFile) {
         Map<String, SourceFile> imports = new HashMap<>();
+        Set<String> visited = new HashSet<>();
+        visited.add(workingDirectoryForFile);
+        Map<String, String> level = findImports(workingDirectoryForFile, content, version);
+        while (!level.isEmpty()) {
+            level.keySet().removeIf(absoluteImportPath -> !visited.add(absoluteImportPath));
+            Map<String, String> nextLevel = new LinkedHashMap<>();
+            for (Map.Entry<String, SourceFile> importFile : handleImports(repositoryId, version, level, sourceCodeRepoInterface).entrySet()) {
+                imports.put(importFile.getKey(), importFile.getValue());
+                findImports(importFile.getKey(), importFile.getValue().getContent(), version).forEach(nextLevel::putIfAbsent);
+            }
+            level = nextLevel;
+        }
+        return imports;
+    }
+
+    /**
+     * @param filePath  absolute path of a CWL file
+     * @param content   content of the CWL file
+     * @param version   version of the file
+     * @return the import path of each file imported by the CWL file, by its absolute path
+     */
+    private Map<String, String> findImports(String filePath, String content, Version version) {
+        Map<String, String> importPaths = new LinkedHashMap<>();
         Yaml yaml = new Yaml();
         try {
             Map<String, ?> fileContentMap = yaml.loadAs(content, Map.class);
-            handleMap(repositoryId, workingDirectoryForFile, version, imports, fileContentMap, sourceCodeRepoInterface);
+            if (fileContentMap != null) {
+                handleMap(filePath, version, importPaths, fileContentMap);
+            }
         } catch (YAMLException e) {
             SourceCodeRepoInterface.LOG.error("Could not process content from workflow as yaml", e);
         }
-
-        Map<String, SourceFile> recursiveImports = new HashMap<>();
-        for (Map.Entry<String, SourceFile> importFile : imports.entrySet()) {
-            final Map<String, SourceFile> sourceFiles = processImports(repositoryId, importFile.getValue().getContent(), version, sourceCodeRepoInterface, importFile.getKey());
-            recursiveImports.putAll(sourceFiles);
-        }
-
-        recursiveImports.putAll(imports);
-        return recursiveImports;
+        return importPaths;
     }
 
     /**
@@ -482,17 +504,14 @@ public class CWLHandler extends AbstractLanguageHandler implements LanguageHandl
     }
 
     /**
-     * Iterates over a map of CWL file content looking for imports. When import is found. will grab the imported file from Git
-     * and prepare it for import finding.
-     * @param repositoryId              identifies the git repository that we wish to use, normally something like 'organization/repo_name`
+     * Iterates over a map of CWL file content looking for imports. When import is found, records its path so that the
+     * imported file can be grabbed from Git.
      * @param parentFilePath            absolute path to the parent file which references the imported file
      * @param version                   version of the files to get
-     * @param imports                   mapping of filenames to imports
+     * @param importPaths               mapping of absolute paths to import paths
      * @param fileContentMap            CWL file mapping
-     * @param sourceCodeRepoInterface   used too retrieve imports
      */
-    private void handleMap(String repositoryId, String parentFilePath, Version version, Map<String, SourceFile> imports, Map<String, ?> fileContentMap,
-        SourceCodeRepoInterface sourceCodeRepoInterface) {
+    private void handleMap(String parentFilePath, Version version, Map<String, String> importPaths, Map<String, ?> fileContentMap) {
         Set<String> importKeywords = Sets.newHashSet("$import", "$include", "$mixin", "import", "include", "mixin");
         ParsedInformation parsedInformation = getParsedInformation(version, DescriptorLanguage.CWL);
         for (Map.Entry<String, ?> e : fileContentMap.entrySet()) {
@@ -504,7 +523,7 @@ public class CWLHandler extends AbstractLanguageHandler implements LanguageHandl
                 if (mapValue instanceof String) {
                     setImportsBasedOnMapValue(parsedInformation, (String)mapValue);
                     absoluteImportPath = convertRelativePathToAbsolutePath(parentFilePath, (String)mapValue);
-                    handleImport(repositoryId, version, imports, (String)mapValue, sourceCodeRepoInterface, absoluteImportPath);
+                    importPaths.put(absoluteImportPath, (String)mapValue);
                 }
             } else if (e.getKey().equalsIgnoreCase("run")) {
                 // for workflows, bare files may be referenced. See https://github.com/dockstore/dockstore/issues/208
@@ -514,13 +533,13 @@ public class CWLHandler extends AbstractLanguageHandler implements LanguageHandl
                 if (mapValue instanceof String) {
                     setImportsBasedOnMapValue(parsedInformation, (String)mapValue);
                     absoluteImportPath = convertRelativePathToAbsolutePath(parentFilePath, (String)mapValue);
-                    handleImport(repositoryId, version, imports, (String)mapValue, sourceCodeRepoInterface, absoluteImportPath);
+                    importPaths.put(absoluteImportPath, (String)mapValue);
                 } else if (mapValue instanceof Map) {
                     // this handles the case where an import is used
-                    handleMap(repositoryId, parentFilePath, version, imports, (Map)mapValue, sourceCodeRepoInterface);
+                    handleMap(parentFilePath, version, importPaths, (Map)mapValue);
                 }
             } else {
-                handleMapValue(repositoryId, parentFilePath, version, imports, mapValue, sourceCodeRepoInterface);
+                handleMapValue(parentFilePath, version, importPaths, mapValue);
             }
         }
     }
@@ -542,20 +561,17 @@ public class CWLHandler extends AbstractLanguageHandler implements LanguageHandl
 
     /**
      * Iterate over object and pass any mappings to check for imports.
-     * @param repositoryId              identifies the git repository that we wish to use, normally something like 'organization/repo_name`
      * @param parentFilePath            absolute path to the parent file which references the imported file
      * @param version                   version of the files to get
-     * @param imports                   mapping of filenames to imports
+     * @param importPaths               mapping of absolute paths to import paths
      * @param mapValue                  CWL file object
-     * @param sourceCodeRepoInterface   used too retrieve imports
      */
-    private void handleMapValue(String repositoryId, String parentFilePath, Version version, Map<String, SourceFile> imports,
-        Object mapValue, SourceCodeRepoInterface sourceCodeRepoInterface) {
+    private void handleMapValue(String parentFilePath, Version version, Map<String, String> importPaths, Object mapValue) {
         if (mapValue instanceof Map) {
-            handleMap(repositoryId, parentFilePath, version, imports, (Map)mapValue, sourceCodeRepoInterface);
+            handleMap(parentFilePath, version, importPaths, (Map)mapValue);
         } else if (mapValue instanceof List) {
             for (Object listMember : (List)mapValue) {
-                handleMapValue(repositoryId, parentFilePath, version, imports, listMember, sourceCodeRepoInterface);
+                handleMapValue(parentFilePath, version, importPaths, listMember);
             }
         }
     }
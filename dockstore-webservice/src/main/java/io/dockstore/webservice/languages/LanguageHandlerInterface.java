@@ -27,26 +27,22 @@ import io.dockstore.webservice.core.Checksum;
 import io.dockstore.webservice.core.Image;
 import io.dockstore.webservice.core.ParsedInformation;
 import io.dockstore.webservice.core.SourceFile;
-import io.dockstore.webservice.core.Tool;
 import io.dockstore.webservice.core.Version;
 import io.dockstore.webservice.core.dockerhub.DockerHubImage;
 import io.dockstore.webservice.core.dockerhub.DockerHubTag;
 import io.dockstore.webservice.core.dockerhub.Results;
 import io.dockstore.webservice.helpers.AbstractImageRegistry;
 import io.dockstore.webservice.helpers.DAGHelper;
+import io.dockstore.webservice.helpers.RegistryMetadataClient;
 import io.dockstore.webservice.helpers.SourceCodeRepoInterface;
+import io.dockstore.webservice.helpers.statelisteners.PublishedToolPathListener;
 import io.dockstore.webservice.jdbi.ToolDAO;
-import io.swagger.quay.client.ApiClient;
-import io.swagger.quay.client.ApiException;
-import io.swagger.quay.client.Configuration;
-import io.swagger.quay.client.api.RepositoryApi;
 import io.swagger.quay.client.model.QuayRepo;
 import io.swagger.quay.client.model.QuayTag;
-import java.io.IOException;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -56,10 +52,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.http.HttpStatus;
@@ -76,7 +72,6 @@ public interface LanguageHandlerInterface {
     String DOCKERHUB_URL = AbstractImageRegistry.DOCKERHUB_URL;
     Logger LOG = LoggerFactory.getLogger(LanguageHandlerInterface.class);
     Gson GSON = new Gson();
-    ApiClient API_CLIENT = Configuration.getDefaultApiClient();
     // public.ecr.aws/<registry_alias>/<repository_name>:<image_tag> -> public.ecr.aws/ubuntu/ubuntu:18.04
     // public.ecr.aws/<registry_alias>/<repository_name>@sha256:<image_digest>
     Pattern AMAZON_ECR_PUBLIC_IMAGE = Pattern.compile("(public\\.ecr\\.aws/)([a-z0-9._-]++)/([a-z0-9._/-]++)(:|@sha256:)(.++)");
@@ -412,8 +407,42 @@ public interface LanguageHandlerInterface {
      * @param dockerSpecifier has the type of specifier used to refer to the docker image
      * @return URL
      */
-    // TODO: Potentially add support for other registries and add message that the registry is unsupported
     default String getURLFromEntry(final String dockerEntry, final ToolDAO toolDAO, final DockerSpecifier dockerSpecifier) {
+        return getURLFromEntry(dockerEntry, dockerSpecifier,
+            path -> !PublishedToolPathListener.getInstance().findPublishedPaths(Collections.singleton(path), toolDAO).isEmpty());
+    }
+
+    /**
+     * Finds which of the given docker images are published tools on Dockstore, with one query for all images that are not cached
+     *
+     * @param toolInfos the steps of a descriptor
+     * @param toolDAO
+     * @return the paths of the published tools among their docker images
+     */
+    default Set<String> getPublishedToolPaths(final Collection<ToolInfo> toolInfos, final ToolDAO toolDAO) {
+        final Set<String> candidatePaths = new HashSet<>();
+        for (ToolInfo toolInfo : toolInfos) {
+            if (!Strings.isNullOrEmpty(toolInfo.dockerContainer)) {
+                // Collects the paths that getURLFromEntry would look up; the URLs built meanwhile are thrown away
+                getURLFromEntry(toolInfo.dockerContainer, toolInfo.dockerSpecifier, candidatePaths::add);
+            }
+        }
+        if (candidatePaths.isEmpty()) {
+            return Collections.emptySet();
+        }
+        return PublishedToolPathListener.getInstance().findPublishedPaths(candidatePaths, toolDAO);
+    }
+
+    /**
+     * Given a docker entry (quay or dockerhub), return a URL to the given entry
+     *
+     * @param dockerEntry has the docker name
+     * @param dockerSpecifier has the type of specifier used to refer to the docker image
+     * @param isPublishedToolPath tells whether a path, such as quay.io/namespace/name, is the path of a published tool
+     * @return URL
+     */
+    // TODO: Potentially add support for other registries and add message that the registry is unsupported
+    default String getURLFromEntry(final String dockerEntry, final DockerSpecifier dockerSpecifier, final Predicate<String> isPublishedToolPath) {
         // For now ignore tag, later on it may be more useful
         String quayIOPath = "https://quay.io/repository/";
         String dockerHubPathR = "https://hub.docker.com/r/"; // For type repo/subrepo:tag
@@ -445,8 +474,7 @@ public interface LanguageHandlerInterface {
         // TODO: How to deal with multiple entries of a tool? For now just grab the first
         // TODO: How do we check that the URL is valid? If not then the entry is likely a local docker build
         if (registry.isPresent() && registry.get().equals(Registry.QUAY_IO)) {
-            List<Tool> byPath = toolDAO.findAllByPath(dockerImage, true);
-            if (byPath == null || byPath.isEmpty()) {
+            if (!isPublishedToolPath.test(dockerImage)) {
                 // when we cannot find a published tool on Dockstore, link to quay.io
                 url = dockerImage.replaceFirst("quay\\.io/", quayIOPath);
             } else {
@@ -454,8 +482,7 @@ public interface LanguageHandlerInterface {
                 url = dockstorePath + dockerImage;
             }
         } else if (registry.isPresent() && registry.get().equals(Registry.AMAZON_ECR)) {
-            List<Tool> publishedByPath = toolDAO.findAllByPath(dockerImage, true);
-            if (publishedByPath == null || publishedByPath.isEmpty()) {
+            if (!isPublishedToolPath.test(dockerImage)) {
                 // Regex for Amazon ECR image requires a tag or digest; add a fake "0" tag
                 if (AMAZON_ECR_PUBLIC_IMAGE.matcher(dockerEntry + ":0").matches()) {
                     // When we cannot find a published tool on Dockstore, link to Amazon ECR Public Gallery if it's a public image
@@ -475,8 +502,7 @@ public interface LanguageHandlerInterface {
             String[] parts = dockerImage.split("/");
             if (parts.length == 2) {
                 // if the path looks like pancancer/pcawg-oxog-tools
-                List<Tool> publishedByPath = toolDAO.findAllByPath("registry.hub.docker.com/" + dockerImage, true);
-                if (publishedByPath == null || publishedByPath.isEmpty()) {
+                if (!isPublishedToolPath.test("registry.hub.docker.com/" + dockerImage)) {
                     // when we cannot find a published tool on Dockstore, link to docker hub
                     url = dockerHubPathR + dockerImage;
                 } else {
@@ -627,12 +653,9 @@ public interface LanguageHandlerInterface {
         }
 
         do {
-            try {
-                URL url = new URL(repoUrl);
-                response = Optional.of(IOUtils.toString(url, StandardCharsets.UTF_8));
-            } catch (IOException ex) {
-                LOG.error("Unable to get DockerHub response for " + repo, ex);
-                response = Optional.empty();
+            response = RegistryMetadataClient.getInstance().get(repoUrl);
+            if (response.isEmpty()) {
+                LOG.error("Unable to get DockerHub response for " + repo);
             }
 
             if (response.isPresent()) {
@@ -734,10 +757,9 @@ public interface LanguageHandlerInterface {
 
     default Set<Image> getImageResponseFromQuay(String repo, String specifierName, DockerSpecifier specifierType) {
         Set<Image> quayImages = new HashSet<>();
-        RepositoryApi api = new RepositoryApi(API_CLIENT);
-        try {
-
-            final QuayRepo quayRepo = api.getRepo(repo, false);
+        final Optional<QuayRepo> quayRepoResponse = RegistryMetadataClient.getInstance().getQuayRepo(repo, null);
+        if (quayRepoResponse.isPresent()) {
+            final QuayRepo quayRepo = quayRepoResponse.get();
             if (specifierType == DockerSpecifier.DIGEST) {
                 Map<String, QuayTag> tags = quayRepo.getTags();
                 boolean imageFound = false;
@@ -774,8 +796,8 @@ public interface LanguageHandlerInterface {
                 quayImage.setSpecifier(specifierType);
                 quayImages.add(quayImage);
             }
-        } catch (ApiException ex) {
-            LOG.error("Could not read from " + repo, ex);
+        } else {
+            LOG.error("Could not read from " + repo);
         }
         return quayImages;
     }
@@ -813,6 +835,9 @@ public interface LanguageHandlerInterface {
         // Initialize data structures for Tool table
         Map<String, DockerInfo> nodeDockerInfo = new HashMap<>(); // map of stepId -> (run path, docker image, docker url)
 
+        // Look up all docker images at once rather than step by step
+        final Set<String> publishedToolPaths = getPublishedToolPaths(toolInfoMap.values(), dao);
+
         // Create nodePairs, callToType, toolID, and toolDocker
         for (Map.Entry<String, ToolInfo> entry : toolInfoMap.entrySet()) {
             String callId = entry.getKey();
@@ -826,7 +851,7 @@ public interface LanguageHandlerInterface {
             }
             String dockerUrl = null;
             if (!Strings.isNullOrEmpty(docker)) {
-                dockerUrl = getURLFromEntry(docker, dao, dockerSpecifier);
+                dockerUrl = getURLFromEntry(docker, dockerSpecifier, publishedToolPaths::contains);
             }
 
             // Determine if call is imported
@@ -19,7 +19,6 @@ import com.github.zafarkhaja.semver.UnexpectedCharacterException;
 import com.github.zafarkhaja.semver.expr.LexerException;
 import com.github.zafarkhaja.semver.expr.UnexpectedTokenException;
 import com.google.common.base.Strings;
-import com.google.common.io.Files;
 import io.dockstore.common.DescriptorLanguage;
 import io.dockstore.common.DockerImageReference;
 import io.dockstore.common.DockerParameter;
@@ -119,67 +118,56 @@ public class WDLHandler implements LanguageHandlerInterface {
         }
 
         WdlBridge wdlBridge = new WdlBridge();
-        final Map<String, String> secondaryFiles = sourceFiles.stream()
-                .collect(Collectors.toMap(SourceFile::getAbsolutePath, SourceFile::getContent));
-        wdlBridge.setSecondaryFiles((HashMap<String, String>)secondaryFiles);
-        File tempMainDescriptor = null;
+        wdlBridge.setSecondaryFiles(secondaryWdlFiles(sourceFiles, filepath));
         try {
-            tempMainDescriptor = File.createTempFile("main", "descriptor", Files.createTempDir());
-            Files.asCharSink(tempMainDescriptor, StandardCharsets.UTF_8).write(content);
-            try {
-                List<Map<String, String>> metadata = wdlBridge.getMetadata(tempMainDescriptor.getAbsolutePath(), filepath);
-                Set<String> authors = new HashSet<>();
-                Set<String> emails = new HashSet<>();
-                final String[] mainDescription = { null };
-
-                metadata.forEach(metaBlock -> {
-                    String author = metaBlock.get("author");
-                    String[] callAuthors = author != null ? author.split(",") : null;
-                    if (callAuthors != null) {
-                        for (String callAuthor : callAuthors) {
-                            authors.add(callAuthor.trim());
-                        }
-                    }
-
-                    String email = metaBlock.get("email");
-                    String[] callEmails = email != null ? email.split(",") : null;
-                    if (callEmails != null) {
-                        for (String callEmail : callEmails) {
-                            emails.add(callEmail.trim());
-                        }
+            List<Map<String, String>> metadata = wdlBridge.getMetadataFromContent(content, filepath);
+            Set<String> authors = new HashSet<>();
+            Set<String> emails = new HashSet<>();
+            final String[] mainDescription = { null };
+
+            metadata.forEach(metaBlock -> {
+                String author = metaBlock.get("author");
+                String[] callAuthors = author != null ? author.split(",") : null;
+                if (callAuthors != null) {
+                    for (String callAuthor : callAuthors) {
+                        authors.add(callAuthor.trim());
                     }
+                }
 
-                    String description = metaBlock.get("description");
-                    if (description != null && !description.isBlank()) {
-                        mainDescription[0] = description;
+                String email = metaBlock.get("email");
+                String[] callEmails = email != null ? email.split(",") : null;
+                if (callEmails != null) {
+                    for (String callEmail : callEmails) {
+                        emails.add(callEmail.trim());
                     }
-                });
-
-                if (!authors.isEmpty()) {
-                    version.setAuthor(String.join(", ", authors));
-                }
-                if (!emails.isEmpty()) {
-                    version.setEmail(String.join(", ", emails));
                 }
-                if (!Strings.isNullOrEmpty(mainDescription[0])) {
-                    version.setDescriptionAndDescriptionSource(mainDescription[0], DescriptionSource.DESCRIPTOR);
+
+                String description = metaBlock.get("description");
+                if (description != null && !description.isBlank()) {
+                    mainDescription[0] = description;
                 }
-            } catch (WdlParser.SyntaxError ex) {
-                LOG.error("Unable to parse WDL file " + filepath, ex);
-                Map<String, String> validationMessageObject = new HashMap<>();
-                String errorMessage = "WDL file is malformed or missing, cannot extract metadata. " + ex.getMessage();
-                errorMessage = getUnsupportedWDLVersionErrorString(tempMainDescriptor.getAbsolutePath()).orElse(errorMessage);
-                validationMessageObject.put(filepath, errorMessage);
-                version.addOrUpdateValidation(new Validation(DescriptorLanguage.FileType.DOCKSTORE_WDL, false, validationMessageObject));
-                version.setAuthor(null);
-                version.setDescriptionAndDescriptionSource(null, null);
-                version.setEmail(null);
-                return version;
+            });
+
+            if (!authors.isEmpty()) {
+                version.setAuthor(String.join(", ", authors));
+            }
+            if (!emails.isEmpty()) {
+                version.setEmail(String.join(", ", emails));
+            }
+            if (!Strings.isNullOrEmpty(mainDescription[0])) {
+                version.setDescriptionAndDescriptionSource(mainDescription[0], DescriptionSource.DESCRIPTOR);
             }
-        } catch (IOException e) {
-            throw new CustomWebApplicationException(e.getMessage(), HttpStatus.SC_INTERNAL_SERVER_ERROR);
-        } finally {
-            FileUtils.deleteQuietly(tempMainDescriptor);
+        } catch (WdlParser.SyntaxError ex) {
+            LOG.error("Unable to parse WDL file " + filepath, ex);
+            Map<String, String> validationMessageObject = new HashMap<>();
+            String errorMessage = "WDL file is malformed or missing, cannot extract metadata. " + ex.getMessage();
+            errorMessage = getUnsupportedWDLVersionErrorStringFromContent(content).orElse(errorMessage);
+            validationMessageObject.put(filepath, errorMessage);
+            version.addOrUpdateValidation(new Validation(DescriptorLanguage.FileType.DOCKSTORE_WDL, false, validationMessageObject));
+            version.setAuthor(null);
+            version.setDescriptionAndDescriptionSource(null, null);
+            version.setEmail(null);
+            return version;
         }
         return version;
     }
@@ -212,7 +200,6 @@ public class WDLHandler implements LanguageHandlerInterface {
      * @return
      */
     public VersionTypeValidation validateEntrySet(Set<SourceFile> sourcefiles, String primaryDescriptorFilePath, String type) {
-        File tempMainDescriptor = null;
         String mainDescriptor = null;
 
         List<DescriptorLanguage.FileType> fileTypes = new ArrayList<>(Collections.singletonList(DescriptorLanguage.FileType.DOCKSTORE_WDL));
@@ -236,7 +223,6 @@ public class WDLHandler implements LanguageHandlerInterface {
                     return new VersionTypeValidation(false, validationMessageObject);
                 }
 
-                Map<String, String> secondaryDescContent = new HashMap<>();
                 for (SourceFile sourceFile : filteredSourceFiles) {
                     if (!Objects.equals(sourceFile.getPath(), primaryDescriptorFilePath) && sourceFile.getContent() != null) {
                         if (sourceFile.getContent().trim().replaceAll("\n", "").isEmpty()) {
@@ -249,14 +235,10 @@ public class WDLHandler implements LanguageHandlerInterface {
                             }
                             return new VersionTypeValidation(false, validationMessageObject);
                         }
-                        secondaryDescContent.put(sourceFile.getAbsolutePath(), sourceFile.getContent());
                     }
                 }
-                tempMainDescriptor = File.createTempFile("main", "descriptor", Files.createTempDir());
-                Files.asCharSink(tempMainDescriptor, StandardCharsets.UTF_8).write(mainDescriptor);
-                String content = FileUtils.readFileToString(tempMainDescriptor, StandardCharsets.UTF_8);
                 try {
-                    checkForRecursiveHTTPImports(content, new HashSet<>());
+                    checkForRecursiveHTTPImports(mainDescriptor, new HashSet<>());
                 } catch (IOException e) {
                     validationMessageObject.put(primaryDescriptorFilePath, e.getMessage());
                     return new VersionTypeValidation(false, validationMessageObject);
@@ -265,7 +247,7 @@ public class WDLHandler implements LanguageHandlerInterface {
                     return new VersionTypeValidation(false, validationMessageObject);
                 }
 
-                Optional<String> optValidationMessage = reportValidationForLocalRecursiveImports(content,
+                Optional<String> optValidationMessage = reportValidationForLocalRecursiveImports(mainDescriptor,
                         sourcefiles, primaryDescriptorFilePath);
                 if (optValidationMessage.isPresent()) {
                     validationMessageObject.put(primaryDescriptorFilePath, optValidationMessage.get());
@@ -273,17 +255,17 @@ public class WDLHandler implements LanguageHandlerInterface {
                 }
 
                 WdlBridge wdlBridge = new WdlBridge();
-                wdlBridge.setSecondaryFiles((HashMap<String, String>)secondaryDescContent);
+                wdlBridge.setSecondaryFiles(secondaryWdlFiles(filteredSourceFiles, primaryDescriptorFilePath));
 
                 if (Objects.equals(type, "tool")) {
-                    wdlBridge.validateTool(tempMainDescriptor.getAbsolutePath(), primaryDescriptorFilePath);
+                    wdlBridge.validateToolFromContent(mainDescriptor, primaryDescriptorFilePath);
                 } else {
-                    wdlBridge.validateWorkflow(tempMainDescriptor.getAbsolutePath(), primaryDescriptor.get().getAbsolutePath());
+                    wdlBridge.validateWorkflowFromContent(mainDescriptor, primaryDescriptorFilePath);
                 }
             } catch (WdlParser.SyntaxError | IllegalArgumentException e) {
-                if (tempMainDescriptor != null) {
+                if (mainDescriptor != null) {
                     validationMessageObject.put(primaryDescriptorFilePath,
-                            getUnsupportedWDLVersionErrorString(tempMainDescriptor.getAbsolutePath())
+                            getUnsupportedWDLVersionErrorStringFromContent(mainDescriptor)
                                 .orElse(e.getMessage()));
                 } else {
                     validationMessageObject.put(primaryDescriptorFilePath, e.getMessage());
@@ -294,8 +276,6 @@ public class WDLHandler implements LanguageHandlerInterface {
             } catch (Exception e) {
                 LOG.error("Unhandled exception", e);
                 throw new CustomWebApplicationException(e.getMessage(), HttpStatus.SC_INTERNAL_SERVER_ERROR);
-            } finally {
-                FileUtils.deleteQuietly(tempMainDescriptor);
             }
         } else {
             validationMessageObject.put(primaryDescriptorFilePath, "Primary WDL descriptor is not present.");
@@ -425,42 +405,49 @@ public class WDLHandler implements LanguageHandlerInterface {
         // Initialize data structures for DAG
         Map<String, ToolInfo> toolInfoMap;
         Map<String, String> namespaceToPath;
-        File tempMainDescriptor = null;
-        // Write main descriptor to file
-        // The use of temporary files is not needed here and might cause new problems
+        // The main descriptor is parsed once, in memory, and the bundle is reused for each of the following
         try {
-            tempMainDescriptor = File.createTempFile("main", "descriptor", Files.createTempDir());
-            Files.asCharSink(tempMainDescriptor, StandardCharsets.UTF_8).write(mainDescriptor);
-
             WdlBridge wdlBridge = new WdlBridge();
-            final Map<String, String> pathToContentMap = secondarySourceFiles.stream()
-                    .collect(Collectors.toMap(SourceFile::getAbsolutePath, SourceFile::getContent));
-            wdlBridge.setSecondaryFiles(new HashMap<>(pathToContentMap));
+            wdlBridge.setSecondaryFiles(secondaryWdlFiles(secondarySourceFiles, mainDescName));
 
             // Iterate over each call, grab docker containers
-            Map<String, DockerParameter> callsToDockerMap = wdlBridge.getCallsToDockerMap(tempMainDescriptor.getAbsolutePath(), mainDescName);
+            Map<String, DockerParameter> callsToDockerMap = wdlBridge.getCallsToDockerMapFromContent(mainDescriptor, mainDescName);
 
             // Iterate over each call, determine dependencies
-            Map<String, List<String>> callsToDependencies = wdlBridge.getCallsToDependencies(tempMainDescriptor.getAbsolutePath(), mainDescName);
+            Map<String, List<String>> callsToDependencies = wdlBridge.getCallsToDependenciesFromContent(mainDescriptor, mainDescName);
             toolInfoMap = mapConverterToToolInfo(callsToDockerMap, callsToDependencies);
 
             // Get import files
-            namespaceToPath = wdlBridge.getImportMap(tempMainDescriptor.getAbsolutePath(), mainDescName);
+            namespaceToPath = wdlBridge.getImportMapFromContent(mainDescriptor, mainDescName);
         } catch (WdlParser.SyntaxError ex) {
             String exMsg = WDLHandler.WDL_PARSE_ERROR + ex.getMessage();
-            exMsg = getUnsupportedWDLVersionErrorString(tempMainDescriptor.getAbsolutePath()).orElse(exMsg);
+            exMsg = getUnsupportedWDLVersionErrorStringFromContent(mainDescriptor).orElse(exMsg);
             LOG.error(exMsg, ex);
             throw new CustomWebApplicationException(exMsg, HttpStatus.SC_UNPROCESSABLE_ENTITY);
-        } catch (IOException | NoSuchElementException ex) {
+        } catch (NoSuchElementException ex) {
             final String exMsg = "Could not process request, " + ex.getMessage();
             LOG.error(exMsg, ex);
             throw new CustomWebApplicationException(exMsg, HttpStatus.SC_INTERNAL_SERVER_ERROR);
-        } finally {
-            FileUtils.deleteQuietly(tempMainDescriptor);
         }
         return convertMapsToContent(mainDescName, type, dao, callType, toolType, toolInfoMap, namespaceToPath);
     }
 
+    /**
+     * Builds the secondary files handed to the WdlBridge. They are part of its in-memory bundle key, so validation, metadata,
+     * DAG and tool table must build them the same way, from the same descriptor path, to share one parse of a version.
+     * @param sourceFiles files of the version, may or may not include the primary descriptor
+     * @param primaryDescriptorPath path of the primary descriptor, which is left out
+     * @return absolute paths of the imported WDL files mapped to their content
+     */
+    static HashMap<String, String> secondaryWdlFiles(Set<SourceFile> sourceFiles, String primaryDescriptorPath) {
+        HashMap<String, String> secondaryFiles = new HashMap<>();
+        sourceFiles.stream()
+                .filter(sourceFile -> Objects.equals(sourceFile.getType(), DescriptorLanguage.FileType.DOCKSTORE_WDL))
+                .filter(sourceFile -> !Objects.equals(sourceFile.getPath(), primaryDescriptorPath) && sourceFile.getContent() != null)
+                .forEach(sourceFile -> secondaryFiles.put(sourceFile.getAbsolutePath(), sourceFile.getContent()));
+        return secondaryFiles;
+    }
+
     /**
      * Convenience function to convert old map with values of Docker image names to values of DockerParameter
      *
@@ -550,8 +537,10 @@ public class WDLHandler implements LanguageHandlerInterface {
      * @return the semantic version string, e.g. '1.0', which should be in the first code line, e.g. 'version 1.0' or 'draft-3'
      */
     public static Optional<String> getSemanticVersionString(String primaryDescriptorPath) {
-        WdlBridge wdlBridge = new WdlBridge();
-        Optional<String> firstCodeLine = wdlBridge.getFirstCodeLine(primaryDescriptorPath);
+        return getSemanticVersionStringFromFirstCodeLine(new WdlBridge().getFirstCodeLine(primaryDescriptorPath));
+    }
+
+    private static Optional<String> getSemanticVersionStringFromFirstCodeLine(Optional<String> firstCodeLine) {
         // https://www.scala-lang.org/files/archive/api/2.13.x/scala/jdk/javaapi/OptionConverters$.html
         // The WDL specification says that WDL descriptors from now on must have
         // a version string as the first line, e.g. 'version 1.0' or 'version draft-3'
@@ -574,7 +563,18 @@ public class WDLHandler implements LanguageHandlerInterface {
     }
 
     public static Optional<String> getUnsupportedWDLVersionErrorString(String primaryDescriptorPath) {
-        Optional<String> semVersionString = getSemanticVersionString(primaryDescriptorPath);
+        return getUnsupportedWDLVersionErrorString(getSemanticVersionString(primaryDescriptorPath));
+    }
+
+    /**
+     * Same as getUnsupportedWDLVersionErrorString, for a descriptor that is only in memory
+     * @param primaryDescriptorContent content of the primary WDL descriptor
+     */
+    public static Optional<String> getUnsupportedWDLVersionErrorStringFromContent(String primaryDescriptorContent) {
+        return getUnsupportedWDLVersionErrorString(getSemanticVersionStringFromFirstCodeLine(new WdlBridge().getFirstCodeLineFromContent(primaryDescriptorContent)));
+    }
+
+    private static Optional<String> getUnsupportedWDLVersionErrorString(Optional<String> semVersionString) {
         if (semVersionString.isPresent() && versionIsGreaterThanCurrentlySupported(semVersionString.get())) {
             return Optional.of("Dockstore only supports up to  WDL version " + LATEST_SUPPORTED_WDL_VERSION + ". The version of"
                     + " this workflow is " + semVersionString.get() + ". Dockstore cannot verify or parse this WDL version.");
@@ -21,6 +21,8 @@ import io.dockstore.webservice.core.TokenType;
 import io.dockstore.webservice.core.User;
 import io.dockstore.webservice.core.Workflow;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -101,6 +103,19 @@ public interface PermissionsInterface {
      */
     List<Role.Action> getActionsForWorkflow(User user, Workflow workflow);
 
+    /**
+     * List all {@link Role.Action} <code>user</code> can perform on each of <code>workflows</code>.
+     * Implementations that call a remote service should resolve all of them with as few calls as possible.
+     * @param user
+     * @param workflows
+     * @return a map of workflow paths to the allowed actions on that workflow, possibly empty
+     */
+    default Map<String, List<Role.Action>> getActionsForWorkflows(User user, Collection<Workflow> workflows) {
+        final Map<String, List<Role.Action>> actions = new HashMap<>();
+        workflows.forEach(workflow -> actions.put(workflow.getWorkflowPath(), getActionsForWorkflow(user, workflow)));
+        return actions;
+    }
+
     /**
      * Removes the <code>email</code> from the <code>role</code> from
      * <code>workflow</code>'s permissions.
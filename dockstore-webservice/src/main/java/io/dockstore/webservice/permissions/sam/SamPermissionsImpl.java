@@ -1,6 +1,11 @@
 package io.dockstore.webservice.permissions.sam;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.DockstoreWebserviceConfiguration;
 import io.dockstore.webservice.core.Token;
@@ -22,6 +27,7 @@ import io.swagger.sam.client.model.ErrorReport;
 import io.swagger.sam.client.model.ResourceAndAccessPolicy;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -30,7 +36,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import org.apache.http.HttpStatus;
 import org.glassfish.jersey.client.ClientConfig;
@@ -45,6 +54,10 @@ import org.slf4j.LoggerFactory;
 public class SamPermissionsImpl implements PermissionsInterface {
 
     private static final Logger LOG = LoggerFactory.getLogger(SamPermissionsImpl.class);
+    private static final long DECISION_EXPIRY_SECONDS = 30;
+    private static final long MAX_DECISIONS = 10000;
+    private static final long API_CLIENT_EXPIRY_MINUTES = 10;
+    private static final long MAX_API_CLIENTS = 1000;
 
     /**
      * A map of SAM policy names to Dockstore roles.
@@ -67,6 +80,20 @@ public class SamPermissionsImpl implements PermissionsInterface {
     private DockstoreWebserviceConfiguration config;
     private final TokenDAO tokenDAO;
 
+    /**
+     * Recent answers from SAM to whether a user can perform an action on a workflow. Kept briefly, as permissions can also
+     * be changed directly in SAM, and dropped for a workflow when its permissions are changed through Dockstore.
+     */
+    private final Cache<Decision, Boolean> decisions = CacheBuilder.newBuilder().maximumSize(MAX_DECISIONS)
+            .expireAfterWrite(DECISION_EXPIRY_SECONDS, TimeUnit.SECONDS).build();
+
+    /**
+     * SAM clients by a hash of the Google access token, as each client builds its own HTTP client. Keyed by hash so that the
+     * tokens themselves are not kept as keys.
+     */
+    private final Cache<HashCode, ApiClient> apiClients = CacheBuilder.newBuilder().maximumSize(MAX_API_CLIENTS)
+            .expireAfterAccess(API_CLIENT_EXPIRY_MINUTES, TimeUnit.MINUTES).build();
+
     public SamPermissionsImpl(TokenDAO tokenDAO, DockstoreWebserviceConfiguration config) {
         this.tokenDAO = tokenDAO;
         this.config = config;
@@ -92,6 +119,7 @@ public class SamPermissionsImpl implements PermissionsInterface {
         // If original owner, you can't mess with their permissions
         checkEmailNotOriginalOwner(permission.getEmail(), workflow);
         ResourcesApi resourcesApi = getResourcesApi(requester);
+        final String workflowPath = workflow.getWorkflowPath();
         try {
             final String encodedPath = encodedWorkflowResource(workflow, resourcesApi.getApiClient());
 
@@ -119,6 +147,8 @@ public class SamPermissionsImpl implements PermissionsInterface {
                     .orElse("Error setting permission");
             LOG.error(errorMessage, e);
             throw new CustomWebApplicationException(errorMessage, e.getCode());
+        } finally {
+            invalidateDecisions(workflowPath);
         }
     }
 
@@ -155,21 +185,97 @@ public class SamPermissionsImpl implements PermissionsInterface {
 
     @Override
     public Map<Role, List<String>> workflowsSharedWithUser(User user) {
+        final Map<String, Role> sharedRoles = sharedRolesByWorkflowPath(user);
+        return sharedRoles.entrySet().stream().collect(Collectors.groupingBy(Map.Entry::getValue,
+                Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+    }
+
+    /**
+     * Resolves the actions <code>user</code> can perform on all of <code>workflows</code>. Answers remembered from recent calls to
+     * SAM are used as they are, e.g., after {@link #workflowsSharedWithUser(User)}. The others are resolved with a single call to SAM,
+     * listing the workflows shared with the user, instead of up to three calls per workflow, and remembered for
+     * {@link #canDoAction(User, Workflow, Role.Action)}.
+     *
+     * @param user
+     * @param workflows
+     * @return
+     */
+    @Override
+    public Map<String, List<Role.Action>> getActionsForWorkflows(User user, Collection<Workflow> workflows) {
+        final Map<String, List<Role.Action>> actions = new HashMap<>();
+        final List<String> unresolved = new ArrayList<>();
+        for (Workflow workflow : workflows) {
+            final String workflowPath = workflow.getWorkflowPath();
+            if (workflow.getUsers().contains(user)) {
+                actions.put(workflowPath, Arrays.asList(Role.Action.values()));
+            } else {
+                rememberedActions(user, workflowPath).ifPresentOrElse(allowed -> actions.put(workflowPath, allowed),
+                    () -> unresolved.add(workflowPath));
+            }
+        }
+        if (!unresolved.isEmpty()) {
+            final Map<String, Role> sharedRoles = sharedRolesByWorkflowPath(user);
+            for (String workflowPath : unresolved) {
+                final Role role = sharedRoles.get(workflowPath);
+                final List<Role.Action> allowed = new ArrayList<>();
+                for (Role.Action action : Role.Action.values()) {
+                    // the listing has every workflow shared with the user, so one that is not in it is not shared
+                    final boolean allowedAction = role != null && role.hasAction(action);
+                    decisions.put(new Decision(user.getId(), workflowPath, action), allowedAction);
+                    if (allowedAction) {
+                        allowed.add(action);
+                    }
+                }
+                actions.put(workflowPath, allowed);
+            }
+        }
+        return actions;
+    }
+
+    /**
+     * @param user
+     * @param workflowPath
+     * @return the actions <code>user</code> can perform on the workflow, if SAM was recently asked about all of them
+     */
+    private Optional<List<Role.Action>> rememberedActions(User user, String workflowPath) {
+        final List<Role.Action> allowed = new ArrayList<>();
+        for (Role.Action action : Role.Action.values()) {
+            final Boolean allowedAction = decisions.getIfPresent(new Decision(user.getId(), workflowPath, action));
+            if (allowedAction == null) {
+                return Optional.empty();
+            }
+            if (allowedAction) {
+                allowed.add(action);
+            }
+        }
+        return Optional.of(allowed);
+    }
+
+    /**
+     * Lists the workflows shared with <code>user</code> in SAM, and remembers which actions the user can perform on each.
+     *
+     * @param user
+     * @return the most privileged role of the user by workflow path
+     */
+    private Map<String, Role> sharedRolesByWorkflowPath(User user) {
         if (!hasGoogleToken(user)) {
             return Collections.emptyMap();
         }
         ResourcesApi resourcesApi = getResourcesApi(user);
         try {
             List<ResourceAndAccessPolicy> resourceAndAccessPolicies = resourcesApi.listResourcesAndPolicies(SamConstants.RESOURCE_TYPE);
-            return weedOutDuplicateResourceIds(resourceAndAccessPolicies).stream()
-                    .collect(Collectors.groupingBy(ResourceAndAccessPolicy::getAccessPolicyName)).entrySet().stream()
-                    .collect(Collectors.toMap(e -> samPolicyNameToRole(e.getKey()), e -> e.getValue().stream().map(r -> {
-                        try {
-                            return URLDecoder.decode(r.getResourceId().substring(SamConstants.ENCODED_WORKFLOW_PREFIX.length()), "UTF-8");
-                        } catch (UnsupportedEncodingException e1) {
-                            return null;
-                        }
-                    }).collect(Collectors.toList())));
+            final Map<String, Role> sharedRoles = new HashMap<>();
+            for (ResourceAndAccessPolicy resourceAndAccessPolicy : weedOutDuplicateResourceIds(resourceAndAccessPolicies)) {
+                final Role role = samPolicyNameToRole(resourceAndAccessPolicy.getAccessPolicyName());
+                final String workflowPath = decodeWorkflowPath(resourceAndAccessPolicy.getResourceId());
+                if (role != null && workflowPath != null) {
+                    sharedRoles.put(workflowPath, role);
+                    for (Role.Action action : Role.Action.values()) {
+                        decisions.put(new Decision(user.getId(), workflowPath, action), role.hasAction(action));
+                    }
+                }
+            }
+            return sharedRoles;
         } catch (ApiException e) {
             LOG.error("Error getting shared workflows", e);
             if (e.getCode() == HttpStatus.SC_UNAUTHORIZED) {
@@ -200,6 +306,14 @@ public class SamPermissionsImpl implements PermissionsInterface {
         return map.values();
     }
 
+    private String decodeWorkflowPath(String resourceId) {
+        try {
+            return URLDecoder.decode(resourceId.substring(SamConstants.ENCODED_WORKFLOW_PREFIX.length()), "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            return null;
+        }
+    }
+
     private boolean shouldPutPolicy(ResourceAndAccessPolicy existing, ResourceAndAccessPolicy candidate) {
         if (existing == null) {
             return true;
@@ -262,6 +376,8 @@ public class SamPermissionsImpl implements PermissionsInterface {
         } catch (ApiException e) {
             LOG.error(MessageFormat.format("Error removing {0} from workflow {1}", email, encodedPath), e);
             throw new CustomWebApplicationException("Error removing permissions", e.getCode());
+        } finally {
+            invalidateDecisions(workflow.getWorkflowPath());
         }
     }
 
@@ -319,17 +435,38 @@ public class SamPermissionsImpl implements PermissionsInterface {
 
     }
 
+    /**
+     * Asks SAM whether <code>user</code> can perform <code>action</code> on <code>workflow</code>, unless it answered recently.
+     * Failed calls are not remembered.
+     *
+     * @param user
+     * @param workflow
+     * @param action
+     * @return
+     */
     @Override
     public boolean canDoAction(User user, Workflow workflow, Role.Action action) {
+        final String workflowPath = workflow.getWorkflowPath();
+        final Decision decision = new Decision(user.getId(), workflowPath, action);
+        final Boolean allowed = decisions.getIfPresent(decision);
+        if (allowed != null) {
+            return allowed;
+        }
         ResourcesApi resourcesApi = getResourcesApi(user);
-        String encodedPath = encodedWorkflowResource(workflow, resourcesApi.getApiClient());
+        String encodedPath = encodedWorkflowResource(workflowPath, resourcesApi.getApiClient());
         try {
-            return resourcesApi.resourceAction(SamConstants.RESOURCE_TYPE, encodedPath, SamConstants.toSamAction(action));
+            final boolean samAllowed = resourcesApi.resourceAction(SamConstants.RESOURCE_TYPE, encodedPath, SamConstants.toSamAction(action));
+            decisions.put(decision, samAllowed);
+            return samAllowed;
         } catch (ApiException e) {
             return false;
         }
     }
 
+    private void invalidateDecisions(String workflowPath) {
+        decisions.asMap().keySet().removeIf(decision -> Objects.equals(decision.workflowPath, workflowPath));
+    }
+
     @Override
     public void selfDestruct(User user) {
         if (hasGoogleToken(user)) {
@@ -343,6 +480,7 @@ public class SamPermissionsImpl implements PermissionsInterface {
                 for (String resourceId : resourceIds) {
                     resourcesApi.deleteResource(SamConstants.RESOURCE_TYPE, resourceId);
                 }
+                decisions.invalidateAll();
             } catch (ApiException e) {
                 throw new CustomWebApplicationException("Error deleting user", e.getCode());
             }
@@ -407,6 +545,17 @@ public class SamPermissionsImpl implements PermissionsInterface {
         }
     }
     private ApiClient getApiClient(User user) {
+        final String accessToken = googleAccessToken(user).orElseThrow(
+            () -> new CustomWebApplicationException("Could not get Google access token. Try relinking your Google account.", HttpStatus.SC_UNAUTHORIZED));
+        try {
+            return apiClients.get(Hashing.sha256().hashString(accessToken, StandardCharsets.UTF_8), () -> createApiClient(accessToken));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOG.error("Error creating SAM client", e);
+            throw new CustomWebApplicationException("Error creating SAM client", HttpStatus.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private ApiClient createApiClient(String accessToken) {
         ApiClient apiClient = new ApiClient() {
             @Override
             protected void performAdditionalClientConfiguration(ClientConfig clientConfig) {
@@ -416,15 +565,17 @@ public class SamPermissionsImpl implements PermissionsInterface {
             }
         };
         apiClient.setBasePath(config.getSamConfiguration().getBasepath());
-        return googleAccessToken(user).map(credentials -> {
-            apiClient.setAccessToken(credentials);
-            return apiClient;
-        }).orElseThrow(() -> new CustomWebApplicationException("Could not get Google access token. Try relinking your Google account.", HttpStatus.SC_UNAUTHORIZED));
+        apiClient.setAccessToken(accessToken);
+        return apiClient;
     }
 
     private String encodedWorkflowResource(Workflow workflow, ApiClient apiClient) {
+        return encodedWorkflowResource(workflow.getWorkflowPath(), apiClient);
+    }
+
+    private String encodedWorkflowResource(String workflowPath, ApiClient apiClient) {
         final StringBuilder sb = new StringBuilder(SamConstants.WORKFLOW_PREFIX);
-        sb.append(workflow.getWorkflowPath());
+        sb.append(workflowPath);
         return apiClient.escapeString(sb.toString());
     }
 
@@ -526,4 +677,35 @@ public class SamPermissionsImpl implements PermissionsInterface {
         return null;
     }
 
+    /**
+     * Whether a user can perform an action on a workflow
+     */
+    private static final class Decision {
+        private final long userId;
+        private final String workflowPath;
+        private final Role.Action action;
+
+        Decision(long userId, String workflowPath, Role.Action action) {
+            this.userId = userId;
+            this.workflowPath = workflowPath;
+            this.action = action;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Decision decision = (Decision) o;
+            return userId == decision.userId && Objects.equals(workflowPath, decision.workflowPath) && action == decision.action;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, workflowPath, action);
+        }
+    }
 }
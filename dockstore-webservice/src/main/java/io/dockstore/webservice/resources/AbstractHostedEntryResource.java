@@ -433,7 +433,8 @@ public abstract class AbstractHostedEntryResource<T extends Entry<T, U>, U exten
                 SourceFile newfile = new SourceFile();
                 newfile.setPath(v.getPath());
                 newfile.setAbsolutePath(v.getAbsolutePath());
-                newfile.setContent(v.getContent());
+                // points at the content already stored for the old file instead of sending it again
+                newfile.copyContentFrom(v);
                 newfile.setType(v.getType());
                 map.put(newfile.getPath(), newfile);
             });
@@ -482,10 +483,10 @@ public abstract class AbstractHostedEntryResource<T extends Entry<T, U>, U exten
     }
 
     void persistSourceFiles(U tag, Collection<SourceFile> sourceFiles) {
-        // create everything still in the map
+        // create everything still in the map, content that an earlier revision already has is only referenced by its SHA-256
         for (SourceFile e : sourceFiles) {
-            long l = fileDAO.create(e);
-            tag.getSourceFiles().add(fileDAO.findById(l));
+            fileDAO.create(e);
+            tag.getSourceFiles().add(e);
         }
     }
 
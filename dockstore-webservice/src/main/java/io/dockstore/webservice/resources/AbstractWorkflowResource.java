@@ -41,6 +41,7 @@ import io.dockstore.webservice.helpers.PublicStateManager;
 import io.dockstore.webservice.helpers.SourceCodeRepoFactory;
 import io.dockstore.webservice.helpers.SourceCodeRepoInterface;
 import io.dockstore.webservice.helpers.StateManagerMode;
+import io.dockstore.webservice.helpers.statelisteners.WorkflowArtifactListener;
 import io.dockstore.webservice.jdbi.EventDAO;
 import io.dockstore.webservice.jdbi.FileDAO;
 import io.dockstore.webservice.jdbi.FileFormatDAO;
@@ -65,6 +66,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.hibernate.SessionFactory;
@@ -98,15 +100,17 @@ public abstract class AbstractWorkflowResource<T extends Workflow> implements So
     protected final String gitHubPrivateKeyFile;
     protected final String gitHubAppId;
     protected final SessionFactory sessionFactory;
+    protected final WorkflowArtifactListener workflowArtifactListener;
 
     protected final String bitbucketClientSecret;
     protected final String bitbucketClientID;
 
     public AbstractWorkflowResource(HttpClient client, SessionFactory sessionFactory, EntryResource entryResource,
-            DockstoreWebserviceConfiguration configuration) {
+            DockstoreWebserviceConfiguration configuration, WorkflowArtifactListener workflowArtifactListener) {
         this.client = client;
         this.sessionFactory = sessionFactory;
         this.entryResource = entryResource;
+        this.workflowArtifactListener = workflowArtifactListener;
 
         this.tokenDAO = new TokenDAO(sessionFactory);
         this.workflowDAO = new WorkflowDAO(sessionFactory);
@@ -332,9 +336,11 @@ public abstract class AbstractWorkflowResource<T extends Workflow> implements So
             // If this method doesn't throw an exception, it's a valid .dockstore.yml with at least one workflow or service.
             // It also converts a .dockstore.yml 1.1 file to a 1.2 object, if necessary.
             final DockstoreYaml12 dockstoreYaml12 = DockstoreYamlHelper.readAsDockstoreYaml12(dockstoreYml.getContent());
-            createServicesAndVersionsFromDockstoreYml(dockstoreYaml12.getService(), repository, gitReference, installationId, user, dockstoreYml);
-            createBioWorkflowsAndVersionsFromDockstoreYml(dockstoreYaml12.getWorkflows(), repository, gitReference, installationId, user, dockstoreYml, false);
-            createBioWorkflowsAndVersionsFromDockstoreYml(dockstoreYaml12.getTools(), repository, gitReference, installationId, user, dockstoreYml, true);
+            // Fetch the files of every workflow and service up front, so that paths they share are only fetched once
+            gitHubSourceCodeRepo.prefetchReleaseFiles(repository, gitReference, getDockstoreYmlFilePaths(dockstoreYaml12, Path.of(gitReference)));
+            createServicesAndVersionsFromDockstoreYml(dockstoreYaml12.getService(), repository, gitReference, gitHubSourceCodeRepo, user, dockstoreYml);
+            createBioWorkflowsAndVersionsFromDockstoreYml(dockstoreYaml12.getWorkflows(), repository, gitReference, gitHubSourceCodeRepo, user, dockstoreYml, false);
+            createBioWorkflowsAndVersionsFromDockstoreYml(dockstoreYaml12.getTools(), repository, gitReference, gitHubSourceCodeRepo, user, dockstoreYml, true);
             LambdaEvent lambdaEvent = createBasicEvent(repository, gitReference, username, LambdaEvent.LambdaEventType.PUSH);
             lambdaEventDAO.create(lambdaEvent);
             endRateLimit = gitHubSourceCodeRepo.getGhRateLimitQuietly();
@@ -421,14 +427,13 @@ public abstract class AbstractWorkflowResource<T extends Workflow> implements So
      * ONLY WORKS FOR v1.2
      * @param repository Repository path (ex. dockstore/dockstore-ui2)
      * @param gitReference Git reference from GitHub (ex. refs/tags/1.0)
-     * @param installationId Installation id needed to setup GitHub apps
+     * @param gitHubSourceCodeRepo Source Code Repo of the release
      * @param user User that triggered action
      * @param dockstoreYml
      * @return List of new and updated workflows
      */
-    private List<Workflow> createBioWorkflowsAndVersionsFromDockstoreYml(List<YamlWorkflow> yamlWorkflows, String repository, String gitReference, String installationId, User user,
-            final SourceFile dockstoreYml, boolean isOneStepWorkflow) {
-        GitHubSourceCodeRepo gitHubSourceCodeRepo = (GitHubSourceCodeRepo)SourceCodeRepoFactory.createGitHubAppRepo(gitHubAppSetup(installationId));
+    private List<Workflow> createBioWorkflowsAndVersionsFromDockstoreYml(List<YamlWorkflow> yamlWorkflows, String repository, String gitReference,
+            GitHubSourceCodeRepo gitHubSourceCodeRepo, User user, final SourceFile dockstoreYml, boolean isOneStepWorkflow) {
         try {
             List<Workflow> updatedWorkflows = new ArrayList<>();
             final Path gitRefPath = Path.of(gitReference);
@@ -466,19 +471,41 @@ public abstract class AbstractWorkflowResource<T extends Workflow> implements So
         }
     }
 
+    /**
+     * Paths of the files that a release reads for the workflows, tools and service in .dockstore.yml that apply to the git reference
+     * @param dockstoreYaml12 .dockstore.yml of the release
+     * @param gitRefPath Git reference from GitHub as a path
+     * @return file paths, possibly with duplicates
+     */
+    private List<String> getDockstoreYmlFilePaths(DockstoreYaml12 dockstoreYaml12, Path gitRefPath) {
+        List<String> paths = new ArrayList<>();
+        Service12 service = dockstoreYaml12.getService();
+        if (service != null && service.getFiles() != null && DockstoreYamlHelper.filterGitReference(gitRefPath, service.getFilters())) {
+            paths.addAll(service.getFiles());
+        }
+        Stream.concat(dockstoreYaml12.getWorkflows().stream(), dockstoreYaml12.getTools().stream())
+            .filter(wf -> DockstoreYamlHelper.filterGitReference(gitRefPath, wf.getFilters()))
+            .forEach(wf -> {
+                paths.add(wf.getPrimaryDescriptorPath());
+                if (wf.getTestParameterFiles() != null) {
+                    paths.addAll(wf.getTestParameterFiles());
+                }
+            });
+        return paths;
+    }
+
     /**
      * Create or retrieve services based on Dockstore.yml, add or update tag version
      * ONLY WORKS FOR v1.1
      * @param repository Repository path (ex. dockstore/dockstore-ui2)
      * @param gitReference Git reference from GitHub (ex. refs/tags/1.0)
-     * @param installationId installation id needed to set up GitHub Apps
+     * @param gitHubSourceCodeRepo Source Code Repo of the release
      * @param user User that triggered action
      * @param dockstoreYml
      * @return List of new and updated services
      */
-    private List<Workflow> createServicesAndVersionsFromDockstoreYml(Service12 service, String repository, String gitReference, String installationId,
-            User user, final SourceFile dockstoreYml) {
-        GitHubSourceCodeRepo gitHubSourceCodeRepo = (GitHubSourceCodeRepo)SourceCodeRepoFactory.createGitHubAppRepo(gitHubAppSetup(installationId));
+    private List<Workflow> createServicesAndVersionsFromDockstoreYml(Service12 service, String repository, String gitReference,
+            GitHubSourceCodeRepo gitHubSourceCodeRepo, User user, final SourceFile dockstoreYml) {
         final List<Workflow> updatedServices = new ArrayList<>();
         if (service != null) {
             if (!DockstoreYamlHelper.filterGitReference(Path.of(gitReference), service.getFilters())) {
@@ -618,6 +645,8 @@ public abstract class AbstractWorkflowResource<T extends Workflow> implements So
                 }
             }
 
+            // queues the DAG and tool table precomputation for the new or updated version
+            workflowArtifactListener.handleIndexUpdate(workflow, StateManagerMode.UPDATE);
             LOG.info("Version " + remoteWorkflowVersion.getName() + " has been added to workflow " + workflow.getWorkflowPath() + ".");
         } catch (IOException ex) {
             throw new CustomWebApplicationException("Cannot retrieve the workflow reference from GitHub, ensure that " + gitReference + " is a valid tag.", LAMBDA_FAILURE);
@@ -482,6 +482,7 @@ public class CollectionResource implements AuthenticatedResourceInterface, Alias
         // Save the collection
         long id = collectionDAO.create(collection);
         organization.addCollection(collection);
+        PublicStateManager.getInstance().getSitemapListener().invalidateOrganizationsAndCollections();
 
         // Event for creation
         User foundUser = userDAO.findById(user.getId());
@@ -526,6 +527,9 @@ public class CollectionResource implements AuthenticatedResourceInterface, Alias
         }
 
         // Update the collection
+        if (!Objects.equals(existingCollection.getName(), collection.getName())) {
+            PublicStateManager.getInstance().getSitemapListener().invalidateOrganizationsAndCollections();
+        }
         existingCollection.setName(collection.getName());
         existingCollection.setDisplayName(collection.getDisplayName());
         existingCollection.setDescription(collection.getDescription());
@@ -94,9 +94,9 @@ import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ResourceContext;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
-import javax.ws.rs.core.StreamingOutput;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.HttpClient;
 import org.hibernate.Hibernate;
@@ -1129,7 +1129,7 @@ public class DockerRepoResource
     @Produces("application/zip")
     public Response getToolZip(@ApiParam(hidden = true) @Parameter(hidden = true, name = "user")@Auth Optional<User> user,
         @ApiParam(value = "toolId", required = true) @PathParam("toolId") Long toolId,
-        @ApiParam(value = "tagId", required = true) @PathParam("tagId") Long tagId) {
+        @ApiParam(value = "tagId", required = true) @PathParam("tagId") Long tagId, @Context Request request) {
 
         Tool tool = toolDAO.findById(toolId);
         if (tool == null) {
@@ -1157,8 +1157,7 @@ public class DockerRepoResource
         String fileName = EntryVersionHelper.generateZipFileName(tool.getToolPath(), tag.getName());
         java.nio.file.Path path = Paths.get(tag.getWorkingDirectory());
 
-        return Response.ok().entity((StreamingOutput)output -> writeStreamAsZip(sourceFiles, output, path))
-            .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"").build();
+        return getZipResponse(tag, sourceFiles, path, fileName, request);
     }
 
     @GET
@@ -2,7 +2,8 @@ package io.dockstore.webservice.resources;
 
 import com.codahale.metrics.health.HealthCheck;
 import io.dockstore.webservice.CustomWebApplicationException;
-import io.dockstore.webservice.resources.proposedGA4GH.ToolsExtendedApi;
+import io.dockstore.webservice.resources.proposedGA4GH.ToolsExtendedApiService;
+import java.util.concurrent.CompletionException;
 import javax.ws.rs.core.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,10 +14,10 @@ import org.slf4j.LoggerFactory;
 public class ElasticSearchHealthCheck extends HealthCheck {
     private static final Logger LOG = LoggerFactory.getLogger(ElasticSearchHealthCheck.class);
 
-    private final ToolsExtendedApi toolsExtendedApi;
+    private final ToolsExtendedApiService toolsExtendedApiService;
 
-    public ElasticSearchHealthCheck(ToolsExtendedApi toolsExtendedApi) {
-        this.toolsExtendedApi = toolsExtendedApi;
+    public ElasticSearchHealthCheck(ToolsExtendedApiService toolsExtendedApiService) {
+        this.toolsExtendedApiService = toolsExtendedApiService;
     }
 
     @Override
@@ -25,7 +26,14 @@ public class ElasticSearchHealthCheck extends HealthCheck {
         // If elastic search is up with a valid index this should return healthy
         Response response;
         try {
-            response = toolsExtendedApi.toolsIndexSearch(null, null, null);
+            // health checks run on their own threads, so this one can wait for the search, which skips the search result cache
+            response = toolsExtendedApiService.toolsIndexSearchUncached(null, null).join();
+        } catch (CompletionException ex) {
+            LOG.info(baseMessage, ex.getCause());
+            if (ex.getCause() instanceof CustomWebApplicationException) {
+                return Result.unhealthy(baseMessage + ": " + ((CustomWebApplicationException)ex.getCause()).getResponse().getEntity());
+            }
+            return Result.unhealthy(baseMessage + ": " + ex.getCause().getMessage());
         } catch (CustomWebApplicationException ex) {
             LOG.info(baseMessage, ex);
             return Result.unhealthy(baseMessage + ": " + ex.getResponse().getEntity());
@@ -10,6 +10,7 @@ import io.dockstore.webservice.core.LambdaEvent;
 import io.dockstore.webservice.core.Token;
 import io.dockstore.webservice.core.User;
 import io.dockstore.webservice.helpers.GitHubSourceCodeRepo;
+import io.dockstore.webservice.helpers.PaginationCursor;
 import io.dockstore.webservice.helpers.SourceCodeRepoFactory;
 import io.dockstore.webservice.jdbi.LambdaEventDAO;
 import io.dockstore.webservice.jdbi.TokenDAO;
@@ -25,12 +26,14 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.List;
 import java.util.Set;
+import javax.servlet.http.HttpServletResponse;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import org.apache.http.HttpStatus;
 import org.hibernate.SessionFactory;
@@ -59,7 +62,9 @@ public class LambdaEventResource {
     public List<LambdaEvent> getLambdaEventsByOrganization(@ApiParam(hidden = true) @Parameter(hidden = true, name = "user")@Auth User user,
             @ApiParam(value = "organization", required = true) @PathParam("organization") String organization,
             @ApiParam(value = PAGINATION_OFFSET_TEXT) @QueryParam("offset") @DefaultValue("0") String offset,
-            @ApiParam(value = PAGINATION_LIMIT_TEXT, allowableValues = "range[1,100]", defaultValue = PAGINATION_LIMIT) @DefaultValue(PAGINATION_LIMIT) @QueryParam("limit") Integer limit) {
+            @ApiParam(value = PAGINATION_LIMIT_TEXT, allowableValues = "range[1,100]", defaultValue = PAGINATION_LIMIT) @DefaultValue(PAGINATION_LIMIT) @QueryParam("limit") Integer limit,
+            @ApiParam(value = PaginationCursor.CURSOR_DESCRIPTION) @Parameter(description = PaginationCursor.CURSOR_DESCRIPTION) @QueryParam("cursor") String cursor,
+            @Context HttpServletResponse response) {
         User authUser = userDAO.findById(user.getId());
         List<Token> githubToken = tokenDAO.findGithubByUserId(authUser.getId());
         if (githubToken.size() == 0) {
@@ -72,6 +77,9 @@ public class LambdaEventResource {
             throw new CustomWebApplicationException("You do not have access to the GitHub organization '" + organization + "'", HttpStatus.SC_UNAUTHORIZED);
         }
 
-        return lambdaEventDAO.findByOrganization(organization, offset, limit);
+        final long beforeId = PaginationCursor.decode(cursor);
+        List<LambdaEvent> lambdaEvents = lambdaEventDAO.findByOrganization(organization, beforeId, cursor == null ? offset : "0", limit);
+        PaginationCursor.addNextCursorHeader(response, lambdaEvents, limit, LambdaEvent::getId);
+        return lambdaEvents;
     }
 }
@@ -16,9 +16,6 @@
 
 package io.dockstore.webservice.resources;
 
-import static io.dockstore.webservice.helpers.statelisteners.RSSListener.RSS_KEY;
-import static io.dockstore.webservice.helpers.statelisteners.SitemapListener.SITEMAP_KEY;
-
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.io.Resources;
 import io.dockstore.common.DescriptorLanguage;
@@ -34,23 +31,19 @@ import io.dockstore.webservice.core.Entry;
 import io.dockstore.webservice.core.Organization;
 import io.dockstore.webservice.core.Tool;
 import io.dockstore.webservice.core.Workflow;
-import io.dockstore.webservice.core.database.RSSToolPath;
-import io.dockstore.webservice.core.database.RSSWorkflowPath;
+import io.dockstore.webservice.helpers.AsyncResponseHelper;
 import io.dockstore.webservice.helpers.MetadataResourceHelper;
 import io.dockstore.webservice.helpers.PublicStateManager;
 import io.dockstore.webservice.helpers.statelisteners.RSSListener;
 import io.dockstore.webservice.helpers.statelisteners.SitemapListener;
 import io.dockstore.webservice.jdbi.BioWorkflowDAO;
-import io.dockstore.webservice.jdbi.CollectionDAO;
 import io.dockstore.webservice.jdbi.OrganizationDAO;
 import io.dockstore.webservice.jdbi.ToolDAO;
 import io.dockstore.webservice.languages.LanguageHandlerFactory;
 import io.dockstore.webservice.resources.proposedGA4GH.ToolsApiExtendedServiceFactory;
 import io.dockstore.webservice.resources.proposedGA4GH.ToolsExtendedApiService;
-import io.dockstore.webservice.resources.rss.RSSEntry;
 import io.dockstore.webservice.resources.rss.RSSFeed;
 import io.dockstore.webservice.resources.rss.RSSHeader;
-import io.dockstore.webservice.resources.rss.RSSWriter;
 import io.dropwizard.hibernate.UnitOfWork;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -63,35 +56,34 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
 import java.time.Year;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
-import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
-import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import okhttp3.Cache;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpStatus;
 import org.hibernate.SessionFactory;
 import org.json.JSONArray;
@@ -114,7 +106,6 @@ public class MetadataResource {
     private final ToolsExtendedApiService delegate = ToolsApiExtendedServiceFactory.getToolsExtendedApi();
     private final ToolDAO toolDAO;
     private final OrganizationDAO organizationDAO;
-    private final CollectionDAO collectionDAO;
     private final BioWorkflowDAO bioWorkflowDAO;
     private final DockstoreWebserviceConfiguration config;
     private final SitemapListener sitemapListener;
@@ -123,7 +114,6 @@ public class MetadataResource {
     public MetadataResource(SessionFactory sessionFactory, DockstoreWebserviceConfiguration config) {
         this.toolDAO = new ToolDAO(sessionFactory);
         this.organizationDAO = new OrganizationDAO(sessionFactory);
-        this.collectionDAO = new CollectionDAO(sessionFactory);
         this.config = config;
         this.bioWorkflowDAO = new BioWorkflowDAO(sessionFactory);
         this.sitemapListener = PublicStateManager.getInstance().getSitemapListener();
@@ -137,46 +127,34 @@ public class MetadataResource {
     @Operation(summary = "List all available workflow, tool, organization, and collection paths.", description = "List all available workflow, tool, organization, and collection paths. Available means published for tools/workflows, and approved for organizations and their respective collections. NO authentication")
     @ApiOperation(value = "List all available workflow, tool, organization, and collection paths.", notes = "List all available workflow, tool, organization, and collection paths. Available means published for tools/workflows, and approved for organizations and their respective collections.")
     public String sitemap() {
-        try {
-            SortedSet<String> sitemap = sitemapListener.getCache().get(SITEMAP_KEY, this::getSitemap);
-            return String.join(System.lineSeparator(), sitemap);
-        } catch (ExecutionException e) {
-            throw new CustomWebApplicationException("Sitemap cache problems", HttpStatus.SC_INTERNAL_SERVER_ERROR);
-        }
+        SortedSet<String> sitemap = sitemapListener.getSitemap(this::getEntryURLs, this::getOrganizationAndCollectionURLs);
+        return String.join(System.lineSeparator(), sitemap);
     }
 
-    public SortedSet<String> getSitemap() {
-        SortedSet<String> urls = new TreeSet<>();
-        urls.addAll(getToolPaths());
-        urls.addAll(getBioWorkflowPaths());
-        urls.addAll(getOrganizationAndCollectionPaths());
+    /**
+     * @return URLs of published tools and bioworkflows, keyed by entry id
+     */
+    private Map<Long, String> getEntryURLs() {
+        Map<Long, String> urls = new HashMap<>();
+        toolDAO.findAllPublishedPaths().forEach(toolPath -> urls.put(toolPath.getTool().getId(), createToolURL(toolPath.getTool())));
+        bioWorkflowDAO.findAllPublishedPaths().forEach(workflowPath -> urls.put(workflowPath.getBioWorkflow().getId(), createWorkflowURL(workflowPath.getBioWorkflow())));
         return urls;
     }
 
     /**
-     * Adds organization and collection URLs
-     * //TODO needs to be more efficient via JPA query
+     * Organization and collection URLs, using a single join query
      */
-    private List<String> getOrganizationAndCollectionPaths() {
-        List<String> urls = new ArrayList<>();
-        List<Organization> organizations = organizationDAO.findAllApproved();
-        organizations.forEach(organization -> {
-            urls.add(createOrganizationURL(organization));
-            List<Collection> collections = collectionDAO.findAllByOrg(organization.getId());
-            collections.stream().map(collection -> createCollectionURL(collection, organization)).forEach(urls::add);
+    private Set<String> getOrganizationAndCollectionURLs() {
+        Set<String> urls = new HashSet<>();
+        organizationDAO.findAllApprovedPaths().forEach(path -> {
+            urls.add(createOrganizationURL(path.getOrganization()));
+            if (path.getCollection() != null) {
+                urls.add(createCollectionURL(path.getCollection(), path.getOrganization()));
+            }
         });
         return urls;
     }
 
-    private List<String> getToolPaths() {
-        return toolDAO.findAllPublishedPaths().stream().map(toolPath -> createToolURL(toolPath.getTool())).collect(Collectors.toList());
-    }
-
-    private List<String> getBioWorkflowPaths() {
-        return bioWorkflowDAO.findAllPublishedPaths().stream().map(workflowPath -> createWorkflowURL(workflowPath.getBioWorkflow())).collect(
-                Collectors.toList());
-    }
-
     private String createOrganizationURL(Organization organization) {
         return MetadataResourceHelper.createOrganizationURL(organization);
     }
@@ -201,26 +179,23 @@ public class MetadataResource {
     @Operation(summary = "List all published tools and workflows in creation order", description = "List all published tools and workflows in creation order, NO authentication")
     @ApiOperation(value = "List all published tools and workflows in creation order.", notes = "NO authentication")
     public String rssFeed() {
-        try {
-            return rssListener.getCache().get(RSS_KEY, this::getRSS);
-        } catch (ExecutionException e) {
-            throw new CustomWebApplicationException("RSS cache problems", HttpStatus.SC_INTERNAL_SERVER_ERROR);
-        }
+        return rssListener.getFeed(this::getRecentEntries, this::createRSSHeader);
     }
 
-    private String getRSS() {
-        List<Tool> tools = toolDAO.findAllPublishedPathsOrderByDbupdatedate().stream().map(RSSToolPath::getTool).collect(Collectors.toList());
-        List<Workflow> workflows = bioWorkflowDAO.findAllPublishedPathsOrderByDbupdatedate().stream().map(RSSWorkflowPath::getBioWorkflow).collect(
-                Collectors.toList());
-
-        List<Entry<?, ?>> dbEntries =  new ArrayList<>();
-        dbEntries.addAll(tools);
-        dbEntries.addAll(workflows);
-        dbEntries.sort(Comparator.comparingLong(entry -> entry.getLastUpdated().getTime()));
-
-        // TODO: after seeing if this works, make this more efficient than just returning everything
-        RSSFeed feed = new RSSFeed();
+    /**
+     * Selects the RSS_ENTRY_LIMIT most recently updated tools and workflows. Each query is already limited and ordered
+     * in the database, so this only merges two short lists.
+     * @return the most recently updated entries, oldest first
+     */
+    private List<Entry<?, ?>> getRecentEntries() {
+        List<Map.Entry<Date, Entry<?, ?>>> recent = new ArrayList<>();
+        toolDAO.findAllPublishedPathsOrderByDbupdatedate().forEach(toolPath -> recent.add(Map.entry(toolPath.getDbUpdateDate(), toolPath.getTool())));
+        bioWorkflowDAO.findAllPublishedPathsOrderByDbupdatedate().forEach(workflowPath -> recent.add(Map.entry(workflowPath.getDbUpdateDate(), workflowPath.getBioWorkflow())));
+        recent.sort(Map.Entry.comparingByKey());
+        return recent.subList(Math.max(0, recent.size() - RSS_ENTRY_LIMIT), recent.size()).stream().map(Map.Entry::getValue).collect(Collectors.toList());
+    }
 
+    private RSSHeader createRSSHeader() {
         RSSHeader header = new RSSHeader();
         header.setCopyright("Copyright " + Year.now().getValue() + " OICR");
         header.setTitle("Dockstore");
@@ -228,42 +203,7 @@ public class MetadataResource {
         header.setLanguage("en");
         header.setLink("https://dockstore.org/");
         header.setPubDate(RSSFeed.formatDate(Calendar.getInstance()));
-
-        feed.setHeader(header);
-
-        List<RSSEntry> entries = new ArrayList<>();
-        for (Entry<?, ?> dbEntry : dbEntries) {
-            RSSEntry entry = new RSSEntry();
-            if (dbEntry instanceof Workflow) {
-                Workflow workflow = (Workflow)dbEntry;
-                entry.setTitle(workflow.getWorkflowPath());
-                String workflowURL = createWorkflowURL(workflow);
-                entry.setGuid(workflowURL);
-                entry.setLink(workflowURL);
-            } else if (dbEntry instanceof Tool) {
-                Tool tool = (Tool)dbEntry;
-                entry.setTitle(tool.getPath());
-                String toolURL = createToolURL(tool);
-                entry.setGuid(toolURL);
-                entry.setLink(toolURL);
-            } else {
-                throw new CustomWebApplicationException("Unknown data type unsupported for RSS feed.", HttpStatus.SC_INTERNAL_SERVER_ERROR);
-            }
-            final int arbitraryDescriptionLimit = 200;
-            entry.setDescription(StringUtils.truncate(dbEntry.getDescription(), arbitraryDescriptionLimit));
-            Calendar instance = Calendar.getInstance();
-            instance.setTime(dbEntry.getLastUpdated());
-            entry.setPubDate(RSSFeed.formatDate(instance));
-            entries.add(entry);
-        }
-        feed.setEntries(entries);
-
-        try (ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()) {
-            RSSWriter.write(feed, byteArrayOutputStream);
-            return byteArrayOutputStream.toString(StandardCharsets.UTF_8.name());
-        } catch (Exception e) {
-            throw new CustomWebApplicationException("Could not write RSS feed.", HttpStatus.SC_INTERNAL_SERVER_ERROR);
-        }
+        return header;
     }
 
     @GET
@@ -374,25 +314,31 @@ public class MetadataResource {
 
     @GET
     @Timed
-    @UnitOfWork
     @Path("/elasticSearch")
     @Operation(summary = "Successful response if elastic search is up and running", description = "Successful response if elastic search is up and running, NO authentication")
     @ApiOperation(value = "Successful response if elastic search is up and running.", notes = "NO authentication")
-    public Response checkElasticSearch() {
-        Response elasticSearchResponse;
+    public void checkElasticSearch(@Context HttpServletRequest request,
+        @ApiParam(hidden = true) @Parameter(hidden = true) @Suspended AsyncResponse asyncResponse) {
+        // skips the search result cache, so that this reflects whether Elasticsearch is up right now
+        AsyncResponseHelper.resume(request, asyncResponse, delegate.toolsIndexSearchUncached(null, null).handle((elasticSearchResponse, failure) -> {
+            if (failure == null && hasHits(elasticSearchResponse)) {
+                return Response.ok().build();
+            } else {
+                return Response.status(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()).build();
+            }
+        }));
+    }
+
+    private static boolean hasHits(Response elasticSearchResponse) {
         try {
-            elasticSearchResponse = delegate.toolsIndexSearch(null, null, null);
-            String result = IOUtils.toString((InputStream)(elasticSearchResponse.getEntity()), StandardCharsets.UTF_8);
+            String result = new String((byte[])elasticSearchResponse.getEntity(), StandardCharsets.UTF_8);
             JSONObject jsonObj = new JSONObject(result);
             JSONObject hitsHolder = jsonObj.getJSONObject("hits");
             JSONArray hitsArray = hitsHolder.getJSONArray("hits");
-            if (hitsArray.toList().isEmpty()) {
-                return Response.status(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()).build();
-            }
+            return !hitsArray.toList().isEmpty();
         } catch (Exception ex) {
-            return Response.status(Response.Status.INTERNAL_SERVER_ERROR.getStatusCode()).build();
+            return false;
         }
-        return Response.ok().build();
     }
 
     @GET
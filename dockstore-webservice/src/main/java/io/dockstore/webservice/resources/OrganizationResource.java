@@ -10,6 +10,7 @@ import io.dockstore.webservice.core.Event;
 import io.dockstore.webservice.core.Organization;
 import io.dockstore.webservice.core.OrganizationUser;
 import io.dockstore.webservice.core.User;
+import io.dockstore.webservice.helpers.PaginationCursor;
 import io.dockstore.webservice.helpers.PublicStateManager;
 import io.dockstore.webservice.jdbi.CollectionDAO;
 import io.dockstore.webservice.jdbi.EventDAO;
@@ -128,6 +129,7 @@ public class OrganizationResource implements AuthenticatedResourceInterface, Ali
             Event approveOrgEvent = new Event.Builder().withOrganization(organization).withInitiatorUser(user)
                 .withType(Event.EventType.APPROVE_ORG).build();
             eventDAO.create(approveOrgEvent);
+            PublicStateManager.getInstance().getSitemapListener().invalidateOrganizationsAndCollections();
         }
 
         return organizationDAO.findById(id);
@@ -335,11 +337,14 @@ public class OrganizationResource implements AuthenticatedResourceInterface, Ali
             @ApiParam(value = "Start index of paging.  If this exceeds the current result set return an empty set.  If not specified in the request, this will start at the beginning of the results.", defaultValue = DEFAULT_OFFSET) @Parameter(description = "Start index of paging.  If this exceeds the current result set return an empty set.  If not specified in the request, this will start at the beginning of the results.", name = "offset", in = ParameterIn.QUERY, required = true) @DefaultValue(DEFAULT_OFFSET) @QueryParam("offset") Integer offset,
             @ApiParam(value = "Amount of records to return in a given page, limited to "
                     + PAGINATION_LIMIT, allowableValues = "range[1,100]", defaultValue = PAGINATION_LIMIT) @Parameter(description = "Amount of records to return in a given page, limited to " + PAGINATION_LIMIT, name = "limit", in = ParameterIn.QUERY, schema = @Schema(minimum = "1", maximum = "100"), required = true) @DefaultValue(PAGINATION_LIMIT) @QueryParam("limit") Integer limit,
+            @ApiParam(value = PaginationCursor.CURSOR_DESCRIPTION) @Parameter(description = PaginationCursor.CURSOR_DESCRIPTION, name = "cursor", in = ParameterIn.QUERY) @QueryParam("cursor") String cursor,
             @Context HttpServletResponse response) {
         getOrganizationByIdOptionalAuth(user, id);
+        final long beforeId = PaginationCursor.decode(cursor);
         response.addHeader("X-total-count", String.valueOf(eventDAO.countAllEventsForOrganization(id)));
         response.addHeader("Access-Control-Expose-Headers", "X-total-count");
-        List<Event> eventsForOrganization = eventDAO.findEventsForOrganization(id, offset, limit);
+        List<Event> eventsForOrganization = eventDAO.findEventsForOrganization(id, beforeId, cursor == null ? offset : 0, limit);
+        PaginationCursor.addNextCursorHeader(response, eventsForOrganization, limit, Event::getId);
         for (Event event : eventsForOrganization) {
             Hibernate.initialize(event.getInitiatorUser());
             Hibernate.initialize(event.getCollection());
@@ -592,6 +597,7 @@ public class OrganizationResource implements AuthenticatedResourceInterface, Ali
                 // This is for https://ucsc-cgl.atlassian.net/browse/SEAB-203 to prevent name squatting after organization was approved
                 oldOrganization.setName(organization.getName());
                 oldOrganization.setDisplayName(organization.getDisplayName());
+                PublicStateManager.getInstance().getSitemapListener().invalidateOrganizationsAndCollections();
             } else {
                 throw new CustomWebApplicationException("Only admin and curators are able to change an approved Organization's name or display name. Contact Dockstore to have it changed.", HttpStatus.SC_UNAUTHORIZED);
             }
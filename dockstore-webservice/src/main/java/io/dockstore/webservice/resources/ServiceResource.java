@@ -2,6 +2,7 @@ package io.dockstore.webservice.resources;
 
 import io.dockstore.webservice.DockstoreWebserviceConfiguration;
 import io.dockstore.webservice.core.Service;
+import io.dockstore.webservice.helpers.statelisteners.WorkflowArtifactListener;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
@@ -15,7 +16,8 @@ import org.hibernate.SessionFactory;
 @Tag(name = "workflows", description = ResourceConstants.WORKFLOWS)
 public class ServiceResource extends AbstractWorkflowResource<Service> {
 
-    public ServiceResource(HttpClient client, SessionFactory sessionFactory, EntryResource entryResource, DockstoreWebserviceConfiguration configuration) {
-        super(client, sessionFactory, entryResource, configuration);
+    public ServiceResource(HttpClient client, SessionFactory sessionFactory, EntryResource entryResource, DockstoreWebserviceConfiguration configuration,
+            WorkflowArtifactListener workflowArtifactListener) {
+        super(client, sessionFactory, entryResource, configuration, workflowArtifactListener);
     }
 }
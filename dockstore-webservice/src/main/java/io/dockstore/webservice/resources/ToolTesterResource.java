@@ -19,24 +19,39 @@
 package io.dockstore.webservice.resources;
 
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.codahale.metrics.annotation.Timed;
+import com.google.common.base.Suppliers;
 import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.DockstoreWebserviceConfiguration;
+import io.dockstore.webservice.core.tooltester.ByteRange;
 import io.dockstore.webservice.core.tooltester.ToolTesterLog;
+import io.dockstore.webservice.core.tooltester.ToolTesterLogPage;
 import io.dockstore.webservice.core.tooltester.ToolTesterLogType;
 import io.dockstore.webservice.core.tooltester.ToolTesterS3Client;
 import io.swagger.annotations.Api;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.List;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Min;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -51,55 +66,108 @@ import org.slf4j.LoggerFactory;
 @Tag(name = "toolTester", description = ResourceConstants.TOOLTESTER)
 public class ToolTesterResource {
     private static final Logger LOG = LoggerFactory.getLogger(ToolTesterResource.class);
+    private static final String CONTINUATION_TOKEN_HEADER = "X-continuation-token";
     private final String bucketName;
+    // built on first use, since building it needs AWS configuration that is only there when a bucket is
+    private final Supplier<ToolTesterS3Client> toolTesterS3Client;
 
     public ToolTesterResource(DockstoreWebserviceConfiguration configuration) {
         bucketName = configuration.getToolTesterBucket();
+        toolTesterS3Client = Suppliers.memoize(() -> new ToolTesterS3Client(bucketName));
     }
 
     @GET
     @Timed
     @Path("logs")
-    @Operation(summary = "Get ToolTester log file")
+    @Operation(summary = "Get ToolTester log file", description = "Streams the log, or the single byte range of a Range header, "
+            + "or the last bytes of the log if tail is given")
     @Produces(MediaType.TEXT_PLAIN)
-    public String getToolTesterLog(
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    public Response getToolTesterLog(
             @QueryParam("tool_id") @Parameter(description = "TRS Tool Id", example = "#workflow/github.com/dockstore/hello_world", required = true) String toolId,
             @QueryParam("tool_version_name") @Parameter(example = "v1.0.0", required = true) String toolVersionName,
             @QueryParam("test_filename") @Parameter(example = "hello_world.cwl.json", required = true) String testFilename,
             @QueryParam("runner") @Parameter(example = "cwltool", required = true) String runner,
             @QueryParam("log_type") @Parameter(required = true) ToolTesterLogType logType,
-            @QueryParam("filename") @Parameter(example = "1554477737092.log", required = true) String filename) {
+            @QueryParam("filename") @Parameter(example = "1554477737092.log", required = true) String filename,
+            @QueryParam("tail") @Parameter(description = "Number of bytes to return from the end of the log") @Min(1) Long tail,
+            @HeaderParam(HttpHeaders.RANGE) @Parameter(description = "A single byte range of the log, e.g. bytes=0-1048575") String range) {
         if (this.bucketName == null) {
             throw new CustomWebApplicationException("Dockstore Logging integration is currently not set up",
                     HttpStatus.SC_SERVICE_UNAVAILABLE);
         }
-        ToolTesterS3Client toolTesterS3Client = new ToolTesterS3Client(this.bucketName);
+        final long length;
+        final ByteRange byteRange;
         try {
-            return toolTesterS3Client.getToolTesterLog(toolId, toolVersionName, testFilename, runner, filename);
+            length = toolTesterS3Client.get().getToolTesterLogLength(toolId, toolVersionName, testFilename, runner, filename);
+            byteRange = tail != null ? ByteRange.tail(tail, length) : ByteRange.fromHeader(range, length).orElse(null);
         } catch (AmazonS3Exception e) {
             LOG.error(e.getMessage(), e);
             throw new CustomWebApplicationException("Dockstore Logging integration is currently not set up",
                     HttpStatus.SC_SERVICE_UNAVAILABLE);
-        } catch (IOException e) {
+        } catch (UnsupportedEncodingException e) {
             LOG.error(e.getMessage(), e);
             throw new CustomWebApplicationException("Could not fetch log file contents", HttpStatus.SC_INTERNAL_SERVER_ERROR);
         }
+
+        // the log is only requested once the body is written, so nothing is left open if it never is
+        StreamingOutput streamingOutput = output -> {
+            final S3Object s3Object;
+            try {
+                s3Object = toolTesterS3Client.get().getToolTesterLog(toolId, toolVersionName, testFilename, runner, filename, byteRange);
+            } catch (AmazonS3Exception e) {
+                LOG.error(e.getMessage(), e);
+                throw new CustomWebApplicationException("Dockstore Logging integration is currently not set up",
+                        HttpStatus.SC_SERVICE_UNAVAILABLE);
+            }
+            S3ObjectInputStream inputStream = s3Object.getObjectContent();
+            try {
+                IOUtils.copyLarge(inputStream, output);
+                inputStream.close();
+            } catch (IOException | RuntimeException e) {
+                // do not download the rest of the log, e.g. when the viewer went away
+                inputStream.abort();
+                throw e;
+            } finally {
+                s3Object.close();
+            }
+        };
+        Response.ResponseBuilder responseBuilder = byteRange == null ? Response.ok(streamingOutput)
+                : Response.status(HttpStatus.SC_PARTIAL_CONTENT).entity(streamingOutput).header(HttpHeaders.CONTENT_RANGE, byteRange.toContentRange());
+        return responseBuilder.header(HttpHeaders.CONTENT_LENGTH, byteRange == null ? length : byteRange.size())
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header("Access-Control-Expose-Headers", HttpHeaders.ACCEPT_RANGES + ", " + HttpHeaders.CONTENT_RANGE)
+                .build();
     }
 
     @GET
     @Timed
     @Path("logs/search")
-    @Operation(summary = "Search for ToolTester log files")
+    @Operation(summary = "Search for ToolTester log files", description = "Returns every log unless a limit or continuation token is given. "
+            + "If there are more logs, the token of the next page is returned in the " + CONTINUATION_TOKEN_HEADER + " header.")
     public List<ToolTesterLog> search(
             @QueryParam("tool_id") @Parameter(description = "TRS Tool Id", example = "#workflow/github.com/dockstore/hello_world", required = true) String toolId,
-            @QueryParam("tool_version_name") @Parameter(example = "v1.0.0", required = true) String toolVersionName) {
+            @QueryParam("tool_version_name") @Parameter(example = "v1.0.0", required = true) String toolVersionName,
+            @QueryParam("limit") @Parameter(description = "Amount of logs to return in a given page, limited to " + ToolTesterS3Client.MAX_PAGE_SIZE,
+                    schema = @Schema(minimum = "1", maximum = "1000")) @Min(1) Integer limit,
+            @QueryParam("continuation_token") @Parameter(description = "Token of the page to return, from the " + CONTINUATION_TOKEN_HEADER
+                    + " header of the previous page") String continuationToken,
+            @Context HttpServletResponse response) {
         if (this.bucketName == null) {
             throw new CustomWebApplicationException("Dockstore Logging integration is currently not set up",
                     HttpStatus.SC_SERVICE_UNAVAILABLE);
         }
         try {
-            ToolTesterS3Client toolTesterS3Client = new ToolTesterS3Client(this.bucketName);
-            return toolTesterS3Client.getToolTesterLogs(toolId, toolVersionName);
+            if (limit == null && continuationToken == null) {
+                return toolTesterS3Client.get().getToolTesterLogs(toolId, toolVersionName);
+            }
+            ToolTesterLogPage page = toolTesterS3Client.get()
+                    .getToolTesterLogs(toolId, toolVersionName, limit == null ? ToolTesterS3Client.MAX_PAGE_SIZE : limit, continuationToken);
+            if (page.getNextContinuationToken() != null) {
+                response.addHeader(CONTINUATION_TOKEN_HEADER, page.getNextContinuationToken());
+                response.addHeader("Access-Control-Expose-Headers", CONTINUATION_TOKEN_HEADER);
+            }
+            return page.getLogs();
         } catch (AmazonS3Exception e) {
             LOG.error(e.getMessage(), e);
             throw new CustomWebApplicationException("Dockstore Logging integration is currently not set up",
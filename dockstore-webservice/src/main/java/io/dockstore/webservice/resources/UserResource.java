@@ -29,6 +29,7 @@ import com.google.common.collect.Lists;
 import io.dockstore.common.Registry;
 import io.dockstore.common.Repository;
 import io.dockstore.common.SourceControl;
+import io.dockstore.webservice.CredentialHashAuthenticator;
 import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.DockstoreWebserviceConfiguration;
 import io.dockstore.webservice.api.Limits;
@@ -74,7 +75,6 @@ import io.dockstore.webservice.jdbi.UserDAO;
 import io.dockstore.webservice.jdbi.WorkflowDAO;
 import io.dockstore.webservice.permissions.PermissionsInterface;
 import io.dropwizard.auth.Auth;
-import io.dropwizard.auth.CachingAuthenticator;
 import io.dropwizard.hibernate.UnitOfWork;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -152,7 +152,7 @@ public class UserResource implements AuthenticatedResourceInterface, SourceContr
     private final LambdaEventDAO lambdaEventDAO;
     private final DeletedUsernameDAO deletedUsernameDAO;
     private final PermissionsInterface authorizer;
-    private final CachingAuthenticator cachingAuthenticator;
+    private final CredentialHashAuthenticator cachingAuthenticator;
     private final HttpClient client;
 
     private final String bitbucketClientSecret;
@@ -160,7 +160,7 @@ public class UserResource implements AuthenticatedResourceInterface, SourceContr
 
     @SuppressWarnings("checkstyle:parameternumber")
     public UserResource(HttpClient client, SessionFactory sessionFactory, WorkflowResource workflowResource, ServiceResource serviceResource,
-                        DockerRepoResource dockerRepoResource, CachingAuthenticator cachingAuthenticator, PermissionsInterface authorizer, DockstoreWebserviceConfiguration configuration) {
+                        DockerRepoResource dockerRepoResource, CredentialHashAuthenticator cachingAuthenticator, PermissionsInterface authorizer, DockstoreWebserviceConfiguration configuration) {
         this.eventDAO = new EventDAO(sessionFactory);
         this.userDAO = new UserDAO(sessionFactory);
         this.tokenDAO = new TokenDAO(sessionFactory);
@@ -282,8 +282,8 @@ public class UserResource implements AuthenticatedResourceInterface, SourceContr
 
         if (dockstoreToken.isPresent()) {
             dockstoreToken.get().setUsername(username);
-            cachingAuthenticator.invalidate(dockstoreToken.get().getContent());
         }
+        cachingAuthenticator.invalidateUser(user.getId());
         return userDAO.findById(user.getId());
     }
 
@@ -340,6 +340,8 @@ public class UserResource implements AuthenticatedResourceInterface, SourceContr
             // invalidate tokens from caching authenticator
             cachingAuthenticator.invalidate(token.getContent());
         }
+        // the user may also be cached by Google token
+        cachingAuthenticator.invalidateUser(user.getId());
     }
 
     private void deleteSelfFromEntries(User user) {
@@ -868,7 +870,7 @@ public class UserResource implements AuthenticatedResourceInterface, SourceContr
         user.setHostedEntryCountLimit(limits.getHostedEntryCountLimit());
         user.setHostedEntryVersionsLimit(limits.getHostedEntryVersionLimit());
         // User could be cached by Dockstore or Google token -- invalidate all
-        tokenDAO.findByUserId(user.getId()).stream().forEach(token -> this.cachingAuthenticator.invalidate(token.getContent()));
+        this.cachingAuthenticator.invalidateUser(user.getId());
         return limits;
     }
 
@@ -973,7 +975,7 @@ public class UserResource implements AuthenticatedResourceInterface, SourceContr
         if (privilegeRequest.isAdmin() != user.getIsAdmin() || privilegeRequest.isCurator() != user.isCurator()) {
             user.setIsAdmin(privilegeRequest.isAdmin());
             user.setCurator(privilegeRequest.isCurator());
-            tokenDAO.findByUserId(user.getId()).stream().forEach(token -> this.cachingAuthenticator.invalidate(token.getContent()));
+            this.cachingAuthenticator.invalidateUser(user.getId());
         }
         return user;
     }
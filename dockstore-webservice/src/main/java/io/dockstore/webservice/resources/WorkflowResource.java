@@ -64,6 +64,7 @@ import io.dockstore.webservice.helpers.SourceCodeRepoInterface;
 import io.dockstore.webservice.helpers.StateManagerMode;
 import io.dockstore.webservice.helpers.URIHelper;
 import io.dockstore.webservice.helpers.ZenodoHelper;
+import io.dockstore.webservice.helpers.statelisteners.WorkflowArtifactListener;
 import io.dockstore.webservice.jdbi.BioWorkflowDAO;
 import io.dockstore.webservice.jdbi.EntryDAO;
 import io.dockstore.webservice.jdbi.FileFormatDAO;
@@ -130,8 +131,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
-import javax.ws.rs.core.StreamingOutput;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.http.HttpStatus;
@@ -187,8 +188,8 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
     private final String dockstoreGA4GHBaseUrl;
 
     public WorkflowResource(HttpClient client, SessionFactory sessionFactory, PermissionsInterface permissionsInterface,
-            EntryResource entryResource, DockstoreWebserviceConfiguration configuration) {
-        super(client, sessionFactory, entryResource, configuration);
+            EntryResource entryResource, DockstoreWebserviceConfiguration configuration, WorkflowArtifactListener workflowArtifactListener) {
+        super(client, sessionFactory, entryResource, configuration, workflowArtifactListener);
         this.toolDAO = new ToolDAO(sessionFactory);
         this.labelDAO = new LabelDAO(sessionFactory);
         this.serviceEntryDAO = new ServiceEntryDAO(sessionFactory);
@@ -780,14 +781,16 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
                 .flatMap(List::stream)
                 .collect(Collectors.toList());
 
-        // Fetch workflows in batch
+        // Fetch workflows in batch, and resolve what the user can do on all of them at once
         List<Workflow> workflowList = workflowDAO.findByPaths(paths, false);
+        final Map<String, List<Role.Action>> actions = this.permissionsInterface.getActionsForWorkflows(user, workflowList);
 
         return workflowsSharedWithUser.entrySet().stream().map(e -> {
             // Create a SharedWorkFlow map for each Role and the list of workflows that belong to it
             final List<Workflow> workflows = workflowList.stream()
                 // Filter only the workflows that belong to the current Role and where the user is not the owner
                 .filter(workflow -> e.getValue().contains(workflow.getWorkflowPath()) && !workflow.getUsers().contains(user))
+                .filter(workflow -> actions.getOrDefault(workflow.getWorkflowPath(), List.of()).contains(Role.Action.READ))
                 .collect(Collectors.toList());
             return new SharedWorkflows(e.getKey(), workflows);
         }).filter(sharedWorkflow -> sharedWorkflow.getWorkflows().size() > 0).collect(Collectors.toList());
@@ -1315,15 +1318,14 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
                     // Check if tooltablejson in the DB has the "specifier" key because this key was added later on, so there may be entries in the DB that are missing it.
                     // If tooltablejson is missing it, retrieve it again so it has this new key.
                     // Don't need to re-retrieve tooltablejson if it's an empty array because it will just return an empty array again (since the workflow has no Docker images).
-                    String existingToolTableJson = existingTag.getToolTableJson();
-                    if (existingToolTableJson != null && (existingToolTableJson.contains("\"specifier\"") || "[]".equals(existingToolTableJson))) {
-                        toolsJSONTable = Optional.of(existingToolTableJson);
+                    if (WorkflowArtifactListener.hasCurrentToolTableJson(existingTag)) {
+                        toolsJSONTable = Optional.of(existingTag.getToolTableJson());
                     } else {
-                        SourceFile mainDescriptor = getMainDescriptorFile(existingTag);
+                        SourceFile mainDescriptor = WorkflowArtifactListener.getMainDescriptorFile(existingTag);
                         if (mainDescriptor != null) {
                             // Store tool table json
                             toolsJSONTable = lInterface.getContent(w.getWorkflowPath(), mainDescriptor.getContent(),
-                                    extractDescriptorAndSecondaryFiles(existingTag), LanguageHandlerInterface.Type.TOOLS, toolDAO);
+                                    WorkflowArtifactListener.getSecondaryFiles(existingTag), LanguageHandlerInterface.Type.TOOLS, toolDAO);
                             existingTag.setToolTableJson(toolsJSONTable.get());
                         }
                     }
@@ -1353,10 +1355,10 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
 
                     // store dag
                     if (existingTag.getDagJson() == null) {
-                        SourceFile mainDescriptor = getMainDescriptorFile(existingTag);
+                        SourceFile mainDescriptor = WorkflowArtifactListener.getMainDescriptorFile(existingTag);
                         if (mainDescriptor != null) {
                             String dagJson = lInterface.getCleanDAG(w.getWorkflowPath(), mainDescriptor.getContent(),
-                                    extractDescriptorAndSecondaryFiles(existingTag), LanguageHandlerInterface.Type.DAG, toolDAO);
+                                    WorkflowArtifactListener.getSecondaryFiles(existingTag), LanguageHandlerInterface.Type.DAG, toolDAO);
                             existingTag.setDagJson(dagJson);
                         }
                     }
@@ -1384,25 +1386,26 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
         checkOptionalAuthRead(user, workflow);
 
         WorkflowVersion workflowVersion = getWorkflowVersion(workflow, workflowVersionId);
-        SourceFile mainDescriptor = getMainDescriptorFile(workflowVersion);
 
-        // json in db cleared after a refresh
+        // json in db cleared after a refresh, and normally rendered again in the background by the time anyone asks
         if (workflowVersion.getDagJson() != null) {
             return workflowVersion.getDagJson();
         }
 
-        if (mainDescriptor != null) {
-            Set<SourceFile> secondaryDescContent = extractDescriptorAndSecondaryFiles(workflowVersion);
-
-            LanguageHandlerInterface lInterface = LanguageHandlerFactory.getInterface(workflow.getFileType());
-            final String dagJson = lInterface.getCleanDAG(workflowVersion.getWorkflowPath(), mainDescriptor.getContent(), secondaryDescContent,
-                    LanguageHandlerInterface.Type.DAG, toolDAO);
-            if (!workflowVersion.isFrozen()) {
-                workflowVersion.setDagJson(dagJson);
+        if (workflowVersion.isFrozen()) {
+            Optional<String> frozenDagJson = workflowArtifactListener.getFrozenDagJson(workflowVersion.getId());
+            if (frozenDagJson.isPresent()) {
+                return frozenDagJson.get();
             }
-            return dagJson;
         }
-        return null;
+        final String dagJson = WorkflowArtifactListener.renderDagJson(workflow, workflowVersion, toolDAO);
+        if (workflowVersion.isFrozen()) {
+            // frozen versions cannot store the json, keep it in memory for next time
+            workflowArtifactListener.putFrozenDagJson(workflowVersion.getId(), dagJson);
+        } else {
+            workflowVersion.setDagJson(dagJson);
+        }
+        return dagJson;
     }
 
     /**
@@ -1432,35 +1435,26 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
             throw new CustomWebApplicationException("workflow version " + workflowVersionId + " does not exist", HttpStatus.SC_BAD_REQUEST);
         }
 
-        // tooltablejson in DB cleared after a refresh
-        // Check if tooltablejson in the DB has the "specifier" key because this key was added later on, so there may be entries in the DB that are missing it.
-        // If tooltablejson is missing it, retrieve it again so it has this new key.
-        // Don't need to re-retrieve tooltablejson if it's an empty array because it will just return an empty array again (since the workflow has no Docker images).
-        String toolTableJson = workflowVersion.getToolTableJson();
-        if (toolTableJson != null && (toolTableJson.contains("\"specifier\"") || "[]".equals(toolTableJson))) {
-            return toolTableJson;
+        // tooltablejson in DB cleared after a refresh, and normally rendered again in the background by the time anyone asks
+        if (WorkflowArtifactListener.hasCurrentToolTableJson(workflowVersion)) {
+            return workflowVersion.getToolTableJson();
         }
 
-        SourceFile mainDescriptor = getMainDescriptorFile(workflowVersion);
-        if (mainDescriptor != null) {
-            Set<SourceFile> secondaryDescContent = extractDescriptorAndSecondaryFiles(workflowVersion);
-            LanguageHandlerInterface lInterface = LanguageHandlerFactory.getInterface(workflow.getFileType());
-            final Optional<String> newToolTableJson = lInterface.getContent(workflowVersion.getWorkflowPath(), mainDescriptor.getContent(), secondaryDescContent,
-                LanguageHandlerInterface.Type.TOOLS, toolDAO);
-
-            final String json = newToolTableJson.orElse(null);
-
-            // Can't UPDATE workflowversion when frozen = true
-            if (workflowVersion.isFrozen()) {
-                LOG.warn("workflow version " + workflowVersionId + " is frozen without toolTableJson");
-            } else {
-                workflowVersion.setToolTableJson(json);
+        // Can't UPDATE workflowversion when frozen = true
+        if (workflowVersion.isFrozen()) {
+            Optional<String> frozenToolTableJson = workflowArtifactListener.getFrozenToolTableJson(workflowVersion.getId());
+            if (frozenToolTableJson.isPresent()) {
+                return frozenToolTableJson.get();
             }
-
-            return json;
+            LOG.warn("workflow version " + workflowVersionId + " is frozen without toolTableJson");
         }
-
-        return null;
+        final String json = WorkflowArtifactListener.renderToolTableJson(workflow, workflowVersion, toolDAO).orElse(null);
+        if (workflowVersion.isFrozen()) {
+            workflowArtifactListener.putFrozenToolTableJson(workflowVersion.getId(), json);
+        } else {
+            workflowVersion.setToolTableJson(json);
+        }
+        return json;
     }
 
     @GET
@@ -1480,18 +1474,6 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
         return getVersionsSourcefiles(workflowId, workflowVersionId, fileTypes, versionDAO);
     }
 
-    /**
-     * Populates the return file with the descriptor and secondaryDescContent as a map between file paths and secondary files
-     *
-     * @param workflowVersion source control version to consider
-     * @return secondary file map (string path -> string content)
-     */
-    private Set<SourceFile> extractDescriptorAndSecondaryFiles(WorkflowVersion workflowVersion) {
-        return workflowVersion.getSourceFiles().stream()
-                .filter(sf -> !sf.getPath().equals(workflowVersion.getWorkflowPath()))
-                .collect(Collectors.toSet());
-    }
-
     /**
      * This method will find the workflowVersion based on the workflowVersionId passed in the parameter and return it
      *
@@ -1513,25 +1495,6 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
         return workflowVersion;
     }
 
-    /**
-     * This method will find the main descriptor file based on the workflow version passed in the parameter
-     *
-     * @param workflowVersion workflowVersion with collects sourcefiles
-     * @return mainDescriptor
-     */
-    private SourceFile getMainDescriptorFile(WorkflowVersion workflowVersion) {
-
-        SourceFile mainDescriptor = null;
-        for (SourceFile sourceFile : workflowVersion.getSourceFiles()) {
-            if (sourceFile.getPath().equals(workflowVersion.getWorkflowPath())) {
-                mainDescriptor = sourceFile;
-                break;
-            }
-        }
-
-        return mainDescriptor;
-    }
-
     @PUT
     @Timed
     @UnitOfWork
@@ -1851,7 +1814,7 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
     @Produces("application/zip")
     public Response getWorkflowZip(@ApiParam(hidden = true) @Parameter(hidden = true, name = "user")@Auth Optional<User> user,
         @ApiParam(value = "workflowId", required = true) @PathParam("workflowId") Long workflowId,
-        @ApiParam(value = "workflowVersionId", required = true) @PathParam("workflowVersionId") Long workflowVersionId) {
+        @ApiParam(value = "workflowVersionId", required = true) @PathParam("workflowVersionId") Long workflowVersionId, @Context Request request) {
 
         Workflow workflow = workflowDAO.findById(workflowId);
         if (workflow == null) {
@@ -1868,8 +1831,7 @@ public class WorkflowResource extends AbstractWorkflowResource<Workflow>
 
         String fileName = EntryVersionHelper.generateZipFileName(workflow.getWorkflowPath(), workflowVersion.getName());
 
-        return Response.ok().entity((StreamingOutput)output -> writeStreamAsZip(sourceFiles, output, path))
-            .header("Content-Disposition", "attachment; filename=\"" + fileName + "\"").build();
+        return getZipResponse(workflowVersion, sourceFiles, path, fileName, request);
     }
 
     @GET
@@ -18,7 +18,6 @@ package io.dockstore.webservice.resources.proposedGA4GH;
 
 import static io.openapi.api.impl.ToolsApiServiceImpl.BAD_DECODE_RESPONSE;
 
-import com.google.common.io.Resources;
 import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.DockstoreWebserviceConfiguration;
 import io.dockstore.webservice.core.Entry;
@@ -29,7 +28,9 @@ import io.dockstore.webservice.core.Version;
 import io.dockstore.webservice.core.Workflow;
 import io.dockstore.webservice.core.WorkflowVersion;
 import io.dockstore.webservice.helpers.ElasticSearchHelper;
+import io.dockstore.webservice.helpers.ElasticSearchReindexer;
 import io.dockstore.webservice.helpers.PublicStateManager;
+import io.dockstore.webservice.helpers.SearchResultCache;
 import io.dockstore.webservice.helpers.statelisteners.ElasticListener;
 import io.dockstore.webservice.jdbi.ToolDAO;
 import io.dockstore.webservice.jdbi.WorkflowDAO;
@@ -37,8 +38,6 @@ import io.openapi.api.impl.ToolsApiServiceImpl;
 import io.swagger.api.impl.ToolsImplCommon;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -46,20 +45,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.http.HttpStatus;
-import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Cancellable;
 import org.elasticsearch.client.Request;
-import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
 import org.elasticsearch.client.RestClient;
-import org.elasticsearch.client.RestHighLevelClient;
-import org.elasticsearch.client.indices.CreateIndexRequest;
-import org.elasticsearch.common.xcontent.XContentType;
+import org.hibernate.SessionFactory;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -78,16 +81,24 @@ public class ToolsApiExtendedServiceImpl extends ToolsExtendedApiService {
     private static final String WORKFLOWS_INDEX = ElasticListener.WORKFLOWS_INDEX;
     private static final String ALL_INDICES = ElasticListener.ALL_INDICES;
     private static final int SEARCH_TERM_LIMIT = 500;
+    private static final int MAX_CONCURRENT_SEARCHES = 64;
+    private static final long SEARCH_TIMEOUT_SECONDS = 30;
+    private static final Semaphore SEARCH_PERMITS = new Semaphore(MAX_CONCURRENT_SEARCHES);
 
     private static ToolDAO toolDAO = null;
     private static WorkflowDAO workflowDAO = null;
     private static DockstoreWebserviceConfiguration config = null;
     private static PublicStateManager publicStateManager = null;
+    private static SessionFactory sessionFactory = null;
 
     public static void setStateManager(PublicStateManager manager) {
         ToolsApiExtendedServiceImpl.publicStateManager = manager;
     }
 
+    public static void setSessionFactory(SessionFactory sessionFactory) {
+        ToolsApiExtendedServiceImpl.sessionFactory = sessionFactory;
+    }
+
     public static void setToolDAO(ToolDAO toolDAO) {
         ToolsApiExtendedServiceImpl.toolDAO = toolDAO;
     }
@@ -172,44 +183,33 @@ public class ToolsApiExtendedServiceImpl extends ToolsExtendedApiService {
     @Override
     public Response toolsIndexGet(SecurityContext securityContext) {
         if (!config.getEsConfiguration().getHostname().isEmpty()) {
-            List<Entry> published = getPublished();
             try {
-                RestHighLevelClient client = ElasticSearchHelper.restHighLevelClient();
-                // Delete previous indices
-                deleteIndex(client, TOOLS_INDEX);
-                deleteIndex(client, WORKFLOWS_INDEX);
-
-                // Get mapping for tools index
-                URL urlTools = Resources.getResource("queries/mapping_tool.json");
-                String textTools = Resources.toString(urlTools, StandardCharsets.UTF_8);
-
-                // Get mapping for workflows index
-                URL urlWorkflows = Resources.getResource("queries/mapping_workflow.json");
-                String textWorkflows = Resources.toString(urlWorkflows, StandardCharsets.UTF_8);
-
-                // Create indices
-                CreateIndexRequest toolsRequest = new CreateIndexRequest(TOOLS_INDEX);
-                toolsRequest.source(textTools, XContentType.JSON);
-                CreateIndexRequest workflowsRequest = new CreateIndexRequest(WORKFLOWS_INDEX);
-                workflowsRequest.source(textWorkflows, XContentType.JSON);
-                client.indices().create(toolsRequest, RequestOptions.DEFAULT);
-                client.indices().create(workflowsRequest, RequestOptions.DEFAULT);
-
-                // Populate index
-                if (!published.isEmpty()) {
-                    publicStateManager.bulkUpsert(published);
-                }
+                // builds new indices and swaps the aliases, search keeps using the current indices until then
+                int count = new ElasticSearchReindexer(sessionFactory, ElasticSearchHelper.restHighLevelClient()).reindex();
+                return Response.ok().entity(count).build();
             } catch (IOException e) {
                 LOG.error("Could not create elastic search index", e);
                 throw new CustomWebApplicationException("Search indexing failed", HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.error("Interrupted while creating elastic search index", e);
+                throw new CustomWebApplicationException("Search indexing failed", HttpStatus.SC_INTERNAL_SERVER_ERROR);
             }
-            return Response.ok().entity(published.size()).build();
         }
         return Response.ok().entity(0).build();
     }
 
     @Override
-    public Response toolsIndexSearch(String query, MultivaluedMap<String, String> queryParameters, SecurityContext securityContext) {
+    public CompletableFuture<Response> toolsIndexSearch(String query, MultivaluedMap<String, String> queryParameters, SecurityContext securityContext) {
+        return toolsIndexSearch(query, queryParameters, true);
+    }
+
+    @Override
+    public CompletableFuture<Response> toolsIndexSearchUncached(String query, MultivaluedMap<String, String> queryParameters) {
+        return toolsIndexSearch(query, queryParameters, false);
+    }
+
+    private CompletableFuture<Response> toolsIndexSearch(String query, MultivaluedMap<String, String> queryParameters, boolean shareResults) {
         if (!config.getEsConfiguration().getHostname().isEmpty()) {
             // Performing a search on the UI sends multiple POST requests. When the search term ("include" key in request payload) is large,
             // one of these POST requests will fail, but the others will continue to pass.
@@ -227,45 +227,103 @@ public class ToolsApiExtendedServiceImpl extends ToolsExtendedApiService {
                 }
             }
 
-            try {
-                RestClient restClient = ElasticSearchHelper.restClient();
-                Map<String, String> parameters = new HashMap<>();
-                // TODO: note that this is lossy if there are repeated parameters
-                // but it looks like the elastic search http client classes don't handle it
-                if (queryParameters != null) {
-                    queryParameters.forEach((key, value) -> parameters.put(key, value.get(0)));
-                }
-                // This should be using the high-level Elasticsearch client instead
-                Request request = new Request("GET", "/" + ALL_INDICES + "/_search");
-                if (query != null) {
-                    request.setJsonEntity(query);
+            Map<String, String> parameters = new HashMap<>();
+            // TODO: note that this is lossy if there are repeated parameters
+            // but it looks like the elastic search http client classes don't handle it
+            if (queryParameters != null) {
+                queryParameters.forEach((key, value) -> parameters.put(key, value.get(0)));
+            }
+            // identical searches share one call to Elasticsearch and its response for a few seconds
+            final CompletableFuture<byte[]> results = shareResults
+                ? SearchResultCache.getInstance().get(SearchResultCache.key(query, parameters), () -> search(query, parameters))
+                : search(query, parameters);
+            return results.handle((result, failure) -> {
+                if (failure != null) {
+                    throw searchFailure(failure);
                 }
-                request.addParameters(parameters);
-                org.elasticsearch.client.Response get = restClient.performRequest(request);
-                if (get.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
-                    throw new CustomWebApplicationException("Could not search " + ALL_INDICES + "index",
-                            HttpStatus.SC_INTERNAL_SERVER_ERROR);
+                return Response.ok().entity(result).build();
+            });
+        }
+        return CompletableFuture.completedFuture(Response.ok().entity(0).build());
+    }
+
+    /**
+     * Starts a search without waiting for Elasticsearch, at most MAX_CONCURRENT_SEARCHES at a time
+     */
+    private static CompletableFuture<byte[]> search(String query, Map<String, String> parameters) {
+        if (!SEARCH_PERMITS.tryAcquire()) {
+            return CompletableFuture.failedFuture(new CustomWebApplicationException("Too many searches in progress, try again later",
+                HttpStatus.SC_SERVICE_UNAVAILABLE));
+        }
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        final Cancellable cancellable;
+        try {
+            RestClient restClient = ElasticSearchHelper.restClient();
+            // This should be using the high-level Elasticsearch client instead
+            Request request = new Request("GET", "/" + ALL_INDICES + "/_search");
+            if (query != null) {
+                request.setJsonEntity(query);
+            }
+            request.addParameters(parameters);
+            cancellable = restClient.performRequestAsync(request, new ResponseListener() {
+                @Override
+                public void onSuccess(org.elasticsearch.client.Response response) {
+                    if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+                        result.completeExceptionally(new CustomWebApplicationException("Could not search " + ALL_INDICES + "index",
+                            HttpStatus.SC_INTERNAL_SERVER_ERROR));
+                        return;
+                    }
+                    try {
+                        result.complete(EntityUtils.toByteArray(response.getEntity()));
+                    } catch (IOException e) {
+                        result.completeExceptionally(e);
+                    }
                 }
-                return Response.ok().entity(get.getEntity().getContent()).build();
-            } catch (ResponseException e) {
-                // Only surface these codes to the user, everything else is not entirely obvious so returning 500 instead.
-                int[] codesToResurface = {HttpStatus.SC_BAD_REQUEST};
-                int statusCode = e.getResponse().getStatusLine().getStatusCode();
-                LOG.error("Could not use Elasticsearch search", e);
-                // Provide a minimal amount of error information in the browser console as outlined by
-                // https://ucsc-cgl.atlassian.net/browse/SEAB-2128
-                String reasonPhrase = e.getResponse().getStatusLine().getReasonPhrase();
-                if (ArrayUtils.contains(codesToResurface, statusCode)) {
-                    throw new CustomWebApplicationException(reasonPhrase, statusCode);
-                } else {
-                    throw new CustomWebApplicationException(reasonPhrase, HttpStatus.SC_INTERNAL_SERVER_ERROR);
+
+                @Override
+                public void onFailure(Exception exception) {
+                    result.completeExceptionally(exception);
                 }
-            } catch (IOException e2) {
-                LOG.error("Could not use Elasticsearch search", e2);
-                throw new CustomWebApplicationException("Search failed", HttpStatus.SC_INTERNAL_SERVER_ERROR);
+            });
+        } catch (RuntimeException e) {
+            SEARCH_PERMITS.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        result.orTimeout(SEARCH_TIMEOUT_SECONDS, TimeUnit.SECONDS).whenComplete((response, failure) -> {
+            SEARCH_PERMITS.release();
+            if (failure instanceof TimeoutException) {
+                cancellable.cancel();
+            }
+        });
+        return result;
+    }
+
+    private static CustomWebApplicationException searchFailure(Throwable failure) {
+        final Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof CustomWebApplicationException) {
+            return (CustomWebApplicationException)cause;
+        }
+        if (cause instanceof ResponseException) {
+            ResponseException e = (ResponseException)cause;
+            // Only surface these codes to the user, everything else is not entirely obvious so returning 500 instead.
+            int[] codesToResurface = {HttpStatus.SC_BAD_REQUEST};
+            int statusCode = e.getResponse().getStatusLine().getStatusCode();
+            LOG.error("Could not use Elasticsearch search", e);
+            // Provide a minimal amount of error information in the browser console as outlined by
+            // https://ucsc-cgl.atlassian.net/browse/SEAB-2128
+            String reasonPhrase = e.getResponse().getStatusLine().getReasonPhrase();
+            if (ArrayUtils.contains(codesToResurface, statusCode)) {
+                return new CustomWebApplicationException(reasonPhrase, statusCode);
+            } else {
+                return new CustomWebApplicationException(reasonPhrase, HttpStatus.SC_INTERNAL_SERVER_ERROR);
             }
         }
-        return Response.ok().entity(0).build();
+        if (cause instanceof TimeoutException) {
+            LOG.error("Elasticsearch search timed out after {} seconds", SEARCH_TIMEOUT_SECONDS);
+            return new CustomWebApplicationException("Search timed out", HttpStatus.SC_GATEWAY_TIMEOUT);
+        }
+        LOG.error("Could not use Elasticsearch search", cause);
+        return new CustomWebApplicationException("Search failed", HttpStatus.SC_INTERNAL_SERVER_ERROR);
     }
 
     @SuppressWarnings("checkstyle:parameternumber")
@@ -321,13 +379,4 @@ public class ToolsApiExtendedServiceImpl extends ToolsExtendedApiService {
         }
         throw new CustomWebApplicationException("Could not submit verification information", HttpStatus.SC_BAD_REQUEST);
     }
-
-    private void deleteIndex(RestHighLevelClient restClient, String index) {
-        try {
-            DeleteIndexRequest deleteIndexRequest = new DeleteIndexRequest(index);
-            restClient.indices().delete(deleteIndexRequest, RequestOptions.DEFAULT);
-        } catch (Exception e) {
-            LOG.warn("Could not delete previous elastic search " + index + " index, not an issue if this is cold start", e);
-        }
-    }
 }
@@ -19,6 +19,7 @@ import static io.dockstore.webservice.Constants.JWT_SECURITY_DEFINITION_NAME;
 
 import io.dockstore.webservice.DockstoreWebserviceApplication;
 import io.dockstore.webservice.core.User;
+import io.dockstore.webservice.helpers.AsyncResponseHelper;
 import io.dockstore.webservice.resources.ResourceConstants;
 import io.dropwizard.auth.Auth;
 import io.dropwizard.hibernate.UnitOfWork;
@@ -40,13 +41,16 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.util.Map;
 import javax.annotation.security.RolesAllowed;
+import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
 import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
@@ -88,9 +92,12 @@ public class ToolsExtendedApi {
     @Operation(operationId = ToolsIndexSearch.OPERATION_ID, summary = ToolsIndexSearch.SUMMARY, description = ToolsIndexSearch.DESCRIPTION, responses = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = HttpStatus.SC_OK + "", description = ToolsIndexSearch.OK_RESPONSE, content = @Content(mediaType = MediaType.APPLICATION_JSON, schema = @Schema(implementation = String.class)))
     })
-    public Response toolsIndexSearch(@ApiParam(value = "elastic search query", required = true) String query,
-                                       @Context UriInfo uriInfo, @Context SecurityContext securityContext) {
-        return delegate.toolsIndexSearch(query, uriInfo != null ? uriInfo.getQueryParameters() : null, securityContext);
+    public void toolsIndexSearch(@ApiParam(value = "elastic search query", required = true) String query,
+                                       @Context UriInfo uriInfo, @Context SecurityContext securityContext, @Context HttpServletRequest request,
+                                       @ApiParam(hidden = true) @Parameter(hidden = true) @Suspended AsyncResponse asyncResponse) {
+        // the request thread is released here, the response is written by a container thread once Elasticsearch answers
+        AsyncResponseHelper.resume(request, asyncResponse,
+            delegate.toolsIndexSearch(query, uriInfo != null ? uriInfo.getQueryParameters() : null, securityContext));
     }
 
     @POST
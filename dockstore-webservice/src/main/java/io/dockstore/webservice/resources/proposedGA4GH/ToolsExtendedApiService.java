@@ -16,6 +16,7 @@
 package io.dockstore.webservice.resources.proposedGA4GH;
 
 import io.swagger.api.NotFoundException;
+import java.util.concurrent.CompletableFuture;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
@@ -33,7 +34,11 @@ public abstract class ToolsExtendedApiService {
 
     public abstract Response toolsIndexGet(SecurityContext securityContext) throws NotFoundException;
 
-    public abstract Response toolsIndexSearch(String query, MultivaluedMap<String, String> queryParameters, SecurityContext securityContext);
+    public abstract CompletableFuture<Response> toolsIndexSearch(String query, MultivaluedMap<String, String> queryParameters, SecurityContext securityContext);
+    /**
+     * Same as toolsIndexSearch, but always asks Elasticsearch instead of sharing a recent identical search, e.g., for health checks
+     */
+    public abstract CompletableFuture<Response> toolsIndexSearchUncached(String query, MultivaluedMap<String, String> queryParameters);
     @SuppressWarnings("checkstyle:parameternumber")
     public abstract Response setSourceFileMetadata(String type, String id, String versionId, String relativePath, String platform, String platformVersion, Boolean verified, String metadata);
 
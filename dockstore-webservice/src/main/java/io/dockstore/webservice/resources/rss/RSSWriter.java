@@ -16,7 +16,15 @@
 package io.dockstore.webservice.resources.rss;
 
 import java.io.ByteArrayOutputStream;
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLEventWriter;
 import javax.xml.stream.XMLOutputFactory;
@@ -36,8 +44,23 @@ public final class RSSWriter {
     }
 
     public static void write(RSSFeed rssfeed, ByteArrayOutputStream byteArrayOutputStream) throws Exception {
+        List<String> items = new ArrayList<>();
+        for (RSSEntry entry : rssfeed.getEntries()) {
+            items.add(renderItem(entry));
+        }
+        write(rssfeed.getHeader(), items, byteArrayOutputStream);
+    }
+
+    /**
+     * Writes a feed around items that were already rendered with {@link #renderItem(RSSEntry)}
+     * @param header         the channel header
+     * @param renderedItems  pre-rendered item elements, written in order
+     * @param outputStream   written as UTF-8, not closed
+     */
+    public static void write(RSSHeader header, Collection<String> renderedItems, OutputStream outputStream) throws XMLStreamException, IOException {
+        Writer out = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
         XMLOutputFactory output = XMLOutputFactory.newInstance();
-        XMLEventWriter writer = output.createXMLEventWriter(byteArrayOutputStream);
+        XMLEventWriter writer = output.createXMLEventWriter(out);
         XMLEventFactory eventFactory = XMLEventFactory.newInstance();
         XMLEvent endSection = eventFactory.createDTD(xmlBlock);
 
@@ -52,26 +75,19 @@ public final class RSSWriter {
         writer.add(eventFactory.createStartElement("", "", "channel"));
         writer.add(endSection);
 
-        RSSHeader header = rssfeed.getHeader();
         createNode(writer, "title", header.getTitle());
         createNode(writer, "link", header.getLink());
         createNode(writer, "description", header.getDescription());
         createNode(writer, "language", header.getLanguage());
         createNode(writer, "copyright", header.getCopyright());
         createNode(writer, "pubDate", header.getPubDate());
-        Iterator<RSSEntry> iterator = rssfeed.getEntries().iterator();
-        while (iterator.hasNext()) {
-            RSSEntry entry = iterator.next();
-            writer.add(eventFactory.createStartElement("", "", "item"));
-            writer.add(endSection);
-            createNode(writer, "title", entry.getTitle());
-            createNode(writer, "description", entry.getDescription());
-            createNode(writer, "link", entry.getLink());
-            createNode(writer, "guid", entry.getGuid());
-            createNode(writer, "pubDate", entry.getPubDate());
-            writer.add(eventFactory.createEndElement("", "", "item"));
-            writer.add(endSection);
+
+        // the items are already escaped, write them straight through
+        writer.flush();
+        for (String item : renderedItems) {
+            out.write(item);
         }
+        out.flush();
 
         writer.add(endSection);
         writer.add(eventFactory.createEndElement("", "", "channel"));
@@ -81,6 +97,31 @@ public final class RSSWriter {
         writer.add(endSection);
         writer.add(eventFactory.createEndDocument());
         writer.close();
+        out.flush();
+    }
+
+    /**
+     * Renders a single item element so that it can be cached and reused across feeds
+     * @param entry the entry to render
+     * @return the item element as escaped XML
+     */
+    public static String renderItem(RSSEntry entry) throws XMLStreamException {
+        StringWriter out = new StringWriter();
+        XMLEventWriter writer = XMLOutputFactory.newInstance().createXMLEventWriter(out);
+        XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+        XMLEvent endSection = eventFactory.createDTD(xmlBlock);
+
+        writer.add(eventFactory.createStartElement("", "", "item"));
+        writer.add(endSection);
+        createNode(writer, "title", entry.getTitle());
+        createNode(writer, "description", entry.getDescription());
+        createNode(writer, "link", entry.getLink());
+        createNode(writer, "guid", entry.getGuid());
+        createNode(writer, "pubDate", entry.getPubDate());
+        writer.add(eventFactory.createEndElement("", "", "item"));
+        writer.add(endSection);
+        writer.close();
+        return out.toString();
     }
 
     private static void createNode(XMLEventWriter eventWriter, String name, String value) throws XMLStreamException {
@@ -43,6 +43,7 @@ import io.dockstore.webservice.core.Version;
 import io.dockstore.webservice.core.Workflow;
 import io.dockstore.webservice.core.WorkflowVersion;
 import io.dockstore.webservice.helpers.EntryVersionHelper;
+import io.dockstore.webservice.helpers.JsonStreamingHelper;
 import io.dockstore.webservice.helpers.statelisteners.TRSListener;
 import io.dockstore.webservice.jdbi.FileDAO;
 import io.dockstore.webservice.jdbi.ToolDAO;
@@ -65,12 +66,15 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.container.ContainerRequestContext;
@@ -80,8 +84,9 @@ import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.SecurityContext;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.http.HttpStatus;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -101,6 +106,7 @@ public class ToolsApiServiceImpl extends ToolsApiService implements Authenticate
     private static EntryVersionHelper<Tool, Tag, ToolDAO> toolHelper;
     private static TRSListener trsListener = null;
     private static EntryVersionHelper<Workflow, WorkflowVersion, WorkflowDAO> workflowHelper;
+    private static SessionFactory sessionFactory = null;
 
     public static void setToolDAO(ToolDAO toolDAO) {
         ToolsApiServiceImpl.toolDAO = toolDAO;
@@ -116,6 +122,10 @@ public class ToolsApiServiceImpl extends ToolsApiService implements Authenticate
         ToolsApiServiceImpl.fileDAO = fileDAO;
     }
 
+    public static void setSessionFactory(SessionFactory sessionFactory) {
+        ToolsApiServiceImpl.sessionFactory = sessionFactory;
+    }
+
     public static void setTrsListener(TRSListener listener) {
         ToolsApiServiceImpl.trsListener = listener;
     }
@@ -283,76 +293,48 @@ public class ToolsApiServiceImpl extends ToolsApiService implements Authenticate
         String description, String author, Boolean checker, String offset, Integer limit, SecurityContext securityContext,
         ContainerRequestContext value, Optional<User> user) {
 
-        final Integer hashcode = new HashCodeBuilder().append(id).append(alias).append(toolClass).append(descriptorType).append(registry).append(organization).append(name)
-            .append(toolname).append(description).append(author).append(checker).append(offset).append(limit)
-            .append(user.orElseGet(User::new).getId()).build();
-        final Optional<Response.ResponseBuilder> trsResponses = trsListener.getTrsResponse(hashcode);
+        final int actualLimit = MoreObjects.firstNonNull(limit, DEFAULT_PAGE_SIZE);
+        // key on the full query rather than a hash of it, the list compares element by element
+        final List<Object> query = Arrays.asList(id, alias, toolClass, descriptorType, registry, organization, name, toolname, description, author, checker,
+            offset, actualLimit, user.map(User::getId).orElse(null));
+        final Optional<Response.ResponseBuilder> trsResponses = trsListener.getTrsResponse(query);
         if (trsResponses.isPresent()) {
             return trsResponses.get().build();
         }
 
-        final List<Entry<?, ?>> all;
+        int offsetInteger = 0;
+        if (offset != null) {
+            offsetInteger = Integer.parseInt(offset);
+        }
+
+        // large listings are written out entry by entry instead of being built in memory
+        final boolean stream = id == null && alias == null && JsonStreamingHelper.shouldStream(config.getStreamingPageSizeThreshold(), actualLimit);
+        final EntryPage entryPage;
         try {
-            all = getEntries(id, alias, toolClass, descriptorType, registry, organization, name, toolname, description, author, checker, user);
+            entryPage = getEntries(id, alias, toolClass, descriptorType, registry, organization, name, toolname, description, author, checker, user,
+                offsetInteger, actualLimit, stream);
         } catch (UnsupportedEncodingException | IllegalArgumentException e) {
             return BAD_DECODE_RESPONSE;
         }
 
+        // only the requested page has been loaded, so only it gets converted
         List<io.openapi.model.Tool> results = new ArrayList<>();
-
-        for (Entry<?, ?> c : all) {
-            // filter tools
-            if (c instanceof Tool) {
-                Tool tool = (Tool)c;
-                // check each criteria. This sucks. Can we do this better with reflection? Or should we pre-convert?
-                if (registry != null && (tool.getRegistry() == null || !tool.getRegistry().contains(registry))) {
-                    continue;
-                }
-                if (organization != null && (tool.getNamespace() == null || !tool.getNamespace().contains(organization))) {
-                    continue;
-                }
-                if (name != null && (tool.getName() == null || !tool.getName().contains(name))) {
-                    continue;
-                }
-                if (toolname != null && (tool.getToolname() == null || !tool.getToolname().contains(toolname))) {
-                    continue;
-                }
-                if (descriptorType != null && !tool.getDescriptorType().contains(descriptorType)) {
-                    continue;
-                }
-                if (checker != null && checker) {
-                    // tools are never checker workflows
-                    continue;
-                }
-                // description and author exists for both tools and workflows, but workflows have already been filtered above.
-                if (description != null && (c.getDescription() == null || !c.getDescription().contains(description))) {
-                    continue;
-                }
-                if (author != null && (c.getAuthor() == null || !c.getAuthor().contains(author))) {
-                    continue;
-                }
-            }
-
-            // if passing, for each container that matches the criteria, convert to standardised format and return
+        Set<Long> pageEntryIds = new HashSet<>();
+        for (Entry<?, ?> c : entryPage.entries) {
             io.openapi.model.Tool tool = ToolsImplCommon.convertEntryToTool(c, config);
             if (tool != null) {
                 results.add(tool);
+                pageEntryIds.add(c.getId());
             }
         }
-
-        final int actualLimit = MoreObjects.firstNonNull(limit, DEFAULT_PAGE_SIZE);
-
-        List<List<io.openapi.model.Tool>> pagedResults = Lists.partition(results, actualLimit);
-        int offsetInteger = 0;
-        if (offset != null) {
-            offsetInteger = Integer.parseInt(offset);
-        }
-        if (offsetInteger >= pagedResults.size()) {
-            results = new ArrayList<>();
+        final long numberOfPages = (entryPage.total + actualLimit - 1) / actualLimit;
+        final Response.ResponseBuilder responseBuilder;
+        if (stream) {
+            responseBuilder = Response.ok(JsonStreamingHelper.<Entry<?, ?>>streamJsonArray(sessionFactory, entryPage.streamingSources,
+                c -> ToolsImplCommon.convertEntryToTool(c, config)), MediaType.APPLICATION_JSON_TYPE);
         } else {
-            results = pagedResults.get(offsetInteger);
+            responseBuilder = Response.ok(results);
         }
-        final Response.ResponseBuilder responseBuilder = Response.ok(results);
         responseBuilder.header("current_offset", offset);
         responseBuilder.header("current_limit", actualLimit);
         try {
@@ -372,7 +354,7 @@ public class ToolsApiServiceImpl extends ToolsApiService implements Authenticate
             handleParameter(registry, "registry", filters);
             handleParameter(String.valueOf(actualLimit), "limit", filters);
 
-            if (offsetInteger + 1 < pagedResults.size()) {
+            if (offsetInteger + 1 < numberOfPages) {
                 URI nextPageURI = new URI(config.getExternalConfig().getScheme(), null, config.getExternalConfig().getHostname(), port,
                     ObjectUtils.firstNonNull(config.getExternalConfig().getBasePath(), "") + DockstoreWebserviceApplication.GA4GH_API_PATH_V2_BETA
                         + "/tools", Joiner.on('&').join(filters) + "&offset=" + (offsetInteger + 1), null).normalize();
@@ -380,60 +362,131 @@ public class ToolsApiServiceImpl extends ToolsApiService implements Authenticate
             }
             URI lastPageURI = new URI(config.getExternalConfig().getScheme(), null, config.getExternalConfig().getHostname(), port,
                 ObjectUtils.firstNonNull(config.getExternalConfig().getBasePath(), "") + DockstoreWebserviceApplication.GA4GH_API_PATH_V2_BETA
-                    + "/tools", Joiner.on('&').join(filters) + "&offset=" + (pagedResults.size() - 1), null).normalize();
+                    + "/tools", Joiner.on('&').join(filters) + "&offset=" + (numberOfPages - 1), null).normalize();
             responseBuilder.header("last_page", lastPageURI.toURL().toString());
 
         } catch (URISyntaxException | MalformedURLException e) {
             throw new CustomWebApplicationException("Could not construct page links", HttpStatus.SC_BAD_REQUEST);
         }
-        trsListener.loadTRSResponse(hashcode, responseBuilder);
+        if (stream) {
+            // a streamed page is never held in memory, so there is nothing to cache
+            return responseBuilder.build();
+        }
+        final boolean listing = id == null;
+        final boolean filtered = alias != null || ObjectUtils.anyNotNull(descriptorType, registry, organization, name, toolname, description, author, checker);
+        final int weight = results.stream().mapToInt(tool -> tool.getVersions() == null ? 1 : tool.getVersions().size() + 1).sum();
+        trsListener.loadTRSResponse(query, new TRSListener.CachedPage(responseBuilder, pageEntryIds, listing, filtered, weight));
         return responseBuilder.build();
     }
 
+    /**
+     * Loads one page of entries for TRS /tools. Lookups by id or alias are filtered in memory since they load at most one entry,
+     * listings are filtered and paged in the database. When streaming, the listing is counted but not loaded, and the page comes
+     * back as cursors to be read while the response is written.
+     */
     @SuppressWarnings({"checkstyle:ParameterNumber"})
-    private List<Entry<?, ?>> getEntries(String id, String alias, String toolClass, String descriptorType, String registry, String organization, String name, String toolname,
-            String description, String author, Boolean checker, Optional<User> user) throws UnsupportedEncodingException {
-
-        final List<Entry<?, ?>> all = new ArrayList<>();
-
-        if (id != null) {
-            ParsedRegistryID parsedID = new ParsedRegistryID(id);
-            Entry<?, ?> entry = getEntry(parsedID, user);
-            all.add(entry);
-        } else if (alias != null) {
-            all.add(toolDAO.getGenericEntryByAlias(alias));
-        } else {
-            DescriptorLanguage descriptorLanguage = null;
-            if (descriptorType != null) {
-                try {
-                    // Tricky case for GALAXY because it doesn't match the rules of the other languages
-                    if ("galaxy".equalsIgnoreCase(descriptorType)) {
-                        descriptorType = DescriptorLanguage.GXFORMAT2.getShortName();
-                    }
-
-                    descriptorLanguage = DescriptorLanguage.convertShortStringToEnum(descriptorType);
-                } catch (UnsupportedOperationException ex) {
-                    // If unable to match descriptor language, do not return any entries.
-                    LOG.info(ex.getMessage());
-                    return all;
-                }
+    private EntryPage getEntries(String id, String alias, String toolClass, String descriptorType, String registry, String organization, String name, String toolname,
+            String description, String author, Boolean checker, Optional<User> user, int pageIndex, int pageSize, boolean stream) throws UnsupportedEncodingException {
+
+        if (id != null || alias != null) {
+            Entry<?, ?> entry;
+            if (id != null) {
+                ParsedRegistryID parsedID = new ParsedRegistryID(id);
+                entry = getEntry(parsedID, user);
+            } else {
+                entry = toolDAO.getGenericEntryByAlias(alias);
+            }
+            final List<Entry<?, ?>> all = new ArrayList<>();
+            if (entry != null && (!(entry instanceof Tool) || toolMatches((Tool)entry, descriptorType, registry, organization, name, toolname, description, author, checker))) {
+                all.add(entry);
             }
+            final List<List<Entry<?, ?>>> pagedEntries = Lists.partition(all, pageSize);
+            return new EntryPage(pageIndex < pagedEntries.size() ? pagedEntries.get(pageIndex) : new ArrayList<>(), all.size());
+        }
 
-            // TODO: Have DescriptorLanguage indicate whether the language supports tools. Make this less hack-ish
-            // Add tools if user didn't provide a tool class or the tool class provided matches to tools, AND
-            // user didn't provide a descriptor type or the one they provided matches to CWL or WDL
-            if (toolClass == null || COMMAND_LINE_TOOL.equalsIgnoreCase(toolClass)) {
-                if (descriptorType == null  || descriptorLanguage == DescriptorLanguage.WDL || descriptorLanguage == DescriptorLanguage.CWL) {
-                    all.addAll(toolDAO.findAllPublished());
+        DescriptorLanguage descriptorLanguage = null;
+        if (descriptorType != null) {
+            try {
+                // Tricky case for GALAXY because it doesn't match the rules of the other languages
+                if ("galaxy".equalsIgnoreCase(descriptorType)) {
+                    descriptorType = DescriptorLanguage.GXFORMAT2.getShortName();
                 }
 
+                descriptorLanguage = DescriptorLanguage.convertShortStringToEnum(descriptorType);
+            } catch (UnsupportedOperationException ex) {
+                // If unable to match descriptor language, do not return any entries.
+                LOG.info(ex.getMessage());
+                return new EntryPage(new ArrayList<>(), 0);
+            }
+        }
+
+        // TODO: Have DescriptorLanguage indicate whether the language supports tools. Make this less hack-ish
+        // Add tools if user didn't provide a tool class or the tool class provided matches to tools, AND
+        // user didn't provide a descriptor type or the one they provided matches to CWL or WDL, AND
+        // the user isn't looking for checker workflows since tools are never checker workflows
+        final boolean includeTools = (toolClass == null || COMMAND_LINE_TOOL.equalsIgnoreCase(toolClass))
+            && (descriptorType == null || descriptorLanguage == DescriptorLanguage.WDL || descriptorLanguage == DescriptorLanguage.CWL)
+            && !Boolean.TRUE.equals(checker);
+        final boolean includeWorkflows = toolClass == null || WORKFLOW.equalsIgnoreCase(toolClass);
+
+        // tools are listed before workflows, page across the two as if they were one list
+        final long toolCount = includeTools ? toolDAO.countTrsToolsGet(descriptorType, registry, organization, name, toolname, description, author) : 0;
+        final long workflowCount = includeWorkflows
+            ? workflowDAO.countTrsToolsGet(descriptorLanguage, registry, organization, name, toolname, description, author, checker) : 0;
+        final PageSplit split = new PageSplit(toolCount, workflowCount, pageIndex, pageSize);
+        final String finalDescriptorType = descriptorType;
+        final DescriptorLanguage finalDescriptorLanguage = descriptorLanguage;
+
+        final EntryPage entryPage = new EntryPage(new ArrayList<>(), toolCount + workflowCount);
+        if (split.toolsOnPage > 0) {
+            if (stream) {
+                entryPage.streamingSources.add(() -> toolDAO.scrollTrsToolsGet(finalDescriptorType, registry, organization, name, toolname, description, author,
+                    split.toolFirstResult, split.toolsOnPage));
+            } else {
+                entryPage.entries.addAll(toolDAO.filterTrsToolsGet(descriptorType, registry, organization, name, toolname, description, author,
+                    split.toolFirstResult, split.toolsOnPage));
             }
-            if (toolClass == null || WORKFLOW.equalsIgnoreCase(toolClass)) {
-                // filter published workflows using criteria builder
-                all.addAll(workflowDAO.filterTrsToolsGet(descriptorLanguage, registry, organization, name, toolname, description, author, checker));
+        }
+        if (split.workflowsOnPage > 0) {
+            // filter published workflows using criteria builder
+            if (stream) {
+                entryPage.streamingSources.add(() -> workflowDAO.scrollTrsToolsGet(finalDescriptorLanguage, registry, organization, name, toolname, description,
+                    author, checker, split.workflowFirstResult, split.workflowsOnPage));
+            } else {
+                entryPage.entries.addAll(workflowDAO.filterTrsToolsGet(descriptorLanguage, registry, organization, name, toolname, description, author, checker,
+                    split.workflowFirstResult, split.workflowsOnPage));
             }
         }
-        return all;
+        return entryPage;
+    }
+
+    @SuppressWarnings({"checkstyle:ParameterNumber"})
+    private boolean toolMatches(Tool tool, String descriptorType, String registry, String organization, String name, String toolname, String description,
+            String author, Boolean checker) {
+        // check each criteria. This sucks. Can we do this better with reflection? Or should we pre-convert?
+        if (registry != null && (tool.getRegistry() == null || !tool.getRegistry().contains(registry))) {
+            return false;
+        }
+        if (organization != null && (tool.getNamespace() == null || !tool.getNamespace().contains(organization))) {
+            return false;
+        }
+        if (name != null && (tool.getName() == null || !tool.getName().contains(name))) {
+            return false;
+        }
+        if (toolname != null && (tool.getToolname() == null || !tool.getToolname().contains(toolname))) {
+            return false;
+        }
+        if (descriptorType != null && !tool.getDescriptorType().contains(descriptorType)) {
+            return false;
+        }
+        if (checker != null && checker) {
+            // tools are never checker workflows
+            return false;
+        }
+        if (description != null && (tool.getDescription() == null || !tool.getDescription().contains(description))) {
+            return false;
+        }
+        return author == null || (tool.getAuthor() != null && tool.getAuthor().contains(author));
     }
 
     private void handleParameter(String parameter, String queryName, List<String> filters) {
@@ -857,4 +910,36 @@ public class ToolsApiServiceImpl extends ToolsApiService implements Authenticate
             return type;
         }
     }
+
+    /**
+     * Where one page of a TRS /tools listing falls, when the matching tools are listed before the matching workflows
+     */
+    static final class PageSplit {
+        final int toolFirstResult;
+        final int toolsOnPage;
+        final int workflowFirstResult;
+        final int workflowsOnPage;
+
+        PageSplit(long toolCount, long workflowCount, int pageIndex, int pageSize) {
+            final long firstResult = (long)pageIndex * pageSize;
+            toolsOnPage = (int)Math.max(0, Math.min(pageSize, toolCount - firstResult));
+            workflowsOnPage = (int)Math.max(0, Math.min(pageSize - toolsOnPage, toolCount + workflowCount - firstResult - toolsOnPage));
+            toolFirstResult = (int)Math.min(firstResult, toolCount);
+            workflowFirstResult = (int)Math.max(0, firstResult - toolCount);
+        }
+    }
+
+    /**
+     * One page of entries, or the cursors to stream them from, along with the total number of entries across all pages
+     */
+    private static final class EntryPage {
+        private final List<Entry<?, ?>> entries;
+        private final List<Supplier<ScrollableResults>> streamingSources = new ArrayList<>();
+        private final long total;
+
+        private EntryPage(List<Entry<?, ?>> entries, long total) {
+            this.entries = entries;
+            this.total = total;
+        }
+    }
 }
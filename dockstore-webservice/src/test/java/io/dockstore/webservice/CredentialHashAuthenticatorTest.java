@@ -0,0 +1,105 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+
+package io.dockstore.webservice;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import io.dockstore.webservice.core.User;
+import io.dropwizard.auth.AuthenticationException;
+import io.dropwizard.auth.Authenticator;
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CredentialHashAuthenticatorTest {
+
+    private static final String CREDENTIALS = "asdfafds";
+    private static final CaffeineSpec POLICY = CaffeineSpec.parse("maximumSize=100, expireAfterAccess=10m");
+
+    private Authenticator<String, User> authenticator;
+    private CredentialHashAuthenticator credentialHashAuthenticator;
+    private MetricRegistry metricRegistry;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        authenticator = mock(Authenticator.class);
+        metricRegistry = new MetricRegistry();
+        credentialHashAuthenticator = new CredentialHashAuthenticator(metricRegistry, authenticator, POLICY, POLICY);
+    }
+
+    @Test
+    public void usersAreCachedUntilInvalidated() throws AuthenticationException {
+        User user = new User();
+        user.setId(1L);
+        when(authenticator.authenticate(CREDENTIALS)).thenReturn(Optional.of(user));
+        Assert.assertSame(user, credentialHashAuthenticator.authenticate(CREDENTIALS).get());
+        Assert.assertSame(user, credentialHashAuthenticator.authenticate(CREDENTIALS).get());
+        verify(authenticator, times(1)).authenticate(CREDENTIALS);
+        Assert.assertEquals(2, metricRegistry.timer(MetricRegistry.name(authenticator.getClass(), "gets")).getCount());
+        Assert.assertEquals(1, metricRegistry.meter(MetricRegistry.name(authenticator.getClass(), "cache-misses")).getCount());
+
+        credentialHashAuthenticator.invalidateUser(1L);
+        credentialHashAuthenticator.authenticate(CREDENTIALS);
+        verify(authenticator, times(2)).authenticate(CREDENTIALS);
+    }
+
+    @Test
+    public void rejectedCredentialsAreCached() throws AuthenticationException {
+        when(authenticator.authenticate(CREDENTIALS)).thenReturn(Optional.empty());
+        Assert.assertFalse(credentialHashAuthenticator.authenticate(CREDENTIALS).isPresent());
+        Assert.assertFalse(credentialHashAuthenticator.authenticate(CREDENTIALS).isPresent());
+        verify(authenticator, times(1)).authenticate(CREDENTIALS);
+
+        credentialHashAuthenticator.invalidate(CREDENTIALS);
+        credentialHashAuthenticator.authenticate(CREDENTIALS);
+        verify(authenticator, times(2)).authenticate(CREDENTIALS);
+    }
+
+    @Test
+    public void credentialsThatCouldNotBeCheckedAreNotCached() throws AuthenticationException {
+        AuthenticationException unavailable = new AuthenticationException("Google unavailable");
+        when(authenticator.authenticate(CREDENTIALS)).thenThrow(unavailable);
+        for (int i = 0; i < 2; i++) {
+            try {
+                credentialHashAuthenticator.authenticate(CREDENTIALS);
+                Assert.fail("the failure should be passed on, so that the request fails with a 500");
+            } catch (AuthenticationException e) {
+                Assert.assertSame(unavailable, e);
+            }
+        }
+        verify(authenticator, times(2)).authenticate(CREDENTIALS);
+    }
+
+    @Test
+    public void invalidatingAUserForgetsRejections() throws AuthenticationException {
+        when(authenticator.authenticate(CREDENTIALS)).thenReturn(Optional.empty());
+        credentialHashAuthenticator.authenticate(CREDENTIALS);
+        verify(authenticator, times(1)).authenticate(CREDENTIALS);
+
+        // e.g., the user owning these credentials was unbanned
+        credentialHashAuthenticator.invalidateUser(1L);
+        credentialHashAuthenticator.authenticate(CREDENTIALS);
+        verify(authenticator, times(2)).authenticate(CREDENTIALS);
+    }
+}
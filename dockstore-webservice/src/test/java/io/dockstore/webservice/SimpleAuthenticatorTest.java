@@ -2,6 +2,7 @@ package io.dockstore.webservice;
 
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
@@ -10,6 +11,7 @@ import io.dockstore.webservice.core.Token;
 import io.dockstore.webservice.core.User;
 import io.dockstore.webservice.jdbi.TokenDAO;
 import io.dockstore.webservice.jdbi.UserDAO;
+import io.dropwizard.auth.AuthenticationException;
 import java.util.Optional;
 import org.junit.Assert;
 import org.junit.Before;
@@ -37,7 +39,7 @@ public class SimpleAuthenticatorTest {
     }
 
     @Test
-    public void authenticateDockstoreToken() {
+    public void authenticateDockstoreToken() throws AuthenticationException {
         when(token.getUserId()).thenReturn(USER_ID);
         when(tokenDAO.findByContent(credentials)).thenReturn(token);
         when(userDAO.findById(USER_ID)).thenReturn(user);
@@ -46,7 +48,7 @@ public class SimpleAuthenticatorTest {
     }
 
     @Test
-    public void authenticateGoogleTokenExistingUser() {
+    public void authenticateGoogleTokenExistingUser() throws AuthenticationException {
         when(tokenDAO.findByContent(credentials)).thenReturn(null);
         doReturn(Optional.of(userinfoplus)).when(simpleAuthenticator).userinfoPlusFromToken(credentials);
         when(userinfoplus.getEmail()).thenReturn(USER_EMAIL);
@@ -56,7 +58,7 @@ public class SimpleAuthenticatorTest {
     }
 
     @Test
-    public void authenticateGoogleTokenNewUser() {
+    public void authenticateGoogleTokenNewUser() throws AuthenticationException {
         when(tokenDAO.findByContent(credentials)).thenReturn(null);
         doReturn(Optional.of(userinfoplus)).when(simpleAuthenticator).userinfoPlusFromToken(credentials);
         when(userinfoplus.getEmail()).thenReturn(USER_EMAIL);
@@ -66,8 +68,14 @@ public class SimpleAuthenticatorTest {
     }
 
     @Test
-    public void authenticateBadToken() {
+    public void authenticateBadToken() throws AuthenticationException {
         doReturn(Optional.empty()).when(simpleAuthenticator).userinfoPlusFromToken(credentials);
         Assert.assertFalse(simpleAuthenticator.authenticate(credentials).isPresent());
     }
+
+    @Test(expected = AuthenticationException.class)
+    public void authenticateWhenGoogleIsUnavailable() throws AuthenticationException {
+        doThrow(new AuthenticationException("Google unavailable")).when(simpleAuthenticator).userinfoPlusFromToken(credentials);
+        simpleAuthenticator.authenticate(credentials);
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.jdbc.Work;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SourceFileContentListenerTest {
+    private static final String FOO_SHA256 = "2c26b46b68ffc68ff99b453c1d30413413422d706483bfa0f98a5e886266e7ae";
+
+    private EventSource session;
+    private Connection connection;
+    private ResultSet found;
+    private PreparedStatement insert;
+
+    @Before
+    public void setup() throws SQLException {
+        session = mock(EventSource.class);
+        connection = mock(Connection.class);
+        found = mock(ResultSet.class);
+        insert = mock(PreparedStatement.class);
+        final PreparedStatement find = mock(PreparedStatement.class);
+        when(connection.prepareStatement(SourceFileContentListener.FIND_CONTENT)).thenReturn(find);
+        when(connection.prepareStatement(SourceFileContentListener.INSERT_CONTENT)).thenReturn(insert);
+        when(find.executeQuery()).thenReturn(found);
+        doAnswer(invocation -> {
+            invocation.<Work>getArgument(0).execute(connection);
+            return null;
+        }).when(session).doWork(any());
+    }
+
+    @Test
+    public void contentIsKeyedByItsSha256() {
+        final SourceFile sourceFile = new SourceFile();
+        assertTrue(sourceFile.isContentStored());
+        sourceFile.setContent("foo");
+        assertEquals(FOO_SHA256, sourceFile.getContentSha256());
+        assertFalse(sourceFile.isContentStored());
+        sourceFile.setContent(null);
+        assertNull(sourceFile.getContentSha256());
+    }
+
+    @Test
+    public void newContentIsInserted() throws SQLException {
+        when(found.next()).thenReturn(false);
+        final SourceFile sourceFile = new SourceFile();
+        sourceFile.setContent("foo");
+
+        new SourceFileContentListener().onPreInsert(insertEvent(sourceFile));
+
+        verify(insert).setString(1, FOO_SHA256);
+        verify(insert).setString(2, "foo");
+        verify(insert).executeUpdate();
+        assertTrue(sourceFile.isContentStored());
+    }
+
+    @Test
+    public void knownContentIsOnlyLookedUpByItsKey() throws SQLException {
+        when(found.next()).thenReturn(true);
+        final SourceFile sourceFile = new SourceFile();
+        sourceFile.setContent("foo");
+
+        new SourceFileContentListener().onPreInsert(insertEvent(sourceFile));
+
+        verify(connection, never()).prepareStatement(SourceFileContentListener.INSERT_CONTENT);
+        assertTrue(sourceFile.isContentStored());
+    }
+
+    @Test
+    public void carriedOverContentIsNotSentAgain() {
+        final SourceFile stored = new SourceFile();
+        stored.setContent("foo");
+        stored.setContentStored(true);
+        final SourceFile carriedOver = new SourceFile();
+        carriedOver.copyContentFrom(stored);
+
+        new SourceFileContentListener().onPreInsert(insertEvent(carriedOver));
+
+        assertEquals(FOO_SHA256, carriedOver.getContentSha256());
+        assertEquals("foo", carriedOver.getContent());
+        verify(session, never()).doWork(any());
+    }
+
+    private PreInsertEvent insertEvent(SourceFile sourceFile) {
+        final PreInsertEvent event = mock(PreInsertEvent.class);
+        when(event.getEntity()).thenReturn(sourceFile);
+        when(event.getSession()).thenReturn(session);
+        return event;
+    }
+}
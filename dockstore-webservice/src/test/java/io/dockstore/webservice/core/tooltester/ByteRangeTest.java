@@ -0,0 +1,63 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.core.tooltester;
+
+import io.dockstore.webservice.CustomWebApplicationException;
+import org.apache.http.HttpStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteRangeTest {
+
+    @Test
+    public void fromHeader() {
+        ByteRange range = ByteRange.fromHeader("bytes=0-1023", 4096).get();
+        Assert.assertEquals(0, range.getFirst());
+        Assert.assertEquals(1023, range.getLast());
+        Assert.assertEquals(1024, range.size());
+        Assert.assertEquals("bytes 0-1023/4096", range.toContentRange());
+
+        Assert.assertEquals("bytes 1024-4095/4096", ByteRange.fromHeader("bytes=1024-", 4096).get().toContentRange());
+        Assert.assertEquals("bytes 4000-4095/4096", ByteRange.fromHeader("bytes=4000-9999", 4096).get().toContentRange());
+        Assert.assertEquals("bytes 3072-4095/4096", ByteRange.fromHeader("bytes=-1024", 4096).get().toContentRange());
+        Assert.assertEquals("bytes 0-4095/4096", ByteRange.fromHeader("bytes=-8192", 4096).get().toContentRange());
+    }
+
+    @Test
+    public void unsupportedHeadersSendTheWholeLog() {
+        Assert.assertFalse(ByteRange.fromHeader(null, 4096).isPresent());
+        Assert.assertFalse(ByteRange.fromHeader("bytes=0-1,5-6", 4096).isPresent());
+        Assert.assertFalse(ByteRange.fromHeader("bytes=10-5", 4096).isPresent());
+        Assert.assertFalse(ByteRange.fromHeader("lines=0-5", 4096).isPresent());
+        Assert.assertFalse(ByteRange.fromHeader("bytes=-", 4096).isPresent());
+    }
+
+    @Test
+    public void unsatisfiableRanges() {
+        try {
+            ByteRange.fromHeader("bytes=4096-", 4096);
+            Assert.fail("a range past the end of the log should not be satisfiable");
+        } catch (CustomWebApplicationException e) {
+            Assert.assertEquals(HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE, e.getResponse().getStatus());
+        }
+        try {
+            ByteRange.tail(10, 0);
+            Assert.fail("the tail of an empty log should not be satisfiable");
+        } catch (CustomWebApplicationException e) {
+            Assert.assertEquals(HttpStatus.SC_REQUESTED_RANGE_NOT_SATISFIABLE, e.getResponse().getStatus());
+        }
+    }
+}
@@ -18,8 +18,20 @@
 
 package io.dockstore.webservice.core.tooltester;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsV2Request;
+import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
 import java.io.UnsupportedEncodingException;
+import java.util.List;
 import java.util.Map;
 import javax.ws.rs.core.MediaType;
 import org.junit.Assert;
@@ -69,4 +81,40 @@ public class ToolTesterS3ClientTest {
         Assert.assertEquals("10101011.log", toolTesterLog.getFilename());
     }
 
+    /**
+     * Test that logs from every page of a listing are returned, and that pages are cached
+     */
+    @Test
+    public void getToolTesterLogsFromEveryPage() throws UnsupportedEncodingException {
+        AmazonS3 s3 = mock(AmazonS3.class);
+        ListObjectsV2Result firstPage = listing("first.log", "next");
+        ListObjectsV2Result secondPage = listing("second.log", null);
+        when(s3.listObjectsV2(any(ListObjectsV2Request.class)))
+                .thenAnswer(invocation -> ((ListObjectsV2Request)invocation.getArgument(0)).getContinuationToken() == null ? firstPage : secondPage);
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.addUserMetadata("runner", "cwltool");
+        when(s3.getObjectMetadata(anyString(), anyString())).thenReturn(metadata);
+
+        ToolTesterS3Client client = new ToolTesterS3Client("bucket", s3);
+        List<ToolTesterLog> logs = client.getToolTesterLogs("quay.io/pancancer/pcawg-bwa-mem-workflow", "2.7.0");
+        Assert.assertEquals(2, logs.size());
+        Assert.assertEquals("first.log", logs.get(0).getFilename());
+        Assert.assertEquals("second.log", logs.get(1).getFilename());
+        Assert.assertEquals("cwltool", logs.get(1).getRunner());
+
+        ToolTesterLogPage page = client.getToolTesterLogs("quay.io/pancancer/pcawg-bwa-mem-workflow", "2.7.0", ToolTesterS3Client.MAX_PAGE_SIZE, null);
+        Assert.assertEquals("next", page.getNextContinuationToken());
+        verify(s3, times(2)).listObjectsV2(any(ListObjectsV2Request.class));
+        verify(s3, times(2)).getObjectMetadata(anyString(), anyString());
+    }
+
+    private ListObjectsV2Result listing(String filename, String nextContinuationToken) {
+        ListObjectsV2Result listing = new ListObjectsV2Result();
+        S3ObjectSummary summary = new S3ObjectSummary();
+        summary.setKey("tool/quay.io/pancancer/pcawg-bwa-mem-workflow/2.7.0/test1.json/cwltool/" + filename);
+        listing.getObjectSummaries().add(summary);
+        listing.setTruncated(nextContinuationToken != null);
+        listing.setNextContinuationToken(nextContinuationToken);
+        return listing;
+    }
 }
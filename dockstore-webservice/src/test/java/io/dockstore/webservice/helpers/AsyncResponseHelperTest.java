@@ -0,0 +1,85 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.dockstore.webservice.CustomWebApplicationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+import org.apache.http.HttpStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class AsyncResponseHelperTest {
+
+    private HttpServletRequest request;
+    private AsyncContext asyncContext;
+    private AsyncResponse asyncResponse;
+
+    @Before
+    public void setup() {
+        request = mock(HttpServletRequest.class);
+        asyncContext = mock(AsyncContext.class);
+        asyncResponse = mock(AsyncResponse.class);
+        when(request.isAsyncStarted()).thenReturn(true);
+        when(request.getAsyncContext()).thenReturn(asyncContext);
+    }
+
+    @Test
+    public void responsesAreWrittenByTheContainer() {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        AsyncResponseHelper.resume(request, asyncResponse, future);
+        Response response = Response.ok().build();
+        future.complete(response);
+
+        // completing the future only hands the response over
+        verify(asyncResponse, never()).resume(any(Response.class));
+        ArgumentCaptor<Runnable> resume = ArgumentCaptor.forClass(Runnable.class);
+        verify(asyncContext).start(resume.capture());
+        resume.getValue().run();
+        verify(asyncResponse).resume(response);
+    }
+
+    @Test
+    public void failuresAreResumedWithTheirCause() {
+        CustomWebApplicationException failure = new CustomWebApplicationException("Too many searches", HttpStatus.SC_SERVICE_UNAVAILABLE);
+        AsyncResponseHelper.resume(request, asyncResponse, CompletableFuture.failedFuture(new CompletionException(failure)));
+
+        ArgumentCaptor<Runnable> resume = ArgumentCaptor.forClass(Runnable.class);
+        verify(asyncContext).start(resume.capture());
+        resume.getValue().run();
+        verify(asyncResponse).resume(failure);
+    }
+
+    @Test
+    public void requestsThatAreNotAsyncAreResumedDirectly() {
+        when(request.isAsyncStarted()).thenReturn(false);
+        Response response = Response.ok().build();
+        AsyncResponseHelper.resume(request, asyncResponse, CompletableFuture.completedFuture(response));
+        verify(asyncResponse).resume(response);
+        verify(request, never()).getAsyncContext();
+    }
+}
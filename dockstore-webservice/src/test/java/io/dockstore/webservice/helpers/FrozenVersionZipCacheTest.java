@@ -0,0 +1,95 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import io.dockstore.webservice.core.SourceFile;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FrozenVersionZipCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void keysChangeWithContent() {
+        SourceFile sourceFile = sourceFile("/Dockstore.cwl", "cwlVersion: v1.0");
+        String key = FrozenVersionZipCache.key(1L, Set.of(sourceFile));
+        Assert.assertEquals(key, FrozenVersionZipCache.key(1L, Set.of(sourceFile("/Dockstore.cwl", "cwlVersion: v1.0"))));
+        Assert.assertNotEquals(key, FrozenVersionZipCache.key(2L, Set.of(sourceFile)));
+        Assert.assertNotEquals(key, FrozenVersionZipCache.key(1L, Set.of(sourceFile("/Dockstore.cwl", "cwlVersion: v1.1"))));
+    }
+
+    @Test
+    public void zipsAreWrittenOnce() throws IOException {
+        FrozenVersionZipCache cache = new FrozenVersionZipCache(temporaryFolder.getRoot().toPath());
+        AtomicInteger writes = new AtomicInteger();
+        byte[] zipContent = "zip".getBytes(StandardCharsets.UTF_8);
+
+        FrozenVersionZipCache.CachedZip zip = cache.get("1-abc", writer(zipContent, writes)).get();
+        Assert.assertEquals(zipContent.length, zip.getSize());
+        FrozenVersionZipCache.CachedZip cached = cache.get("1-abc", output -> writes.incrementAndGet()).get();
+        Assert.assertEquals(1, writes.get());
+
+        ByteArrayOutputStream served = new ByteArrayOutputStream();
+        cached.transferTo(served);
+        Assert.assertArrayEquals(zipContent, served.toByteArray());
+        zip.close();
+    }
+
+    @Test
+    public void zipsEvictedWhileServedAreStillRead() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        FrozenVersionZipCache cache = new FrozenVersionZipCache(directory);
+        byte[] zipContent = "zip".getBytes(StandardCharsets.UTF_8);
+
+        FrozenVersionZipCache.CachedZip zip = cache.get("1-abc", writer(zipContent, new AtomicInteger())).get();
+        Files.delete(directory.resolve("1-abc.zip"));
+
+        ByteArrayOutputStream served = new ByteArrayOutputStream();
+        zip.transferTo(served);
+        Assert.assertArrayEquals(zipContent, served.toByteArray());
+    }
+
+    private static Consumer<OutputStream> writer(byte[] zipContent, AtomicInteger writes) {
+        return output -> {
+            writes.incrementAndGet();
+            try {
+                output.write(zipContent);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
+    private static SourceFile sourceFile(String absolutePath, String content) {
+        SourceFile sourceFile = new SourceFile();
+        sourceFile.setAbsolutePath(absolutePath);
+        sourceFile.setContent(content);
+        return sourceFile;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.Test;
+
+public class GitHubTreeFilesTest {
+
+    private static final Map<String, String> BLOB_SHAS = Map.of(
+        "Dockstore.cwl", "a",
+        "tools/md5sum.cwl", "b",
+        "copy/md5sum.cwl", "b",
+        "test.json", "c",
+        "other.json", "d");
+
+    @Test
+    public void sharedBlobsAreReadOnce() throws IOException {
+        List<String> reads = new CopyOnWriteArrayList<>();
+        GitHubTreeFiles files = new GitHubTreeFiles(BLOB_SHAS, Set.of(), blobSha -> {
+            reads.add(blobSha);
+            return "content of " + blobSha;
+        }, () -> 5000);
+
+        // md5sum.cwl is likely imported by Dockstore.cwl, other.json is not
+        assertEquals(3, files.prefetch(List.of("/Dockstore.cwl", "/test.json", "test.json")));
+        assertEquals("content of b", files.read("/tools/md5sum.cwl"));
+        assertEquals("content of b", files.read("copy/md5sum.cwl"));
+        assertEquals("content of a", files.read("Dockstore.cwl"));
+        assertNull(files.read("/missing.cwl"));
+        assertEquals(3, reads.size());
+        assertFalse(reads.contains("d"));
+    }
+
+    @Test
+    public void nothingIsPrefetchedWhenTheRateLimitIsLow() throws IOException {
+        List<String> reads = new CopyOnWriteArrayList<>();
+        GitHubTreeFiles files = new GitHubTreeFiles(BLOB_SHAS, Set.of(), blobSha -> {
+            reads.add(blobSha);
+            return blobSha;
+        }, () -> GitHubTreeFiles.RATE_LIMIT_RESERVE);
+
+        assertEquals(0, files.prefetch(List.of("/Dockstore.cwl")));
+        assertTrue(reads.isEmpty());
+        assertEquals("a", files.read("/Dockstore.cwl"));
+    }
+
+    @Test
+    public void pathsThroughSymbolicLinksAreNotRead() {
+        GitHubTreeFiles files = new GitHubTreeFiles(BLOB_SHAS, Set.of("linked", "tools/linked.cwl"), blobSha -> blobSha, () -> 5000);
+        assertTrue(files.canRead("/tools/md5sum.cwl"));
+        assertFalse(files.canRead("/linked/md5sum.cwl"));
+        assertFalse(files.canRead("tools/linked.cwl"));
+        assertFalse(files.canRead("tools/../Dockstore.cwl"));
+    }
+}
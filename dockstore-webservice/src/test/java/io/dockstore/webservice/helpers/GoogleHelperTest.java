@@ -2,11 +2,14 @@ package io.dockstore.webservice.helpers;
 
 import static org.mockito.Mockito.when;
 
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.services.oauth2.model.Tokeninfo;
 import com.google.api.services.oauth2.model.Userinfoplus;
 import io.dockstore.webservice.DockstoreWebserviceConfiguration;
 import io.dockstore.webservice.core.TokenType;
 import io.dockstore.webservice.core.User;
+import org.apache.http.HttpStatus;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -50,4 +53,17 @@ public class GoogleHelperTest {
         Assert.assertEquals(username, profile.name);
         Assert.assertEquals(pictureUrl, profile.avatarURL);
     }
+
+    @Test
+    public void onlyClientErrorsAreRejections() {
+        Assert.assertTrue(GoogleHelper.isRejection(responseException(HttpStatus.SC_BAD_REQUEST)));
+        Assert.assertTrue(GoogleHelper.isRejection(responseException(HttpStatus.SC_UNAUTHORIZED)));
+        Assert.assertFalse(GoogleHelper.isRejection(responseException(429)));
+        Assert.assertFalse(GoogleHelper.isRejection(responseException(HttpStatus.SC_INTERNAL_SERVER_ERROR)));
+        Assert.assertFalse(GoogleHelper.isRejection(responseException(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+    }
+
+    private static HttpResponseException responseException(int statusCode) {
+        return new HttpResponseException.Builder(statusCode, null, new HttpHeaders()).build();
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.context.internal.ManagedSessionContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JsonStreamingHelperTest {
+
+    private SessionFactory sessionFactory;
+    private Session session;
+    private Transaction transaction;
+
+    @Before
+    public void setup() {
+        sessionFactory = mock(SessionFactory.class);
+        session = mock(Session.class);
+        transaction = mock(Transaction.class);
+        when(sessionFactory.openSession()).thenReturn(session);
+        when(session.getSessionFactory()).thenReturn(sessionFactory);
+        when(session.beginTransaction()).thenReturn(transaction);
+    }
+
+    @After
+    public void tearDown() {
+        ManagedSessionContext.unbind(sessionFactory);
+    }
+
+    @Test
+    public void onlyPagesAtOrAboveTheThresholdAreStreamed() {
+        assertFalse(JsonStreamingHelper.shouldStream(null, 1000));
+        assertFalse(JsonStreamingHelper.shouldStream(500, 499));
+        assertTrue(JsonStreamingHelper.shouldStream(500, 500));
+        assertTrue(JsonStreamingHelper.shouldStream(500, 1000));
+    }
+
+    @Test
+    public void everyConvertedEntityIsWrittenInOrder() throws IOException {
+        ScrollableResults first = results("a", "skip", "b");
+        ScrollableResults second = results("c");
+        List<Boolean> boundWhileReading = new ArrayList<>();
+        List<Supplier<ScrollableResults>> sources = List.of(() -> {
+            boundWhileReading.add(ManagedSessionContext.hasBind(sessionFactory));
+            return first;
+        }, () -> second);
+
+        String json = write(sources);
+
+        assertEquals(List.of("A", "B", "C"), List.of(new ObjectMapper().readValue(json, String[].class)));
+        assertEquals(List.of(true), boundWhileReading);
+        verify(first).close();
+        verify(second).close();
+        verify(session).setDefaultReadOnly(true);
+        verify(transaction).rollback();
+        verify(session).close();
+        assertFalse(ManagedSessionContext.hasBind(sessionFactory));
+    }
+
+    @Test
+    public void sessionIsClearedEveryChunk() throws IOException {
+        String[] entities = new String[JsonStreamingHelper.CHUNK_SIZE * 2 + 1];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = "entry" + i;
+        }
+
+        String json = write(List.of(() -> results(entities)));
+
+        assertEquals(entities.length, new ObjectMapper().readValue(json, String[].class).length);
+        verify(session, times(2)).clear();
+    }
+
+    @Test
+    public void previouslyBoundSessionIsRestored() throws IOException {
+        Session previous = mock(Session.class);
+        when(previous.getSessionFactory()).thenReturn(sessionFactory);
+        ManagedSessionContext.bind(previous);
+
+        write(List.of(() -> results("a")));
+
+        assertTrue(ManagedSessionContext.hasBind(sessionFactory));
+        assertSame(previous, ManagedSessionContext.unbind(sessionFactory));
+    }
+
+    private String write(List<Supplier<ScrollableResults>> sources) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        JsonStreamingHelper.<String>streamJsonArray(sessionFactory, sources, entity -> "skip".equals(entity) ? null : entity.toUpperCase())
+            .write(output);
+        return output.toString();
+    }
+
+    private static ScrollableResults results(String... entities) {
+        ScrollableResults results = mock(ScrollableResults.class);
+        int[] position = {-1};
+        when(results.next()).thenAnswer(invocation -> ++position[0] < entities.length);
+        when(results.get(0)).thenAnswer(invocation -> entities[position[0]]);
+        return results;
+    }
+}
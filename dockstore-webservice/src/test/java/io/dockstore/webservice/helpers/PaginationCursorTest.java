@@ -0,0 +1,50 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.dockstore.webservice.CustomWebApplicationException;
+import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PaginationCursorTest {
+
+    @Test
+    public void cursorsRoundTrip() {
+        Assert.assertEquals(Long.MAX_VALUE, PaginationCursor.decode(null));
+        Assert.assertEquals(Long.MAX_VALUE, PaginationCursor.decode(""));
+        Assert.assertEquals(42L, PaginationCursor.decode(PaginationCursor.encode(42L)));
+    }
+
+    @Test(expected = CustomWebApplicationException.class)
+    public void invalidCursorsAreRejected() {
+        PaginationCursor.decode("not a cursor");
+    }
+
+    @Test
+    public void onlyFullPagesHaveANextCursor() {
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        PaginationCursor.addNextCursorHeader(response, List.of(9L, 5L), 3, id -> id);
+        verify(response, never()).addHeader(PaginationCursor.NEXT_CURSOR_HEADER, PaginationCursor.encode(5L));
+        PaginationCursor.addNextCursorHeader(response, List.of(9L, 5L, 2L), 3, id -> id);
+        verify(response).addHeader(PaginationCursor.NEXT_CURSOR_HEADER, PaginationCursor.encode(2L));
+    }
+}
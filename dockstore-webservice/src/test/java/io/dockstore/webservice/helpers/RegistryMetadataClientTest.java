@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class RegistryMetadataClientTest {
+    private static final String TAGS_URL = AbstractImageRegistry.DOCKERHUB_URL + "repositories/library/python/tags";
+    private static final Instant START = Instant.parse("2021-06-01T00:00:00Z");
+
+    private HttpClient httpClient;
+    private Clock clock;
+    private RegistryMetadataClient client;
+
+    @Before
+    public void setup() {
+        httpClient = mock(HttpClient.class);
+        clock = mock(Clock.class);
+        when(clock.instant()).thenReturn(START);
+        client = new RegistryMetadataClient(httpClient, clock);
+    }
+
+    @Test
+    public void unchangedListingsAreRevalidated() throws IOException, InterruptedException {
+        HttpResponse<String> ok = response(200, "{\"results\": []}", Map.of("ETag", List.of("\"abc\"")));
+        doReturn(ok).when(httpClient).send(any(), any());
+        assertEquals(Optional.of("{\"results\": []}"), client.get(TAGS_URL));
+        assertEquals(Optional.of("{\"results\": []}"), client.get(TAGS_URL));
+        verify(httpClient, times(1)).send(any(), any());
+
+        when(clock.instant()).thenReturn(START.plusSeconds(RegistryMetadataClient.FRESH_SECONDS));
+        HttpResponse<String> notModified = response(304, "", Map.of());
+        doReturn(notModified).when(httpClient).send(any(), any());
+        assertEquals(Optional.of("{\"results\": []}"), client.get(TAGS_URL));
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient, times(2)).send(requests.capture(), any());
+        assertEquals(Optional.of("\"abc\""), requests.getValue().headers().firstValue("If-None-Match"));
+    }
+
+    @Test
+    public void refreshesRevalidateFreshListings() throws IOException, InterruptedException {
+        HttpResponse<String> ok = response(200, "{\"results\": []}", Map.of("ETag", List.of("\"abc\"")));
+        doReturn(ok).when(httpClient).send(any(), any());
+        assertEquals(Optional.of("{\"results\": []}"), client.get(TAGS_URL));
+
+        HttpResponse<String> notModified = response(304, "", Map.of());
+        doReturn(notModified).when(httpClient).send(any(), any());
+        assertEquals(Optional.of("{\"results\": []}"), client.get(TAGS_URL, null, true));
+        ArgumentCaptor<HttpRequest> requests = ArgumentCaptor.forClass(HttpRequest.class);
+        verify(httpClient, times(2)).send(requests.capture(), any());
+        assertEquals(Optional.of("\"abc\""), requests.getValue().headers().firstValue("If-None-Match"));
+    }
+
+    @Test
+    public void rateLimitedRegistriesAreNotCalledUntilTheLimitResets() throws IOException, InterruptedException {
+        HttpResponse<String> tooManyRequests = response(RegistryMetadataClient.TOO_MANY_REQUESTS, "", Map.of("Retry-After", List.of("120")));
+        doReturn(tooManyRequests).when(httpClient).send(any(), any());
+        assertFalse(client.get(TAGS_URL).isPresent());
+        assertFalse(client.get(TAGS_URL + "?page=2").isPresent());
+        verify(httpClient, times(1)).send(any(), any());
+
+        when(clock.instant()).thenReturn(START.plusSeconds(120));
+        HttpResponse<String> ok = response(200, "{}", Map.of("X-RateLimit-Remaining", List.of("99;w=21600")));
+        doReturn(ok).when(httpClient).send(any(), any());
+        assertEquals(Optional.of("{}"), client.get(TAGS_URL));
+        verify(httpClient, times(2)).send(any(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HttpResponse<String> response(int status, String body, Map<String, List<String>> headers) {
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body);
+        when(response.headers()).thenReturn(HttpHeaders.of(headers, (name, value) -> true));
+        return response;
+    }
+}
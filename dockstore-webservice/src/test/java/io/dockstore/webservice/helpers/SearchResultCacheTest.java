@@ -0,0 +1,97 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SearchResultCacheTest {
+
+    @Test
+    public void keysIgnoreOrder() {
+        Assert.assertEquals(SearchResultCache.key("{\"size\": 1, \"query\": {\"match_all\": {}}}", Map.of("a", "1", "b", "2")),
+            SearchResultCache.key("{\"query\":{\"match_all\":{}},\"size\":1}", Map.of("b", "2", "a", "1")));
+        Assert.assertNotEquals(SearchResultCache.key("{\"size\": 1}", Map.of()), SearchResultCache.key("{\"size\": 2}", Map.of()));
+        Assert.assertNotEquals(SearchResultCache.key("{\"size\": 1}", Map.of()), SearchResultCache.key("{\"size\": 1}", Map.of("a", "1")));
+        Assert.assertNotEquals(SearchResultCache.key(null, Map.of()), SearchResultCache.key("not json", Map.of()));
+    }
+
+    @Test
+    public void identicalSearchesShareOneCall() {
+        SearchResultCache cache = new SearchResultCache();
+        AtomicInteger searches = new AtomicInteger();
+        CompletableFuture<byte[]> search = new CompletableFuture<>();
+        byte[] response = "{}".getBytes(StandardCharsets.UTF_8);
+
+        CompletableFuture<byte[]> first = cache.get(SearchResultCache.key("{}", Map.of()), () -> {
+            searches.incrementAndGet();
+            return search;
+        });
+        CompletableFuture<byte[]> second = cache.get(SearchResultCache.key("{}", Map.of()), () -> {
+            searches.incrementAndGet();
+            return CompletableFuture.completedFuture(response);
+        });
+        Assert.assertFalse(second.isDone());
+        search.complete(response);
+        Assert.assertSame(response, first.join());
+        Assert.assertSame(response, second.join());
+        Assert.assertSame(response, cache.get(SearchResultCache.key("{}", Map.of()), () -> {
+            searches.incrementAndGet();
+            return CompletableFuture.completedFuture(response);
+        }).join());
+        Assert.assertEquals(1, searches.get());
+
+        cache.invalidateAll();
+        cache.get(SearchResultCache.key("{}", Map.of()), () -> {
+            searches.incrementAndGet();
+            return CompletableFuture.completedFuture(response);
+        }).join();
+        Assert.assertEquals(2, searches.get());
+    }
+
+    @Test
+    public void failuresAreNotCached() {
+        SearchResultCache cache = new SearchResultCache();
+        CompletableFuture<byte[]> failed = cache.get(SearchResultCache.key("{}", Map.of()),
+            () -> CompletableFuture.failedFuture(new IOException("unavailable")));
+        Assert.assertTrue(failed.isCompletedExceptionally());
+        Assert.assertEquals(1, cache.get(SearchResultCache.key("{}", Map.of()), () -> CompletableFuture.completedFuture(new byte[1])).join().length);
+    }
+
+    @Test
+    public void searchesRacingAWriteAreNotKept() {
+        SearchResultCache cache = new SearchResultCache();
+        AtomicInteger searches = new AtomicInteger();
+        CompletableFuture<byte[]> search = new CompletableFuture<>();
+        CompletableFuture<byte[]> first = cache.get(SearchResultCache.key("{}", Map.of()), () -> {
+            searches.incrementAndGet();
+            return search;
+        });
+        cache.invalidateAll();
+        search.complete(new byte[1]);
+        Assert.assertEquals(1, first.join().length);
+        cache.get(SearchResultCache.key("{}", Map.of()), () -> {
+            searches.incrementAndGet();
+            return CompletableFuture.completedFuture(new byte[2]);
+        }).join();
+        Assert.assertEquals(2, searches.get());
+    }
+}
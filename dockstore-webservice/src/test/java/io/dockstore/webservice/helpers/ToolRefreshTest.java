@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers;
+
+import io.dockstore.webservice.CustomWebApplicationException;
+import io.dockstore.webservice.core.Tag;
+import io.dockstore.webservice.core.Tool;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.http.HttpStatus;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ToolRefreshTest {
+
+    @Test
+    public void stepsRunConcurrently() {
+        List<AbstractImageRegistry.ToolRefresh> refreshes = refreshes(4);
+        CountDownLatch allStarted = new CountDownLatch(refreshes.size());
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        AbstractImageRegistry.runConcurrently(refreshes, refresh -> {
+            threads.add(Thread.currentThread().getName());
+            allStarted.countDown();
+            try {
+                // only returns if every tool's step runs at the same time
+                Assert.assertTrue(allStarted.await(10, TimeUnit.SECONDS));
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Assert.assertEquals(refreshes.size(), threads.size());
+        refreshes.forEach(refresh -> Assert.assertNull(refresh.failure));
+    }
+
+    @Test
+    public void failuresAreKeptPerToolAndSkipLaterSteps() {
+        List<AbstractImageRegistry.ToolRefresh> refreshes = refreshes(3);
+        IllegalStateException failure = new IllegalStateException("registry unavailable");
+        AbstractImageRegistry.runConcurrently(refreshes, refresh -> {
+            if (refresh.tool.getName().equals("tool1")) {
+                throw failure;
+            }
+        });
+        Assert.assertNull(refreshes.get(0).failure);
+        Assert.assertSame(failure, refreshes.get(1).failure);
+        Assert.assertNull(refreshes.get(2).failure);
+
+        AtomicInteger steps = new AtomicInteger();
+        AbstractImageRegistry.runConcurrently(refreshes, refresh -> steps.incrementAndGet());
+        Assert.assertEquals(2, steps.get());
+    }
+
+    @Test
+    public void sequentialStepsSkipFailedToolsAndFailTheRefreshOnAFailure() {
+        List<AbstractImageRegistry.ToolRefresh> refreshes = refreshes(4);
+        refreshes.get(0).failure = new IllegalStateException("registry unavailable");
+        AtomicInteger steps = new AtomicInteger();
+        try {
+            AbstractImageRegistry.runSequentially(refreshes, refresh -> {
+                steps.incrementAndGet();
+                if (refresh.tool.getName().equals("tool2")) {
+                    throw new IllegalStateException("constraint violation");
+                }
+            }, "test");
+            Assert.fail("a failed database step should fail the refresh");
+        } catch (CustomWebApplicationException ex) {
+            Assert.assertEquals(HttpStatus.SC_INTERNAL_SERVER_ERROR, ex.getResponse().getStatus());
+        }
+        Assert.assertEquals(2, steps.get());
+        Assert.assertNotNull(refreshes.get(2).failure);
+        Assert.assertNull(refreshes.get(3).failure);
+    }
+
+    @Test
+    public void otherToolsAreStillSavedWhenOneFails() {
+        List<AbstractImageRegistry.ToolRefresh> refreshes = refreshes(3);
+        AbstractImageRegistry.runConcurrently(refreshes, refresh -> {
+            if (refresh.tool.getName().equals("tool1")) {
+                throw new IllegalStateException("git unavailable");
+            }
+        });
+        Set<String> saved = ConcurrentHashMap.newKeySet();
+        AbstractImageRegistry.runSequentially(refreshes, refresh -> saved.add(refresh.tool.getName()), "test");
+        AbstractImageRegistry.reportToolRefreshes(refreshes, "test");
+
+        Assert.assertEquals(Set.of("tool0", "tool2"), saved);
+        Assert.assertNotNull(refreshes.get(1).failure);
+    }
+
+    @Test
+    public void refreshFailsWhenEveryToolFails() {
+        List<AbstractImageRegistry.ToolRefresh> refreshes = refreshes(2);
+        AbstractImageRegistry.reportToolRefreshes(refreshes, "test");
+
+        CustomWebApplicationException notFound = new CustomWebApplicationException("no such repository", HttpStatus.SC_NOT_FOUND);
+        refreshes.get(0).failure = notFound;
+        refreshes.get(1).failure = new IllegalStateException("git unavailable");
+        try {
+            AbstractImageRegistry.reportToolRefreshes(refreshes, "test");
+            Assert.fail("the refresh should fail when no tool could be refreshed");
+        } catch (CustomWebApplicationException ex) {
+            Assert.assertSame(notFound, ex);
+        }
+    }
+
+    @Test
+    public void registryTagsAreCheckedBeforeTheyAreSaved() {
+        Tool tool = refreshes(1).get(0).tool;
+        AbstractImageRegistry.checkRegistryTags(tool, null);
+        AbstractImageRegistry.checkRegistryTags(tool, List.of(tag("1.0"), tag("2.0")));
+        for (List<Tag> invalid : List.of(List.of(tag("1.0"), tag("1.0")), List.of(tag(null)))) {
+            try {
+                AbstractImageRegistry.checkRegistryTags(tool, invalid);
+                Assert.fail("invalid tags should fail the tool");
+            } catch (CustomWebApplicationException ex) {
+                Assert.assertEquals(HttpStatus.SC_BAD_REQUEST, ex.getResponse().getStatus());
+            }
+        }
+    }
+
+    private static Tag tag(String name) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        return tag;
+    }
+
+    private static List<AbstractImageRegistry.ToolRefresh> refreshes(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            Tool tool = new Tool();
+            tool.setRegistry("quay.io");
+            tool.setNamespace("namespace");
+            tool.setName("tool" + i);
+            return new AbstractImageRegistry.ToolRefresh(tool, "git@github.com:namespace/tool" + i + ".git");
+        }).collect(Collectors.toList());
+    }
+}
@@ -5,9 +5,15 @@ import static org.junit.Assert.fail;
 import io.dockstore.common.DescriptorLanguage;
 import io.dockstore.webservice.CustomWebApplicationException;
 import io.dropwizard.testing.ResourceHelpers;
-import java.io.File;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.zip.ZipFile;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.apache.http.HttpStatus;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -18,29 +24,29 @@ public class ZipSourceFileHelperTest {
      * Contains workflow in folder
      */
     private static final String WHALESAY_ZIP_PATH = ResourceHelpers.resourceFilePath("whalesayinsubdir.zip");
+    private static final int LOCAL_HEADER_SIZE = 30;
 
     @Test
     public void validateZip() throws IOException {
-        ZipFile smartSeqZipFile = new ZipFile(new File(SMART_SEQ_ZIP_PATH));
         try {
-            ZipSourceFileHelper.validateZip(smartSeqZipFile, 1, 1);
+            ZipSourceFileHelper.readZipEntries(new FileInputStream(SMART_SEQ_ZIP_PATH), 1, 1);
             fail("Exepcted validate to throw error");
-        } catch (Exception ex) {
+        } catch (CustomWebApplicationException ex) {
             // This is expected
         }
         try {
-            ZipSourceFileHelper.validateZip(smartSeqZipFile, 1, 100);
+            ZipSourceFileHelper.readZipEntries(new FileInputStream(SMART_SEQ_ZIP_PATH), 100, 100);
             fail("Exepcted validate to throw error");
-        } catch (Exception ex) {
+        } catch (CustomWebApplicationException ex) {
             // This is expected
         }
-        ZipSourceFileHelper.validateZip(smartSeqZipFile, 100, 100_000);
+        Assert.assertEquals(9, ZipSourceFileHelper.readZipEntries(new FileInputStream(SMART_SEQ_ZIP_PATH), 100, 100_000).size());
     }
 
     @Test
     public void sourceFilesFromZip() throws IOException {
-        try (ZipFile smartSeqZipFile = new ZipFile(new File(SMART_SEQ_ZIP_PATH))) {
-            final ZipSourceFileHelper.SourceFiles sourceFiles = ZipSourceFileHelper.sourceFilesFromZip(smartSeqZipFile, DescriptorLanguage.FileType.DOCKSTORE_WDL);
+        try (InputStream smartSeqZip = new FileInputStream(SMART_SEQ_ZIP_PATH)) {
+            final ZipSourceFileHelper.SourceFiles sourceFiles = ZipSourceFileHelper.sourceFilesFromInputStream(smartSeqZip, DescriptorLanguage.FileType.DOCKSTORE_WDL);
             Assert.assertEquals("SmartSeq2SingleSample.wdl", sourceFiles.getPrimaryDescriptor().getPath());
             Assert.assertEquals("/SmartSeq2SingleSample.wdl", sourceFiles.getPrimaryDescriptor().getAbsolutePath());
             Assert.assertEquals(9, sourceFiles.getAllDescriptors().size());
@@ -50,8 +56,8 @@ public class ZipSourceFileHelperTest {
 
     @Test
     public void sourceFilesFromZipWithFolder() throws IOException {
-        try (ZipFile whalesayZipFile = new ZipFile(new File(WHALESAY_ZIP_PATH))) {
-            final ZipSourceFileHelper.SourceFiles sourceFiles = ZipSourceFileHelper.sourceFilesFromZip(whalesayZipFile, DescriptorLanguage.FileType.DOCKSTORE_WDL);
+        try (InputStream whalesayZip = new FileInputStream(WHALESAY_ZIP_PATH)) {
+            final ZipSourceFileHelper.SourceFiles sourceFiles = ZipSourceFileHelper.sourceFilesFromInputStream(whalesayZip, DescriptorLanguage.FileType.DOCKSTORE_WDL);
             Assert.assertEquals("subdir/Dockstore.wdl", sourceFiles.getPrimaryDescriptor().getPath());
             Assert.assertEquals("/subdir/Dockstore.wdl", sourceFiles.getPrimaryDescriptor().getAbsolutePath());
             Assert.assertEquals(2, sourceFiles.getAllDescriptors().size()); // One yml and one WDL
@@ -60,12 +66,30 @@ public class ZipSourceFileHelperTest {
 
     @Test
     public void validateType() throws IOException {
-        ZipFile smartSeqZipFile = new ZipFile(new File(SMART_SEQ_ZIP_PATH));
-        try {
-            ZipSourceFileHelper.sourceFilesFromZip(smartSeqZipFile, DescriptorLanguage.FileType.DOCKSTORE_CWL);
+        try (InputStream smartSeqZip = new FileInputStream(SMART_SEQ_ZIP_PATH)) {
+            ZipSourceFileHelper.sourceFilesFromInputStream(smartSeqZip, DescriptorLanguage.FileType.DOCKSTORE_CWL);
             Assert.fail("Expected failure because zip has WDL but workflow is CWL");
         } catch (CustomWebApplicationException ex) {
             // This is expected
         }
     }
+
+    @Test
+    public void undecodableEntryNamesAreBadRequests() throws IOException {
+        ByteArrayOutputStream zip = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(zip)) {
+            zipOutputStream.putNextEntry(new ZipEntry(".dockstore.yml"));
+            zipOutputStream.write("version: 1.0".getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.closeEntry();
+        }
+        // The name of the first entry starts right after its 30 byte local header; make its first byte invalid UTF-8
+        byte[] bytes = zip.toByteArray();
+        bytes[LOCAL_HEADER_SIZE] = (byte)0xFF;
+        try {
+            ZipSourceFileHelper.sourceFilesFromInputStream(new ByteArrayInputStream(bytes), DescriptorLanguage.FileType.DOCKSTORE_WDL);
+            Assert.fail("Expected failure because the entry name is not valid UTF-8");
+        } catch (CustomWebApplicationException ex) {
+            Assert.assertEquals(HttpStatus.SC_BAD_REQUEST, ex.getResponse().getStatus());
+        }
+    }
 }
@@ -0,0 +1,155 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.support.WriteRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+public class ElasticIndexQueueTest {
+
+    @Test
+    public void laterWritesReplaceQueuedWrites() throws InterruptedException {
+        List<DocWriteRequest<?>> sent = new CopyOnWriteArrayList<>();
+        ElasticIndexQueue queue = new ElasticIndexQueue((request, listener) -> {
+            sent.addAll(request.requests());
+            listener.onResponse(new BulkResponse(new BulkItemResponse[0], 1));
+        });
+        queue.enqueue(update("1", "{\"description\":\"first\"}"));
+        queue.enqueue(update("2", "{\"description\":\"other\"}"));
+        queue.enqueue(update("1", "{\"description\":\"second\"}"));
+        queue.enqueue(new DeleteRequest(ElasticListener.TOOLS_INDEX, "3"));
+        assertEquals(3, queue.size());
+        queue.close();
+
+        assertEquals(3, sent.size());
+        assertEquals("1", sent.get(0).id());
+        assertTrue(((UpdateRequest)sent.get(0)).doc().source().utf8ToString().contains("second"));
+        assertEquals(DocWriteRequest.OpType.DELETE, sent.get(2).opType());
+    }
+
+    @Test
+    public void failedBulkRequestsAreRetried() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        ElasticIndexQueue queue = new ElasticIndexQueue((request, listener) -> {
+            if (attempts.incrementAndGet() == 1) {
+                listener.onFailure(new IOException("connection refused"));
+            } else {
+                listener.onResponse(new BulkResponse(new BulkItemResponse[0], 1));
+            }
+        });
+        queue.start();
+        queue.enqueue(update("1", "{}"));
+        // flushed on the next interval, then re-queued after a backoff
+        for (int i = 0; i < 100 && attempts.get() < 2; i++) {
+            Thread.sleep(100);
+        }
+        queue.close();
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void rejectedItemsAreRequeued() throws InterruptedException {
+        List<List<String>> sent = new CopyOnWriteArrayList<>();
+        ElasticIndexQueue queue = new ElasticIndexQueue((request, listener) -> {
+            sent.add(request.requests().stream().map(DocWriteRequest::id).collect(Collectors.toList()));
+            if (sent.size() == 1) {
+                BulkItemResponse.Failure rejected = new BulkItemResponse.Failure(ElasticListener.TOOLS_INDEX, "_doc", "2",
+                    new IOException("queue is full"), RestStatus.TOO_MANY_REQUESTS);
+                listener.onResponse(new BulkResponse(new BulkItemResponse[] {
+                    new BulkItemResponse(0, DocWriteRequest.OpType.UPDATE, (DocWriteResponse)null),
+                    new BulkItemResponse(1, DocWriteRequest.OpType.UPDATE, rejected) }, 1));
+            } else {
+                listener.onResponse(new BulkResponse(new BulkItemResponse[0], 1));
+            }
+        });
+        queue.enqueue(update("1", "{}"));
+        queue.enqueue(update("2", "{}"));
+        queue.start();
+        for (int i = 0; i < 100 && sent.size() < 2; i++) {
+            Thread.sleep(100);
+        }
+        queue.close();
+
+        // only the rejected item is sent again, by the queue rather than by the BulkProcessor
+        assertEquals(List.of(List.of("1", "2"), List.of("2")), sent);
+    }
+
+    @Test
+    public void retriesOfSupersededWritesAreDropped() throws InterruptedException, ExecutionException, TimeoutException {
+        List<String> sent = new CopyOnWriteArrayList<>();
+        CompletableFuture<ActionListener<BulkResponse>> firstBulk = new CompletableFuture<>();
+        ElasticIndexQueue queue = new ElasticIndexQueue((request, listener) -> {
+            request.requests().forEach(sentRequest -> sent.add(((UpdateRequest)sentRequest).doc().source().utf8ToString()));
+            if (!firstBulk.complete(listener)) {
+                listener.onResponse(new BulkResponse(new BulkItemResponse[0], 1));
+            }
+        });
+        queue.start();
+        queue.enqueue(update("1", "{\"description\":\"stale\"}"));
+        ActionListener<BulkResponse> inFlight = firstBulk.get(10, TimeUnit.SECONDS);
+        // the newer write leaves the queue for the next bulk request while the stale one is in flight
+        queue.enqueue(update("1", "{\"description\":\"newer\"}"));
+        for (int i = 0; i < 100 && queue.size() > 0; i++) {
+            Thread.sleep(100);
+        }
+        inFlight.onFailure(new IOException("connection refused"));
+        queue.close();
+
+        assertEquals(2, sent.size());
+        assertTrue(sent.get(1).contains("newer"));
+    }
+
+    @Test
+    public void writesAreSearchableBeforeAfterWriteRuns() throws InterruptedException {
+        List<WriteRequest.RefreshPolicy> policies = new CopyOnWriteArrayList<>();
+        AtomicInteger afterWrites = new AtomicInteger();
+        ElasticIndexQueue queue = new ElasticIndexQueue((request, listener) -> {
+            policies.add(request.getRefreshPolicy());
+            listener.onResponse(new BulkResponse(new BulkItemResponse[] {
+                new BulkItemResponse(0, DocWriteRequest.OpType.UPDATE, (DocWriteResponse)null) }, 1));
+        }, afterWrites::incrementAndGet);
+        queue.enqueue(update("1", "{}"));
+        queue.close();
+
+        assertEquals(List.of(WriteRequest.RefreshPolicy.WAIT_UNTIL), policies);
+        assertEquals(1, afterWrites.get());
+    }
+
+    private UpdateRequest update(String id, String json) {
+        return new UpdateRequest(ElasticListener.TOOLS_INDEX, id).doc(json, XContentType.JSON).docAsUpsert(true);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hibernate.Session;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EntryPathListenerTest {
+
+    private static final String PATH = "quay.io/namespace/name/toolname";
+
+    private EntryPathListener listener;
+    private Session session;
+    private Tool tool;
+    private AtomicInteger lookups;
+
+    @Before
+    public void setUp() {
+        listener = new EntryPathListener();
+        session = mock(Session.class);
+        tool = new Tool();
+        tool.setId(1L);
+        tool.setRegistry("quay.io");
+        tool.setNamespace("namespace");
+        tool.setName("name");
+        tool.setToolname("toolname");
+        when(session.get(Tool.class, 1L)).thenReturn(tool);
+        lookups = new AtomicInteger();
+    }
+
+    @Test
+    public void normalizePath() {
+        Assert.assertEquals(PATH, EntryPathListener.normalizePath(Tool.splitPath(PATH + "/")));
+        Assert.assertEquals("quay.io/namespace/name", EntryPathListener.normalizePath(Tool.splitPath("quay.io/namespace/name")));
+        Assert.assertNull(EntryPathListener.normalizePath(Tool.splitPath("quay.io/namespace")));
+    }
+
+    @Test
+    public void cachedEntriesAreLoadedById() {
+        Assert.assertSame(tool, find());
+        Assert.assertSame(tool, find());
+        Assert.assertEquals(1, lookups.get());
+
+        listener.handleIndexUpdate(tool, StateManagerMode.UPDATE);
+        Assert.assertSame(tool, find());
+        Assert.assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void renamedEntriesAreLookedUpAgain() {
+        find();
+        tool.setToolname("renamed");
+        Assert.assertNull(listener.findByPath(Tool.class, PATH, found -> true, session, () -> {
+            lookups.incrementAndGet();
+            return null;
+        }));
+        Assert.assertEquals(2, lookups.get());
+    }
+
+    private Tool find() {
+        return listener.findByPath(Tool.class, PATH, found -> true, session, () -> {
+            lookups.incrementAndGet();
+            return tool;
+        });
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import io.dockstore.webservice.jdbi.ToolDAO;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PublishedToolPathListenerTest {
+
+    private static final String PUBLISHED = "quay.io/namespace/published";
+    private static final String UNPUBLISHED = "quay.io/namespace/unpublished";
+
+    private PublishedToolPathListener listener;
+    private ToolDAO toolDAO;
+
+    @Before
+    public void setUp() {
+        listener = new PublishedToolPathListener();
+        toolDAO = mock(ToolDAO.class);
+        when(toolDAO.findPublishedPaths(anyCollection())).thenReturn(Set.of(PUBLISHED));
+    }
+
+    @Test
+    public void onlyUncachedPathsAreLookedUp() {
+        Assert.assertEquals(Set.of(PUBLISHED), listener.findPublishedPaths(List.of(PUBLISHED, UNPUBLISHED), toolDAO));
+        verify(toolDAO).findPublishedPaths(Set.of(PUBLISHED, UNPUBLISHED));
+
+        // Paths that are not published are remembered too
+        Assert.assertEquals(Set.of(PUBLISHED), listener.findPublishedPaths(List.of(PUBLISHED, UNPUBLISHED), toolDAO));
+        Assert.assertEquals(Set.of(PUBLISHED),
+            listener.findPublishedPaths(List.of(PUBLISHED, UNPUBLISHED, "quay.io/namespace/other"), toolDAO));
+        verify(toolDAO).findPublishedPaths(Set.of("quay.io/namespace/other"));
+        verify(toolDAO, times(2)).findPublishedPaths(anyCollection());
+    }
+
+    @Test
+    public void updatingAToolDropsItsPath() {
+        listener.findPublishedPaths(List.of(PUBLISHED, UNPUBLISHED), toolDAO);
+        listener.handleIndexUpdate(tool("unpublished"), StateManagerMode.PUBLISH);
+
+        listener.findPublishedPaths(List.of(PUBLISHED, UNPUBLISHED), toolDAO);
+        verify(toolDAO).findPublishedPaths(Set.of(UNPUBLISHED));
+    }
+
+    @Test
+    public void bulkUpsertDropsEveryPath() {
+        listener.findPublishedPaths(List.of(PUBLISHED, UNPUBLISHED), toolDAO);
+        listener.bulkUpsert(Collections.emptyList());
+
+        listener.findPublishedPaths(List.of(PUBLISHED, UNPUBLISHED), toolDAO);
+        verify(toolDAO, times(2)).findPublishedPaths(Set.of(PUBLISHED, UNPUBLISHED));
+    }
+
+    @Test
+    public void lookupsThatRaceWithAnUpdateAreNotCached() {
+        // The tool is published while its path is being looked up, after the lookup read it as unpublished
+        when(toolDAO.findPublishedPaths(anyCollection())).thenAnswer(invocation -> {
+            listener.handleIndexUpdate(tool("unpublished"), StateManagerMode.PUBLISH);
+            return Collections.emptySet();
+        });
+        Assert.assertTrue(listener.findPublishedPaths(List.of(UNPUBLISHED), toolDAO).isEmpty());
+
+        when(toolDAO.findPublishedPaths(anyCollection())).thenReturn(Set.of(UNPUBLISHED));
+        Assert.assertEquals(Set.of(UNPUBLISHED), listener.findPublishedPaths(List.of(UNPUBLISHED), toolDAO));
+    }
+
+    private static Tool tool(String name) {
+        Tool tool = new Tool();
+        tool.setRegistry("quay.io");
+        tool.setNamespace("namespace");
+        tool.setName(name);
+        return tool;
+    }
+}
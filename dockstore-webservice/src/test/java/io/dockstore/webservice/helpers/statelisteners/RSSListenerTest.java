@@ -0,0 +1,98 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.dockstore.webservice.core.Entry;
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import io.dockstore.webservice.resources.rss.RSSHeader;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class RSSListenerTest {
+
+    @Test
+    public void changedEntryMovesToNewestEnd() {
+        RSSListener listener = new RSSListener(2);
+        AtomicInteger loads = new AtomicInteger();
+        String feed = listener.getFeed(() -> {
+            loads.incrementAndGet();
+            return List.of(publishedTool(1L, "a"), publishedTool(2L, "b"));
+        }, RSSHeader::new);
+        assertTrue(feed.indexOf("quay.io/foo/a") < feed.indexOf("quay.io/foo/b"));
+
+        listener.handleIndexUpdate(publishedTool(3L, "c"), StateManagerMode.PUBLISH);
+        listener.handleIndexUpdate(publishedTool(2L, "b"), StateManagerMode.UPDATE);
+        feed = listener.getFeed(List::of, RSSHeader::new);
+        assertEquals(1, loads.get());
+        assertFalse("oldest item is pushed out", feed.contains("quay.io/foo/a"));
+        assertTrue(feed.indexOf("quay.io/foo/c") < feed.indexOf("quay.io/foo/b"));
+        assertEquals(2, feed.split("<item>").length - 1);
+    }
+
+    @Test
+    public void removalReloads() {
+        RSSListener listener = new RSSListener(2);
+        List<Entry<?, ?>> entries = List.of(publishedTool(1L, "a"), publishedTool(2L, "b"));
+        listener.getFeed(() -> entries, RSSHeader::new);
+
+        listener.handleIndexUpdate(publishedTool(4L, "d"), StateManagerMode.DELETE);
+        assertTrue("unrelated removals leave the feed alone", listener.getFeed(List::of, RSSHeader::new).contains("quay.io/foo/a"));
+
+        listener.handleIndexUpdate(publishedTool(1L, "a"), StateManagerMode.DELETE);
+        String feed = listener.getFeed(() -> List.of(publishedTool(2L, "b")), RSSHeader::new);
+        assertFalse(feed.contains("quay.io/foo/a"));
+        assertTrue(feed.contains("quay.io/foo/b"));
+    }
+
+    @Test
+    public void feedIsOrderedByLastUpdated() {
+        RSSListener listener = new RSSListener(2);
+        // loaded least recently updated in the database first, but b was last updated in its repository after a
+        listener.getFeed(() -> List.of(publishedTool(2L, "b", 200L), publishedTool(1L, "a", 100L)), RSSHeader::new);
+        String feed = listener.getFeed(List::of, RSSHeader::new);
+        assertTrue(feed.indexOf("quay.io/foo/a") < feed.indexOf("quay.io/foo/b"));
+
+        // a change to the database only pushes out the least recently updated item there, the order is still by last update
+        listener.handleIndexUpdate(publishedTool(3L, "c", 150L), StateManagerMode.PUBLISH);
+        feed = listener.getFeed(List::of, RSSHeader::new);
+        assertFalse(feed.contains("quay.io/foo/b"));
+        assertTrue(feed.indexOf("quay.io/foo/a") < feed.indexOf("quay.io/foo/c"));
+    }
+
+    private Tool publishedTool(long id, String name, long lastUpdated) {
+        Tool tool = publishedTool(id, name);
+        tool.setLastUpdated(new Date(lastUpdated));
+        return tool;
+    }
+
+    private Tool publishedTool(long id, String name) {
+        Tool tool = new Tool();
+        tool.setId(id);
+        tool.setIsPublished(true);
+        tool.setRegistry("quay.io");
+        tool.setNamespace("foo");
+        tool.setName(name);
+        tool.setDescription("<escaped & checked>");
+        return tool;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+public class SitemapListenerTest {
+
+    private static final String ORGANIZATION_URL = "https://dockstore.org/organizations/foo";
+
+    @Test
+    public void loadsOnceAndUpdatesInPlace() {
+        SitemapListener listener = new SitemapListener();
+        AtomicInteger loads = new AtomicInteger();
+        SortedSet<String> sitemap = listener.getSitemap(() -> {
+            loads.incrementAndGet();
+            return Map.of(1L, "https://dockstore.org/containers/old");
+        }, () -> Set.of(ORGANIZATION_URL));
+        assertEquals(2, sitemap.size());
+
+        Tool tool = publishedTool(1L);
+        String newUrl = SitemapListener.createEntryURL(tool).get();
+        listener.handleIndexUpdate(tool, StateManagerMode.UPDATE);
+        sitemap = listener.getSitemap(() -> {
+            loads.incrementAndGet();
+            return Map.of();
+        }, Set::of);
+        assertEquals(1, loads.get());
+        assertTrue(sitemap.contains(newUrl));
+        assertFalse(sitemap.contains("https://dockstore.org/containers/old"));
+
+        listener.handleIndexUpdate(tool, StateManagerMode.DELETE);
+        assertFalse(listener.getSitemap(Map::of, Set::of).contains(newUrl));
+        assertTrue(listener.getSitemap(Map::of, Set::of).contains(ORGANIZATION_URL));
+    }
+
+    @Test
+    public void organizationsReloadSeparately() {
+        SitemapListener listener = new SitemapListener();
+        listener.getSitemap(() -> Map.of(1L, "https://dockstore.org/containers/a"), () -> Set.of(ORGANIZATION_URL));
+        listener.invalidateOrganizationsAndCollections();
+        SortedSet<String> sitemap = listener.getSitemap(Map::of, () -> Set.of(ORGANIZATION_URL + "/collections/bar"));
+        assertTrue(sitemap.contains("https://dockstore.org/containers/a"));
+        assertFalse(sitemap.contains(ORGANIZATION_URL));
+        assertTrue(sitemap.contains(ORGANIZATION_URL + "/collections/bar"));
+    }
+
+    private Tool publishedTool(long id) {
+        Tool tool = new Tool();
+        tool.setId(id);
+        tool.setIsPublished(true);
+        tool.setRegistry("quay.io");
+        tool.setNamespace("foo");
+        tool.setName("bar");
+        return tool;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import javax.ws.rs.core.Response;
+import org.junit.Test;
+
+public class TRSListenerTest {
+
+    private static final List<Object> ID_QUERY = Arrays.asList("#workflow/github.com/foo/bar", null, 1000);
+    private static final List<Object> LISTING_QUERY = Arrays.asList(null, null, 1000);
+    private static final List<Object> FILTERED_QUERY = Arrays.asList(null, "author", 1000);
+
+    @Test
+    public void updateEvictsOnlyAffectedPages() {
+        TRSListener listener = loadedListener();
+        listener.handleIndexUpdate(mockEntry(2L), StateManagerMode.UPDATE);
+        assertTrue(listener.getTrsResponse(ID_QUERY).isPresent());
+        assertTrue(listener.getTrsResponse(LISTING_QUERY).isPresent());
+        assertFalse("filtered listings may now match the updated entry", listener.getTrsResponse(FILTERED_QUERY).isPresent());
+
+        listener.handleIndexUpdate(mockEntry(1L), StateManagerMode.UPDATE);
+        assertFalse(listener.getTrsResponse(ID_QUERY).isPresent());
+        assertFalse(listener.getTrsResponse(LISTING_QUERY).isPresent());
+    }
+
+    @Test
+    public void publishEvictsListings() {
+        TRSListener listener = loadedListener();
+        listener.handleIndexUpdate(mockEntry(2L), StateManagerMode.PUBLISH);
+        assertTrue("a lookup by id cannot pick up a different entry", listener.getTrsResponse(ID_QUERY).isPresent());
+        assertFalse(listener.getTrsResponse(LISTING_QUERY).isPresent());
+        assertFalse(listener.getTrsResponse(FILTERED_QUERY).isPresent());
+    }
+
+    @Test
+    public void queriesAreComparedInFull() {
+        TRSListener listener = loadedListener();
+        assertFalse(listener.getTrsResponse(Arrays.asList(null, null, 10)).isPresent());
+        assertTrue(listener.getTrsResponse(Arrays.asList(null, null, 1000)).isPresent());
+    }
+
+    private TRSListener loadedListener() {
+        TRSListener listener = new TRSListener();
+        listener.loadTRSResponse(ID_QUERY, new TRSListener.CachedPage(Response.ok(), Set.of(1L), false, false, 1));
+        listener.loadTRSResponse(LISTING_QUERY, new TRSListener.CachedPage(Response.ok(), Set.of(1L), true, false, 1));
+        listener.loadTRSResponse(FILTERED_QUERY, new TRSListener.CachedPage(Response.ok(), Set.of(3L), true, true, 1));
+        return listener;
+    }
+
+    private Tool mockEntry(long id) {
+        Tool tool = new Tool();
+        tool.setId(id);
+        return tool;
+    }
+}
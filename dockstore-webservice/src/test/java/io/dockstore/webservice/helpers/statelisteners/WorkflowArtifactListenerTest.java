@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.helpers.statelisteners;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import io.dockstore.webservice.core.BioWorkflow;
+import io.dockstore.webservice.core.WorkflowVersion;
+import io.dockstore.webservice.helpers.StateManagerMode;
+import org.hibernate.SessionFactory;
+import org.junit.Test;
+
+public class WorkflowArtifactListenerTest {
+
+    @Test
+    public void toolTableJsonWithoutSpecifierIsRenderedAgain() {
+        WorkflowVersion workflowVersion = new WorkflowVersion();
+        assertFalse(WorkflowArtifactListener.hasCurrentToolTableJson(workflowVersion));
+        workflowVersion.setToolTableJson("[{\"id\":\"foo\"}]");
+        assertFalse(WorkflowArtifactListener.hasCurrentToolTableJson(workflowVersion));
+        workflowVersion.setToolTableJson("[{\"id\":\"foo\",\"specifier\":\"TAG\"}]");
+        assertTrue(WorkflowArtifactListener.hasCurrentToolTableJson(workflowVersion));
+        workflowVersion.setToolTableJson("[]");
+        assertTrue(WorkflowArtifactListener.hasCurrentToolTableJson(workflowVersion));
+    }
+
+    @Test
+    public void renderedVersionsAreNotQueued() throws InterruptedException {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        WorkflowArtifactListener listener = new WorkflowArtifactListener(sessionFactory);
+        BioWorkflow workflow = new BioWorkflow();
+        WorkflowVersion workflowVersion = new WorkflowVersion();
+        workflowVersion.setDagJson("{}");
+        workflowVersion.setToolTableJson("[]");
+        workflow.getWorkflowVersions().add(workflowVersion);
+
+        listener.handleIndexUpdate(workflow, StateManagerMode.UPDATE);
+        listener.stop();
+        verify(sessionFactory, never()).getCurrentSession();
+        verify(sessionFactory, never()).openSession();
+    }
+
+    @Test
+    public void frozenJsonRenderedForRequestsIsKept() {
+        WorkflowArtifactListener listener = new WorkflowArtifactListener(mock(SessionFactory.class));
+        assertFalse(listener.getFrozenDagJson(1L).isPresent());
+        listener.putFrozenDagJson(1L, "{\"nodes\":[]}");
+        listener.putFrozenToolTableJson(1L, "[]");
+        assertEquals("{\"nodes\":[]}", listener.getFrozenDagJson(1L).get());
+        assertEquals("[]", listener.getFrozenToolTableJson(1L).get());
+    }
+}
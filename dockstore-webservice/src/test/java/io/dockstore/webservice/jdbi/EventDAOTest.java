@@ -0,0 +1,207 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.jdbi;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.dockstore.webservice.core.BioWorkflow;
+import io.dockstore.webservice.core.Event;
+import io.dockstore.webservice.core.Organization;
+import io.dockstore.webservice.core.Tool;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Runs the event queries against an in-memory list of events, so that the merging of the per-kind queries can be checked
+ */
+public class EventDAOTest {
+    private static final String QUERY_PREFIX = "io.dockstore.webservice.core.Event.";
+    private static final long ORGANIZATION_ID = 1;
+    private static final long TOOL_ID = 10;
+    private static final long WORKFLOW_ID = 20;
+    private static final Set<Long> ORGANIZATION_IDS = Set.of(ORGANIZATION_ID);
+    private static final Set<Long> ENTRY_IDS = Set.of(TOOL_ID, WORKFLOW_ID);
+
+    private final List<Event> events = new ArrayList<>();
+    private EventDAO eventDAO;
+
+    @Before
+    public void setup() {
+        Organization organization = new Organization();
+        organization.setId(ORGANIZATION_ID);
+        Tool tool = new Tool();
+        tool.setId(TOOL_ID);
+        BioWorkflow workflow = new BioWorkflow();
+        workflow.setId(WORKFLOW_ID);
+        Organization otherOrganization = new Organization();
+        otherOrganization.setId(2);
+
+        for (long id = 1; id <= 12; id++) {
+            Event.Builder builder = new Event.Builder().withType(Event.EventType.MODIFY_ORG);
+            switch ((int)(id % 4)) {
+            case 0:
+                builder.withOrganization(organization);
+                break;
+            case 1:
+                builder.withTool(tool);
+                break;
+            case 2:
+                // matches both the organization and the workflow
+                builder.withOrganization(organization).withBioWorkflow(workflow);
+                break;
+            default:
+                builder.withOrganization(otherOrganization);
+                break;
+            }
+            Event event = builder.build();
+            event.setId(id);
+            events.add(event);
+        }
+
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        Session session = mock(Session.class);
+        when(sessionFactory.getCurrentSession()).thenReturn(session);
+        when(session.createNamedQuery(anyString(), eq(Event.class))).thenAnswer(invocation -> query(invocation.getArgument(0)));
+        eventDAO = new EventDAO(sessionFactory);
+    }
+
+    @Test
+    public void mergePagesKeepsEachEventOnceInDescendingIdOrder() {
+        List<Event> byOrganization = List.of(events.get(9), events.get(7), events.get(5));
+        List<Event> byWorkflow = List.of(events.get(9), events.get(5), events.get(1));
+        List<Event> byTool = List.of(events.get(8), events.get(4));
+
+        List<List<Event>> pages = List.of(byOrganization, byWorkflow, byTool);
+        Assert.assertEquals(List.of(10L, 9L, 8L, 6L, 5L, 2L), ids(EventDAO.mergePages(0, 100, pages)));
+        Assert.assertEquals(List.of(8L, 6L), ids(EventDAO.mergePages(2, 2, pages)));
+        Assert.assertEquals(List.of(), ids(EventDAO.mergePages(0, 10, List.of(List.of(), List.of()))));
+    }
+
+    @Test
+    public void eventsMatchingSeveralKindsOfIdAreReturnedOnce() {
+        List<Event> found = eventDAO.findAllByOrganizationIdsOrEntryIds(ORGANIZATION_IDS, ENTRY_IDS, Long.MAX_VALUE, 0, 100);
+        Assert.assertEquals(expected(), ids(found));
+    }
+
+    @Test
+    public void offsetsApplyToTheMergedEvents() {
+        List<Event> found = eventDAO.findAllByOrganizationIdsOrEntryIds(ORGANIZATION_IDS, ENTRY_IDS, Long.MAX_VALUE, 2, 3);
+        Assert.assertEquals(expected().subList(2, 5), ids(found));
+    }
+
+    @Test
+    public void walkingPagesWithACursorReturnsEveryEventOnce() {
+        List<Long> walked = new ArrayList<>();
+        long beforeId = Long.MAX_VALUE;
+        List<Event> page;
+        do {
+            page = eventDAO.findAllByOrganizationIdsOrEntryIds(ORGANIZATION_IDS, ENTRY_IDS, beforeId, null, 2);
+            Assert.assertTrue(page.size() <= 2);
+            walked.addAll(ids(page));
+            if (!page.isEmpty()) {
+                beforeId = page.get(page.size() - 1).getId();
+            }
+        } while (!page.isEmpty());
+        Assert.assertEquals(expected(), walked);
+    }
+
+    @Test
+    public void entryEventsComeFromToolsAndWorkflows() {
+        List<Event> found = eventDAO.findEventsByEntryIDs(ENTRY_IDS, 10, 0, 100);
+        Assert.assertEquals(List.of(9L, 6L, 5L, 2L, 1L), ids(found));
+        Assert.assertTrue(eventDAO.findAllByOrganizationIdsOrEntryIds(Set.of(), Set.of(), Long.MAX_VALUE, 0, 100).isEmpty());
+    }
+
+    /**
+     * @return ids of the events of the organization, tool or workflow, newest first
+     */
+    private List<Long> expected() {
+        return events.stream()
+            .filter(event -> matches(event.getOrganization() == null ? null : event.getOrganization().getId(), ORGANIZATION_IDS)
+                || matches(event.getTool() == null ? null : event.getTool().getId(), ENTRY_IDS)
+                || matches(event.getWorkflow() == null ? null : event.getWorkflow().getId(), ENTRY_IDS))
+            .map(Event::getId).sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Query<Event> query(String queryName) {
+        final Query<Event> query = mock(Query.class, RETURNS_SELF);
+        final Map<String, Object> parameters = new HashMap<>();
+        final int[] maxResults = {Integer.MAX_VALUE};
+        when(query.setParameterList(anyString(), anyCollection())).thenAnswer(invocation -> {
+            parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+            return query;
+        });
+        when(query.setParameter(anyString(), any())).thenAnswer(invocation -> {
+            parameters.put(invocation.getArgument(0), invocation.getArgument(1));
+            return query;
+        });
+        when(query.setMaxResults(anyInt())).thenAnswer(invocation -> {
+            maxResults[0] = invocation.getArgument(0);
+            return query;
+        });
+        when(query.list()).thenAnswer(invocation -> {
+            final Predicate<Event> kind;
+            switch (queryName.substring(QUERY_PREFIX.length())) {
+            case "findAllByOrganizationIds":
+                kind = event -> matches(event.getOrganization() == null ? null : event.getOrganization().getId(),
+                    (Collection<Long>)parameters.get("organizationIDs"));
+                break;
+            case "findAllByToolIds":
+                kind = event -> matches(event.getTool() == null ? null : event.getTool().getId(),
+                    (Collection<Long>)parameters.get("entryIDs"));
+                break;
+            case "findAllByWorkflowIds":
+                kind = event -> matches(event.getWorkflow() == null ? null : event.getWorkflow().getId(),
+                    (Collection<Long>)parameters.get("entryIDs"));
+                break;
+            default:
+                throw new IllegalArgumentException(queryName);
+            }
+            return events.stream().filter(kind).filter(event -> event.getId() < (Long)parameters.get("beforeId"))
+                .sorted(Comparator.comparing(Event::getId).reversed()).limit(maxResults[0]).collect(Collectors.toList());
+        });
+        return query;
+    }
+
+    private static boolean matches(Long id, Collection<Long> ids) {
+        return id != null && ids.contains(id);
+    }
+
+    private static List<Long> ids(List<Event> events) {
+        return events.stream().map(Event::getId).collect(Collectors.toList());
+    }
+}
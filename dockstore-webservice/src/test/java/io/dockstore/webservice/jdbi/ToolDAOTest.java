@@ -0,0 +1,154 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.dockstore.webservice.jdbi;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_MOCKS;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.core.database.ToolPath;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.query.Query;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class ToolDAOTest {
+    private static final String FIND_PUBLISHED_PATHS = "io.dockstore.webservice.core.Tool.findPublishedPathsByNamespacesAndNames";
+
+    private Session session;
+    private Query<ToolPath> query;
+    private ToolDAO toolDAO;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        SessionFactory sessionFactory = mock(SessionFactory.class);
+        session = mock(Session.class);
+        query = mock(Query.class, RETURNS_SELF);
+        when(sessionFactory.getCurrentSession()).thenReturn(session);
+        when(session.getNamedQuery(FIND_PUBLISHED_PATHS)).thenReturn(query);
+        toolDAO = new ToolDAO(sessionFactory);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void publishedPathsAreFoundWithOneQuery() {
+        // The query matches namespaces and names separately, so it can return tools that were not asked about
+        when(query.list()).thenReturn(List.of(
+            new ToolPath(1, "quay.io", "foo", "bar", null),
+            new ToolPath(2, "quay.io", "foo", "bar", "variant"),
+            new ToolPath(3, "quay.io", "baz", "qux", ""),
+            new ToolPath(4, "quay.io", "foo", "qux", null),
+            new ToolPath(5, "registry.hub.docker.com", "baz", "bar", null)));
+
+        Set<String> published = toolDAO.findPublishedPaths(
+            List.of("quay.io/foo/bar", "quay.io/baz/qux", "quay.io/baz/bar", "not/a/valid/docker/path"));
+
+        Assert.assertEquals(Set.of("quay.io/foo/bar", "quay.io/baz/qux"), published);
+        ArgumentCaptor<Collection> namespaces = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection> names = ArgumentCaptor.forClass(Collection.class);
+        verify(query).setParameterList(eq("namespaces"), namespaces.capture());
+        verify(query).setParameterList(eq("names"), names.capture());
+        Assert.assertEquals(Set.of("foo", "baz"), Set.copyOf(namespaces.getValue()));
+        Assert.assertEquals(Set.of("bar", "qux"), Set.copyOf(names.getValue()));
+        verify(session).getNamedQuery(FIND_PUBLISHED_PATHS);
+    }
+
+    @Test
+    public void invalidPathsAreNotLookedUp() {
+        Assert.assertTrue(toolDAO.findPublishedPaths(List.of("foo", "not/a/valid/docker/path")).isEmpty());
+        Assert.assertTrue(toolDAO.findPublishedPaths(List.of()).isEmpty());
+        verify(session, never()).getNamedQuery(anyString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void trsToolsArePagedAndFilteredInTheDatabase() {
+        final CriteriaBuilder cb = criteriaBuilder();
+        final Path<String> column = column(cb, Tool.class);
+        final CriteriaQuery<Tool> criteriaQuery = cb.createQuery(Tool.class);
+        final Query<Tool> toolQuery = mock(Query.class, RETURNS_SELF);
+        final List<Tool> page = List.of(new Tool());
+        when(session.createQuery(criteriaQuery)).thenReturn(toolQuery);
+        when(toolQuery.getResultList()).thenReturn(page);
+
+        Assert.assertSame(page, toolDAO.filterTrsToolsGet("CWL", null, "foo", null, null, null, null, 20, 10));
+
+        verify(toolQuery).setFirstResult(20);
+        verify(toolQuery).setMaxResults(10);
+        ArgumentCaptor<String> patterns = ArgumentCaptor.forClass(String.class);
+        verify(cb, times(2)).like(any(), patterns.capture());
+        Assert.assertEquals(List.of("%foo%", "%,CWL,%"), patterns.getAllValues());
+        // descriptor types are stored comma separated, wrapping the column in commas only matches whole elements
+        verify(cb).concat(",", column);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void trsToolsAreCountedWithTheSameFilters() {
+        final CriteriaBuilder cb = criteriaBuilder();
+        column(cb, Long.class);
+        final CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
+        final Query<Long> countQuery = mock(Query.class);
+        when(session.createQuery(criteriaQuery)).thenReturn(countQuery);
+        when(countQuery.getSingleResult()).thenReturn(42L);
+
+        Assert.assertEquals(42L, toolDAO.countTrsToolsGet("WDL", "quay.io", null, null, null, null, null));
+
+        verify(cb).like(any(), eq("%quay.io%"));
+        verify(cb).like(any(), eq("%,WDL,%"));
+        verify(cb, times(2)).like(any(), anyString());
+    }
+
+    private CriteriaBuilder criteriaBuilder() {
+        final CriteriaBuilder cb = mock(CriteriaBuilder.class, RETURNS_MOCKS);
+        when(session.getCriteriaBuilder()).thenReturn(cb);
+        return cb;
+    }
+
+    /**
+     * Has the query built for resultClass select from a root whose every column is the returned path
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Path<String> column(CriteriaBuilder cb, Class<T> resultClass) {
+        final CriteriaQuery<T> criteriaQuery = mock(CriteriaQuery.class);
+        final Root<Tool> root = mock(Root.class);
+        final Path<String> column = mock(Path.class);
+        when(cb.createQuery(resultClass)).thenReturn(criteriaQuery);
+        when(criteriaQuery.from(Tool.class)).thenReturn(root);
+        doReturn(column).when(root).get(anyString());
+        return column;
+    }
+}
@@ -9,7 +9,9 @@ import io.dockstore.webservice.CustomWebApplicationException;
 import io.dockstore.webservice.core.FileFormat;
 import io.dockstore.webservice.core.ParsedInformation;
 import io.dockstore.webservice.core.SourceFile;
-import io.dockstore.webservice.core.Tool;
+import io.dockstore.webservice.core.Version;
+import io.dockstore.webservice.core.WorkflowVersion;
+import io.dockstore.webservice.helpers.SourceCodeRepoInterface;
 import io.dockstore.webservice.jdbi.ToolDAO;
 import io.dockstore.webservice.languages.LanguageHandlerInterface.DockerSpecifier;
 import io.dropwizard.testing.ResourceHelpers;
@@ -17,8 +19,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
 import org.apache.commons.io.FileUtils;
 import org.apache.http.HttpStatus;
 import org.junit.Assert;
@@ -45,6 +48,26 @@ public class CWLHandlerTest {
         Assert.assertTrue(outputs.stream().anyMatch(input -> input.getValue().equals("http://edamontology.org/format_1964")));
     }
 
+    /**
+     * Tests that files imported by several files, and files that import each other, are read once
+     */
+    @Test
+    public void processCyclicImports() {
+        CWLHandler cwlHandler = new CWLHandler();
+        SourceCodeRepoInterface sourceCodeRepoInterface = Mockito.mock(SourceCodeRepoInterface.class);
+        Version version = new WorkflowVersion();
+        when(sourceCodeRepoInterface.readGitRepositoryFile(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.eq("/a.cwl")))
+            .thenReturn("class: Workflow\nsteps:\n  b:\n    run: b.cwl\n");
+        when(sourceCodeRepoInterface.readGitRepositoryFile(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.eq("/b.cwl")))
+            .thenReturn("class: CommandLineTool\nrequirements:\n  - $import: a.cwl\n");
+
+        Map<String, SourceFile> imports = cwlHandler.processImports("dockstore/cyclic", "class: Workflow\nsteps:\n  a:\n    run: a.cwl\n  b:\n    run: b.cwl\n",
+            version, sourceCodeRepoInterface, "/Dockstore.cwl");
+        Assert.assertEquals(Set.of("/a.cwl", "/b.cwl"), imports.keySet());
+        Mockito.verify(sourceCodeRepoInterface, Mockito.times(1)).readGitRepositoryFile(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.eq("/a.cwl"));
+        Mockito.verify(sourceCodeRepoInterface, Mockito.times(1)).readGitRepositoryFile(Mockito.any(), Mockito.any(), Mockito.any(), Mockito.eq("/b.cwl"));
+    }
+
     @Test
     public void testDeterminingImageRegistry() {
         CWLHandler cwlHandler = new CWLHandler();
@@ -138,55 +161,55 @@ public class CWLHandlerTest {
                 handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo@sha256:123456789abc", toolDAO,
                         DockerSpecifier.DIGEST));
 
-        // When toolDAO.findAllByPath() returns null/empty
-        when(toolDAO.findAllByPath(Mockito.anyString(), Mockito.anyBoolean())).thenReturn(null);
+        // When no path is the path of a published tool
+        final Predicate<String> noPublishedToolPaths = path -> false;
         Assert.assertEquals("https://quay.io/repository/foo/bar",
-                handler.getURLFromEntry("quay.io/foo/bar", toolDAO, DockerSpecifier.NO_TAG));
+                handler.getURLFromEntry("quay.io/foo/bar", DockerSpecifier.NO_TAG, noPublishedToolPaths));
         Assert.assertEquals("https://quay.io/repository/foo/bar",
-                handler.getURLFromEntry("quay.io/foo/bar:1", toolDAO, DockerSpecifier.TAG));
+                handler.getURLFromEntry("quay.io/foo/bar:1", DockerSpecifier.TAG, noPublishedToolPaths));
 
-        Assert.assertEquals("https://hub.docker.com/r/foo/bar", handler.getURLFromEntry("foo/bar", toolDAO, DockerSpecifier.NO_TAG));
-        Assert.assertEquals("https://hub.docker.com/r/foo/bar", handler.getURLFromEntry("foo/bar:1", toolDAO, DockerSpecifier.TAG));
+        Assert.assertEquals("https://hub.docker.com/r/foo/bar", handler.getURLFromEntry("foo/bar", DockerSpecifier.NO_TAG, noPublishedToolPaths));
+        Assert.assertEquals("https://hub.docker.com/r/foo/bar", handler.getURLFromEntry("foo/bar:1", DockerSpecifier.TAG, noPublishedToolPaths));
 
         Assert.assertEquals("https://gallery.ecr.aws/foo/bar",
-                handler.getURLFromEntry("public.ecr.aws/foo/bar", toolDAO, DockerSpecifier.NO_TAG));
+                handler.getURLFromEntry("public.ecr.aws/foo/bar", DockerSpecifier.NO_TAG, noPublishedToolPaths));
         Assert.assertEquals("https://gallery.ecr.aws/foo/bar",
-                handler.getURLFromEntry("public.ecr.aws/foo/bar:1", toolDAO, DockerSpecifier.TAG));
+                handler.getURLFromEntry("public.ecr.aws/foo/bar:1", DockerSpecifier.TAG, noPublishedToolPaths));
         Assert.assertEquals("https://gallery.ecr.aws/foo/bar",
-                handler.getURLFromEntry("public.ecr.aws/foo/bar@sha256:123456789abc", toolDAO, DockerSpecifier.DIGEST));
+                handler.getURLFromEntry("public.ecr.aws/foo/bar@sha256:123456789abc", DockerSpecifier.DIGEST, noPublishedToolPaths));
         Assert.assertEquals("https://012345678912.dkr.ecr.us-east-1.amazonaws.com/foo",
-                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo", toolDAO, DockerSpecifier.NO_TAG));
+                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo", DockerSpecifier.NO_TAG, noPublishedToolPaths));
         Assert.assertEquals("https://012345678912.dkr.ecr.us-east-1.amazonaws.com/foo",
-                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo:1", toolDAO, DockerSpecifier.TAG));
+                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo:1", DockerSpecifier.TAG, noPublishedToolPaths));
         Assert.assertEquals("https://012345678912.dkr.ecr.us-east-1.amazonaws.com/foo",
-                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo@sha256:123456789abc", toolDAO,
-                        DockerSpecifier.DIGEST));
+                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo@sha256:123456789abc", DockerSpecifier.DIGEST,
+                        noPublishedToolPaths));
 
-        // When toolDAO.findAllByPath() returns non-empty List<Tool>
-        when(toolDAO.findAllByPath(Mockito.anyString(), Mockito.anyBoolean())).thenReturn(List.of(Mockito.mock(Tool.class)));
+        // When every path is the path of a published tool
+        final Predicate<String> allPublishedToolPaths = path -> true;
         Assert.assertEquals("https://www.dockstore.org/containers/quay.io/foo/bar",
-                handler.getURLFromEntry("quay.io/foo/bar", toolDAO, DockerSpecifier.NO_TAG));
+                handler.getURLFromEntry("quay.io/foo/bar", DockerSpecifier.NO_TAG, allPublishedToolPaths));
         Assert.assertEquals("https://www.dockstore.org/containers/quay.io/foo/bar",
-                handler.getURLFromEntry("quay.io/foo/bar:1", toolDAO, DockerSpecifier.TAG));
+                handler.getURLFromEntry("quay.io/foo/bar:1", DockerSpecifier.TAG, allPublishedToolPaths));
 
         Assert.assertEquals("https://www.dockstore.org/containers/registry.hub.docker.com/foo/bar",
-                handler.getURLFromEntry("foo/bar", toolDAO, DockerSpecifier.NO_TAG));
+                handler.getURLFromEntry("foo/bar", DockerSpecifier.NO_TAG, allPublishedToolPaths));
         Assert.assertEquals("https://www.dockstore.org/containers/registry.hub.docker.com/foo/bar",
-                handler.getURLFromEntry("foo/bar:1", toolDAO, DockerSpecifier.TAG));
+                handler.getURLFromEntry("foo/bar:1", DockerSpecifier.TAG, allPublishedToolPaths));
 
         Assert.assertEquals("https://www.dockstore.org/containers/public.ecr.aws/foo/bar",
-                handler.getURLFromEntry("public.ecr.aws/foo/bar", toolDAO, DockerSpecifier.NO_TAG));
+                handler.getURLFromEntry("public.ecr.aws/foo/bar", DockerSpecifier.NO_TAG, allPublishedToolPaths));
         Assert.assertEquals("https://www.dockstore.org/containers/public.ecr.aws/foo/bar",
-                handler.getURLFromEntry("public.ecr.aws/foo/bar:1", toolDAO, DockerSpecifier.TAG));
+                handler.getURLFromEntry("public.ecr.aws/foo/bar:1", DockerSpecifier.TAG, allPublishedToolPaths));
         Assert.assertEquals("https://www.dockstore.org/containers/public.ecr.aws/foo/bar",
-                handler.getURLFromEntry("public.ecr.aws/foo/bar@sha256:123456789", toolDAO, DockerSpecifier.DIGEST));
+                handler.getURLFromEntry("public.ecr.aws/foo/bar@sha256:123456789", DockerSpecifier.DIGEST, allPublishedToolPaths));
         Assert.assertEquals("https://www.dockstore.org/containers/012345678912.dkr.ecr.us-east-1.amazonaws.com/foo",
-                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo", toolDAO, DockerSpecifier.NO_TAG));
+                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo", DockerSpecifier.NO_TAG, allPublishedToolPaths));
         Assert.assertEquals("https://www.dockstore.org/containers/012345678912.dkr.ecr.us-east-1.amazonaws.com/foo",
-                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo:1", toolDAO, DockerSpecifier.TAG));
+                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo:1", DockerSpecifier.TAG, allPublishedToolPaths));
         Assert.assertEquals("https://www.dockstore.org/containers/012345678912.dkr.ecr.us-east-1.amazonaws.com/foo",
-                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo@sha256:123456789", toolDAO,
-                        DockerSpecifier.DIGEST));
+                handler.getURLFromEntry("012345678912.dkr.ecr.us-east-1.amazonaws.com/foo@sha256:123456789", DockerSpecifier.DIGEST,
+                        allPublishedToolPaths));
     }
 
     @Test
@@ -196,7 +219,7 @@ public class CWLHandlerTest {
         // create and mock parameters for getContent()
         final Set<SourceFile> emptySet = Collections.emptySet();
         final ToolDAO toolDAO = Mockito.mock(ToolDAO.class);
-        when(toolDAO.findAllByPath(Mockito.anyString(), Mockito.anyBoolean())).thenReturn(null);
+        when(toolDAO.findPublishedPaths(Mockito.anyCollection())).thenReturn(Collections.emptySet());
 
         // expect parsing error
         File cwlFile = new File(ResourceHelpers.resourceFilePath("brokenCWL.cwl"));
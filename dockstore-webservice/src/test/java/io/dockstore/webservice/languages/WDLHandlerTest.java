@@ -137,10 +137,10 @@ public class WDLHandlerTest {
         final Map<String, SourceFile> sourceFileMap = wdlHandler
                 .processImports("whatever", content, emptyVersion, new GatkSvClinicalSourceCodeRepoInterface(), MAIN_WDL);
 
-        // wdlHandler.getContent ultimately invokes toolDAO.findAllByPath from LanguageHandlerEntry.getURLFromEntry for look
-        // up; just have it return null
+        // wdlHandler.getContent ultimately invokes toolDAO.findPublishedPaths from LanguageHandlerInterface.getPublishedToolPaths for look
+        // up; just have it find nothing
         final ToolDAO toolDAO = Mockito.mock(ToolDAO.class);
-        when(toolDAO.findAllByPath(Mockito.anyString(), Mockito.anyBoolean())).thenReturn(null);
+        when(toolDAO.findPublishedPaths(Mockito.anyCollection())).thenReturn(Collections.emptySet());
 
         final Optional<String> toolsStr = wdlHandler
                 .getContent(MAIN_WDL, content, new HashSet<SourceFile>(sourceFileMap.values()), LanguageHandlerInterface.Type.TOOLS, toolDAO);
@@ -160,10 +160,10 @@ public class WDLHandlerTest {
         final File wdlFile = new File(ResourceHelpers.resourceFilePath("brokenWDL.wdl"));
         final Set<SourceFile> emptySet = Collections.emptySet();
 
-        // wdlHandler.getContent ultimately invokes toolDAO.findAllByPath from LanguageHandlerEntry.getURLFromEntry for look
-        // up; just have it return null
+        // wdlHandler.getContent ultimately invokes toolDAO.findPublishedPaths from LanguageHandlerInterface.getPublishedToolPaths for look
+        // up; just have it find nothing
         final ToolDAO toolDAO = Mockito.mock(ToolDAO.class);
-        when(toolDAO.findAllByPath(Mockito.anyString(), Mockito.anyBoolean())).thenReturn(null);
+        when(toolDAO.findPublishedPaths(Mockito.anyCollection())).thenReturn(Collections.emptySet());
 
         // run test with a WDL descriptor with syntax errors
         try {
@@ -176,6 +176,29 @@ public class WDLHandlerTest {
         }
     }
 
+    @Test
+    public void secondaryWdlFilesAreTheSameWithOrWithoutThePrimary() {
+        final SourceFile primary = sourceFile("/main.wdl", DescriptorLanguage.FileType.DOCKSTORE_WDL, "version 1.0");
+        final SourceFile imported = sourceFile("/tasks/task.wdl", DescriptorLanguage.FileType.DOCKSTORE_WDL, "version 1.0");
+        final SourceFile testJson = sourceFile("/test.json", DescriptorLanguage.FileType.WDL_TEST_JSON, "{}");
+        final SourceFile empty = sourceFile("/tasks/empty.wdl", DescriptorLanguage.FileType.DOCKSTORE_WDL, null);
+
+        final Map<String, String> everyFile = WDLHandler.secondaryWdlFiles(Set.of(primary, imported, testJson, empty), "/main.wdl");
+        final Map<String, String> secondaryOnly = WDLHandler.secondaryWdlFiles(Set.of(imported), "/main.wdl");
+
+        Assert.assertEquals(Map.of("/tasks/task.wdl", "version 1.0"), everyFile);
+        Assert.assertEquals(everyFile, secondaryOnly);
+    }
+
+    private static SourceFile sourceFile(String path, DescriptorLanguage.FileType type, String content) {
+        final SourceFile sourceFile = new SourceFile();
+        sourceFile.setPath(path);
+        sourceFile.setAbsolutePath(path);
+        sourceFile.setType(type);
+        sourceFile.setContent(content);
+        return sourceFile;
+    }
+
     private String getGatkSvMainDescriptorContent() throws IOException {
         final File wdlFile = new File(ResourceHelpers.resourceFilePath("gatk-sv-clinical" + MAIN_WDL));
         return FileUtils.readFileToString(wdlFile, StandardCharsets.UTF_8);
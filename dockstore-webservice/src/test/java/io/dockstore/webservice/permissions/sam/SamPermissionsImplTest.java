@@ -316,6 +316,58 @@ public class SamPermissionsImplTest {
         }
     }
 
+    @Test
+    public void decisionsAreCachedUntilPermissionsChange() throws ApiException {
+        final String resourceId = SamConstants.WORKFLOW_PREFIX + FOO_WORKFLOW_NAME;
+        when(resourcesApiMock.resourceAction(SamConstants.RESOURCE_TYPE, resourceId, SamConstants.toSamAction(Role.Action.READ)))
+                .thenReturn(Boolean.TRUE, Boolean.FALSE);
+        when(resourcesApiMock.listResourcePolicies(SamConstants.RESOURCE_TYPE, resourceId))
+                .thenReturn(Collections.singletonList(readerAccessPolicyResponseEntry));
+        Assert.assertTrue(samPermissionsImpl.canDoAction(userMock, workflowInstance, Role.Action.READ));
+        Assert.assertTrue(samPermissionsImpl.canDoAction(userMock, workflowInstance, Role.Action.READ));
+        verify(resourcesApiMock, times(1)).resourceAction(SamConstants.RESOURCE_TYPE, resourceId, SamConstants.toSamAction(Role.Action.READ));
+
+        samPermissionsImpl.removePermission(userMock, workflowInstance, JANE_DOE_GMAIL_COM, Role.READER);
+        Assert.assertFalse(samPermissionsImpl.canDoAction(userMock, workflowInstance, Role.Action.READ));
+        verify(resourcesApiMock, times(2)).resourceAction(SamConstants.RESOURCE_TYPE, resourceId, SamConstants.toSamAction(Role.Action.READ));
+    }
+
+    @Test
+    public void sharedWorkflowListingsAreRemembered() throws ApiException {
+        ResourceAndAccessPolicy writer = new ResourceAndAccessPolicy();
+        writer.setResourceId(SamConstants.ENCODED_WORKFLOW_PREFIX + FOO_WORKFLOW_NAME);
+        writer.setAccessPolicyName(SamConstants.WRITE_POLICY);
+        when(resourcesApiMock.listResourcesAndPolicies(SamConstants.RESOURCE_TYPE)).thenReturn(Collections.singletonList(writer));
+
+        final Map<Role, List<String>> sharedWorkflows = samPermissionsImpl.workflowsSharedWithUser(userMock);
+        Assert.assertEquals(Collections.singletonList(FOO_WORKFLOW_NAME), sharedWorkflows.get(Role.WRITER));
+
+        // The answers are remembered for later checks
+        Assert.assertTrue(samPermissionsImpl.canDoAction(userMock, workflowInstance, Role.Action.WRITE));
+        Assert.assertFalse(samPermissionsImpl.canDoAction(userMock, workflowInstance, Role.Action.SHARE));
+        verify(resourcesApiMock, times(0)).resourceAction(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void actionsForWorkflowsAreResolvedWithOneCall() throws ApiException {
+        ResourceAndAccessPolicy writer = new ResourceAndAccessPolicy();
+        writer.setResourceId(SamConstants.ENCODED_WORKFLOW_PREFIX + FOO_WORKFLOW_NAME);
+        writer.setAccessPolicyName(SamConstants.WRITE_POLICY);
+        when(resourcesApiMock.listResourcesAndPolicies(SamConstants.RESOURCE_TYPE)).thenReturn(Collections.singletonList(writer));
+        Workflow gooWorkflow = Mockito.mock(Workflow.class);
+        when(gooWorkflow.getWorkflowPath()).thenReturn(GOO_WORKFLOW_NAME);
+
+        final Map<String, List<Role.Action>> actions = samPermissionsImpl.getActionsForWorkflows(userMock, Arrays.asList(workflowInstance, gooWorkflow));
+        Assert.assertEquals(Arrays.asList(Role.Action.WRITE, Role.Action.READ), actions.get(FOO_WORKFLOW_NAME));
+        Assert.assertTrue(actions.get(GOO_WORKFLOW_NAME).isEmpty());
+
+        // Resolved again from the remembered answers, for both workflows
+        Assert.assertEquals(actions, samPermissionsImpl.getActionsForWorkflows(userMock, Arrays.asList(workflowInstance, gooWorkflow)));
+        Assert.assertFalse(samPermissionsImpl.canDoAction(userMock, gooWorkflow, Role.Action.READ));
+        verify(resourcesApiMock, times(1)).listResourcesAndPolicies(SamConstants.RESOURCE_TYPE);
+        verify(resourcesApiMock, times(0)).resourceAction(anyString(), anyString(), anyString());
+    }
+
     @Test
     public void userNotInSamReturnsEmptyMap() throws ApiException {
         // https://github.com/dockstore/dockstore/issues/1597
@@ -0,0 +1,76 @@
+/*
+ *    Copyright 2021 OICR
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package io.openapi.api.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ToolsApiServiceImplTest {
+
+    @Test
+    public void pagesStraddleToolsAndWorkflows() {
+        assertSplit(new ToolsApiServiceImpl.PageSplit(25, 10, 1, 10), 10, 10, 0, 0);
+        assertSplit(new ToolsApiServiceImpl.PageSplit(25, 10, 2, 10), 20, 5, 0, 5);
+        assertSplit(new ToolsApiServiceImpl.PageSplit(25, 10, 3, 10), 25, 0, 5, 5);
+        assertSplit(new ToolsApiServiceImpl.PageSplit(25, 10, 4, 10), 25, 0, 15, 0);
+    }
+
+    @Test
+    public void pagesWithOnlyOneKindOfEntry() {
+        assertSplit(new ToolsApiServiceImpl.PageSplit(0, 10, 1, 4), 0, 0, 4, 4);
+        assertSplit(new ToolsApiServiceImpl.PageSplit(10, 0, 2, 4), 8, 2, 0, 0);
+        assertSplit(new ToolsApiServiceImpl.PageSplit(0, 0, 0, 4), 0, 0, 0, 0);
+    }
+
+    @Test
+    public void walkingEveryPageListsEachEntryOnce() {
+        final int toolCount = 7;
+        final int workflowCount = 5;
+        final List<String> expected = listing(0, toolCount, 0, workflowCount);
+        for (int pageSize = 1; pageSize <= toolCount + workflowCount + 1; pageSize++) {
+            final List<String> walked = new ArrayList<>();
+            final int numberOfPages = (toolCount + workflowCount + pageSize - 1) / pageSize;
+            for (int pageIndex = 0; pageIndex < numberOfPages; pageIndex++) {
+                final ToolsApiServiceImpl.PageSplit split = new ToolsApiServiceImpl.PageSplit(toolCount, workflowCount, pageIndex, pageSize);
+                final List<String> page = listing(split.toolFirstResult, split.toolsOnPage, split.workflowFirstResult, split.workflowsOnPage);
+                Assert.assertTrue(page.size() <= pageSize);
+                walked.addAll(page);
+            }
+            Assert.assertEquals("page size " + pageSize, expected, walked);
+        }
+    }
+
+    private static void assertSplit(ToolsApiServiceImpl.PageSplit split, int toolFirstResult, int toolsOnPage, int workflowFirstResult,
+        int workflowsOnPage) {
+        Assert.assertEquals(toolFirstResult, split.toolFirstResult);
+        Assert.assertEquals(toolsOnPage, split.toolsOnPage);
+        Assert.assertEquals(workflowFirstResult, split.workflowFirstResult);
+        Assert.assertEquals(workflowsOnPage, split.workflowsOnPage);
+    }
+
+    private static List<String> listing(int toolFirstResult, int tools, int workflowFirstResult, int workflows) {
+        final List<String> entries = new ArrayList<>();
+        for (int i = 0; i < tools; i++) {
+            entries.add("tool" + (toolFirstResult + i));
+        }
+        for (int i = 0; i < workflows; i++) {
+            entries.add("workflow" + (workflowFirstResult + i));
+        }
+        return entries;
+    }
+}